@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.common;
+
+import org.apache.inlong.agent.utils.ThreadUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run the loops of many instances on a bounded thread pool. Each loop runs one round at a time
+ * and returns the delay before its next round instead of sleeping in its own thread, so the
+ * count of threads does not grow with the count of loops. The loops ready at the same time run
+ * in turn, and a waiting loop can be woken before its delay ends.
+ * The schedulers shared by the plugins are got by thread type and stopped together on agent stop.
+ */
+public class LoopScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoopScheduler.class);
+    private static final long SHUTDOWN_WAIT_MS = 5000;
+    private static final Map<String, LoopScheduler> SHARED_SCHEDULERS = new ConcurrentHashMap<>();
+
+    private final String threadType;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Set<LoopHandle> handles = ConcurrentHashMap.newKeySet();
+
+    public LoopScheduler(String threadType, int threadCount) {
+        this.threadType = threadType;
+        executor = new ScheduledThreadPoolExecutor(Math.max(1, threadCount), new AgentThreadFactory(threadType));
+        executor.setRemoveOnCancelPolicy(true);
+        // the delayed rounds are dropped on shutdown, their loops are finished
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Get the shared scheduler of the thread type, a new one is created if absent or shutdown
+     *
+     * @param threadType the thread type of the scheduler
+     * @param threadCount the thread count if created
+     * @return the shared scheduler
+     */
+    public static LoopScheduler getShared(String threadType, int threadCount) {
+        return SHARED_SCHEDULERS.compute(threadType,
+                (type, scheduler) -> scheduler == null || scheduler.isShutdown()
+                        ? new LoopScheduler(type, threadCount)
+                        : scheduler);
+    }
+
+    /**
+     * Shutdown all the shared schedulers
+     */
+    public static void shutdownShared() {
+        for (String threadType : SHARED_SCHEDULERS.keySet()) {
+            LoopScheduler scheduler = SHARED_SCHEDULERS.remove(threadType);
+            if (scheduler != null) {
+                scheduler.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Submit a loop, its first round runs at once
+     *
+     * @param name the name of the loop
+     * @param loop the loop
+     * @return the handle to wake up the loop
+     */
+    public LoopHandle submit(String name, Loop loop) {
+        LoopHandle handle = new LoopHandle(name, loop);
+        handles.add(handle);
+        handle.start();
+        return handle;
+    }
+
+    /**
+     * Shutdown the scheduler, the running rounds are waited for, and all the loops are finished
+     * without running their next rounds
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("loop scheduler {} not terminated in {} ms, interrupt the running rounds",
+                        threadType, SHUTDOWN_WAIT_MS);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        for (LoopHandle handle : handles) {
+            handle.finish();
+        }
+        handles.clear();
+        LOGGER.info("loop scheduler {} shutdown", threadType);
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * One round of a loop
+     */
+    public interface Loop {
+
+        /**
+         * Run one round of the loop, it should not block for long
+         *
+         * @return the delay in milliseconds before the next round, the loop ends if it is negative
+         */
+        long runOnce();
+    }
+
+    /**
+     * The handle of a submitted loop. At most one round of a loop is dispatched at a time, a dispatch
+     * carries the generation of the handle, and the dispatches of older generations do nothing, so the
+     * rounds never overlap.
+     */
+    public class LoopHandle {
+
+        private static final int WAITING = 0;
+        private static final int RUNNING = 1;
+        private static final int FINISHED = 2;
+
+        private final String name;
+        private final Loop loop;
+        // guarded by this
+        private int state = WAITING;
+        private boolean woken = false;
+        private long generation = 0;
+        private ScheduledFuture<?> future;
+
+        private LoopHandle(String name, Loop loop) {
+            this.name = name;
+            this.loop = loop;
+        }
+
+        private synchronized void start() {
+            dispatch(0);
+        }
+
+        private void runRound(long dispatchGeneration) {
+            synchronized (this) {
+                if (state != WAITING || dispatchGeneration != generation) {
+                    return;
+                }
+                state = RUNNING;
+                woken = false;
+                future = null;
+            }
+            long delay;
+            try {
+                delay = loop.runOnce();
+            } catch (Throwable t) {
+                LOGGER.error("loop {} run error, stop it: ", name, t);
+                ThreadUtils.threadThrowableHandler(Thread.currentThread(), t);
+                delay = -1;
+            }
+            synchronized (this) {
+                if (delay < 0) {
+                    finish();
+                    return;
+                }
+                state = WAITING;
+                // woken while running, the next round starts at once
+                dispatch(woken ? 0 : delay);
+            }
+        }
+
+        // must hold the lock of this
+        private void dispatch(long delay) {
+            long dispatchGeneration = ++generation;
+            Runnable round = () -> runRound(dispatchGeneration);
+            try {
+                if (delay <= 0) {
+                    future = null;
+                    executor.execute(round);
+                } else {
+                    future = executor.schedule(round, delay, TimeUnit.MILLISECONDS);
+                }
+            } catch (RejectedExecutionException e) {
+                // the scheduler is shutdown
+                finish();
+            }
+        }
+
+        private synchronized void finish() {
+            state = FINISHED;
+            future = null;
+            handles.remove(this);
+        }
+
+        /**
+         * Run the next round of the loop at once instead of after its delay, the next round starts
+         * right after the current one if the loop is running
+         */
+        public synchronized void wakeup() {
+            if (state == FINISHED) {
+                return;
+            }
+            if (state == RUNNING) {
+                woken = true;
+                return;
+            }
+            // already dispatched to run at once
+            if (future == null) {
+                return;
+            }
+            future.cancel(false);
+            dispatch(0);
+        }
+
+        public synchronized boolean isFinished() {
+            return state == FINISHED;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
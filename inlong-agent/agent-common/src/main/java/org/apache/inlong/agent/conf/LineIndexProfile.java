@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.conf;
+
+import org.apache.inlong.agent.constant.CommonConstants;
+import org.apache.inlong.agent.constant.TaskConstants;
+
+import com.google.gson.Gson;
+
+import java.util.Arrays;
+
+/**
+ * Sparse index from the line number to the byte position of a file, a point (line, pos) means the
+ * first line lines end before pos. The points are kept on the multiples of the interval, and every
+ * other point is dropped with the interval doubled when the points are full, so the index of a huge
+ * file stays small. The points are read by the reader and serialized by the offset flush thread, so
+ * they are accessed under the lock of the instance.
+ */
+public class LineIndexProfile extends AbstractConfiguration {
+
+    public static final long DEFAULT_INTERVAL = 10000;
+    public static final int MAX_POINT_COUNT = 1024;
+    private static final Gson GSON = new Gson();
+
+    private long[] lines = new long[16];
+    private long[] positions = new long[16];
+    private int count = 0;
+    private long interval = DEFAULT_INTERVAL;
+    private long nextLine = DEFAULT_INTERVAL;
+
+    /**
+     * parse json string to line index instance.
+     *
+     * @return line index
+     */
+    public static LineIndexProfile parseJsonStr(String jsonStr) {
+        LineIndexProfile lineIndexProfile = new LineIndexProfile();
+        lineIndexProfile.loadJsonStrResource(jsonStr);
+        lineIndexProfile.loadPoints();
+        return lineIndexProfile;
+    }
+
+    public LineIndexProfile() {
+    }
+
+    public LineIndexProfile(String taskId, String instanceId, String inodeInfo) {
+        setTaskId(taskId);
+        setInstanceId(instanceId);
+        setInodeInfo(inodeInfo);
+    }
+
+    public synchronized String toJsonStr() {
+        setLong(TaskConstants.LINE_INDEX_INTERVAL, interval);
+        set(TaskConstants.LINE_INDEX, encodePoints());
+        return GSON.toJson(getConfigStorage());
+    }
+
+    public String getTaskId() {
+        return get(TaskConstants.TASK_ID);
+    }
+
+    public void setTaskId(String taskId) {
+        set(TaskConstants.TASK_ID, taskId);
+    }
+
+    public String getInstanceId() {
+        return get(TaskConstants.INSTANCE_ID);
+    }
+
+    public void setInstanceId(String instanceId) {
+        set(TaskConstants.INSTANCE_ID, instanceId);
+    }
+
+    public String getInodeInfo() {
+        return get(TaskConstants.INODE_INFO);
+    }
+
+    public void setInodeInfo(String inodeInfo) {
+        set(TaskConstants.INODE_INFO, inodeInfo);
+    }
+
+    public long getLastUpdateTime() {
+        return getLong(TaskConstants.LAST_UPDATE_TIME, 0);
+    }
+
+    public void setLastUpdateTime(long lastUpdateTime) {
+        setLong(TaskConstants.LAST_UPDATE_TIME, lastUpdateTime);
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public synchronized int getPointCount() {
+        return count;
+    }
+
+    /**
+     * Offer the position after a line, it is kept if the line is on the interval
+     *
+     * @param line the count of lines read
+     * @param pos the byte position after the line
+     * @return true if a point is added
+     */
+    public synchronized boolean offer(long line, long pos) {
+        if (line < nextLine) {
+            return false;
+        }
+        if (line % interval != 0) {
+            nextLine = (line / interval + 1) * interval;
+            return false;
+        }
+        if (count == MAX_POINT_COUNT) {
+            thin();
+            if (line % interval != 0) {
+                return false;
+            }
+        }
+        if (count == lines.length) {
+            lines = Arrays.copyOf(lines, count * 2);
+            positions = Arrays.copyOf(positions, count * 2);
+        }
+        lines[count] = line;
+        positions[count] = pos;
+        count++;
+        nextLine = line + interval;
+        return true;
+    }
+
+    /**
+     * Find the last point not after the line
+     *
+     * @param line the count of lines
+     * @return {line, pos} of the point, or null if none
+     */
+    public synchronized long[] floor(long line) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (lines[mid] <= line) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high < 0 ? null : new long[]{lines[high], positions[high]};
+    }
+
+    @Override
+    public boolean allRequiredKeyExist() {
+        return hasKey(TaskConstants.TASK_ID) && hasKey(TaskConstants.INSTANCE_ID)
+                && hasKey(TaskConstants.INODE_INFO) && hasKey(TaskConstants.LAST_UPDATE_TIME);
+    }
+
+    private void thin() {
+        interval *= 2;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (lines[i] % interval == 0) {
+                lines[kept] = lines[i];
+                positions[kept] = positions[i];
+                kept++;
+            }
+        }
+        count = kept;
+        long lastLine = count == 0 ? 0 : lines[count - 1];
+        nextLine = (lastLine / interval + 1) * interval;
+    }
+
+    private String encodePoints() {
+        StringBuilder builder = new StringBuilder(count * 16);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(CommonConstants.COMMA);
+            }
+            builder.append(lines[i]).append(CommonConstants.AGENT_COLON).append(positions[i]);
+        }
+        return builder.toString();
+    }
+
+    private void loadPoints() {
+        interval = Math.max(1, getLong(TaskConstants.LINE_INDEX_INTERVAL, DEFAULT_INTERVAL));
+        String points = get(TaskConstants.LINE_INDEX, "");
+        if (!points.isEmpty()) {
+            for (String point : points.split(CommonConstants.COMMA)) {
+                String[] linePos = point.split(CommonConstants.AGENT_COLON);
+                long line = Long.parseLong(linePos[0]);
+                if (count > 0 && line <= lines[count - 1]) {
+                    continue;
+                }
+                if (count == lines.length) {
+                    lines = Arrays.copyOf(lines, count * 2);
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+                lines[count] = line;
+                positions[count] = Long.parseLong(linePos[1]);
+                count++;
+            }
+        }
+        long lastLine = count == 0 ? 0 : lines[count - 1];
+        nextLine = (lastLine / interval + 1) * interval;
+    }
+}
@@ -34,6 +34,15 @@ public class AgentConstants {
     public static final String AGENT_STORE_PATH_TASK = ".localdb/task";
     public static final String AGENT_STORE_PATH_INSTANCE = ".localdb/instance";
     public static final String AGENT_STORE_PATH_OFFSET = ".localdb/offset";
+    // the offsets are flushed to the store together by this interval
+    public static final String AGENT_OFFSET_FLUSH_INTERVAL = "agent.offset.flush.interval";
+    public static final long DEFAULT_AGENT_OFFSET_FLUSH_INTERVAL = 1000L;
+    // skip the write ahead log for the batch writes, the writes not flushed from memory are lost on crash
+    public static final String AGENT_ROCKS_DB_BATCH_DISABLE_WAL = "agent.rocks.db.batch.disable.wal";
+    public static final boolean DEFAULT_AGENT_ROCKS_DB_BATCH_DISABLE_WAL = false;
+    // write the values in binary instead of json, the agents of the former versions could not read them
+    public static final String AGENT_ROCKS_DB_BINARY_VALUE_ENABLE = "agent.rocks.db.binary.value.enable";
+    public static final boolean DEFAULT_AGENT_ROCKS_DB_BINARY_VALUE_ENABLE = false;
     public static final String AGENT_UNIQ_ID = "agent.uniq.id";
     // default is empty.
     public static final String AGENT_FETCHER_CLASSNAME = "agent.fetcher.classname";
@@ -76,6 +85,16 @@ public class AgentConstants {
     public static final String AGENT_ENABLE_OOM_EXIT = "agent.enable.oom.exit";
     public static final boolean DEFAULT_ENABLE_OOM_EXIT = false;
 
+    // run the loops of the sources and sinks on shared thread pools instead of a thread per instance
+    public static final String AGENT_LOOP_SCHEDULER_ENABLE = "agent.loop.scheduler.enable";
+    public static final boolean DEFAULT_AGENT_LOOP_SCHEDULER_ENABLE = false;
+    public static final String AGENT_LOOP_SCHEDULER_THREADS = "agent.loop.scheduler.threads";
+    public static final int DEFAULT_AGENT_LOOP_SCHEDULER_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+    // the file tasks rescan only the directories of the lost watch events, the full scan is a fallback
+    public static final String AGENT_FILE_FULL_SCAN_INTERVAL = "agent.file.full.scan.interval";
+    public static final long DEFAULT_AGENT_FILE_FULL_SCAN_INTERVAL = 60 * 1000L;
+
     public static final String AGENT_SCAN_RANGE = "agent.scan.range";
     public static final String DEFAULT_AGENT_SCAN_RANGE = "-2";
     public static final String DEFAULT_AGENT_SCAN_RANGE_DAY = "-2";
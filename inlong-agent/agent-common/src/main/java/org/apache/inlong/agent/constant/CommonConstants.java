@@ -89,6 +89,7 @@ public class CommonConstants {
     public static final String TASK_ID_PREFIX = "task";
     public static final String INSTANCE_ID_PREFIX = "ins";
     public static final String OFFSET_ID_PREFIX = "offset";
+    public static final String LINE_INDEX_ID_PREFIX = "lineIndex";
     public static final String AGENT_OS_NAME = "os.name";
     public static final String AGENT_NIX_OS = "nix";
     public static final String AGENT_NUX_OS = "nux";
@@ -42,6 +42,8 @@ public class TaskConstants extends CommonConstants {
     public static final String OFFSET = "offset";
     public static final String DEFAULT_OFFSET = "-1L";
     public static final String INODE_INFO = "inodeInfo";
+    public static final String LINE_INDEX = "lineIndex";
+    public static final String LINE_INDEX_INTERVAL = "lineIndexInterval";
 
     // File task
     public static final String TASK_DIR_FILTER_PATTERN = "task.fileTask.dir.pattern"; // deprecated
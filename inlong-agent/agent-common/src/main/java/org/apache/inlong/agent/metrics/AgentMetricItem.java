@@ -54,6 +54,11 @@ public class AgentMetricItem extends MetricItem {
     public static final String M_PLUGIN_SEND_FAIL_COUNT = "pluginSendFailCount";
     public static final String M_PLUGIN_READ_SUCCESS_COUNT = "pluginReadSuccessCount";
     public static final String M_PLUGIN_SEND_SUCCESS_COUNT = "pluginSendSuccessCount";
+    // file discovery
+    public static final String M_FILE_DISCOVER_COUNT = "fileDiscoverCount";
+    public static final String M_FILE_DISCOVER_LATENCY = "fileDiscoverLatency";
+    public static final String M_FILE_RESCAN_DIR_COUNT = "fileRescanDirCount";
+    public static final String M_WATCH_OVERFLOW_COUNT = "watchOverflowCount";
 
     @Dimension
     public String pluginId;
@@ -92,4 +97,13 @@ public class AgentMetricItem extends MetricItem {
     public AtomicLong pluginReadSuccessCount = new AtomicLong(0);
     @CountMetric
     public AtomicLong pluginSendSuccessCount = new AtomicLong(0);
+    @CountMetric
+    public AtomicLong fileDiscoverCount = new AtomicLong(0);
+    // the total milliseconds from the creation to the discovery of the files
+    @CountMetric
+    public AtomicLong fileDiscoverLatency = new AtomicLong(0);
+    @CountMetric
+    public AtomicLong fileRescanDirCount = new AtomicLong(0);
+    @CountMetric
+    public AtomicLong watchOverflowCount = new AtomicLong(0);
 }
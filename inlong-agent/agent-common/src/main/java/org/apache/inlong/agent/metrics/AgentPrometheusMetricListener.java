@@ -46,6 +46,9 @@ import static org.apache.inlong.agent.constant.AgentConstants.DEFAULT_PROMETHEUS
 import static org.apache.inlong.agent.constant.AgentConstants.PROMETHEUS_EXPORTER_PORT;
 import static org.apache.inlong.agent.metrics.AgentMetricItem.KEY_COMPONENT_NAME;
 import static org.apache.inlong.agent.metrics.AgentMetricItem.KEY_PLUGIN_ID;
+import static org.apache.inlong.agent.metrics.AgentMetricItem.M_FILE_DISCOVER_COUNT;
+import static org.apache.inlong.agent.metrics.AgentMetricItem.M_FILE_DISCOVER_LATENCY;
+import static org.apache.inlong.agent.metrics.AgentMetricItem.M_FILE_RESCAN_DIR_COUNT;
 import static org.apache.inlong.agent.metrics.AgentMetricItem.M_JOB_FATAL_COUNT;
 import static org.apache.inlong.agent.metrics.AgentMetricItem.M_JOB_RUNNING_COUNT;
 import static org.apache.inlong.agent.metrics.AgentMetricItem.M_PLUGIN_READ_COUNT;
@@ -61,6 +64,7 @@ import static org.apache.inlong.agent.metrics.AgentMetricItem.M_SOURCE_SUCCESS_C
 import static org.apache.inlong.agent.metrics.AgentMetricItem.M_TASK_FATAL_COUNT;
 import static org.apache.inlong.agent.metrics.AgentMetricItem.M_TASK_RETRYING_COUNT;
 import static org.apache.inlong.agent.metrics.AgentMetricItem.M_TASK_RUNNING_COUNT;
+import static org.apache.inlong.agent.metrics.AgentMetricItem.M_WATCH_OVERFLOW_COUNT;
 import static org.apache.inlong.common.metric.MetricItemMBean.DOMAIN_SEPARATOR;
 import static org.apache.inlong.common.metric.MetricRegister.JMX_DOMAIN;
 
@@ -111,6 +115,11 @@ public class AgentPrometheusMetricListener extends Collector implements MetricLi
         metricValueMap.put(M_PLUGIN_READ_SUCCESS_COUNT, metricItem.pluginReadSuccessCount);
         metricValueMap.put(M_PLUGIN_SEND_SUCCESS_COUNT, metricItem.pluginSendSuccessCount);
 
+        metricValueMap.put(M_FILE_DISCOVER_COUNT, metricItem.fileDiscoverCount);
+        metricValueMap.put(M_FILE_DISCOVER_LATENCY, metricItem.fileDiscoverLatency);
+        metricValueMap.put(M_FILE_RESCAN_DIR_COUNT, metricItem.fileRescanDirCount);
+        metricValueMap.put(M_WATCH_OVERFLOW_COUNT, metricItem.watchOverflowCount);
+
         int metricsServerPort = AgentConfiguration.getAgentConf()
                 .getInt(PROMETHEUS_EXPORTER_PORT, DEFAULT_PROMETHEUS_EXPORTER_PORT);
         try {
@@ -143,6 +152,10 @@ public class AgentPrometheusMetricListener extends Collector implements MetricLi
         totalCounter.addMetric(Arrays.asList(M_PLUGIN_SEND_FAIL_COUNT), metricItem.pluginSendFailCount.get());
         totalCounter.addMetric(Arrays.asList(M_PLUGIN_READ_SUCCESS_COUNT), metricItem.pluginReadSuccessCount.get());
         totalCounter.addMetric(Arrays.asList(M_PLUGIN_SEND_SUCCESS_COUNT), metricItem.pluginSendSuccessCount.get());
+        totalCounter.addMetric(Arrays.asList(M_FILE_DISCOVER_COUNT), metricItem.fileDiscoverCount.get());
+        totalCounter.addMetric(Arrays.asList(M_FILE_DISCOVER_LATENCY), metricItem.fileDiscoverLatency.get());
+        totalCounter.addMetric(Arrays.asList(M_FILE_RESCAN_DIR_COUNT), metricItem.fileRescanDirCount.get());
+        totalCounter.addMetric(Arrays.asList(M_WATCH_OVERFLOW_COUNT), metricItem.watchOverflowCount.get());
         List<MetricFamilySamples> mfs = new ArrayList<>();
         mfs.add(totalCounter);
 
@@ -178,6 +191,11 @@ public class AgentPrometheusMetricListener extends Collector implements MetricLi
             addCounterMetricFamily(M_PLUGIN_SEND_FAIL_COUNT, itemValue, idCounter);
             addCounterMetricFamily(M_PLUGIN_READ_SUCCESS_COUNT, itemValue, idCounter);
             addCounterMetricFamily(M_PLUGIN_SEND_SUCCESS_COUNT, itemValue, idCounter);
+
+            addCounterMetricFamily(M_FILE_DISCOVER_COUNT, itemValue, idCounter);
+            addCounterMetricFamily(M_FILE_DISCOVER_LATENCY, itemValue, idCounter);
+            addCounterMetricFamily(M_FILE_RESCAN_DIR_COUNT, itemValue, idCounter);
+            addCounterMetricFamily(M_WATCH_OVERFLOW_COUNT, itemValue, idCounter);
             mfs.add(idCounter);
         }
         return mfs;
@@ -22,11 +22,17 @@ import org.apache.inlong.agent.conf.JobProfile;
 import org.apache.inlong.agent.conf.OffsetProfile;
 import org.apache.inlong.agent.conf.TaskProfile;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * key value entity. key is string and value is a json
  */
 public class KeyValueEntity {
 
+    // the first byte of the binary encoding, which never starts a json string
+    private static final byte BINARY_MAGIC = 0x01;
+
     private String key;
 
     private StateSearchKey stateSearchKey;
@@ -106,6 +112,75 @@ public class KeyValueEntity {
         return InstanceProfile.parseJsonStr(getJsonValue());
     }
 
+    /**
+     * Encode the entity in binary, the strings are kept as length prefixed utf-8 bytes, which is
+     * smaller and cheaper than json as the json value is not escaped again
+     */
+    public byte[] toBytes() {
+        byte[] keyBytes = toUtf8(key);
+        byte[] fileNameBytes = toUtf8(fileName);
+        byte[] jsonValueBytes = toUtf8(jsonValue);
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 3 * Integer.BYTES + lengthOf(keyBytes)
+                + lengthOf(fileNameBytes) + lengthOf(jsonValueBytes));
+        buffer.put(BINARY_MAGIC);
+        buffer.put((byte) (stateSearchKey == null ? -1 : stateSearchKey.ordinal()));
+        putBytes(buffer, keyBytes);
+        putBytes(buffer, fileNameBytes);
+        putBytes(buffer, jsonValueBytes);
+        return buffer.array();
+    }
+
+    /**
+     * Whether the bytes are encoded by {@link #toBytes()}
+     */
+    public static boolean isBinary(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == BINARY_MAGIC;
+    }
+
+    /**
+     * Decode the entity encoded by {@link #toBytes()}
+     */
+    public static KeyValueEntity parseFrom(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != BINARY_MAGIC) {
+            throw new IllegalArgumentException("not a binary key value entity");
+        }
+        int state = buffer.get();
+        KeyValueEntity entity = new KeyValueEntity();
+        entity.stateSearchKey = state < 0 ? null : StateSearchKey.values()[state];
+        entity.key = getString(buffer);
+        entity.fileName = getString(buffer);
+        entity.jsonValue = getString(buffer);
+        return entity;
+    }
+
+    private static byte[] toUtf8(String str) {
+        return str == null ? null : str.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int len = buffer.getInt();
+        if (len < 0) {
+            return null;
+        }
+        String str = new String(buffer.array(), buffer.position(), len, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + len);
+        return str;
+    }
+
     /**
      * check whether the entity is finished
      */
@@ -17,6 +17,7 @@
 
 package org.apache.inlong.agent.store;
 
+import org.apache.inlong.agent.conf.LineIndexProfile;
 import org.apache.inlong.agent.conf.OffsetProfile;
 import org.apache.inlong.agent.constant.CommonConstants;
 import org.apache.inlong.agent.constant.TaskConstants;
@@ -29,7 +30,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Store for offset
+ * Store for offset and the line index of the files
  */
 public class OffsetStore {
 
@@ -41,14 +42,27 @@ public class OffsetStore {
     }
 
     public List<OffsetProfile> listAllOffsets() {
-        List<KeyValueEntity> result = this.store.findAll(store.getUniqueKey());
+        List<KeyValueEntity> result = this.store.findAll(getPrefix(CommonConstants.OFFSET_ID_PREFIX));
         List<OffsetProfile> offsetList = new ArrayList<>();
         for (KeyValueEntity entity : result) {
-            offsetList.add(entity.getAsOffsetProfile());
+            if (entity != null) {
+                offsetList.add(entity.getAsOffsetProfile());
+            }
         }
         return offsetList;
     }
 
+    public List<LineIndexProfile> listAllLineIndexes() {
+        List<KeyValueEntity> result = this.store.findAll(getPrefix(CommonConstants.LINE_INDEX_ID_PREFIX));
+        List<LineIndexProfile> lineIndexList = new ArrayList<>();
+        for (KeyValueEntity entity : result) {
+            if (entity != null) {
+                lineIndexList.add(LineIndexProfile.parseJsonStr(entity.getJsonValue()));
+            }
+        }
+        return lineIndexList;
+    }
+
     public OffsetProfile getOffset(String taskId, String instanceId) {
         KeyValueEntity result = store.get(getKey(taskId, instanceId));
         if (result == null) {
@@ -64,22 +78,93 @@ public class OffsetStore {
     public void setOffset(OffsetProfile offsetProfile) {
         offsetProfile.setLastUpdateTime(AgentUtils.getCurrentTime());
         if (offsetProfile.allRequiredKeyExist()) {
-            String keyName = getKey(offsetProfile.getTaskId(),
-                    offsetProfile.getInstanceId());
-            KeyValueEntity entity = new KeyValueEntity(keyName,
-                    offsetProfile.toJsonStr(), offsetProfile.get(TaskConstants.INSTANCE_ID));
-            store.put(entity);
+            store.put(toEntity(offsetProfile));
+        }
+    }
+
+    /**
+     * Store the offsets together in one write
+     *
+     * @param offsetProfiles the offsets
+     */
+    public void setOffsets(List<OffsetProfile> offsetProfiles) {
+        List<KeyValueEntity> entities = new ArrayList<>(offsetProfiles.size());
+        for (OffsetProfile offsetProfile : offsetProfiles) {
+            if (offsetProfile.allRequiredKeyExist()) {
+                entities.add(toEntity(offsetProfile));
+            }
+        }
+        if (!entities.isEmpty()) {
+            store.putBatch(entities);
+        }
+    }
+
+    private KeyValueEntity toEntity(OffsetProfile offsetProfile) {
+        String keyName = getKey(offsetProfile.getTaskId(),
+                offsetProfile.getInstanceId());
+        return new KeyValueEntity(keyName,
+                offsetProfile.toJsonStr(), offsetProfile.get(TaskConstants.INSTANCE_ID));
+    }
+
+    public LineIndexProfile getLineIndex(String taskId, String instanceId) {
+        KeyValueEntity result = store.get(getLineIndexKey(taskId, instanceId));
+        if (result == null) {
+            return null;
         }
+        return LineIndexProfile.parseJsonStr(result.getJsonValue());
+    }
+
+    public void deleteLineIndex(String taskId, String instanceId) {
+        store.remove(getLineIndexKey(taskId, instanceId));
+    }
+
+    public void setLineIndex(LineIndexProfile lineIndexProfile) {
+        lineIndexProfile.setLastUpdateTime(AgentUtils.getCurrentTime());
+        if (lineIndexProfile.allRequiredKeyExist()) {
+            store.put(toEntity(lineIndexProfile));
+        }
+    }
+
+    /**
+     * Store the line indexes together in one write
+     *
+     * @param lineIndexProfiles the line indexes
+     */
+    public void setLineIndexes(List<LineIndexProfile> lineIndexProfiles) {
+        List<KeyValueEntity> entities = new ArrayList<>(lineIndexProfiles.size());
+        for (LineIndexProfile lineIndexProfile : lineIndexProfiles) {
+            lineIndexProfile.setLastUpdateTime(AgentUtils.getCurrentTime());
+            if (lineIndexProfile.allRequiredKeyExist()) {
+                entities.add(toEntity(lineIndexProfile));
+            }
+        }
+        if (!entities.isEmpty()) {
+            store.putBatch(entities);
+        }
+    }
+
+    private KeyValueEntity toEntity(LineIndexProfile lineIndexProfile) {
+        String keyName = getLineIndexKey(lineIndexProfile.getTaskId(),
+                lineIndexProfile.getInstanceId());
+        return new KeyValueEntity(keyName,
+                lineIndexProfile.toJsonStr(), lineIndexProfile.getInstanceId());
     }
 
     public String getKey(String taskId, String instanceId) {
+        return getPrefix(CommonConstants.OFFSET_ID_PREFIX) + store.getSplitter() + taskId
+                + store.getSplitter() + store.replaceKeywords(instanceId);
+    }
+
+    public String getLineIndexKey(String taskId, String instanceId) {
+        return getPrefix(CommonConstants.LINE_INDEX_ID_PREFIX) + store.getSplitter() + taskId
+                + store.getSplitter() + store.replaceKeywords(instanceId);
+    }
+
+    private String getPrefix(String idPrefix) {
         if (store.getUniqueKey().isEmpty()) {
-            return CommonConstants.OFFSET_ID_PREFIX + store.getSplitter() + taskId
-                    + store.getSplitter() + store.replaceKeywords(instanceId);
+            return idPrefix;
         } else {
-            return store.getUniqueKey() + store.getSplitter() + CommonConstants.OFFSET_ID_PREFIX
-                    + store.getSplitter() + taskId
-                    + store.getSplitter() + store.replaceKeywords(instanceId);
+            return store.getUniqueKey() + store.getSplitter() + idPrefix;
         }
     }
 }
@@ -34,6 +34,17 @@ public interface Store extends Closeable {
      */
     void put(KeyValueEntity entity);
 
+    /**
+     * store keyValues together, if key has exists, overwrite it.
+     *
+     * @param entities key/values
+     */
+    default void putBatch(List<KeyValueEntity> entities) {
+        for (KeyValueEntity entity : entities) {
+            put(entity);
+        }
+    }
+
     /**
      * remove keyValue by key.
      *
@@ -406,4 +406,20 @@ public class AgentUtils {
         return AgentConfiguration.getAgentConf().getBoolean(AgentConstants.AGENT_ENABLE_OOM_EXIT,
                 AgentConstants.DEFAULT_ENABLE_OOM_EXIT);
     }
+
+    /**
+     * Whether the loops of the sources and sinks run on the shared loop schedulers
+     */
+    public static boolean enableLoopScheduler() {
+        return AgentConfiguration.getAgentConf().getBoolean(AgentConstants.AGENT_LOOP_SCHEDULER_ENABLE,
+                AgentConstants.DEFAULT_AGENT_LOOP_SCHEDULER_ENABLE);
+    }
+
+    /**
+     * The thread count of each loop scheduler
+     */
+    public static int getLoopSchedulerThreads() {
+        return AgentConfiguration.getAgentConf().getInt(AgentConstants.AGENT_LOOP_SCHEDULER_THREADS,
+                AgentConstants.DEFAULT_AGENT_LOOP_SCHEDULER_THREADS);
+    }
 }
@@ -17,6 +17,8 @@
 
 package org.apache.inlong.agent.utils;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +27,9 @@ import java.util.List;
  */
 public class ByteUtil {
 
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
     /**
      * Splits the source array into multiple array segments using the given separator, up to a
      * maximum of count items. This will naturally produce copied byte arrays for each of the split
@@ -170,6 +175,41 @@ public class ByteUtil {
         return -1;
     }
 
+    /**
+     * Returns the index of the first occurrence of the specified {@code target} byte within
+     * {@code array} in [fromIndex, toIndex), or {@code -1} if there is no such occurrence.
+     *
+     * The bytes are compared 8 at a time by the bit operations on a long word, the word has
+     * a zero byte where the byte equals the target after being xor-ed with the repeated target.
+     *
+     * @param array the array to search for the target
+     * @param target the byte to search for
+     * @param fromIndex the index to start the search from, inclusive
+     * @param toIndex the index to end the search at, exclusive
+     */
+    public static int indexOf(byte[] array, byte target, int fromIndex, int toIndex) {
+        int i = Math.max(fromIndex, 0);
+        int end = Math.min(toIndex, array.length);
+        if (end - i >= Long.BYTES) {
+            ByteBuffer words = ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN);
+            long pattern = (target & 0xFFL) * LOW_BITS;
+            for (; i <= end - Long.BYTES; i += Long.BYTES) {
+                long word = words.getLong(i) ^ pattern;
+                long found = (word - LOW_BITS) & ~word & HIGH_BITS;
+                if (found != 0) {
+                    // the lowest flag is exact in little endian, the false ones are only above a real match
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        for (; i < end; i++) {
+            if (array[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Returns a copy of the source byte array, starting at offset for the given length.  If the
      * offset + length is out of bounds for the array, returns null.
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.common;
+
+import org.apache.inlong.agent.common.LoopScheduler.LoopHandle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestLoopScheduler {
+
+    @Test
+    public void testManyLoops() throws Exception {
+        LoopScheduler scheduler = new LoopScheduler("test-loop", 2);
+        int loopCount = 200;
+        CountDownLatch latch = new CountDownLatch(loopCount);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        List<LoopHandle> handles = new ArrayList<>();
+        for (int i = 0; i < loopCount; i++) {
+            AtomicInteger rounds = new AtomicInteger();
+            handles.add(scheduler.submit("loop-" + i, () -> {
+                threadNames.add(Thread.currentThread().getName());
+                if (rounds.incrementAndGet() == 20) {
+                    latch.countDown();
+                    return -1;
+                }
+                return rounds.get() % 2;
+            }));
+        }
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(threadNames.size() <= 2);
+        for (LoopHandle handle : handles) {
+            Assert.assertTrue(handle.isFinished());
+        }
+    }
+
+    @Test
+    public void testWakeup() throws Exception {
+        LoopScheduler scheduler = new LoopScheduler("test-loop", 1);
+        AtomicInteger rounds = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        LoopHandle handle = scheduler.submit("loop", () -> {
+            if (rounds.incrementAndGet() == 2) {
+                latch.countDown();
+                return -1;
+            }
+            return TimeUnit.HOURS.toMillis(1);
+        });
+        while (rounds.get() == 0) {
+            Thread.sleep(1);
+        }
+        handle.wakeup();
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, rounds.get());
+    }
+
+    @Test
+    public void testWakeupWhileRunning() throws Exception {
+        LoopScheduler scheduler = new LoopScheduler("test-loop", 4);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlapped = new AtomicInteger();
+        AtomicInteger rounds = new AtomicInteger();
+        Semaphore entered = new Semaphore(0);
+        Semaphore released = new Semaphore(0);
+        LoopHandle handle = scheduler.submit("loop", () -> {
+            int round = rounds.incrementAndGet();
+            if (running.incrementAndGet() > 1) {
+                overlapped.incrementAndGet();
+            }
+            // the even rounds are started after the delay, wake the loop while they are running
+            if (round % 2 == 0) {
+                entered.release();
+                try {
+                    released.tryAcquire(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            running.decrementAndGet();
+            return round == 40 ? -1 : 10;
+        });
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(entered.tryAcquire(5, TimeUnit.SECONDS));
+            handle.wakeup();
+            released.release();
+        }
+        while (!handle.isFinished()) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(0, overlapped.get());
+        Assert.assertEquals(40, rounds.get());
+        // the old dispatches do nothing after the loop ends
+        Thread.sleep(100);
+        Assert.assertEquals(40, rounds.get());
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        LoopScheduler scheduler = LoopScheduler.getShared("test-shared-loop", 2);
+        Assert.assertSame(scheduler, LoopScheduler.getShared("test-shared-loop", 2));
+        AtomicInteger rounds = new AtomicInteger();
+        LoopHandle waitingHandle = scheduler.submit("waiting", () -> {
+            rounds.incrementAndGet();
+            return TimeUnit.HOURS.toMillis(1);
+        });
+        while (rounds.get() == 0) {
+            Thread.sleep(1);
+        }
+        LoopHandle busyHandle = scheduler.submit("busy", () -> 0);
+        LoopScheduler.shutdownShared();
+        // the loops are finished without running their next rounds
+        Assert.assertTrue(scheduler.isShutdown());
+        Assert.assertTrue(waitingHandle.isFinished());
+        Assert.assertTrue(busyHandle.isFinished());
+        Assert.assertEquals(1, rounds.get());
+        waitingHandle.wakeup();
+        Assert.assertTrue(scheduler.submit("late", () -> 0).isFinished());
+        // a new shared scheduler is created after shutdown
+        LoopScheduler newScheduler = LoopScheduler.getShared("test-shared-loop", 2);
+        Assert.assertNotSame(scheduler, newScheduler);
+        CountDownLatch latch = new CountDownLatch(1);
+        newScheduler.submit("loop", () -> {
+            latch.countDown();
+            return -1;
+        });
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        LoopScheduler.shutdownShared();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.conf;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestLineIndexProfile {
+
+    @Test
+    public void testOfferAndFloor() {
+        LineIndexProfile lineIndex = new LineIndexProfile("1", "/data/log/1.log", "123");
+        for (long line = 1; line <= 35000; line++) {
+            lineIndex.offer(line, line * 10);
+        }
+        Assert.assertEquals(3, lineIndex.getPointCount());
+        Assert.assertNull(lineIndex.floor(9999));
+        Assert.assertArrayEquals(new long[]{20000, 200000}, lineIndex.floor(29999));
+        Assert.assertArrayEquals(new long[]{30000, 300000}, lineIndex.floor(1000000));
+
+        // resumed in the middle of an interval
+        Assert.assertFalse(lineIndex.offer(35001, 350010));
+        Assert.assertFalse(lineIndex.offer(30000, 300000));
+        Assert.assertTrue(lineIndex.offer(40000, 400000));
+
+        lineIndex.setLastUpdateTime(1000L);
+        LineIndexProfile restored = LineIndexProfile.parseJsonStr(lineIndex.toJsonStr());
+        Assert.assertEquals("123", restored.getInodeInfo());
+        Assert.assertEquals(4, restored.getPointCount());
+        Assert.assertArrayEquals(new long[]{40000, 400000}, restored.floor(45000));
+        Assert.assertFalse(restored.offer(45000, 450000));
+        Assert.assertTrue(restored.offer(50000, 500000));
+    }
+
+    @Test
+    public void testThin() {
+        LineIndexProfile lineIndex = new LineIndexProfile("1", "/data/log/1.log", "123");
+        long interval = LineIndexProfile.DEFAULT_INTERVAL;
+        long maxLine = interval * LineIndexProfile.MAX_POINT_COUNT * 3;
+        for (long line = interval; line <= maxLine; line += interval) {
+            lineIndex.offer(line, line * 10);
+        }
+        Assert.assertTrue(lineIndex.getPointCount() <= LineIndexProfile.MAX_POINT_COUNT);
+        Assert.assertEquals(interval * 4, lineIndex.getInterval());
+        long[] point = lineIndex.floor(maxLine);
+        Assert.assertEquals(maxLine, point[0]);
+        Assert.assertEquals(maxLine * 10, point[1]);
+        point = lineIndex.floor(interval * 6 - 1);
+        Assert.assertEquals(interval * 4, point[0]);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.store;
+
+import org.apache.inlong.agent.conf.OffsetProfile;
+
+import com.google.gson.Gson;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class TestKeyValueEntity {
+
+    private static final Gson GSON = new Gson();
+
+    @Test
+    public void testBinaryEncoding() {
+        OffsetProfile offsetProfile = new OffsetProfile("1", "/data/log/日志.log", "100:2048", "inode");
+        KeyValueEntity entity = new KeyValueEntity("offset_1_/data/log/日志.log", offsetProfile.toJsonStr(),
+                "/data/log/日志.log").setStateSearchKey(StateSearchKey.RUNNING);
+        byte[] bytes = entity.toBytes();
+        Assert.assertTrue(KeyValueEntity.isBinary(bytes));
+        Assert.assertTrue(bytes.length < GSON.toJson(entity).getBytes(StandardCharsets.UTF_8).length);
+
+        KeyValueEntity decoded = KeyValueEntity.parseFrom(bytes);
+        Assert.assertEquals(entity.getKey(), decoded.getKey());
+        Assert.assertEquals(entity.getFileName(), decoded.getFileName());
+        Assert.assertEquals(entity.getJsonValue(), decoded.getJsonValue());
+        Assert.assertEquals(StateSearchKey.RUNNING, decoded.getStateSearchKey());
+        Assert.assertEquals("100:2048", decoded.getAsOffsetProfile().getOffset());
+
+        KeyValueEntity noFileName = KeyValueEntity.parseFrom(new KeyValueEntity("task_1", "{}", null).toBytes());
+        Assert.assertNull(noFileName.getFileName());
+        Assert.assertEquals("{}", noFileName.getJsonValue());
+
+        // the json written by the former versions
+        Assert.assertFalse(KeyValueEntity.isBinary(GSON.toJson(entity).getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class TestByteUtil {
+
+    @Test
+    public void testIndexOfByte() {
+        byte[] data = "hello world\nline-two\r\n\n".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(11, ByteUtil.indexOf(data, (byte) '\n', 0, data.length));
+        Assert.assertEquals(21, ByteUtil.indexOf(data, (byte) '\n', 12, data.length));
+        Assert.assertEquals(22, ByteUtil.indexOf(data, (byte) '\n', 22, data.length));
+        Assert.assertEquals(20, ByteUtil.indexOf(data, (byte) '\r', 0, data.length));
+        Assert.assertEquals(-1, ByteUtil.indexOf(data, (byte) '\n', 12, 21));
+        Assert.assertEquals(-1, ByteUtil.indexOf(data, (byte) '\n', 5, 5));
+
+        // the bytes with the high bit set are compared as well
+        Random random = new Random(7);
+        byte[] bytes = new byte[1000];
+        for (int round = 0; round < 100; round++) {
+            random.nextBytes(bytes);
+            byte target = (byte) random.nextInt();
+            int from = random.nextInt(bytes.length);
+            int to = from + random.nextInt(bytes.length - from + 1);
+            int expected = -1;
+            for (int i = from; i < to; i++) {
+                if (bytes[i] == target) {
+                    expected = i;
+                    break;
+                }
+            }
+            Assert.assertEquals(expected, ByteUtil.indexOf(bytes, target, from, to));
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.inlong.agent.core;
 
 import org.apache.inlong.agent.common.AbstractDaemon;
+import org.apache.inlong.agent.common.LoopScheduler;
 import org.apache.inlong.agent.conf.AgentConfiguration;
 import org.apache.inlong.agent.conf.ProfileFetcher;
 import org.apache.inlong.agent.constant.AgentConstants;
@@ -157,6 +158,8 @@ public class AgentManager extends AbstractDaemon {
         // TODO: change job state which is in running state.
         LOGGER.info("stopping agent manager");
         taskManager.stop();
+        // the loops of the instances are finished after the task manager stops
+        LoopScheduler.shutdownShared();
         heartbeatManager.stop();
         agentConfMonitor.shutdown();
     }
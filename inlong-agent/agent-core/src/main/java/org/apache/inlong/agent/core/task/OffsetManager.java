@@ -20,6 +20,7 @@ package org.apache.inlong.agent.core.task;
 import org.apache.inlong.agent.common.AbstractDaemon;
 import org.apache.inlong.agent.conf.AgentConfiguration;
 import org.apache.inlong.agent.conf.InstanceProfile;
+import org.apache.inlong.agent.conf.LineIndexProfile;
 import org.apache.inlong.agent.conf.OffsetProfile;
 import org.apache.inlong.agent.conf.TaskProfile;
 import org.apache.inlong.agent.constant.AgentConstants;
@@ -38,15 +39,19 @@ import org.apache.inlong.common.enums.TaskStateEnum;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.inlong.agent.constant.TaskConstants.TASK_AUDIT_VERSION;
 
 /**
  * used to save instance offset to offset store
- * where key is task id + read file name and value is instance offset
+ * where key is task id + read file name and value is instance offset,
+ * the offsets are kept in memory and flushed to the offset store together periodically
  */
 public class OffsetManager extends AbstractDaemon {
 
@@ -58,6 +63,11 @@ public class OffsetManager extends AbstractDaemon {
     private final OffsetStore offsetStore;
     private final InstanceStore instanceStore;
     private final TaskStore taskStore;
+    // the offsets not flushed yet, the latest one of each instance is kept
+    private final Map<String, OffsetProfile> pendingOffsets = new ConcurrentHashMap<>();
+    private final Map<String, LineIndexProfile> pendingLineIndexes = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final long flushInterval;
 
     private OffsetManager(
             Store taskBasicStore, Store instanceBasicStore,
@@ -65,6 +75,8 @@ public class OffsetManager extends AbstractDaemon {
         taskStore = new TaskStore(taskBasicStore);
         instanceStore = new InstanceStore(instanceBasicStore);
         offsetStore = new OffsetStore(offsetBasicStore);
+        flushInterval = AgentConfiguration.getAgentConf().getLong(AgentConstants.AGENT_OFFSET_FLUSH_INTERVAL,
+                AgentConstants.DEFAULT_AGENT_OFFSET_FLUSH_INTERVAL);
     }
 
     /**
@@ -88,6 +100,26 @@ public class OffsetManager extends AbstractDaemon {
         };
     }
 
+    /**
+     * thread for flushing the offsets.
+     *
+     * @return runnable profile.
+     */
+    private Runnable flushThread() {
+        return () -> {
+            Thread.currentThread().setName("offset-manager-flush");
+            while (isRunnable()) {
+                try {
+                    AgentUtils.silenceSleepInMs(flushInterval);
+                    flushOffset();
+                } catch (Throwable ex) {
+                    LOGGER.error("offset-manager-flush: ", ex);
+                    ThreadUtils.threadThrowableHandler(Thread.currentThread(), ex);
+                }
+            }
+        };
+    }
+
     /**
      * task position manager singleton, can only generated by agent manager
      */
@@ -112,17 +144,68 @@ public class OffsetManager extends AbstractDaemon {
     }
 
     public void setOffset(OffsetProfile profile) {
-        offsetStore.setOffset(profile);
+        profile.setLastUpdateTime(AgentUtils.getCurrentTime());
+        pendingOffsets.put(offsetStore.getKey(profile.getTaskId(), profile.getInstanceId()), profile);
     }
 
     public void deleteOffset(String taskId, String instanceId) {
-        offsetStore.deleteOffset(taskId, instanceId);
+        synchronized (flushLock) {
+            pendingOffsets.remove(offsetStore.getKey(taskId, instanceId));
+            offsetStore.deleteOffset(taskId, instanceId);
+            pendingLineIndexes.remove(offsetStore.getLineIndexKey(taskId, instanceId));
+            offsetStore.deleteLineIndex(taskId, instanceId);
+        }
     }
 
     public OffsetProfile getOffset(String taskId, String instanceId) {
+        OffsetProfile pending = pendingOffsets.get(offsetStore.getKey(taskId, instanceId));
+        if (pending != null) {
+            return pending;
+        }
         return offsetStore.getOffset(taskId, instanceId);
     }
 
+    /**
+     * Flush the pending offsets and line indexes to the offset store in one write each
+     */
+    public void flushOffset() {
+        synchronized (flushLock) {
+            if (!pendingOffsets.isEmpty()) {
+                List<Map.Entry<String, OffsetProfile>> entries = new ArrayList<>(pendingOffsets.entrySet());
+                List<OffsetProfile> profiles = new ArrayList<>(entries.size());
+                entries.forEach(entry -> profiles.add(entry.getValue()));
+                offsetStore.setOffsets(profiles);
+                // keep the offsets updated during the flush for the next flush
+                entries.forEach(entry -> pendingOffsets.remove(entry.getKey(), entry.getValue()));
+                LOGGER.debug("flush offsets count {}", profiles.size());
+            }
+            if (!pendingLineIndexes.isEmpty()) {
+                List<Map.Entry<String, LineIndexProfile>> entries = new ArrayList<>(pendingLineIndexes.entrySet());
+                List<LineIndexProfile> profiles = new ArrayList<>(entries.size());
+                entries.forEach(entry -> profiles.add(entry.getValue()));
+                offsetStore.setLineIndexes(profiles);
+                entries.forEach(entry -> pendingLineIndexes.remove(entry.getKey(), entry.getValue()));
+                LOGGER.debug("flush line indexes count {}", profiles.size());
+            }
+        }
+    }
+
+    /**
+     * Mark the line index to be stored by the next flush, the points added before the flush are
+     * written together instead of one write per point
+     */
+    public void setLineIndex(LineIndexProfile profile) {
+        pendingLineIndexes.put(offsetStore.getLineIndexKey(profile.getTaskId(), profile.getInstanceId()), profile);
+    }
+
+    public LineIndexProfile getLineIndex(String taskId, String instanceId) {
+        LineIndexProfile pending = pendingLineIndexes.get(offsetStore.getLineIndexKey(taskId, instanceId));
+        if (pending != null) {
+            return pending;
+        }
+        return offsetStore.getLineIndex(taskId, instanceId);
+    }
+
     private void cleanDbOffset() {
         List<OffsetProfile> offsets = offsetStore.listAllOffsets();
         offsets.forEach(offset -> {
@@ -135,7 +218,18 @@ public class OffsetManager extends AbstractDaemon {
                         instanceId);
             }
         });
-        LOGGER.info("offsetManager running! offsets count {}", offsets.size());
+        List<LineIndexProfile> lineIndexes = offsetStore.listAllLineIndexes();
+        lineIndexes.forEach(lineIndex -> {
+            String taskId = lineIndex.getTaskId();
+            String instanceId = lineIndex.getInstanceId();
+            if (instanceStore.getInstance(taskId, instanceId) == null) {
+                offsetStore.deleteLineIndex(taskId, instanceId);
+                LOGGER.info("instance not found, delete line index taskId {} instanceId {}", taskId,
+                        instanceId);
+            }
+        });
+        LOGGER.info("offsetManager running! offsets count {} line indexes count {}", offsets.size(),
+                lineIndexes.size());
     }
 
     private void cleanDbInstance() {
@@ -184,11 +278,13 @@ public class OffsetManager extends AbstractDaemon {
     @Override
     public void start() throws Exception {
         submitWorker(coreThread());
+        submitWorker(flushThread());
     }
 
     @Override
     public void stop() throws Exception {
-
+        waitForTerminate();
+        flushOffset();
     }
 
     public static long getScanCycleRange(String cycleUnit) {
@@ -565,6 +565,7 @@ public class TaskManager extends AbstractDaemon {
     @Override
     public void stop() throws Exception {
         stopAllTasks();
+        OffsetManager.getInstance().stop();
         waitForTerminate();
         runningPool.shutdown();
     }
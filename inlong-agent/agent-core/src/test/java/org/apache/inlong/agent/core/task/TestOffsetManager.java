@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.core.task;
+
+import org.apache.inlong.agent.conf.LineIndexProfile;
+import org.apache.inlong.agent.conf.OffsetProfile;
+import org.apache.inlong.agent.core.AgentBaseTestsHelper;
+import org.apache.inlong.agent.store.KeyValueEntity;
+import org.apache.inlong.agent.store.Store;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TestOffsetManager {
+
+    private static AgentBaseTestsHelper helper;
+    private static MemoryStore offsetBasicStore;
+    private static OffsetManager offsetManager;
+
+    @BeforeClass
+    public static void setup() {
+        helper = new AgentBaseTestsHelper(TestOffsetManager.class.getName()).setupAgentHome();
+        offsetBasicStore = new MemoryStore();
+        OffsetManager.init(new MemoryStore(), new MemoryStore(), offsetBasicStore);
+        offsetManager = OffsetManager.getInstance();
+    }
+
+    @AfterClass
+    public static void teardown() {
+        helper.teardownAgentHome();
+    }
+
+    @Test
+    public void testDeleteOffsetDuringFlush() throws Exception {
+        offsetManager.setOffset(new OffsetProfile("task1", "instance1", "100", "inode1"));
+        // block the flush in the batch write
+        offsetBasicStore.blockPutBatch = new CountDownLatch(1);
+        Thread flushThread = new Thread(() -> offsetManager.flushOffset());
+        flushThread.start();
+        Assert.assertTrue(offsetBasicStore.putBatchEntered.await(10, TimeUnit.SECONDS));
+        Thread deleteThread = new Thread(() -> offsetManager.deleteOffset("task1", "instance1"));
+        deleteThread.start();
+        deleteThread.join(200);
+        // the delete waits for the flush in flight
+        Assert.assertTrue(deleteThread.isAlive());
+        offsetBasicStore.blockPutBatch.countDown();
+        flushThread.join(10000);
+        deleteThread.join(10000);
+        // the flushed offset is deleted, and not written back by the next flush
+        Assert.assertNull(offsetManager.getOffset("task1", "instance1"));
+        offsetManager.flushOffset();
+        Assert.assertNull(offsetManager.getOffset("task1", "instance1"));
+        Assert.assertTrue(offsetBasicStore.findAll("").isEmpty());
+    }
+
+    @Test
+    public void testStopFlushOffsets() throws Exception {
+        offsetManager.setOffset(new OffsetProfile("task2", "instance2", "200", "inode2"));
+        Assert.assertEquals("200", offsetManager.getOffset("task2", "instance2").getOffset());
+        Assert.assertTrue(offsetBasicStore.findAll("").isEmpty());
+        offsetManager.stop();
+        Assert.assertEquals(1, offsetBasicStore.findAll("").size());
+        Assert.assertEquals("200", offsetManager.getOffset("task2", "instance2").getOffset());
+        offsetManager.deleteOffset("task2", "instance2");
+    }
+
+    @Test
+    public void testFlushLineIndexes() {
+        LineIndexProfile lineIndex = new LineIndexProfile("task3", "instance3", "inode3");
+        for (long line = 1; line <= 5 * LineIndexProfile.DEFAULT_INTERVAL; line++) {
+            if (lineIndex.offer(line, line * 10)) {
+                offsetManager.setLineIndex(lineIndex);
+            }
+        }
+        // the points wait for the flush instead of being written one by one
+        Assert.assertTrue(offsetBasicStore.findAll("").isEmpty());
+        Assert.assertEquals(5, offsetManager.getLineIndex("task3", "instance3").getPointCount());
+        offsetManager.flushOffset();
+        Assert.assertEquals(1, offsetBasicStore.findAll("").size());
+        LineIndexProfile stored = offsetManager.getLineIndex("task3", "instance3");
+        Assert.assertNotSame(lineIndex, stored);
+        Assert.assertArrayEquals(lineIndex.floor(Long.MAX_VALUE), stored.floor(Long.MAX_VALUE));
+        offsetManager.deleteOffset("task3", "instance3");
+        Assert.assertNull(offsetManager.getLineIndex("task3", "instance3"));
+        Assert.assertTrue(offsetBasicStore.findAll("").isEmpty());
+    }
+
+    /**
+     * in memory store, the batch write can be blocked
+     */
+    private static class MemoryStore implements Store {
+
+        private final Map<String, KeyValueEntity> entities = new ConcurrentHashMap<>();
+        private final CountDownLatch putBatchEntered = new CountDownLatch(1);
+        private volatile CountDownLatch blockPutBatch = null;
+
+        @Override
+        public KeyValueEntity get(String key) {
+            return entities.get(key);
+        }
+
+        @Override
+        public void put(KeyValueEntity entity) {
+            entities.put(entity.getKey(), entity);
+        }
+
+        @Override
+        public void putBatch(List<KeyValueEntity> batch) {
+            putBatchEntered.countDown();
+            if (blockPutBatch != null) {
+                try {
+                    blockPutBatch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batch.forEach(this::put);
+        }
+
+        @Override
+        public KeyValueEntity remove(String key) {
+            return entities.remove(key);
+        }
+
+        @Override
+        public List<KeyValueEntity> findAll(String prefix) {
+            List<KeyValueEntity> results = new ArrayList<>();
+            entities.forEach((key, value) -> {
+                if (key.startsWith(prefix)) {
+                    results.add(value);
+                }
+            });
+            return results;
+        }
+
+        @Override
+        public String getSplitter() {
+            return "_";
+        }
+
+        @Override
+        public String getUniqueKey() {
+            return "";
+        }
+
+        @Override
+        public String replaceKeywords(String source) {
+            return source;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
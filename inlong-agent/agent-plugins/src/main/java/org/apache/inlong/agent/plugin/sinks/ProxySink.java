@@ -18,6 +18,8 @@
 package org.apache.inlong.agent.plugin.sinks;
 
 import org.apache.inlong.agent.common.AgentThreadFactory;
+import org.apache.inlong.agent.common.LoopScheduler;
+import org.apache.inlong.agent.common.LoopScheduler.LoopHandle;
 import org.apache.inlong.agent.conf.InstanceProfile;
 import org.apache.inlong.agent.conf.OffsetProfile;
 import org.apache.inlong.agent.constant.CommonConstants;
@@ -66,6 +68,9 @@ public class ProxySink extends AbstractSink {
             1L, TimeUnit.SECONDS,
             new SynchronousQueue<>(),
             new AgentThreadFactory("proxy-sink"));
+    private static final String LOOP_THREAD_TYPE = "proxy-sink-loop";
+    private volatile LoopHandle cacheLoopHandle;
+    private volatile LoopHandle offsetLoopHandle;
     private MessageFilter messageFilter;
     private Sender sender;
     private byte[] fieldSplitter;
@@ -153,6 +158,25 @@ public class ProxySink extends AbstractSink {
         };
     }
 
+    /**
+     * One round of flushing cache on the loop scheduler
+     *
+     * @return the delay before the next round, or -1 if the sink is shutdown
+     */
+    private long flushCacheOnce() {
+        if (shutdown) {
+            LOGGER.info("stop flush cache {}:{}", inlongGroupId, sourceName);
+            running = false;
+            return -1;
+        }
+        try {
+            sendMessageFromCache();
+        } catch (Throwable e) {
+            LOGGER.error("send message from cache error: ", e);
+        }
+        return batchFlushInterval;
+    }
+
     public void sendMessageFromCache() {
         ConcurrentHashMap<String, LinkedBlockingQueue<ProxyMessage>> messageQueueMap = cache.getMessageQueueMap();
         for (Map.Entry<String, LinkedBlockingQueue<ProxyMessage>> entry : messageQueueMap.entrySet()) {
@@ -181,8 +205,20 @@ public class ProxySink extends AbstractSink {
         offsetManager = OffsetManager.getInstance();
         sender = SenderManager.getInstance().getSender(profile.getTaskId(), profile);
         try {
-            EXECUTOR_SERVICE.execute(coreThread());
-            EXECUTOR_SERVICE.execute(flushOffset());
+            if (AgentUtils.enableLoopScheduler()) {
+                LOGGER.info("start flush cache and offset {}:{} flush interval {}", inlongGroupId, sourceName,
+                        batchFlushInterval);
+                running = true;
+                offsetRunning = true;
+                String loopName = profile.getTaskId() + "-" + profile.getInstanceId();
+                LoopScheduler loopScheduler =
+                        LoopScheduler.getShared(LOOP_THREAD_TYPE, AgentUtils.getLoopSchedulerThreads());
+                cacheLoopHandle = loopScheduler.submit("flushCache-" + loopName, this::flushCacheOnce);
+                offsetLoopHandle = loopScheduler.submit("flushOffset-" + loopName, this::flushOffsetOnce);
+            } else {
+                EXECUTOR_SERVICE.execute(coreThread());
+                EXECUTOR_SERVICE.execute(flushOffset());
+            }
             inited = true;
         } catch (Throwable ex) {
             shutdown = true;
@@ -200,10 +236,14 @@ public class ProxySink extends AbstractSink {
         }
         Long start = AgentUtils.getCurrentTime();
         shutdown = true;
+        if (cacheLoopHandle != null) {
+            cacheLoopHandle.wakeup();
+            offsetLoopHandle.wakeup();
+        }
         LOGGER.info("destroy proxySink, wait for sender close {} ms instance {}", AgentUtils.getCurrentTime() - start,
                 profile.getInstanceId());
         start = AgentUtils.getCurrentTime();
-        while (running || offsetRunning) {
+        while (isLoopRunning(running, cacheLoopHandle) || isLoopRunning(offsetRunning, offsetLoopHandle)) {
             AgentUtils.silenceSleepInMs(LOOP_WAIT_TIME_MS);
         }
         LOGGER.info("destroy proxySink, wait for run close {} ms instance {}", AgentUtils.getCurrentTime() - start,
@@ -215,6 +255,11 @@ public class ProxySink extends AbstractSink {
         LOGGER.info("destroy sink {} end", sourceName);
     }
 
+    // the loop is finished without its last round if the scheduler is shutdown
+    private static boolean isLoopRunning(boolean running, LoopHandle loopHandle) {
+        return running && (loopHandle == null || !loopHandle.isFinished());
+    }
+
     /**
      * check whether all stream id messages finished
      */
@@ -258,6 +303,26 @@ public class ProxySink extends AbstractSink {
         };
     }
 
+    /**
+     * One round of flushing offset on the loop scheduler
+     *
+     * @return the delay before the next round, or -1 if the sink is shutdown
+     */
+    private long flushOffsetOnce() {
+        if (shutdown) {
+            LOGGER.info("stop flush offset {}:{}", inlongGroupId, sourceName);
+            offsetRunning = false;
+            return -1;
+        }
+        try {
+            doFlushOffset();
+        } catch (Throwable e) {
+            LOGGER.error("flush offset error: ", e);
+        }
+        lastFlushOffset = AgentUtils.getCurrentTime();
+        return SAVE_OFFSET_INTERVAL_MS;
+    }
+
     /**
      * flushOffset
      */
@@ -18,6 +18,7 @@
 package org.apache.inlong.agent.plugin.sources;
 
 import org.apache.inlong.agent.conf.InstanceProfile;
+import org.apache.inlong.agent.conf.LineIndexProfile;
 import org.apache.inlong.agent.conf.OffsetProfile;
 import org.apache.inlong.agent.constant.DataCollectType;
 import org.apache.inlong.agent.constant.TaskConstants;
@@ -30,6 +31,7 @@ import org.apache.inlong.agent.plugin.sources.extend.DefaultExtendedHandler;
 import org.apache.inlong.agent.plugin.sources.file.AbstractSource;
 import org.apache.inlong.agent.plugin.task.logcollection.local.FileDataUtils;
 import org.apache.inlong.agent.utils.AgentUtils;
+import org.apache.inlong.agent.utils.ByteUtil;
 import org.apache.inlong.agent.utils.file.FileUtils;
 
 import lombok.AllArgsConstructor;
@@ -38,7 +40,6 @@ import lombok.NoArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -47,6 +48,7 @@ import java.io.LineNumberReader;
 import java.io.RandomAccessFile;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.apache.inlong.agent.constant.TaskConstants.FILE_CONTENT_STYLE;
@@ -68,6 +70,93 @@ public class LogFileSource extends AbstractSource {
         private boolean hasByteOffset;
     }
 
+    /**
+     * A line read from the file, the offsets are kept as numbers and formatted when the message is created
+     */
+    protected class LineSourceData extends SourceData {
+
+        private final long lineOffset;
+        private final long byteOffset;
+
+        public LineSourceData(byte[] data, long lineOffset, long byteOffset) {
+            super(data, null);
+            this.lineOffset = lineOffset;
+            this.byteOffset = byteOffset;
+        }
+
+        @Override
+        public String getOffset() {
+            String offset = super.getOffset();
+            if (offset == null) {
+                offset = getOffsetString(lineOffset, byteOffset);
+                setOffset(offset);
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * The bytes of a line without '\r', at most maxLen bytes are kept and the others are dropped
+     */
+    private static class LineBuilder {
+
+        private final int maxLen;
+        private byte[] bytes;
+        private int length = 0;
+        private boolean overLen = false;
+
+        public LineBuilder(int maxLen) {
+            this.maxLen = maxLen;
+        }
+
+        public void append(byte[] src, int from, int to) {
+            while (from < to) {
+                int crIndex = ByteUtil.indexOf(src, (byte) '\r', from, to);
+                int segmentEnd = crIndex < 0 ? to : crIndex;
+                int keepLen = Math.min(segmentEnd - from, maxLen - length);
+                if (keepLen < segmentEnd - from) {
+                    overLen = true;
+                }
+                if (keepLen > 0) {
+                    ensureCapacity(length + keepLen);
+                    System.arraycopy(src, from, bytes, length, keepLen);
+                    length += keepLen;
+                }
+                from = segmentEnd + 1;
+            }
+        }
+
+        /**
+         * Build the line with the bytes appended before and the end of the line in src
+         */
+        public byte[] build(byte[] src, int from, int to) {
+            if (length == 0 && !overLen && to - from <= maxLen
+                    && ByteUtil.indexOf(src, (byte) '\r', from, to) < 0) {
+                // the line is in the buffer, copy it at once
+                return Arrays.copyOfRange(src, from, to);
+            }
+            append(src, from, to);
+            return Arrays.copyOf(bytes == null ? new byte[0] : bytes, length);
+        }
+
+        public boolean isOverLen() {
+            return overLen;
+        }
+
+        public void reset() {
+            length = 0;
+            overLen = false;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (bytes == null || bytes.length < capacity) {
+                int newCapacity = bytes == null ? Math.min(1024, maxLen) : bytes.length * 2;
+                bytes = Arrays.copyOf(bytes == null ? new byte[0] : bytes,
+                        Math.min(Math.max(newCapacity, capacity), maxLen));
+            }
+        }
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(LogFileSource.class);
     public static final String OFFSET_SEP = ":";
     private final Integer SIZE_OF_BUFFER_TO_READ_FILE = 64 * 1024;
@@ -82,6 +171,7 @@ public class LogFileSource extends AbstractSource {
     private boolean isIncrement = false;
     private volatile boolean fileExist = true;
     private String inodeInfo;
+    private LineIndexProfile lineIndex;
     private volatile long lastInodeUpdateTime = 0;
     private RandomAccessFile randomAccessFile;
 
@@ -103,6 +193,7 @@ public class LogFileSource extends AbstractSource {
             file = new File(fileName);
             inodeInfo = profile.get(TaskConstants.INODE_INFO);
             lastInodeUpdateTime = AgentUtils.getCurrentTime();
+            initLineIndex(taskId, instanceId, inodeInfo);
             initOffset(isIncrement, taskId, instanceId, inodeInfo);
             randomAccessFile = new RandomAccessFile(file, "r");
         } catch (Exception ex) {
@@ -203,6 +294,13 @@ public class LogFileSource extends AbstractSource {
         bytePosition = byteOffset;
     }
 
+    private void initLineIndex(String taskId, String instanceId, String inodeInfo) {
+        lineIndex = OffsetManager.getInstance().getLineIndex(taskId, instanceId);
+        if (lineIndex == null || lineIndex.getInodeInfo().compareTo(inodeInfo) != 0) {
+            lineIndex = new LineIndexProfile(taskId, instanceId, inodeInfo);
+        }
+    }
+
     public File getFile() {
         return file;
     }
@@ -221,6 +319,17 @@ public class LogFileSource extends AbstractSource {
         RandomAccessFile input = null;
         try {
             input = new RandomAccessFile(file, "r");
+            long[] point = lineIndex.floor(linePosition);
+            if (point != null && isLineStart(input, point[1])) {
+                // seek to the nearest indexed line instead of reading from the head
+                readCount = point[0];
+                pos = point[1];
+            } else if (point != null) {
+                // the file is truncated and rewritten with the same inode, the index is stale
+                LOGGER.warn("line index of {} does not match the file, drop it", fileName);
+                lineIndex = new LineIndexProfile(taskId, instanceId, inodeInfo);
+            }
+            this.linePosition = readCount;
             while (readCount < linePosition) {
                 List<SourceData> lines = new ArrayList<>();
                 pos = readLines(input, pos, lines, Math.min((int) (linePosition - readCount), BATCH_READ_LINE_COUNT),
@@ -242,6 +351,21 @@ public class LogFileSource extends AbstractSource {
         return pos;
     }
 
+    /**
+     * Check the indexed position is still the head of a line, that is the position is in the file
+     * and follows a line end.
+     */
+    private boolean isLineStart(RandomAccessFile input, long pos) throws IOException {
+        if (pos == 0) {
+            return true;
+        }
+        if (pos > input.length()) {
+            return false;
+        }
+        input.seek(pos - 1);
+        return input.read() == '\n';
+    }
+
     /**
      * Read new lines.
      *
@@ -255,66 +379,53 @@ public class LogFileSource extends AbstractSource {
         if (maxLineCount == 0) {
             return pos;
         }
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
         reader.seek(pos);
         long rePos = pos; // position to re-read
+        // the head of the line not ended in the buffer
+        LineBuilder pending = new LineBuilder(maxPackSize);
         int num;
         int lineTotalLen = 0;
-        boolean overLen = false;
         while ((num = reader.read(bufferToReadFile)) != -1) {
             LOGGER.debug("read size {}", num);
-            int i = 0;
-            for (; i < num; i++) {
-                byte ch = bufferToReadFile[i];
-                switch (ch) {
-                    case '\n':
-                        linePosition++;
-                        rePos = pos + i + 1;
-                        lines.add(new SourceData(baos.toByteArray(), getOffsetString(linePosition, rePos)));
-                        lineTotalLen += baos.size();
-                        if (overLen) {
-                            LOGGER.warn("readLines over len finally string len {}",
-                                    new String(baos.toByteArray()).length());
-                            long auditTime = 0;
-                            if (isRealTime) {
-                                auditTime = AgentUtils.getCurrentTime();
-                            } else {
-                                auditTime = profile.getSinkDataTime();
-                            }
-                            AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_READ_FAILED, inlongGroupId, inlongStreamId,
-                                    auditTime, 1, maxPackSize, auditVersion);
-                            AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_READ_FAILED_REAL_TIME, inlongGroupId,
-                                    inlongStreamId, AgentUtils.getCurrentTime(), 1, maxPackSize, auditVersion);
-                        }
-                        baos.reset();
-                        overLen = false;
-                        break;
-                    case '\r':
-                        break;
-                    default:
-                        if (baos.size() < maxPackSize) {
-                            baos.write(ch);
-                        } else {
-                            overLen = true;
-                        }
+            int lineStart = 0;
+            int lineEnd;
+            while ((lineEnd = ByteUtil.indexOf(bufferToReadFile, (byte) '\n', lineStart, num)) >= 0) {
+                byte[] line = pending.build(bufferToReadFile, lineStart, lineEnd);
+                linePosition++;
+                rePos = pos + lineEnd + 1;
+                if (lineIndex.offer(linePosition, rePos)) {
+                    OffsetManager.getInstance().setLineIndex(lineIndex);
+                }
+                lines.add(new LineSourceData(line, linePosition, rePos));
+                lineTotalLen += line.length;
+                if (pending.isOverLen()) {
+                    LOGGER.warn("readLines over len finally string len {}", new String(line).length());
+                    long auditTime = 0;
+                    if (isRealTime) {
+                        auditTime = AgentUtils.getCurrentTime();
+                    } else {
+                        auditTime = profile.getSinkDataTime();
+                    }
+                    AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_READ_FAILED, inlongGroupId, inlongStreamId,
+                            auditTime, 1, maxPackSize, auditVersion);
+                    AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_READ_FAILED_REAL_TIME, inlongGroupId,
+                            inlongStreamId, AgentUtils.getCurrentTime(), 1, maxPackSize, auditVersion);
                 }
+                pending.reset();
+                lineStart = lineEnd + 1;
                 if (lines.size() >= maxLineCount || lineTotalLen >= maxLineTotalLen) {
-                    break;
+                    reader.seek(rePos); // Ensure we can re-read if necessary
+                    return rePos;
                 }
             }
-            if (lines.size() >= maxLineCount || lineTotalLen >= maxLineTotalLen) {
-                break;
-            }
-            if (i == num) {
-                pos = reader.getFilePointer();
-            }
+            pending.append(bufferToReadFile, lineStart, num);
+            pos += num;
         }
-        baos.close();
         reader.seek(rePos); // Ensure we can re-read if necessary
         return rePos;
     }
 
-    private String getOffsetString(Long lineOffset, Long byteOffset) {
+    private String getOffsetString(long lineOffset, long byteOffset) {
         return lineOffset + OFFSET_SEP + byteOffset;
     }
 
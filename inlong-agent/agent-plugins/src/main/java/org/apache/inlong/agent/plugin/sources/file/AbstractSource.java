@@ -18,6 +18,8 @@
 package org.apache.inlong.agent.plugin.sources.file;
 
 import org.apache.inlong.agent.common.AgentThreadFactory;
+import org.apache.inlong.agent.common.LoopScheduler;
+import org.apache.inlong.agent.common.LoopScheduler.LoopHandle;
 import org.apache.inlong.agent.conf.InstanceProfile;
 import org.apache.inlong.agent.conf.OffsetProfile;
 import org.apache.inlong.agent.constant.CycleUnitType;
@@ -109,6 +111,13 @@ public abstract class AbstractSource implements Source {
             1L, TimeUnit.SECONDS,
             new SynchronousQueue<>(),
             new AgentThreadFactory("source-pool"));
+    private static final String LOOP_THREAD_TYPE = "source-loop";
+    private volatile LoopHandle loopHandle;
+    // the lines read but not put into the queue yet when running on the loop scheduler
+    private List<SourceData> pendingLines;
+    private int pendingIndex = 0;
+    private long lastPrintTime = 0;
+    private volatile boolean waitingForQueue = false;
     protected OffsetProfile offsetProfile;
     protected boolean sourceError = false;
 
@@ -142,7 +151,13 @@ public abstract class AbstractSource implements Source {
 
     @Override
     public void start() {
-        EXECUTOR_SERVICE.execute(run());
+        if (AgentUtils.enableLoopScheduler()) {
+            running = true;
+            loopHandle = LoopScheduler.getShared(LOOP_THREAD_TYPE, AgentUtils.getLoopSchedulerThreads())
+                    .submit(getThreadName(), this::runOnce);
+        } else {
+            EXECUTOR_SERVICE.execute(run());
+        }
     }
 
     private Runnable run() {
@@ -192,6 +207,109 @@ public abstract class AbstractSource implements Source {
         }
     }
 
+    /**
+     * One round of reading on the loop scheduler, it reads at most one batch and never waits for the
+     * permits or the queue, so the instances sharing the scheduler read in turn
+     *
+     * @return the delay before the next round, or -1 if the reading ends
+     */
+    private long runOnce() {
+        try {
+            if (!isRunnable()) {
+                finishRun();
+                return -1;
+            }
+            if (pendingLines != null && !putPendingIntoQueue()) {
+                return WAIT_TIMEOUT_MS;
+            }
+            if (!tryPrepareToRead()) {
+                finishRun();
+                return -1;
+            }
+            if (!MemoryManager.getInstance().tryAcquire(AGENT_GLOBAL_READER_SOURCE_PERMIT,
+                    BATCH_READ_LINE_TOTAL_LEN)) {
+                MemoryManager.getInstance().printDetail(AGENT_GLOBAL_READER_SOURCE_PERMIT, "source");
+                return WAIT_TIMEOUT_MS;
+            }
+            List<SourceData> lines = readFromSource();
+            if (lines == null || lines.isEmpty()) {
+                if (queue.isEmpty()) {
+                    emptyCount++;
+                } else {
+                    emptyCount = 0;
+                }
+                MemoryManager.getInstance().release(AGENT_GLOBAL_READER_SOURCE_PERMIT, BATCH_READ_LINE_TOTAL_LEN);
+                // no wakeup on new data, poll the source at the interval of the reading thread
+                return WAIT_TIMEOUT_MS;
+            }
+            emptyCount = 0;
+            pendingLines = lines;
+            pendingIndex = 0;
+            boolean allPut = putPendingIntoQueue();
+            if (AgentUtils.getCurrentTime() - lastPrintTime > CORE_THREAD_PRINT_INTERVAL_MS) {
+                lastPrintTime = AgentUtils.getCurrentTime();
+                printCurrentState();
+            }
+            return allPut ? 0 : WAIT_TIMEOUT_MS;
+        } catch (Throwable e) {
+            LOGGER.error("do run error maybe file deleted: ", e);
+            ThreadUtils.threadThrowableHandler(Thread.currentThread(), e);
+            finishRun();
+            return -1;
+        }
+    }
+
+    /**
+     * Prepare to read except for the source permit, which is not waited for on the loop scheduler
+     *
+     * @return true if prepared ok
+     */
+    private boolean tryPrepareToRead() {
+        try {
+            return doPrepareToRead();
+        } catch (Throwable e) {
+            LOGGER.error("prepare to read {} error:", instanceId, e);
+            sourceError = true;
+            return false;
+        }
+    }
+
+    /**
+     * Put the pending lines into the queue until the queue permit or the queue is used up, the source
+     * permit of the batch is released when all lines are put
+     *
+     * @return true if all lines are put
+     */
+    private boolean putPendingIntoQueue() {
+        while (pendingIndex < pendingLines.size()) {
+            SourceData sourceData = pendingLines.get(pendingIndex);
+            int len = sourceData.getData().length;
+            if (!MemoryManager.getInstance().tryAcquire(AGENT_GLOBAL_READER_QUEUE_PERMIT, len)) {
+                MemoryManager.getInstance().printDetail(AGENT_GLOBAL_READER_QUEUE_PERMIT, "source");
+                return false;
+            }
+            waitingForQueue = true;
+            if (!queue.offer(sourceData)) {
+                MemoryManager.getInstance().release(AGENT_GLOBAL_READER_QUEUE_PERMIT, len);
+                return false;
+            }
+            waitingForQueue = false;
+            pendingIndex++;
+        }
+        pendingLines = null;
+        MemoryManager.getInstance().release(AGENT_GLOBAL_READER_SOURCE_PERMIT, BATCH_READ_LINE_TOTAL_LEN);
+        return true;
+    }
+
+    private void finishRun() {
+        if (pendingLines != null) {
+            // the lines not put into the queue are dropped as the thread loop does
+            pendingLines = null;
+            MemoryManager.getInstance().release(AGENT_GLOBAL_READER_SOURCE_PERMIT, BATCH_READ_LINE_TOTAL_LEN);
+        }
+        running = false;
+    }
+
     protected abstract void printCurrentState();
 
     /**
@@ -353,6 +471,11 @@ public abstract class AbstractSource implements Source {
         }
         LOGGER.debug("Read from source queue {} {}", new String(sourceData.getData()), inlongGroupId);
         MemoryManager.getInstance().release(AGENT_GLOBAL_READER_QUEUE_PERMIT, sourceData.getData().length);
+        if (waitingForQueue && loopHandle != null) {
+            // the queue has space for the pending lines
+            waitingForQueue = false;
+            loopHandle.wakeup();
+        }
         return sourceData;
     }
 
@@ -390,7 +513,11 @@ public abstract class AbstractSource implements Source {
     public void destroy() {
         LOGGER.info("destroy read source name {}", instanceId);
         stopRunning();
-        while (running) {
+        if (loopHandle != null) {
+            loopHandle.wakeup();
+        }
+        // the loop is finished without its last round if the scheduler is shutdown
+        while (running && (loopHandle == null || !loopHandle.isFinished())) {
             AgentUtils.silenceSleepInMs(1);
         }
         clearQueue(queue);
@@ -33,6 +33,8 @@ import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
 import org.rocksdb.Statistics;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,11 +65,18 @@ public class RocksDBStoreImpl implements Store {
     private ConcurrentHashMap<String, ColumnFamilyHandle> columnHandlesMap;
     private ConcurrentHashMap<String, ColumnFamilyDescriptor> columnDescriptorMap;
     private String storePath;
+    private final WriteOptions batchWriteOptions;
+    private final boolean binaryValue;
 
     public RocksDBStoreImpl(String childPath) {
         // init rocks db
         this.conf = AgentConfiguration.getAgentConf();
         this.db = initEnv(childPath);
+        this.batchWriteOptions = new WriteOptions().setDisableWAL(conf.getBoolean(
+                AgentConstants.AGENT_ROCKS_DB_BATCH_DISABLE_WAL,
+                AgentConstants.DEFAULT_AGENT_ROCKS_DB_BATCH_DISABLE_WAL));
+        this.binaryValue = conf.getBoolean(AgentConstants.AGENT_ROCKS_DB_BINARY_VALUE_ENABLE,
+                AgentConstants.DEFAULT_AGENT_ROCKS_DB_BINARY_VALUE_ENABLE);
         // add a command column family
         addColumnFamily(commandFamilyName);
     }
@@ -152,7 +161,7 @@ public class RocksDBStoreImpl implements Store {
         requireNonNull(key);
         try {
             byte[] bytes = db.get(columnHandlesMap.get(defaultFamilyName), key.getBytes());
-            return bytes == null ? null : GSON.fromJson(new String(bytes), KeyValueEntity.class);
+            return bytes == null ? null : decode(bytes);
         } catch (Exception e) {
             throw new RuntimeException("get key value entity error", e);
         }
@@ -162,12 +171,26 @@ public class RocksDBStoreImpl implements Store {
     public void put(KeyValueEntity entity) {
         requireNonNull(entity);
         try {
-            db.put(columnHandlesMap.get(defaultFamilyName), entity.getKey().getBytes(), GSON.toJson(entity).getBytes());
+            db.put(columnHandlesMap.get(defaultFamilyName), entity.getKey().getBytes(), encode(entity));
         } catch (Exception e) {
             throw new RuntimeException("put value to rocks db error", e);
         }
     }
 
+    @Override
+    public void putBatch(List<KeyValueEntity> entities) {
+        requireNonNull(entities);
+        ColumnFamilyHandle handle = columnHandlesMap.get(defaultFamilyName);
+        try (WriteBatch batch = new WriteBatch()) {
+            for (KeyValueEntity entity : entities) {
+                batch.put(handle, entity.getKey().getBytes(), encode(entity));
+            }
+            db.write(batchWriteOptions, batch);
+        } catch (Exception e) {
+            throw new RuntimeException("put batch values to rocks db error", e);
+        }
+    }
+
     @Override
     public KeyValueEntity remove(String key) {
         requireNonNull(key);
@@ -188,18 +211,36 @@ public class RocksDBStoreImpl implements Store {
     public List<KeyValueEntity> findAll(String prefix) {
         List<KeyValueEntity> results = new LinkedList<>();
         try (final RocksIterator it = db.newIterator(columnHandlesMap.get(defaultFamilyName))) {
-            it.seekToFirst();
-            while (it.isValid()) {
-                KeyValueEntity keyValue = GSON.fromJson(new String(it.value()), KeyValueEntity.class);
-                if (keyValue.getKey().startsWith(prefix)) {
-                    results.add(keyValue);
-                }
+            // the keys are sorted, so the keys with the prefix are adjacent
+            it.seek(prefix.getBytes());
+            while (it.isValid() && new String(it.key()).startsWith(prefix)) {
+                results.add(decode(it.value()));
                 it.next();
             }
         }
         return results;
     }
 
+    /**
+     * Encode the value in binary if enabled, otherwise in json, which the former versions can read
+     */
+    private byte[] encode(KeyValueEntity entity) {
+        if (binaryValue) {
+            return entity.toBytes();
+        }
+        return GSON.toJson(entity).getBytes();
+    }
+
+    /**
+     * Decode the value written in binary, or in json by the former versions
+     */
+    private static KeyValueEntity decode(byte[] bytes) {
+        if (KeyValueEntity.isBinary(bytes)) {
+            return KeyValueEntity.parseFrom(bytes);
+        }
+        return GSON.fromJson(new String(bytes), KeyValueEntity.class);
+    }
+
     @Override
     public String getSplitter() {
         return SPLITTER;
@@ -218,6 +259,7 @@ public class RocksDBStoreImpl implements Store {
     @Override
     public void close() throws IOException {
         db.close();
+        batchWriteOptions.close();
         columnHandlesMap.values().forEach(AbstractImmutableNativeReference::close);
         columnHandlesMap.clear();
         columnDescriptorMap.clear();
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.task.logcollection.local;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory index of the discovered files of a watch entity, from the directory to the inode of its files. A
+ * rescan of some directories checks the listed files against the index, so only the files missed by the watch
+ * events are reported. It is only used by the core thread of the task, so it is not thread safe.
+ */
+public class FileDiscoveryIndex {
+
+    // 100 bytes per file, it will occupy 10m at most
+    public static final int MAX_FILE_COUNT = 100000;
+    private final Map<String/* dir */, Map<String/* fileName */, String/* inode */>> dirToFiles = new HashMap<>();
+    private int fileCount = 0;
+
+    /**
+     * Offer a discovered file
+     *
+     * @param fileName the absolute file name
+     * @param inode the inode info of the file
+     * @return true if the file is not in the index or its inode is changed
+     */
+    public boolean offer(String fileName, String inode) {
+        String dir = getDir(fileName);
+        Map<String, String> files = dirToFiles.get(dir);
+        if (files == null || !files.containsKey(fileName)) {
+            // the index only saves rescans, it is fine to rebuild it
+            if (fileCount >= MAX_FILE_COUNT) {
+                clear();
+            }
+            dirToFiles.computeIfAbsent(dir, k -> new HashMap<>()).put(fileName, inode);
+            fileCount++;
+            return true;
+        }
+        return !inode.equals(files.put(fileName, inode));
+    }
+
+    /**
+     * Replace the files of a directory with the listed ones, the files not listed are deleted
+     *
+     * @param dir the directory
+     * @param listed the listed files of the directory
+     */
+    public void retainFiles(String dir, Set<String> listed) {
+        Map<String, String> files = dirToFiles.computeIfAbsent(dir, k -> new HashMap<>());
+        Iterator<String> it = files.keySet().iterator();
+        while (it.hasNext()) {
+            if (!listed.contains(it.next())) {
+                it.remove();
+                fileCount--;
+            }
+        }
+    }
+
+    /**
+     * Remove a directory and its sub directories
+     *
+     * @param dir the directory
+     */
+    public void removeDir(String dir) {
+        String prefix = dir + File.separator;
+        Iterator<Map.Entry<String, Map<String, String>>> it = dirToFiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Map<String, String>> entry = it.next();
+            if (entry.getKey().equals(dir) || entry.getKey().startsWith(prefix)) {
+                fileCount -= entry.getValue().size();
+                it.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        dirToFiles.clear();
+        fileCount = 0;
+    }
+
+    public int getDirCount() {
+        return dirToFiles.size();
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    private String getDir(String fileName) {
+        int index = fileName.lastIndexOf(File.separator);
+        return index <= 0 ? File.separator : fileName.substring(0, index);
+    }
+}
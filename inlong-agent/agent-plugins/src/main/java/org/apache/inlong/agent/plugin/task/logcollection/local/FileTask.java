@@ -17,9 +17,13 @@
 
 package org.apache.inlong.agent.plugin.task.logcollection.local;
 
+import org.apache.inlong.agent.conf.AgentConfiguration;
 import org.apache.inlong.agent.conf.TaskProfile;
+import org.apache.inlong.agent.constant.AgentConstants;
 import org.apache.inlong.agent.constant.CycleUnitType;
 import org.apache.inlong.agent.constant.TaskConstants;
+import org.apache.inlong.agent.metrics.AgentMetricItem;
+import org.apache.inlong.agent.metrics.AgentMetricItemSet;
 import org.apache.inlong.agent.plugin.task.logcollection.LogAbstractTask;
 import org.apache.inlong.agent.plugin.task.logcollection.local.FileScanner.BasicFileInfo;
 import org.apache.inlong.agent.plugin.utils.regex.DateUtils;
@@ -28,6 +32,7 @@ import org.apache.inlong.agent.plugin.utils.regex.PatternUtil;
 import org.apache.inlong.agent.utils.AgentUtils;
 import org.apache.inlong.agent.utils.DateTransUtils;
 import org.apache.inlong.agent.utils.file.FileUtils;
+import org.apache.inlong.common.metric.MetricRegister;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,36 +42,47 @@ import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
-import java.nio.file.WatchEvent.Kind;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.apache.inlong.agent.metrics.AgentMetricItem.KEY_INLONG_GROUP_ID;
+import static org.apache.inlong.agent.metrics.AgentMetricItem.KEY_INLONG_STREAM_ID;
+import static org.apache.inlong.agent.metrics.AgentMetricItem.KEY_PLUGIN_ID;
+
 /**
- * Watch directory, if new valid files are created, create instance correspondingly.
+ * Watch directory, if new valid files are created, create instance correspondingly. If the watch events of a
+ * directory may be lost, only the subtree of the directory is rescanned, the periodic full scan is a fallback.
  */
 public class FileTask extends LogAbstractTask {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileTask.class);
+    private static final AtomicLong METRIX_INDEX = new AtomicLong(0);
     private final Map<String, WatchEntity> watchers = new ConcurrentHashMap<>();
     private final Set<String> watchFailedDirs = new HashSet<>();
     public static final int CORE_THREAD_MAX_GAP_TIME_MS = 60 * 1000;
     private boolean realTime = false;
     private Set<String> originPatterns;
     private long lastScanTime = 0;
-    public final long SCAN_INTERVAL = 1 * 60 * 1000;
+    private long fullScanInterval;
+    private long watchStartTime = 0;
     private volatile long coreThreadUpdateTime = 0;
+    private AgentMetricItem taskMetric;
 
     @Override
     protected int getInstanceLimit() {
@@ -83,6 +99,9 @@ public class FileTask extends LogAbstractTask {
         if (taskProfile.getCycleUnit().compareToIgnoreCase(CycleUnitType.REAL_TIME) == 0) {
             realTime = true;
         }
+        fullScanInterval = AgentConfiguration.getAgentConf().getLong(AgentConstants.AGENT_FILE_FULL_SCAN_INTERVAL,
+                AgentConstants.DEFAULT_AGENT_FILE_FULL_SCAN_INTERVAL);
+        registerMetric();
         if (retry) {
             initRetryTask(taskProfile);
         } else {
@@ -90,6 +109,18 @@ public class FileTask extends LogAbstractTask {
         }
     }
 
+    private void registerMetric() {
+        Map<String, String> dimensions = new HashMap<>();
+        dimensions.put(KEY_PLUGIN_ID, this.getClass().getSimpleName());
+        dimensions.put(KEY_INLONG_GROUP_ID, taskProfile.getInlongGroupId());
+        dimensions.put(KEY_INLONG_STREAM_ID, taskProfile.getInlongStreamId());
+        String metricName = String.join("-", this.getClass().getSimpleName(),
+                String.valueOf(METRIX_INDEX.incrementAndGet()));
+        AgentMetricItemSet metricItemSet = new AgentMetricItemSet(metricName);
+        MetricRegister.register(metricItemSet);
+        taskMetric = metricItemSet.findMetricItem(dimensions);
+    }
+
     private boolean initRetryTask(TaskProfile profile) {
         String dataTimeFrom = profile.get(TaskConstants.FILE_TASK_TIME_FROM, "");
         String dataTimeTo = profile.get(TaskConstants.FILE_TASK_TIME_TO, "");
@@ -146,6 +177,7 @@ public class FileTask extends LogAbstractTask {
     }
 
     private void watchInit() {
+        watchStartTime = AgentUtils.getCurrentTime();
         originPatterns.forEach((pathPattern) -> {
             addPathPattern(pathPattern);
         });
@@ -207,7 +239,7 @@ public class FileTask extends LogAbstractTask {
 
     @Override
     protected void runForNormal() {
-        if (AgentUtils.getCurrentTime() - lastScanTime > SCAN_INTERVAL) {
+        if (AgentUtils.getCurrentTime() - lastScanTime > fullScanInterval) {
             scanExistingFile();
             lastScanTime = AgentUtils.getCurrentTime();
         }
@@ -220,8 +252,12 @@ public class FileTask extends LogAbstractTask {
         originPatterns.forEach((originPattern) -> {
             List<BasicFileInfo> fileInfos = scanExistingFileByPattern(originPattern);
             LOGGER.info("taskId {} scan {} get file count {}", getTaskId(), originPattern, fileInfos.size());
+            WatchEntity entity = watchers.get(originPattern);
             fileInfos.forEach((fileInfo) -> {
                 String fileName = fileInfo.fileName;
+                if (entity != null) {
+                    indexFile(entity, fileName);
+                }
                 Long fileUpdateTime = FileUtils.getFileLastModifyTime(fileName);
                 addToEvenMap(fileName, fileInfo.dataTime, fileUpdateTime, taskProfile.getCycleUnit());
                 if (retry) {
@@ -285,10 +321,14 @@ public class FileTask extends LogAbstractTask {
                 // maybe the watchService is closed ,but we catch this exception!
                 final WatchKey key = entity.getWatchService().poll();
                 if (key == null) {
-                    return;
+                    break;
                 }
                 dealWithWatchKey(entity, key);
+                if (watchers.get(originPattern) != entity) {
+                    return;
+                }
             }
+            rescanDirs(entity);
         } catch (Exception e) {
             LOGGER.error("deal with creation event error: ", e);
         }
@@ -296,34 +336,105 @@ public class FileTask extends LogAbstractTask {
 
     private void dealWithWatchKey(WatchEntity entity, WatchKey key) throws IOException {
         Path contextPath = entity.getPath(key);
+        if (contextPath == null) {
+            key.cancel();
+            return;
+        }
         LOGGER.info("Find creation events in path: {}", contextPath.toAbsolutePath());
         for (WatchEvent<?> watchEvent : key.pollEvents()) {
-            Path child = resolvePathFromEvent(watchEvent, contextPath);
-            if (child == null) {
+            /*
+             * Can't simply continue when it detects that an event maybe ignored, rescan the directory.
+             */
+            if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                LOGGER.warn("Events of path {} are lost, rescan it", contextPath.toAbsolutePath());
+                taskMetric.watchOverflowCount.incrementAndGet();
+                entity.addRescanDir(contextPath.toAbsolutePath().toString());
                 continue;
             }
+            Path child = resolvePathFromEvent(watchEvent, contextPath);
             if (Files.isDirectory(child)) {
                 LOGGER.info("The find creation event is triggered by a directory: {}", child.getFileName());
-                entity.registerRecursively(child);
+                /* The files may be created before the directory is registered. */
+                entity.registerRecursively(child).forEach(entity::addRescanDir);
                 continue;
             }
-            handleFilePath(child, entity);
+            handleFilePath(child, entity, true);
         }
         resetWatchKey(entity, key, contextPath);
     }
 
-    private Path resolvePathFromEvent(WatchEvent<?> watchEvent, Path contextPath) {
-        final Kind<?> kind = watchEvent.kind();
-        /*
-         * Can't simply continue when it detects that an event maybe ignored.
-         */
-        if (kind == StandardWatchEventKinds.OVERFLOW) {
-            LOGGER.error("An event is unclear and lost");
-            /*
-             * TODO: should we do a full scan to avoid lost events?
-             */
-            return null;
+    /**
+     * Rescan the directories whose events may be lost and their new sub directories, the sub directories
+     * registered before have their own events.
+     */
+    private void rescanDirs(WatchEntity entity) throws IOException {
+        Set<String> dirs = entity.pollRescanDirs();
+        if (dirs.isEmpty()) {
+            return;
+        }
+        long startTime = AgentUtils.getCurrentTime();
+        Set<String> scanDirs = new HashSet<>();
+        for (String dir : dirs) {
+            if (!entity.isWatched(dir)) {
+                continue;
+            }
+            if (!new File(dir).isDirectory()) {
+                entity.removeWatchDir(dir);
+                continue;
+            }
+            scanDirs.add(dir);
+            scanDirs.addAll(entity.registerSubDirs(dir));
+        }
+        for (String dir : scanDirs) {
+            rescanDir(entity, dir);
         }
+        taskMetric.fileRescanDirCount.addAndGet(scanDirs.size());
+        LOGGER.info("taskId {} rescan {} dirs cost {} ms, index dir count {} file count {}", getTaskId(),
+                scanDirs.size(), AgentUtils.getCurrentTime() - startTime, entity.getFileIndex().getDirCount(),
+                entity.getFileIndex().getFileCount());
+    }
+
+    private void rescanDir(WatchEntity entity, String dir) {
+        File[] files = new File(dir).listFiles();
+        if (files == null) {
+            return;
+        }
+        Set<String> listed = new HashSet<>();
+        for (File file : files) {
+            if (file.isFile()) {
+                listed.add(file.getAbsolutePath());
+                handleFilePath(file.toPath(), entity, false);
+            }
+        }
+        entity.getFileIndex().retainFiles(dir, listed);
+    }
+
+    /**
+     * Put the file into the index of the entity
+     *
+     * @return true if the file is not discovered before
+     */
+    private boolean indexFile(WatchEntity entity, String fileName) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(Paths.get(fileName), BasicFileAttributes.class);
+        } catch (IOException e) {
+            LOGGER.warn("read attributes of file {} error: ", fileName, e);
+            return true;
+        }
+        if (!entity.getFileIndex().offer(fileName, String.valueOf(attributes.fileKey()))) {
+            return false;
+        }
+        // the files created before watching are not counted in the latency
+        long createTime = attributes.creationTime().toMillis();
+        if (createTime >= watchStartTime) {
+            taskMetric.fileDiscoverCount.incrementAndGet();
+            taskMetric.fileDiscoverLatency.addAndGet(Math.max(0, AgentUtils.getCurrentTime() - createTime));
+        }
+        return true;
+    }
+
+    private Path resolvePathFromEvent(WatchEvent<?> watchEvent, Path contextPath) {
         final WatchEvent<Path> watchEventPath = (WatchEvent<Path>) watchEvent;
         final Path eventPath = watchEventPath.context();
         /*
@@ -332,11 +443,21 @@ public class FileTask extends LogAbstractTask {
         return contextPath.resolve(eventPath);
     }
 
-    private void handleFilePath(Path filePath, WatchEntity entity) {
+    /**
+     * Handle a created file
+     *
+     * @param fromEvent false if the file is found by a rescan, it is skipped if it is discovered before
+     */
+    private void handleFilePath(Path filePath, WatchEntity entity, boolean fromEvent) {
         String newFileName = filePath.toFile().getAbsolutePath();
-        LOGGER.info("new file {} {}", newFileName, entity.getPattern());
+        if (fromEvent) {
+            LOGGER.info("new file {} {}", newFileName, entity.getPattern());
+        }
         Matcher matcher = entity.getPattern().matcher(newFileName);
         if (matcher.matches() || matcher.lookingAt()) {
+            if (!indexFile(entity, newFileName) && !fromEvent) {
+                return;
+            }
             LOGGER.info("matched file {} {}", newFileName, entity.getPattern());
             String dataTime = getDataTimeFromFileName(newFileName, entity.getDateExpression());
             if (!checkFileNameForTime(newFileName, entity)) {
@@ -380,6 +501,22 @@ public class FileTask extends LogAbstractTask {
 
     private void resetWatchKey(WatchEntity entity, WatchKey key, Path contextPath) {
         key.reset();
+        if (!key.isValid() && !Files.isDirectory(contextPath)) {
+            String dir = contextPath.toAbsolutePath().toString();
+            LOGGER.info("Watch path {} is deleted, remove it", dir);
+            entity.removeWatchDir(dir);
+            /* Watch it again when the root directory is created. */
+            if (dir.equals(Paths.get(entity.getWatchPath()).toAbsolutePath().toString())) {
+                watchers.remove(entity.getOriginPattern());
+                watchFailedDirs.add(entity.getOriginPattern());
+                try {
+                    entity.getWatchService().close();
+                } catch (IOException e) {
+                    LOGGER.error("close watch service failed path {}", dir, e);
+                }
+            }
+            return;
+        }
         /*
          * Register a new watch service on the path if the old watcher is invalid.
          */
@@ -393,6 +530,9 @@ public class FileTask extends LogAbstractTask {
                 entity.clearPathToKeys();
                 entity.setWatchService(watchService);
                 entity.registerRecursively();
+                /* The events before the new watcher are lost. */
+                entity.getWatchDirsUnder(Paths.get(entity.getWatchPath()).toAbsolutePath().toString())
+                        .forEach(entity::addRescanDir);
             } catch (IOException e) {
                 LOGGER.error("Restart a new watcher runs into error: ", e);
             }
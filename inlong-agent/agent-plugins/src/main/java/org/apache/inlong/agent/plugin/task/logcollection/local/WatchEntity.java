@@ -35,6 +35,7 @@ import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -60,6 +61,9 @@ public class WatchEntity {
     private final Map<WatchKey, Path> keys = new ConcurrentHashMap<WatchKey, Path>();
     private final Map<String, WatchKey> pathToKeys = new ConcurrentHashMap<String, WatchKey>();
     private final String dirSeparator = System.getProperty("file.separator");
+    private final FileDiscoveryIndex fileIndex = new FileDiscoveryIndex();
+    // the directories whose watch events may be lost
+    private final Set<String> rescanDirs = ConcurrentHashMap.newKeySet();
     private String cycleUnit;
     private long lastCheckTime;
 
@@ -154,12 +158,19 @@ public class WatchEntity {
         registerRecursively(rootPath.toFile(), rootPath.toAbsolutePath().toString().length() + 1);
     }
 
-    public void registerRecursively(Path dir) throws IOException {
+    /**
+     * Register a directory and its sub directories
+     *
+     * @param dir the directory
+     * @return the newly registered directories
+     */
+    public List<String> registerRecursively(Path dir) throws IOException {
+        List<String> registered = new ArrayList<>();
         Path rootPath = dir;
         String rootDirName = rootPath.toAbsolutePath().toString();
         int beginIndex = rootDirName.lastIndexOf(dirSeparator) + 1;
         if (beginIndex == 0) {
-            return;
+            return registered;
         }
         int index = originPatternWithoutFileName.indexOf(dirSeparator, beginIndex + 1);
         Pattern pattern = getPattern(index);
@@ -169,15 +180,21 @@ public class WatchEntity {
             WatchKey key = rootPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
             keys.put(key, rootPath);
             pathToKeys.put(rootDirName, key);
+            registered.add(rootDirName);
             logger.info("Register a new directory: " + rootDirName);
         } else {
-            return;
+            return registered;
         }
         logger.info("rootPath len {}", rootPath.toAbsolutePath().toString().length());
-        registerRecursively(rootPath.toFile(), rootPath.toAbsolutePath().toString().length() + 1);
+        registerRecursively(rootPath.toFile(), rootPath.toAbsolutePath().toString().length() + 1, registered);
+        return registered;
     }
 
     public void registerRecursively(File dir, int beginIndex) throws IOException {
+        registerRecursively(dir, beginIndex, null);
+    }
+
+    private void registerRecursively(File dir, int beginIndex, List<String> registered) throws IOException {
         File[] files = dir.listFiles();
         if (files == null) {
             return;
@@ -196,6 +213,9 @@ public class WatchEntity {
                                 .register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
                         keys.put(key, dirPath);
                         pathToKeys.put(dirName, key);
+                        if (registered != null) {
+                            registered.add(dirName);
+                        }
                         logger.info("Register a new directory: " + dirName);
                     } catch (IOException e) {
                         /**
@@ -205,7 +225,7 @@ public class WatchEntity {
                         continue;
                     }
                     registerRecursively(files[i].getAbsoluteFile(),
-                            files[i].getAbsolutePath().length() + 1);
+                            files[i].getAbsolutePath().length() + 1, registered);
                 }
             }
         }
@@ -283,15 +303,82 @@ public class WatchEntity {
         for (String path : tmpKeys) {
             File folder = new File(path);
             if (!folder.isDirectory()) {
-                WatchKey key = pathToKeys.get(path);
-                key.cancel();
-                pathToKeys.remove(path);
+                removeWatchDir(path);
                 logger.info("path: {} is deleted we should remove the watch", path);
             }
         }
         logger.info("pathToKeys size {} after remove", pathToKeys.size());
     }
 
+    /**
+     * Remove the watch of a deleted directory and its files in the index
+     *
+     * @param dir the directory
+     */
+    public void removeWatchDir(String dir) {
+        WatchKey key = pathToKeys.remove(dir);
+        if (key != null) {
+            key.cancel();
+            keys.remove(key);
+        }
+        fileIndex.removeDir(dir);
+    }
+
+    /**
+     * Register the sub directories of a watched directory which are not registered yet
+     *
+     * @param dir the watched directory
+     * @return the newly registered directories
+     */
+    public List<String> registerSubDirs(String dir) throws IOException {
+        List<String> registered = new ArrayList<>();
+        registerRecursively(new File(dir), dir.length() + 1, registered);
+        return registered;
+    }
+
+    public boolean isWatched(String dir) {
+        return pathToKeys.containsKey(dir);
+    }
+
+    /**
+     * Get the watched directories of a subtree
+     *
+     * @param dir the root of the subtree
+     * @return the watched directories including the root
+     */
+    public List<String> getWatchDirsUnder(String dir) {
+        String prefix = dir + dirSeparator;
+        List<String> dirs = new ArrayList<>();
+        for (String path : pathToKeys.keySet()) {
+            if (path.equals(dir) || path.startsWith(prefix)) {
+                dirs.add(path);
+            }
+        }
+        return dirs;
+    }
+
+    public void addRescanDir(String dir) {
+        rescanDirs.add(dir);
+    }
+
+    /**
+     * Take the directories to rescan
+     *
+     * @return the directories, empty if none
+     */
+    public Set<String> pollRescanDirs() {
+        if (rescanDirs.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<String> dirs = new HashSet<>(rescanDirs);
+        rescanDirs.removeAll(dirs);
+        return dirs;
+    }
+
+    public FileDiscoveryIndex getFileIndex() {
+        return fileIndex;
+    }
+
     public void clearPathToKeys() {
         pathToKeys.clear();
     }
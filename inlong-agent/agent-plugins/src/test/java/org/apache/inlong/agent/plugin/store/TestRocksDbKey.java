@@ -65,5 +65,7 @@ public class TestRocksDbKey {
         Assert.assertEquals(0, instanceStore.getKeyByTaskAndInstanceId("1", "/data/log/123.log")
                 .compareTo("ins_1_/data/log/123.log"));
         Assert.assertEquals(0, offsetStore.getKey("1", "/data/log/123.log").compareTo("offset_1_/data/log/123.log"));
+        Assert.assertEquals(0, offsetStore.getLineIndexKey("1", "/data/log/123.log")
+                .compareTo("lineIndex_1_/data/log/123.log"));
     }
 }
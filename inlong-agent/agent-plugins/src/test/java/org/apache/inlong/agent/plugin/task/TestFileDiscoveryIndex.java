@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.task;
+
+import org.apache.inlong.agent.constant.CycleUnitType;
+import org.apache.inlong.agent.plugin.task.logcollection.local.FileDiscoveryIndex;
+import org.apache.inlong.agent.plugin.task.logcollection.local.WatchEntity;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class TestFileDiscoveryIndex {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOfferAndRemove() {
+        FileDiscoveryIndex index = new FileDiscoveryIndex();
+        Assert.assertTrue(index.offer("/data/20240101/a.txt", "1"));
+        Assert.assertFalse(index.offer("/data/20240101/a.txt", "1"));
+        // rotated with a new inode
+        Assert.assertTrue(index.offer("/data/20240101/a.txt", "2"));
+        Assert.assertTrue(index.offer("/data/20240101/b.txt", "3"));
+        Assert.assertTrue(index.offer("/data/20240102/c.txt", "4"));
+        Assert.assertEquals(2, index.getDirCount());
+        Assert.assertEquals(3, index.getFileCount());
+
+        index.retainFiles("/data/20240101", Collections.singleton("/data/20240101/b.txt"));
+        Assert.assertEquals(2, index.getFileCount());
+        Assert.assertTrue(index.offer("/data/20240101/a.txt", "2"));
+
+        index.removeDir("/data");
+        Assert.assertEquals(0, index.getDirCount());
+        Assert.assertEquals(0, index.getFileCount());
+    }
+
+    @Test
+    public void testRegisterSubDirs() throws Exception {
+        File root = folder.getRoot();
+        String pattern = root.getAbsolutePath() + "/YYYYMMDD/test_[0-9]+.txt";
+        WatchEntity entity = new WatchEntity(FileSystems.getDefault().newWatchService(), pattern,
+                CycleUnitType.DAY);
+        entity.registerRecursively();
+        String rootDir = root.getAbsolutePath();
+        Assert.assertEquals(Collections.singletonList(rootDir), entity.getWatchDirsUnder(rootDir));
+
+        // the directories created while the events are lost
+        Assert.assertTrue(new File(root, "20240101").mkdir());
+        Assert.assertTrue(new File(root, "other").mkdir());
+        List<String> registered = entity.registerSubDirs(rootDir);
+        Assert.assertEquals(Collections.singletonList(rootDir + File.separator + "20240101"), registered);
+        Assert.assertTrue(entity.registerSubDirs(rootDir).isEmpty());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(rootDir, registered.get(0))),
+                new HashSet<>(entity.getWatchDirsUnder(rootDir)));
+
+        entity.addRescanDir(registered.get(0));
+        Assert.assertEquals(Collections.singleton(registered.get(0)), entity.pollRescanDirs());
+        Assert.assertTrue(entity.pollRescanDirs().isEmpty());
+
+        entity.getFileIndex().offer(registered.get(0) + File.separator + "test_1.txt", "1");
+        entity.removeWatchDir(registered.get(0));
+        Assert.assertFalse(entity.isWatched(registered.get(0)));
+        Assert.assertEquals(0, entity.getFileIndex().getFileCount());
+        entity.getWatchService().close();
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.msg;
+
+import org.apache.inlong.common.msg.InLongMsg.Version;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A cursor style reader of the parsed InLongMsg.
+ *
+ * Different from {@link InLongMsg#parseFrom(ByteBuffer)}, the records are read in place in the order
+ * they are written, without grouping them into the buffers of each attribute. The compressed data is
+ * uncompressed into a buffer reused by the reader, so a reader can be kept and reset for each message.
+ * The data of a record is only valid before the reader moves to the next attribute section.
+ *
+ * Typical usage is something like the following:
+ *
+ * InLongMsgReader reader = new InLongMsgReader();
+ * if (reader.reset(buffer)) {
+ *   while (reader.next()) {
+ *     if (reader.isAttrChanged()) {
+ *       ... read reader.getAttrView() ...
+ *     }
+ *     ... read reader.getDataArray() from reader.getDataOffset() with reader.getDataLength() ...
+ *   }
+ * }
+ */
+public class InLongMsgReader {
+
+    private static final int INT_SIZE = 4;
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    private final DataInputBuffer input = new DataInputBuffer();
+    private byte[] uncompressBuffer;
+
+    private Version version = Version.vn;
+    private long createtime = -1;
+    private int msgCnt = 0;
+    private int attrCnt = 0;
+    private int attrIndex = 0;
+    private boolean isNumGroupId = false;
+    private boolean broken = false;
+
+    // the attribute section being read
+    private String sectionAttr;
+    private boolean sectionFirst;
+    private boolean recordWithAttr;
+    private boolean grouped;
+    private byte[] recordArray;
+    private int recordPos;
+    private int recordEnd;
+    private int groupRemaining;
+
+    // the current record
+    private int dataOffset;
+    private int dataLength;
+    private int attrOffset;
+    private int attrLength;
+    private boolean attrChanged;
+    private String attr;
+    private AttrView attrView;
+
+    /**
+     * Reset the reader to read a message
+     *
+     * @param data the message
+     * @return false if the data is not an InLongMsg
+     */
+    public boolean reset(byte[] data) {
+        return reset(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Reset the reader to read a message
+     *
+     * @param buffer the message
+     * @return false if the data is not an InLongMsg
+     */
+    public boolean reset(ByteBuffer buffer) {
+        this.version = InLongMsg.getMagic(buffer);
+        this.createtime = -1;
+        this.msgCnt = 0;
+        this.attrCnt = 0;
+        this.attrIndex = 0;
+        this.isNumGroupId = false;
+        this.broken = false;
+        this.recordArray = null;
+        this.recordPos = 0;
+        this.recordEnd = 0;
+        this.groupRemaining = 0;
+        this.sectionAttr = null;
+        this.attr = null;
+        this.attrView = null;
+        if (uncompressBuffer != null && uncompressBuffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            uncompressBuffer = null;
+        }
+        if (version == Version.vn) {
+            return false;
+        }
+        try {
+            if (version == Version.v4) {
+                readBinMsg(buffer);
+            } else {
+                readHeader(buffer);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            this.version = Version.vn;
+            return false;
+        }
+    }
+
+    /**
+     * Move to the next record
+     *
+     * @return false if there are no more records
+     */
+    public boolean next() throws IOException {
+        if (version == Version.vn) {
+            return false;
+        }
+        while (!broken) {
+            if (nextRecord()) {
+                return true;
+            }
+            if (broken || !nextSection()) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public int getVersion() {
+        return version.intValue();
+    }
+
+    public long getCreatetime() {
+        return createtime;
+    }
+
+    public int getMsgCnt() {
+        return msgCnt;
+    }
+
+    public boolean isNumGroupId() {
+        return isNumGroupId;
+    }
+
+    /**
+     * Whether the attributes of the current record are different from the attributes of the former record
+     */
+    public boolean isAttrChanged() {
+        return attrChanged;
+    }
+
+    /**
+     * Get the attributes of the current record
+     */
+    public String getAttr() {
+        if (attr == null) {
+            if (!recordWithAttr) {
+                attr = sectionAttr;
+            } else if (version == Version.v4) {
+                // the common attributes are put after the record attributes to override them
+                attr = new String(recordArray, attrOffset, attrLength, StandardCharsets.UTF_8)
+                        + AttributeConstants.SEPARATOR + sectionAttr;
+            } else {
+                attr = sectionAttr + AttributeConstants.SEPARATOR
+                        + new String(recordArray, attrOffset, attrLength, StandardCharsets.UTF_8);
+            }
+        }
+        return attr;
+    }
+
+    /**
+     * Get the lazily parsed attributes of the current record
+     */
+    public AttrView getAttrView() {
+        if (attrView == null) {
+            attrView = new AttrView(getAttr());
+        }
+        return attrView;
+    }
+
+    public byte[] getDataArray() {
+        return recordArray;
+    }
+
+    public int getDataOffset() {
+        return dataOffset;
+    }
+
+    public int getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * Get the data of the current record without copying it
+     */
+    public ByteBuffer getDataBuffer() {
+        return ByteBuffer.wrap(recordArray, dataOffset, dataLength);
+    }
+
+    /**
+     * Get a copy of the data of the current record
+     */
+    public byte[] getData() {
+        return Arrays.copyOfRange(recordArray, dataOffset, dataOffset + dataLength);
+    }
+
+    private void readHeader(ByteBuffer buffer) throws IOException {
+        input.reset(buffer.array(), buffer.position() + 2, buffer.remaining());
+        if (version.intValue() >= Version.v1.intValue()) {
+            createtime = input.readLong();
+        }
+        if (version.intValue() >= Version.v2.intValue()) {
+            msgCnt = input.readInt();
+        }
+        attrCnt = input.readInt();
+        this.grouped = version == Version.v3;
+        this.recordWithAttr = version == Version.v3;
+    }
+
+    private boolean nextSection() throws IOException {
+        if (version == Version.v4 || attrIndex >= attrCnt) {
+            return false;
+        }
+        attrIndex++;
+        sectionAttr = input.readUTF();
+        if (version == Version.v2) {
+            input.readInt();
+        }
+        int len = input.readInt();
+        int pos = input.getPosition();
+        byte[] data = input.getData();
+        if (len <= 0 || len > input.available()) {
+            broken = true;
+            return false;
+        }
+        input.skip(len);
+        // the first byte is the compress flag
+        if (data[pos] == 1) {
+            uncompress(data, pos + 1, len - 1);
+        } else {
+            setRecords(data, pos + 1, pos + len);
+        }
+        return true;
+    }
+
+    private void readBinMsg(ByteBuffer buffer) throws IOException {
+        int base = buffer.position() + 2;
+        ByteBuffer bin = ByteBuffer.wrap(buffer.array(), base, buffer.remaining() - 2).slice();
+        int msgType = bin.get(InLongMsg.BIN_MSG_MSGTYPE_OFFSET);
+        int groupIdNum = bin.getShort(InLongMsg.BIN_MSG_GROUPID_OFFSET);
+        int streamIdNum = bin.getShort(InLongMsg.BIN_MSG_STREAMID_OFFSET);
+        int bodyLen = bin.getInt(InLongMsg.BIN_MSG_BODYLEN_OFFSET);
+        long dataTime = bin.getInt(InLongMsg.BIN_MSG_DATATIME_OFFSET) * 1000L;
+        int extField = bin.getShort(InLongMsg.BIN_MSG_EXTFIELD_OFFSET);
+        int attrLen = bin.getShort(InLongMsg.BIN_MSG_BODY_OFFSET + bodyLen);
+        this.createtime = dataTime;
+        this.msgCnt = bin.getShort(InLongMsg.BIN_MSG_COUNT_OFFSET);
+        this.isNumGroupId = (extField & 0x4) == 0;
+
+        // the common attributes are parsed once for all the records
+        Map<String, String> commonAttrMap = new HashMap<>();
+        if (attrLen != 0) {
+            String strAttr = new String(buffer.array(),
+                    base + InLongMsg.BIN_MSG_BODY_OFFSET + bodyLen + InLongMsg.BIN_MSG_ATTRLEN_SIZE,
+                    attrLen, StandardCharsets.UTF_8);
+            commonAttrMap.putAll(InLongMsg.MAP_SPLITTER.split(strAttr));
+        }
+        commonAttrMap.put(AttributeConstants.DATA_TIME, String.valueOf(dataTime));
+        if (isNumGroupId) {
+            commonAttrMap.put(AttributeConstants.GROUP_ID, String.valueOf(groupIdNum));
+            commonAttrMap.put(AttributeConstants.STREAM_ID, String.valueOf(streamIdNum));
+        }
+        commonAttrMap.put(AttributeConstants.MESSAGE_COUNT, String.valueOf(msgCnt));
+        this.sectionAttr = InLongMsg.MAP_JOINER.join(commonAttrMap);
+        this.grouped = false;
+        this.recordWithAttr = (extField & 0x1) == 0x1;
+
+        int bodyOffset = base + InLongMsg.BIN_MSG_BODY_OFFSET;
+        if (((msgType & 0xE0) >> 5) == InLongMsg.BIN_MSG_SNAPPY_TYPE) {
+            uncompress(buffer.array(), bodyOffset, bodyLen);
+        } else {
+            setRecords(buffer.array(), bodyOffset, bodyOffset + bodyLen);
+        }
+    }
+
+    private void uncompress(byte[] data, int offset, int length) throws IOException {
+        int uncompressLen = Snappy.uncompressedLength(data, offset, length);
+        if (uncompressBuffer == null || uncompressBuffer.length < uncompressLen) {
+            uncompressBuffer = new byte[Math.max(uncompressLen, DEFAULT_BUFFER_SIZE)];
+        }
+        int len = Snappy.uncompress(data, offset, length, uncompressBuffer, 0);
+        setRecords(uncompressBuffer, 0, len);
+    }
+
+    private void setRecords(byte[] array, int start, int end) {
+        this.recordArray = array;
+        this.recordPos = start;
+        this.recordEnd = end;
+        this.groupRemaining = 0;
+        this.sectionFirst = true;
+    }
+
+    private boolean nextRecord() {
+        if (recordArray == null) {
+            return false;
+        }
+        if (grouped) {
+            // the records are written in groups, with the total length of each group before it
+            while (groupRemaining <= 0) {
+                if (recordPos >= recordEnd) {
+                    return false;
+                }
+                groupRemaining = readInt();
+                if (groupRemaining < 0 || groupRemaining > recordEnd - recordPos) {
+                    broken = true;
+                    return false;
+                }
+            }
+        } else if (recordPos >= recordEnd) {
+            return false;
+        }
+        int msgLen = readInt();
+        if (msgLen < 0 || msgLen > recordEnd - recordPos || (recordWithAttr && msgLen == 0)) {
+            broken = true;
+            return false;
+        }
+        this.dataOffset = recordPos;
+        this.dataLength = msgLen;
+        recordPos += msgLen;
+        if (!recordWithAttr) {
+            setAttrChanged(sectionFirst);
+            return true;
+        }
+
+        int recordAttrLen = readInt();
+        if (recordAttrLen <= 0 || recordAttrLen > recordEnd - recordPos) {
+            broken = true;
+            return false;
+        }
+        boolean changed = sectionFirst || recordAttrLen != attrLength
+                || !regionEquals(recordArray, recordPos, attrOffset, recordAttrLen);
+        this.attrOffset = recordPos;
+        this.attrLength = recordAttrLen;
+        recordPos += recordAttrLen;
+        if (grouped) {
+            groupRemaining -= msgLen + recordAttrLen + 2 * INT_SIZE;
+        }
+        setAttrChanged(changed);
+        return true;
+    }
+
+    private void setAttrChanged(boolean changed) {
+        this.attrChanged = changed;
+        this.sectionFirst = false;
+        if (changed) {
+            this.attr = null;
+            this.attrView = null;
+        }
+    }
+
+    private int readInt() {
+        if (recordEnd - recordPos < INT_SIZE) {
+            broken = true;
+            recordPos = recordEnd;
+            return -1;
+        }
+        int value = ((recordArray[recordPos] & 0xFF) << 24)
+                | ((recordArray[recordPos + 1] & 0xFF) << 16)
+                | ((recordArray[recordPos + 2] & 0xFF) << 8)
+                | (recordArray[recordPos + 3] & 0xFF);
+        recordPos += INT_SIZE;
+        return value;
+    }
+
+    private static boolean regionEquals(byte[] array, int offset1, int offset2, int length) {
+        for (int i = 0; i < length; i++) {
+            if (array[offset1 + i] != array[offset2 + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The attributes parsed when they are read, the later one of the duplicated keys takes effect
+     */
+    public static class AttrView {
+
+        private final String attr;
+        private Map<String, String> attrMap;
+
+        public AttrView(String attr) {
+            this.attr = attr;
+        }
+
+        public String getAttr() {
+            return attr;
+        }
+
+        /**
+         * Get the value of the key by scanning the attributes, without building the map
+         *
+         * @param key the key
+         * @return the value, or null if not found
+         */
+        public String get(String key) {
+            if (attrMap != null) {
+                return attrMap.get(key);
+            }
+            String value = null;
+            int start = 0;
+            int length = attr.length();
+            while (start < length) {
+                int end = attr.indexOf(AttributeConstants.SEPARATOR, start);
+                if (end < 0) {
+                    end = length;
+                }
+                if (end - start > key.length()
+                        && attr.startsWith(AttributeConstants.KEY_VALUE_SEPARATOR, start + key.length())
+                        && attr.regionMatches(start, key, 0, key.length())) {
+                    value = attr.substring(start + key.length() + 1, end);
+                }
+                start = end + 1;
+            }
+            return value;
+        }
+
+        /**
+         * Get all the attributes, the entries without the key value separator are ignored.
+         * The map is built once and shared by the callers.
+         */
+        public Map<String, String> toMap() {
+            if (attrMap == null) {
+                Map<String, String> map = new HashMap<>();
+                int start = 0;
+                int length = attr.length();
+                while (start < length) {
+                    int end = attr.indexOf(AttributeConstants.SEPARATOR, start);
+                    if (end < 0) {
+                        end = length;
+                    }
+                    int sep = attr.indexOf(AttributeConstants.KEY_VALUE_SEPARATOR, start);
+                    if (sep > start && sep < end) {
+                        map.put(attr.substring(start, sep), attr.substring(sep + 1, end));
+                    }
+                    start = end + 1;
+                }
+                attrMap = map;
+            }
+            return attrMap;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.msg;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InLongMsgReaderTest {
+
+    @Test
+    public void testReadDefaultMsg() throws Exception {
+        for (int version = 1; version <= 2; version++) {
+            for (boolean compress : new boolean[]{true, false}) {
+                InLongMsg msg = InLongMsg.newInLongMsg(compress, version);
+                for (int i = 0; i < 10; i++) {
+                    msg.addMsg("groupId=g&streamId=s" + (i % 3) + "&dt=1000",
+                            ("record" + i).getBytes(StandardCharsets.UTF_8));
+                }
+                byte[] data = msg.buildArray(1000L);
+                Assert.assertEquals(parseByInLongMsg(data), readByReader(data));
+            }
+        }
+    }
+
+    @Test
+    public void testReadMixAttrMsg() throws Exception {
+        InLongMsg msg = InLongMsg.newInLongMsg(true, 3);
+        ByteBuffer body = ByteBuffer.allocate(1024);
+        for (int i = 0; i < 6; i++) {
+            byte[] record = ("record" + i).getBytes(StandardCharsets.UTF_8);
+            byte[] attr = ("t=" + (i / 2)).getBytes(StandardCharsets.UTF_8);
+            body.putInt(record.length).put(record).putInt(attr.length).put(attr);
+        }
+        body.flip();
+        msg.addMsg("groupId=g&streamId=s", body);
+        byte[] data = msg.buildArray(1000L);
+        Assert.assertEquals(parseByInLongMsg(data), readByReader(data));
+
+        InLongMsgReader reader = new InLongMsgReader();
+        Assert.assertTrue(reader.reset(data));
+        int changedCount = 0;
+        while (reader.next()) {
+            if (reader.isAttrChanged()) {
+                changedCount++;
+                Assert.assertEquals("g", reader.getAttrView().get("groupId"));
+            }
+        }
+        // the records with the same attributes are adjacent
+        Assert.assertEquals(3, changedCount);
+    }
+
+    @Test
+    public void testReadBinMsg() throws Exception {
+        for (boolean withRecordAttr : new boolean[]{true, false}) {
+            InLongMsg msg = InLongMsg.newInLongMsg(true, 4);
+            Assert.assertTrue(msg.addMsg(buildBinMsg(withRecordAttr)));
+            byte[] data = msg.buildArray(1000L);
+
+            Map<Map<String, String>, List<String>> expected = new LinkedHashMap<>();
+            parseByInLongMsg(data).forEach((attr, records) -> expected.put(
+                    new InLongMsgReader.AttrView(attr).toMap(), records));
+            Map<Map<String, String>, List<String>> actual = new LinkedHashMap<>();
+            readByReader(data).forEach((attr, records) -> actual.merge(
+                    new InLongMsgReader.AttrView(attr).toMap(), records, (r1, r2) -> {
+                        r1.addAll(r2);
+                        return r1;
+                    }));
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testAttrView() {
+        InLongMsgReader.AttrView view = new InLongMsgReader.AttrView("a=1&bad&ab=2&=3&a=4");
+        Assert.assertEquals("4", view.get("a"));
+        Assert.assertEquals("2", view.get("ab"));
+        Assert.assertNull(view.get("b"));
+        Assert.assertEquals(2, view.toMap().size());
+        Assert.assertEquals("4", view.toMap().get("a"));
+    }
+
+    @Test
+    public void testIllegalMsg() throws Exception {
+        InLongMsgReader reader = new InLongMsgReader();
+        Assert.assertFalse(reader.reset(new byte[]{1, 2, 3, 4, 5}));
+        Assert.assertFalse(reader.next());
+    }
+
+    private static Map<String, List<String>> parseByInLongMsg(byte[] data) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        InLongMsg msg = InLongMsg.parseFrom(data);
+        for (String attr : msg.getAttrs()) {
+            Iterator<byte[]> it = msg.getIterator(attr);
+            while (it.hasNext()) {
+                result.computeIfAbsent(attr, k -> new ArrayList<>())
+                        .add(new String(it.next(), StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, List<String>> readByReader(byte[] data) throws Exception {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        InLongMsgReader reader = new InLongMsgReader();
+        Assert.assertTrue(reader.reset(data));
+        while (reader.next()) {
+            result.computeIfAbsent(reader.getAttr(), k -> new ArrayList<>())
+                    .add(new String(reader.getDataArray(), reader.getDataOffset(), reader.getDataLength(),
+                            StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private static ByteBuffer buildBinMsg(boolean withRecordAttr) {
+        ByteBuffer body = ByteBuffer.allocate(1024);
+        for (int i = 0; i < 4; i++) {
+            byte[] record = ("record" + i).getBytes(StandardCharsets.UTF_8);
+            body.putInt(record.length).put(record);
+            if (withRecordAttr) {
+                byte[] attr = ("rt=" + (i % 2)).getBytes(StandardCharsets.UTF_8);
+                body.putInt(attr.length).put(attr);
+            }
+        }
+        body.flip();
+        byte[] attr = "node=n1".getBytes(StandardCharsets.UTF_8);
+        int bodyLen = body.remaining();
+        ByteBuffer bin = ByteBuffer.allocate(bodyLen + attr.length + 29);
+        bin.putInt(bodyLen + attr.length + 25);
+        bin.put((byte) 7);
+        bin.putShort((short) 1);
+        bin.putShort((short) 2);
+        bin.putShort((short) (withRecordAttr ? 0x1 : 0x0));
+        bin.putInt(1000);
+        bin.putShort((short) 4);
+        bin.putInt(0);
+        bin.putInt(bodyLen);
+        bin.put(body);
+        bin.putShort((short) attr.length);
+        bin.put(attr);
+        bin.putShort((short) 0xEE01);
+        bin.flip();
+        return bin;
+    }
+}
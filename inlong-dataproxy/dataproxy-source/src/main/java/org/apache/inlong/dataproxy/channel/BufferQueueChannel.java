@@ -29,7 +29,9 @@ import org.apache.flume.channel.AbstractChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.Semaphore;
@@ -49,15 +51,15 @@ public class BufferQueueChannel extends AbstractChannel {
     public static final int DEFAULT_MAX_BUFFERQUEUE_SIZE_KB = 128 * 1024;
     public static final String KEY_RELOADINTERVAL = "reloadInterval";
 
-    private Context context;
+    protected Context context;
     private int maxBufferQueueCount;
-    private Semaphore countSemaphore;
+    protected Semaphore countSemaphore;
     private int maxBufferQueueSizeKb;
-    private BufferQueue<ProxyEvent> bufferQueue;
-    private ThreadLocal<ProxyTransaction> currentTransaction = new ThreadLocal<ProxyTransaction>();
+    protected BufferQueue<ProxyEvent> bufferQueue;
+    protected ThreadLocal<ProxyTransaction> currentTransaction = new ThreadLocal<ProxyTransaction>();
     protected Timer channelTimer;
-    private AtomicLong takeCounter = new AtomicLong(0);
-    private AtomicLong putCounter = new AtomicLong(0);
+    protected AtomicLong takeCounter = new AtomicLong(0);
+    protected AtomicLong putCounter = new AtomicLong(0);
 
     /**
      * Constructor
@@ -103,6 +105,66 @@ public class BufferQueueChannel extends AbstractChannel {
         return event;
     }
 
+    /**
+     * put the events in batch, the permits of the batch are acquired at once
+     *
+     * @param  events
+     * @throws ChannelException if the batch exceeds the capacity of the channel
+     */
+    public void putAll(List<ProxyEvent> events) throws ChannelException {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        ProxyTransaction transaction = currentTransaction.get();
+        Preconditions.checkState(transaction != null, "No transaction exists for this thread");
+        long batchSize = 0;
+        for (ProxyEvent event : events) {
+            batchSize += event.getBody().length;
+        }
+        // the permits are released after the commit, a batch over the capacity would wait for itself
+        if (events.size() > maxBufferQueueCount || batchSize > maxBufferQueueSizeKb * 1024L) {
+            throw new ChannelException("Put batch of " + events.size() + " events and " + batchSize
+                    + " bytes exceeds the capacity of channel " + getName() + ", maxBufferQueueCount "
+                    + maxBufferQueueCount + ", maxBufferQueueSizeKb " + maxBufferQueueSizeKb);
+        }
+        putCounter.addAndGet(events.size());
+        this.countSemaphore.acquireUninterruptibly(events.size());
+        this.bufferQueue.acquire(batchSize);
+        transaction.doPutAll(events);
+    }
+
+    /**
+     * take the events in batch
+     *
+     * @param  maxEvents  the maximum number of events to take
+     * @return the taken events, empty if no event
+     * @throws ChannelException
+     */
+    public List<ProxyEvent> takeBatch(int maxEvents) throws ChannelException {
+        List<ProxyEvent> events = new ArrayList<>(Math.min(maxEvents, 1024));
+        if (this.bufferQueue.pollRecords(events, maxEvents) > 0) {
+            ProxyTransaction transaction = currentTransaction.get();
+            Preconditions.checkState(transaction != null, "No transaction exists for this thread");
+            transaction.doTakeAll(events);
+            takeCounter.addAndGet(events.size());
+        }
+        return events;
+    }
+
+    /**
+     * commit the taken events ahead of the transaction, they are not returned on rollback
+     *
+     * @param  events  the taken events already processed
+     */
+    public void commitTakes(List<ProxyEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        ProxyTransaction transaction = currentTransaction.get();
+        Preconditions.checkState(transaction != null, "No transaction exists for this thread");
+        transaction.doCommitTakes(events);
+    }
+
     /**
      * getTransaction
      *
@@ -21,6 +21,7 @@ import org.apache.inlong.common.monitor.LogCounter;
 import org.apache.inlong.dataproxy.consts.ConfigConstants;
 import org.apache.inlong.dataproxy.exception.MainChannelFullException;
 import org.apache.inlong.dataproxy.utils.MessageUtils;
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
 import org.apache.inlong.sdk.commons.protocol.ProxyPackEvent;
 
 import com.google.common.base.Preconditions;
@@ -169,19 +170,18 @@ public class FailoverChannelProcessor
         }
 
         boolean success = true;
+        Throwable reqError = null;
         for (Map.Entry<Channel, List<Event>> entry : reqChannelQueue.entrySet()) {
             Channel reqChannel = entry.getKey();
             Transaction tx = reqChannel.getTransaction();
             Preconditions.checkNotNull(tx, "Transaction object must not be null");
             try {
                 tx.begin();
-                List<Event> batch = entry.getValue();
-                for (Event event : batch) {
-                    reqChannel.put(event);
-                }
+                putBatch(reqChannel, entry.getValue());
                 tx.commit();
             } catch (Throwable t) {
                 success = false;
+                reqError = t;
                 tx.rollback();
                 if (!(t instanceof ChannelException)) {
                     LOG.error("Unable to put batch on required " + "channel: " + reqChannel, t);
@@ -196,19 +196,21 @@ public class FailoverChannelProcessor
         }
 
         if (!success) {
+            for (Event event : events) {
+                if (MessageUtils.isSyncSendForOrder(event) || event instanceof ProxyPackEvent) {
+                    throw new MainChannelFullException("Unable to put batch on required channels");
+                }
+            }
+            if (optChannelQueue.isEmpty()) {
+                throw new ChannelException("Unable to put batch on required channels", reqError);
+            }
             for (Map.Entry<Channel, List<Event>> entry : optChannelQueue.entrySet()) {
                 Channel optChannel = entry.getKey();
                 Transaction tx = optChannel.getTransaction();
                 Preconditions.checkNotNull(tx, "Transaction object must not be null");
                 try {
                     tx.begin();
-
-                    List<Event> batch = entry.getValue();
-
-                    for (Event event : batch) {
-                        optChannel.put(event);
-                    }
-
+                    putBatch(optChannel, entry.getValue());
                     tx.commit();
 
                 } catch (Throwable t) {
@@ -227,6 +229,30 @@ public class FailoverChannelProcessor
         }
     }
 
+    /**
+     * Put the events into the channel in the current transaction, the permits of the events are acquired
+     * at once if the channel is a buffer queue channel.
+     *
+     * @param channel the channel
+     * @param batch the events
+     */
+    private void putBatch(Channel channel, List<Event> batch) {
+        if (!(channel instanceof BufferQueueChannel)) {
+            for (Event event : batch) {
+                channel.put(event);
+            }
+            return;
+        }
+        // the buffer queue channel only accepts the proxy events
+        List<ProxyEvent> proxyEvents = new ArrayList<>(batch.size());
+        for (Event event : batch) {
+            if (event instanceof ProxyEvent) {
+                proxyEvents.add((ProxyEvent) event);
+            }
+        }
+        ((BufferQueueChannel) channel).putAll(proxyEvents);
+    }
+
     /**
      * Attempts to {@linkplain Channel#put(Event) put} the given event into each configured channel.
      * If any {@code required} channel throws a {@link ChannelException}, that exception will be
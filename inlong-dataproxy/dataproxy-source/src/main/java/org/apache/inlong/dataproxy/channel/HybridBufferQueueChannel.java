@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.channel;
+
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import com.google.common.base.Preconditions;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.flume.ChannelException;
+import org.apache.flume.Context;
+import org.apache.flume.Event;
+import org.apache.flume.Transaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HybridBufferQueueChannel
+ *
+ * The events are kept in the memory buffer queue like BufferQueueChannel, once the
+ * memory thresholds are crossed, the events overflow to the spill files instead of
+ * blocking the source, and the put blocks only when the spill files are full too.
+ * While the spill files hold untaken events, the new events are spilled as well, and
+ * the spilled events are taken once the memory buffer queue is empty, so the events
+ * are taken in put order. The order is best-effort: the puts of concurrent transactions
+ * may still cross the switch, and the rolled back events are taken again later.
+ * The spill files are forced to disk every spillForceIntervalMs, a crash of the OS
+ * loses the events spilled within the last interval.
+ */
+public class HybridBufferQueueChannel extends BufferQueueChannel {
+
+    public static final String KEY_SPILL_DIR = "spillDir";
+    public static final String KEY_SPILL_SEGMENT_SIZE_MB = "spillSegmentSizeMb";
+    public static final int DEFAULT_SPILL_SEGMENT_SIZE_MB = 64;
+    public static final String KEY_MAX_SPILL_SIZE_MB = "maxSpillSizeMb";
+    public static final long DEFAULT_MAX_SPILL_SIZE_MB = 10 * 1024L;
+    public static final String KEY_SPILL_FORCE_INTERVAL_MS = "spillForceIntervalMs";
+    public static final long DEFAULT_SPILL_FORCE_INTERVAL_MS = 1000L;
+
+    private SpillFileQueue spillQueue;
+    private AtomicLong spillPutCounter = new AtomicLong(0);
+    private AtomicLong spillTakeCounter = new AtomicLong(0);
+
+    /**
+     * Constructor
+     */
+    public HybridBufferQueueChannel() {
+    }
+
+    /**
+     * put
+     *
+     * @param  event
+     * @throws ChannelException
+     */
+    @Override
+    public void put(Event event) throws ChannelException {
+        if (event instanceof ProxyEvent) {
+            putCounter.incrementAndGet();
+            int eventSize = event.getBody().length;
+            ProxyTransaction transaction = currentTransaction.get();
+            Preconditions.checkState(transaction != null, "No transaction exists for this thread");
+            ProxyEvent profile = (ProxyEvent) event;
+            // keep spilling until the spilled events are taken, not to overtake them
+            if (this.spillQueue.isEmpty() && this.countSemaphore.tryAcquire()) {
+                if (this.bufferQueue.tryAcquire(eventSize)) {
+                    transaction.doPut(profile);
+                    return;
+                }
+                this.countSemaphore.release();
+            }
+            // memory thresholds crossed, overflow to the spill files
+            if (this.spillQueue.isWritable()) {
+                spillPutCounter.incrementAndGet();
+                transaction.doSpillPut(profile);
+                return;
+            }
+            this.countSemaphore.acquireUninterruptibly();
+            this.bufferQueue.acquire(eventSize);
+            transaction.doPut(profile);
+        }
+    }
+
+    /**
+     * take
+     *
+     * @return Event
+     * @throws ChannelException
+     */
+    @Override
+    public Event take() throws ChannelException {
+        Event event = super.take();
+        if (event != null) {
+            return event;
+        }
+        SpillFileQueue.SpillRecord record = this.spillQueue.poll();
+        if (record == null) {
+            return null;
+        }
+        ProxyTransaction transaction = currentTransaction.get();
+        Preconditions.checkState(transaction != null, "No transaction exists for this thread");
+        transaction.doSpillTake(record);
+        spillTakeCounter.incrementAndGet();
+        return record.getEvent();
+    }
+
+    /**
+     * put the events in batch, each event may overflow to the spill files
+     *
+     * @param  events
+     * @throws ChannelException
+     */
+    @Override
+    public void putAll(List<ProxyEvent> events) throws ChannelException {
+        if (events == null) {
+            return;
+        }
+        for (ProxyEvent event : events) {
+            this.put(event);
+        }
+    }
+
+    /**
+     * take the events in batch, the spilled events are taken when the memory buffer is empty
+     *
+     * @param  maxEvents  the maximum number of events to take
+     * @return the taken events, empty if no event
+     * @throws ChannelException
+     */
+    @Override
+    public List<ProxyEvent> takeBatch(int maxEvents) throws ChannelException {
+        List<ProxyEvent> events = super.takeBatch(maxEvents);
+        if (!events.isEmpty()) {
+            return events;
+        }
+        ProxyTransaction transaction = currentTransaction.get();
+        Preconditions.checkState(transaction != null, "No transaction exists for this thread");
+        SpillFileQueue.SpillRecord record;
+        while (events.size() < maxEvents && (record = this.spillQueue.poll()) != null) {
+            transaction.doSpillTake(record);
+            events.add(record.getEvent());
+        }
+        spillTakeCounter.addAndGet(events.size());
+        return events;
+    }
+
+    /**
+     * getTransaction
+     *
+     * @return new transaction
+     */
+    @Override
+    public Transaction getTransaction() {
+        ProxyTransaction newTransaction =
+                new ProxyTransaction(this.countSemaphore, this.bufferQueue, this.spillQueue);
+        this.currentTransaction.set(newTransaction);
+        return newTransaction;
+    }
+
+    /**
+     * stop
+     */
+    @Override
+    public void stop() {
+        if (channelTimer != null) {
+            channelTimer.cancel();
+        }
+        this.spillQueue.close();
+        super.stop();
+    }
+
+    /**
+     * setReloadTimer
+     */
+    @Override
+    protected void setReloadTimer() {
+        super.setReloadTimer();
+        long reloadInterval = context.getLong(KEY_RELOADINTERVAL, 60000L);
+        TimerTask spillTask = new TimerTask() {
+
+            public void run() {
+                LOG.info("spillQueueSize:{},spillSize:{},spillPut:{},spillTake:{}",
+                        spillQueue.size(),
+                        spillQueue.spillSize(),
+                        spillPutCounter.getAndSet(0),
+                        spillTakeCounter.getAndSet(0));
+            }
+        };
+        channelTimer.schedule(spillTask,
+                new Date(System.currentTimeMillis() + reloadInterval),
+                reloadInterval);
+        long forceInterval = context.getLong(KEY_SPILL_FORCE_INTERVAL_MS, DEFAULT_SPILL_FORCE_INTERVAL_MS);
+        TimerTask forceTask = new TimerTask() {
+
+            public void run() {
+                spillQueue.force();
+            }
+        };
+        channelTimer.schedule(forceTask, forceInterval, forceInterval);
+    }
+
+    /**
+     * configure
+     *
+     * @param context
+     */
+    @Override
+    public void configure(Context context) {
+        super.configure(context);
+        String spillDir = context.getString(KEY_SPILL_DIR);
+        Preconditions.checkArgument(StringUtils.isNotBlank(spillDir),
+                "%s is required for %s", KEY_SPILL_DIR, getName());
+        int segmentSizeMb = context.getInteger(KEY_SPILL_SEGMENT_SIZE_MB, DEFAULT_SPILL_SEGMENT_SIZE_MB);
+        long maxSpillSizeMb = context.getLong(KEY_MAX_SPILL_SIZE_MB, DEFAULT_MAX_SPILL_SIZE_MB);
+        try {
+            this.spillQueue = new SpillFileQueue(new File(spillDir.trim()),
+                    segmentSizeMb * 1024 * 1024, maxSpillSizeMb * 1024 * 1024);
+        } catch (IOException e) {
+            throw new ChannelException("Failed to open spill directory " + spillDir, e);
+        }
+    }
+}
@@ -20,12 +20,17 @@ package org.apache.inlong.dataproxy.channel;
 import org.apache.inlong.dataproxy.utils.BufferQueue;
 import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
 
+import org.apache.flume.ChannelException;
 import org.apache.flume.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Semaphore;
 
 /**
@@ -39,6 +44,9 @@ public class ProxyTransaction implements Transaction {
     private BufferQueue<ProxyEvent> bufferQueue;
     private List<ProxyEvent> takeList = new ArrayList<>();
     private List<ProxyEvent> putList = new ArrayList<>();
+    private SpillFileQueue spillQueue;
+    private List<SpillFileQueue.SpillRecord> spillTakeList;
+    private List<ProxyEvent> spillPutList;
 
     /**
      * Constructor
@@ -51,6 +59,21 @@ public class ProxyTransaction implements Transaction {
         this.bufferQueue = bufferQueue;
     }
 
+    /**
+     * Constructor
+     *
+     * @param countSemaphore
+     * @param bufferQueue
+     * @param spillQueue
+     */
+    public ProxyTransaction(Semaphore countSemaphore, BufferQueue<ProxyEvent> bufferQueue,
+            SpillFileQueue spillQueue) {
+        this(countSemaphore, bufferQueue);
+        this.spillQueue = spillQueue;
+        this.spillTakeList = new ArrayList<>();
+        this.spillPutList = new ArrayList<>();
+    }
+
     /**
      * begin
      */
@@ -59,18 +82,30 @@ public class ProxyTransaction implements Transaction {
     }
 
     /**
-     * commit
+     * commit, the spilled puts are appended first, if the spill files reject one of them
+     * nothing else is committed and the transaction should be rolled back, the events
+     * already appended before the rejected one are kept and delivered again on retry
+     *
+     * @throws ChannelException if the spilled puts could not be appended
      */
     @Override
     public void commit() {
-        for (ProxyEvent event : takeList) {
-            countSemaphore.release();
-            bufferQueue.release(event.getBody().length);
+        if (spillQueue != null) {
+            for (ProxyEvent event : spillPutList) {
+                if (!spillQueue.append(event)) {
+                    this.spillPutList.clear();
+                    throw new ChannelException("The spill files are full or closed, put failed");
+                }
+            }
+            this.spillPutList.clear();
+            for (SpillFileQueue.SpillRecord record : spillTakeList) {
+                spillQueue.commit(record);
+            }
+            this.spillTakeList.clear();
         }
+        this.releasePermits(takeList);
         this.takeList.clear();
-        for (ProxyEvent event : putList) {
-            this.bufferQueue.offer(event);
-        }
+        this.bufferQueue.offerAll(putList);
         this.putList.clear();
     }
 
@@ -79,15 +114,17 @@ public class ProxyTransaction implements Transaction {
      */
     @Override
     public void rollback() {
-        for (ProxyEvent event : takeList) {
-            this.bufferQueue.offer(event);
-        }
+        this.bufferQueue.offerAll(takeList);
         this.takeList.clear();
-        for (ProxyEvent event : putList) {
-            countSemaphore.release();
-            bufferQueue.release(event.getBody().length);
-        }
+        this.releasePermits(putList);
         this.putList.clear();
+        if (spillQueue != null) {
+            for (SpillFileQueue.SpillRecord record : spillTakeList) {
+                spillQueue.requeue(record);
+            }
+            this.spillTakeList.clear();
+            this.spillPutList.clear();
+        }
     }
 
     /**
@@ -114,4 +151,88 @@ public class ProxyTransaction implements Transaction {
     public void doPut(ProxyEvent event) {
         this.putList.add(event);
     }
+
+    /**
+     * doTakeAll
+     *
+     * @param events
+     */
+    public void doTakeAll(List<ProxyEvent> events) {
+        this.takeList.addAll(events);
+    }
+
+    /**
+     * doCommitTakes, commit the taken events ahead of the transaction,
+     * they are dropped from the take lists and not returned on rollback
+     *
+     * @param events
+     */
+    public void doCommitTakes(List<ProxyEvent> events) {
+        Set<ProxyEvent> committed = Collections.newSetFromMap(new IdentityHashMap<>());
+        committed.addAll(events);
+        List<ProxyEvent> memoryTakes = new ArrayList<>(events.size());
+        Iterator<ProxyEvent> takeIter = this.takeList.iterator();
+        while (takeIter.hasNext()) {
+            ProxyEvent event = takeIter.next();
+            if (committed.contains(event)) {
+                memoryTakes.add(event);
+                takeIter.remove();
+            }
+        }
+        this.releasePermits(memoryTakes);
+        if (spillQueue != null) {
+            Iterator<SpillFileQueue.SpillRecord> spillIter = this.spillTakeList.iterator();
+            while (spillIter.hasNext()) {
+                SpillFileQueue.SpillRecord record = spillIter.next();
+                if (committed.contains(record.getEvent())) {
+                    spillQueue.commit(record);
+                    spillIter.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * doPutAll
+     *
+     * @param events
+     */
+    public void doPutAll(List<ProxyEvent> events) {
+        this.putList.addAll(events);
+    }
+
+    /**
+     * release the permits of the events in bulk
+     *
+     * @param events
+     */
+    private void releasePermits(List<ProxyEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long totalSize = 0;
+        for (ProxyEvent event : events) {
+            totalSize += event.getBody().length;
+        }
+        countSemaphore.release(events.size());
+        bufferQueue.release(totalSize);
+    }
+
+    /**
+     * doSpillTake
+     *
+     * @param record
+     */
+    public void doSpillTake(SpillFileQueue.SpillRecord record) {
+        this.spillTakeList.add(record);
+    }
+
+    /**
+     * doSpillPut
+     *
+     * @param event
+     */
+    public void doSpillPut(ProxyEvent event) {
+        this.spillPutList.add(event);
+    }
 }
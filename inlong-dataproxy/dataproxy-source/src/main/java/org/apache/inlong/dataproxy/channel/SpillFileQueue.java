@@ -0,0 +1,505 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.channel;
+
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * SpillFileQueue
+ *
+ * Append-only queue of the events overflowed from the memory buffer, the events are
+ * written into memory-mapped segment files, and a segment file is deleted once all
+ * its events are taken and committed. A committed event is also marked in its segment,
+ * so only the uncommitted events of the segment files left by the previous run are
+ * replayed after restart, and the committed puts are delivered at least once.
+ *
+ * The records are written to the mapped page cache, so they survive a process crash
+ * once appended, while they survive an OS crash or power loss only after the segment
+ * is forced to disk, which is done by force() periodically, on segment roll and on close.
+ *
+ * The record format is: payload length 4 + payload crc32 4 + payload,
+ * a negative length marks a committed record, and a zero length marks the end
+ * of the written records in a segment.
+ */
+public class SpillFileQueue implements Closeable {
+
+    public static final Logger LOG = LoggerFactory.getLogger(SpillFileQueue.class);
+
+    public static final String SEGMENT_FILE_SUFFIX = ".spill";
+    private static final int RECORD_HEAD_LEN = 8;
+
+    private final File spillDir;
+    private final int segmentSize;
+    private final long maxSpillSize;
+    // the segments in write order, the last one is being written
+    private final LinkedList<SpillSegment> segments = new LinkedList<>();
+    // the taken but rolled back records, polled before the segment records
+    private final LinkedList<SpillRecord> retryRecords = new LinkedList<>();
+    private final CRC32 crc32 = new CRC32();
+    private SpillSegment writeSegment;
+    private long nextSegmentId = 0;
+    private long totalSize = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param spillDir       the directory of the segment files
+     * @param segmentSize    the size of a segment file in bytes
+     * @param maxSpillSize   the max total size of the segment files in bytes
+     * @throws IOException   exception while loading the left segment files
+     */
+    public SpillFileQueue(File spillDir, int segmentSize, long maxSpillSize) throws IOException {
+        this.spillDir = spillDir;
+        this.segmentSize = segmentSize;
+        this.maxSpillSize = maxSpillSize;
+        if (!spillDir.exists() && !spillDir.mkdirs()) {
+            throw new IOException("Could not create spill directory " + spillDir.getAbsolutePath());
+        }
+        this.loadSegments();
+    }
+
+    /**
+     * isWritable
+     *
+     * @return whether the current segment has room or a new segment is under the max spill size
+     */
+    public synchronized boolean isWritable() {
+        if (closed) {
+            return false;
+        }
+        return totalSize < maxSpillSize
+                || (writeSegment != null && writeSegment.remaining() > RECORD_HEAD_LEN + 4);
+    }
+
+    /**
+     * append
+     *
+     * @param  event the event to spill
+     * @return whether the event was appended
+     */
+    public synchronized boolean append(ProxyEvent event) {
+        if (closed) {
+            return false;
+        }
+        try {
+            byte[] payload = encode(event);
+            int recordSize = RECORD_HEAD_LEN + payload.length;
+            if (writeSegment == null || writeSegment.remaining() < recordSize + 4) {
+                if (totalSize + Math.max(segmentSize, recordSize + 4) > maxSpillSize) {
+                    return false;
+                }
+                rollSegment(recordSize + 4);
+            }
+            crc32.reset();
+            crc32.update(payload, 0, payload.length);
+            writeSegment.write(payload, (int) crc32.getValue());
+            return true;
+        } catch (IOException e) {
+            LOG.error("Failed to spill event to {}", spillDir.getAbsolutePath(), e);
+            return false;
+        }
+    }
+
+    /**
+     * isEmpty
+     *
+     * @return whether there is no untaken record
+     */
+    public synchronized boolean isEmpty() {
+        if (!retryRecords.isEmpty()) {
+            return false;
+        }
+        for (SpillSegment segment : segments) {
+            if (segment.readCount < segment.recordCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * force the records appended since the last force to disk
+     */
+    public synchronized void force() {
+        if (closed || writeSegment == null) {
+            return;
+        }
+        writeSegment.force();
+    }
+
+    /**
+     * poll
+     *
+     * @return the oldest untaken record, or null if empty
+     */
+    public synchronized SpillRecord poll() {
+        if (closed) {
+            return null;
+        }
+        if (!retryRecords.isEmpty()) {
+            return retryRecords.removeFirst();
+        }
+        for (SpillSegment segment : segments) {
+            SpillRecord record = segment.read();
+            if (record != null) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * commit the taken record, and delete its segment if all records are committed
+     *
+     * @param record the taken record
+     */
+    public synchronized void commit(SpillRecord record) {
+        SpillSegment segment = record.segment;
+        segment.markCommitted(record.pos);
+        segment.committedCount++;
+        if (segment != writeSegment && segment.isFinished()) {
+            segments.remove(segment);
+            deleteSegment(segment);
+        }
+    }
+
+    /**
+     * requeue the taken but rolled back record
+     *
+     * @param record the taken record
+     */
+    public synchronized void requeue(SpillRecord record) {
+        retryRecords.addLast(record);
+    }
+
+    /**
+     * size
+     *
+     * @return the count of the untaken records
+     */
+    public synchronized int size() {
+        int count = retryRecords.size();
+        for (SpillSegment segment : segments) {
+            count += segment.recordCount - segment.readCount;
+        }
+        return count;
+    }
+
+    /**
+     * spillSize
+     *
+     * @return the total size of the segment files
+     */
+    public synchronized long spillSize() {
+        return totalSize;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (SpillSegment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+        retryRecords.clear();
+        writeSegment = null;
+    }
+
+    private void rollSegment(int minSize) throws IOException {
+        if (writeSegment != null) {
+            writeSegment.sealed = true;
+            writeSegment.force();
+            if (writeSegment.isFinished()) {
+                segments.remove(writeSegment);
+                deleteSegment(writeSegment);
+            }
+        }
+        File file = new File(spillDir, String.format("%020d", nextSegmentId++) + SEGMENT_FILE_SUFFIX);
+        writeSegment = new SpillSegment(file, Math.max(segmentSize, minSize));
+        segments.addLast(writeSegment);
+        totalSize += writeSegment.capacity;
+    }
+
+    private void deleteSegment(SpillSegment segment) {
+        segment.close();
+        totalSize -= segment.capacity;
+        if (!segment.file.delete()) {
+            LOG.warn("Failed to delete spill segment {}", segment.file.getAbsolutePath());
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        File[] files = spillDir.listFiles((dir, name) -> name.endsWith(SEGMENT_FILE_SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            long segmentId = Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+            nextSegmentId = Math.max(nextSegmentId, segmentId + 1);
+            SpillSegment segment = new SpillSegment(file, (int) file.length());
+            segment.sealed = true;
+            int recordCount = segment.recover(crc32);
+            if (recordCount == 0) {
+                segment.close();
+                if (!file.delete()) {
+                    LOG.warn("Failed to delete empty spill segment {}", file.getAbsolutePath());
+                }
+                continue;
+            }
+            LOG.info("Recovered {} spilled events from {}", recordCount, file.getAbsolutePath());
+            segments.addLast(segment);
+            totalSize += segment.capacity;
+        }
+    }
+
+    private static byte[] encode(ProxyEvent event) throws IOException {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream(event.getBody().length + 256);
+        DataOutputStream out = new DataOutputStream(byteOut);
+        writeString(out, event.getInlongGroupId());
+        writeString(out, event.getInlongStreamId());
+        writeString(out, event.getSourceIp());
+        writeString(out, event.getTopic());
+        out.writeLong(event.getMsgTime());
+        out.writeLong(event.getSourceTime());
+        Map<String, String> headers = event.getHeaders();
+        out.writeInt(headers.size());
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        out.writeInt(event.getBody().length);
+        out.write(event.getBody());
+        out.flush();
+        return byteOut.toByteArray();
+    }
+
+    private static ProxyEvent decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String groupId = readString(in);
+        String streamId = readString(in);
+        String sourceIp = readString(in);
+        String topic = readString(in);
+        long msgTime = in.readLong();
+        long sourceTime = in.readLong();
+        int headerCount = in.readInt();
+        Map<String, String> headers = new HashMap<>(headerCount * 2);
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(readString(in), readString(in));
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        ProxyEvent event = new ProxyEvent(groupId, streamId, String.valueOf(msgTime), sourceIp,
+                String.valueOf(sourceTime), headers, body);
+        if (topic != null) {
+            event.setTopic(topic);
+        }
+        return event;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * SpillRecord, the taken event and its segment
+     */
+    public static class SpillRecord {
+
+        private final ProxyEvent event;
+        private final SpillSegment segment;
+        private final int pos;
+
+        private SpillRecord(ProxyEvent event, SpillSegment segment, int pos) {
+            this.event = event;
+            this.segment = segment;
+            this.pos = pos;
+        }
+
+        public ProxyEvent getEvent() {
+            return event;
+        }
+    }
+
+    /**
+     * SpillSegment, a memory-mapped segment file
+     */
+    private static class SpillSegment {
+
+        private final File file;
+        private final int capacity;
+        private MappedByteBuffer buffer;
+        private int writePos = 0;
+        private int forcedPos = 0;
+        private int readPos = 0;
+        private int recordCount = 0;
+        private int readCount = 0;
+        private int committedCount = 0;
+        private boolean sealed = false;
+
+        SpillSegment(File file, int capacity) throws IOException {
+            this.file = file;
+            this.capacity = capacity;
+            try (RandomAccessFile randFile = new RandomAccessFile(file, "rw")) {
+                FileChannel channel = randFile.getChannel();
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+        }
+
+        int remaining() {
+            return capacity - writePos;
+        }
+
+        void write(byte[] payload, int crc) {
+            // write the payload before the length, so a record is visible only when complete
+            buffer.putInt(writePos + 4, crc);
+            ByteBuffer writeBuffer = buffer.duplicate();
+            writeBuffer.position(writePos + RECORD_HEAD_LEN);
+            writeBuffer.put(payload);
+            buffer.putInt(writePos, payload.length);
+            writePos += RECORD_HEAD_LEN + payload.length;
+            recordCount++;
+        }
+
+        SpillRecord read() {
+            while (readCount < recordCount) {
+                int length = buffer.getInt(readPos);
+                if (length < 0) {
+                    // skip the record committed before restart
+                    readPos += RECORD_HEAD_LEN - length;
+                    continue;
+                }
+                int recordPos = readPos;
+                byte[] payload = readPayload(recordPos, length);
+                readPos += RECORD_HEAD_LEN + length;
+                readCount++;
+                try {
+                    return new SpillRecord(decode(payload), this, recordPos);
+                } catch (IOException e) {
+                    LOG.error("Failed to decode spilled event in {}", file.getAbsolutePath(), e);
+                    markCommitted(recordPos);
+                    committedCount++;
+                }
+            }
+            return null;
+        }
+
+        int recover(CRC32 crc32) {
+            int pos = 0;
+            while (pos + RECORD_HEAD_LEN <= capacity) {
+                int length = buffer.getInt(pos);
+                boolean committed = length < 0;
+                if (committed) {
+                    length = -length;
+                }
+                if (length == 0 || pos + RECORD_HEAD_LEN + length > capacity) {
+                    break;
+                }
+                byte[] payload = readPayload(pos, length);
+                crc32.reset();
+                crc32.update(payload, 0, length);
+                if ((int) crc32.getValue() != buffer.getInt(pos + 4)) {
+                    break;
+                }
+                pos += RECORD_HEAD_LEN + length;
+                if (!committed) {
+                    recordCount++;
+                }
+            }
+            writePos = pos;
+            forcedPos = pos;
+            return recordCount;
+        }
+
+        void markCommitted(int pos) {
+            if (buffer != null) {
+                buffer.putInt(pos, -buffer.getInt(pos));
+            }
+        }
+
+        private byte[] readPayload(int pos, int length) {
+            byte[] payload = new byte[length];
+            ByteBuffer readBuffer = buffer.duplicate();
+            readBuffer.position(pos + RECORD_HEAD_LEN);
+            readBuffer.get(payload);
+            return payload;
+        }
+
+        boolean isFinished() {
+            return sealed && readCount >= recordCount && committedCount >= recordCount;
+        }
+
+        void force() {
+            if (buffer != null && forcedPos < writePos) {
+                buffer.force();
+                forcedPos = writePos;
+            }
+        }
+
+        void close() {
+            if (buffer == null) {
+                return;
+            }
+            force();
+            // the mapping is released when the buffer is garbage collected
+            buffer = null;
+        }
+    }
+}
@@ -49,6 +49,15 @@ public class SourceConstants {
     // whether filter empty message
     public static final String SRCCXT_FILTER_EMPTY_MSG = "filter-empty-msg";
     public static final boolean VAL_DEF_FILTER_EMPTY_MSG = false;
+    // whether drop the duplicated messages resent by the client
+    public static final String SRCCXT_MSG_DEDUP_ENABLE = "msg-dedup-enable";
+    public static final boolean VAL_DEF_MSG_DEDUP_ENABLE = false;
+    // the survive time of the message ids kept for deduplication
+    public static final String SRCCXT_MSG_DEDUP_SURVIVE_TIME_MS = "msg-dedup-survive-time-ms";
+    public static final int VAL_DEF_MSG_DEDUP_SURVIVE_TIME_MS = 30000;
+    // the max count of the message ids kept for deduplication
+    public static final String SRCCXT_MSG_DEDUP_SURVIVE_SIZE = "msg-dedup-survive-size";
+    public static final int VAL_DEF_MSG_DEDUP_SURVIVE_SIZE = 5000000;
     // whether custom channel processor
     public static final String SRCCXT_CUSTOM_CHANNEL_PROCESSOR = "custom-cp";
     public static final boolean VAL_DEF_CUSTOM_CH_PROCESSOR = false;
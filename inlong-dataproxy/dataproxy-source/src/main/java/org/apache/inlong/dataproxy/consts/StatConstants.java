@@ -87,6 +87,7 @@ public class StatConstants {
     public static final java.lang.String EVENT_MSG_HB_SUCCESS = "msg.hb.success";
     public static final java.lang.String EVENT_MSG_V0_POST_SUCCESS = "msg.post.v0.success";
     public static final java.lang.String EVENT_MSG_V0_POST_FAILURE = "msg.post.v0.failure";
+    public static final java.lang.String EVENT_MSG_V0_POST_DUPLICATED = "msg.post.v0.duplicated";
     public static final java.lang.String EVENT_MSG_V1_POST_SUCCESS = "msg.post.v1.success";
     public static final java.lang.String EVENT_MSG_V1_POST_DROPPED = "msg.post.v1.dropped";
     // sink
@@ -17,14 +17,15 @@
 
 package org.apache.inlong.dataproxy.sink.common;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
 import com.google.common.cache.CacheStats;
-import com.google.common.cache.LoadingCache;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 // message deduplication handler
@@ -34,9 +35,10 @@ public class MsgDedupHandler {
             LoggerFactory.getLogger(MsgDedupHandler.class);
     private static final int DEF_MAX_SURVIVE_CNT_SIZE = 5000000;
     private static final int DEF_MAX_SURVIVE_TIME_MS = 30000;
+    private static final HashFunction SEQ_ID_HASH = Hashing.murmur3_128();
     private final AtomicBoolean started = new AtomicBoolean(false);
     private volatile boolean enableDataDedup;
-    private LoadingCache<String, Long> msgSeqIdCache = null;
+    private MsgFingerprintIndex msgSeqIdIndex = null;
 
     public MsgDedupHandler() {
         enableDataDedup = false;
@@ -54,17 +56,7 @@ public class MsgDedupHandler {
                 if (maxSurviveSize < 0) {
                     maxSurviveSize = DEF_MAX_SURVIVE_CNT_SIZE;
                 }
-                msgSeqIdCache = CacheBuilder
-                        .newBuilder().concurrencyLevel(4 * 8).initialCapacity(5000000)
-                        .expireAfterAccess(maxSurviveTime, TimeUnit.MILLISECONDS)
-                        .maximumSize(maxSurviveSize)
-                        .build(new CacheLoader<String, Long>() {
-
-                            @Override
-                            public Long load(String key) {
-                                return System.currentTimeMillis();
-                            }
-                        });
+                msgSeqIdIndex = new MsgFingerprintIndex(maxSurviveTime, maxSurviveSize);
             }
             logger.info("Initial message deduplication handler, enable = "
                     + this.enableDataDedup + ", configured survived-time = "
@@ -76,33 +68,43 @@ public class MsgDedupHandler {
     }
 
     public void invalidMsgSeqId(String msgSeqId) {
-        if (enableDataDedup && msgSeqId != null) {
-            if (msgSeqIdCache.asMap().containsKey(msgSeqId)) {
-                msgSeqIdCache.invalidate(msgSeqId);
-            }
+        if (enableDataDedup && StringUtils.isNotEmpty(msgSeqId)) {
+            invalidFingerprint(SEQ_ID_HASH.newHasher().putUnencodedChars(msgSeqId).hash());
         }
     }
 
     public boolean judgeDupAndPutMsgSeqId(String msgSeqId) {
         boolean isInclude = false;
-        if (enableDataDedup && msgSeqId != null) {
-            isInclude = msgSeqIdCache.asMap().containsKey(msgSeqId);
-            msgSeqIdCache.put(msgSeqId, System.currentTimeMillis());
+        if (enableDataDedup && StringUtils.isNotEmpty(msgSeqId)) {
+            isInclude = putFingerprint(SEQ_ID_HASH.newHasher().putUnencodedChars(msgSeqId).hash());
         }
         return isInclude;
     }
 
     public String getCacheStatsInfo() {
         if (enableDataDedup) {
-            return msgSeqIdCache.stats().toString();
+            return getCacheData().toString() + ", size=" + msgSeqIdIndex.size();
         }
         return "Disable for message data deduplication function";
     }
 
     public CacheStats getCacheData() {
         if (enableDataDedup) {
-            return msgSeqIdCache.stats();
+            return new CacheStats(msgSeqIdIndex.getHitCount(), msgSeqIdIndex.getMissCount(),
+                    0L, 0L, 0L, msgSeqIdIndex.getEvictionCount());
         }
         return null;
     }
+
+    private boolean putFingerprint(HashCode hashCode) {
+        byte[] bytes = hashCode.asBytes();
+        return msgSeqIdIndex.putIfAbsent(Longs.fromBytes(bytes[0], bytes[1], bytes[2], bytes[3],
+                bytes[4], bytes[5], bytes[6], bytes[7]), hashCode.asLong());
+    }
+
+    private void invalidFingerprint(HashCode hashCode) {
+        byte[] bytes = hashCode.asBytes();
+        msgSeqIdIndex.remove(Longs.fromBytes(bytes[0], bytes[1], bytes[2], bytes[3],
+                bytes[4], bytes[5], bytes[6], bytes[7]), hashCode.asLong());
+    }
 }
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.common;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of 128-bit message fingerprints
+ *
+ * The fingerprints are kept in time-bucketed open-addressing tables of primitive longs,
+ * the index is split into segments by the fingerprint, and each segment keeps a ring of
+ * buckets. New fingerprints are put into the current bucket, and the oldest bucket is
+ * cleared at once when the ring rotates, so a fingerprint survives between surviveTime
+ * and surviveTime + surviveTime / BUCKET_CNT.
+ */
+public class MsgFingerprintIndex {
+
+    private static final int SEGMENT_CNT = 32;
+    private static final int BUCKET_CNT = 4;
+    private static final int MIN_BUCKET_SLOTS = 16;
+    // slot marks, a fingerprint never has 0 as the high part
+    private static final long EMPTY_HI = 0L;
+    private static final long EMPTY_LO = 0L;
+    private static final long REMOVED_LO = 1L;
+
+    private final long bucketDurMs;
+    private final int bucketSlots;
+    private final Segment[] segments = new Segment[SEGMENT_CNT];
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private final AtomicLong evictionCount = new AtomicLong(0);
+
+    /**
+     * Constructor
+     *
+     * @param surviveTimeMs  the minimal survive time of a fingerprint
+     * @param maxSize        the maximal count of the survived fingerprints
+     */
+    public MsgFingerprintIndex(long surviveTimeMs, int maxSize) {
+        this.bucketDurMs = Math.max(1L, surviveTimeMs / BUCKET_CNT);
+        // keep the load factor of a bucket no more than 0.5
+        long slots = 2L * maxSize / ((long) SEGMENT_CNT * BUCKET_CNT);
+        int tableSlots = MIN_BUCKET_SLOTS;
+        while (tableSlots < slots && tableSlots < (1 << 30)) {
+            tableSlots <<= 1;
+        }
+        this.bucketSlots = tableSlots;
+        for (int i = 0; i < SEGMENT_CNT; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Put the fingerprint into the index
+     *
+     * @param hi  the high 64 bits of the fingerprint
+     * @param lo  the low 64 bits of the fingerprint
+     * @return true if the fingerprint already exists
+     */
+    public boolean putIfAbsent(long hi, long lo) {
+        if (hi == EMPTY_HI) {
+            hi = 1L;
+        }
+        boolean isInclude = segmentFor(lo).putIfAbsent(hi, lo, System.currentTimeMillis());
+        if (isInclude) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return isInclude;
+    }
+
+    /**
+     * Remove the fingerprint from the index
+     *
+     * @param hi  the high 64 bits of the fingerprint
+     * @param lo  the low 64 bits of the fingerprint
+     */
+    public void remove(long hi, long lo) {
+        if (hi == EMPTY_HI) {
+            hi = 1L;
+        }
+        segmentFor(lo).remove(hi, lo, System.currentTimeMillis());
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private Segment segmentFor(long lo) {
+        return segments[(int) ((lo ^ (lo >>> 32)) & (SEGMENT_CNT - 1))];
+    }
+
+    private static int slotOf(long hi, long lo, int mask) {
+        long h = hi * 0x9E3779B97F4A7C15L + lo;
+        return (int) ((h ^ (h >>> 29)) & mask);
+    }
+
+    private class Segment {
+
+        // each table holds the fingerprints as [hi, lo] pairs
+        private final long[][] tables = new long[BUCKET_CNT + 1][];
+        // the count of the survived fingerprints and the removed marks of each table
+        private final int[] counts = new int[BUCKET_CNT + 1];
+        private final int[] removedCounts = new int[BUCKET_CNT + 1];
+        private long curBucketStart = 0L;
+        private int curBucket = 0;
+
+        synchronized boolean putIfAbsent(long hi, long lo, long now) {
+            rotate(now);
+            for (int i = 0; i < tables.length; i++) {
+                if (contains(tables[i], hi, lo)) {
+                    return true;
+                }
+            }
+            // the removed marks keep the probe chains, so they count for the load factor
+            if (counts[curBucket] + removedCounts[curBucket] >= (bucketSlots >>> 1)) {
+                // the current bucket is full, drop the oldest bucket early
+                advance(now);
+            }
+            long[] table = tables[curBucket];
+            if (table == null) {
+                table = new long[bucketSlots * 2];
+                tables[curBucket] = table;
+            }
+            int mask = bucketSlots - 1;
+            int slot = slotOf(hi, lo, mask);
+            while (table[slot * 2] != EMPTY_HI) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot * 2 + 1] == REMOVED_LO) {
+                // reuse the removed slot
+                removedCounts[curBucket]--;
+            }
+            table[slot * 2] = hi;
+            table[slot * 2 + 1] = lo;
+            counts[curBucket]++;
+            return false;
+        }
+
+        synchronized void remove(long hi, long lo, long now) {
+            rotate(now);
+            int mask = bucketSlots - 1;
+            for (int i = 0; i < tables.length; i++) {
+                long[] table = tables[i];
+                if (table == null) {
+                    continue;
+                }
+                int slot = slotOf(hi, lo, mask);
+                while (table[slot * 2] != EMPTY_HI || table[slot * 2 + 1] != EMPTY_LO) {
+                    if (table[slot * 2] == hi && table[slot * 2 + 1] == lo) {
+                        // leave a removed mark to keep the probe chain
+                        table[slot * 2] = EMPTY_HI;
+                        table[slot * 2 + 1] = REMOVED_LO;
+                        counts[i]--;
+                        removedCounts[i]++;
+                        return;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+
+        synchronized long size() {
+            long size = 0;
+            for (int count : counts) {
+                size += count;
+            }
+            return size;
+        }
+
+        private boolean contains(long[] table, long hi, long lo) {
+            if (table == null) {
+                return false;
+            }
+            int mask = bucketSlots - 1;
+            int slot = slotOf(hi, lo, mask);
+            while (table[slot * 2] != EMPTY_HI || table[slot * 2 + 1] != EMPTY_LO) {
+                if (table[slot * 2] == hi && table[slot * 2 + 1] == lo) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private void rotate(long now) {
+            if (curBucketStart == 0L) {
+                curBucketStart = now;
+                return;
+            }
+            int rotateCnt = 0;
+            while (now - curBucketStart >= bucketDurMs && rotateCnt++ <= BUCKET_CNT) {
+                advance(curBucketStart + bucketDurMs);
+            }
+            if (now - curBucketStart >= bucketDurMs) {
+                // all buckets expired
+                curBucketStart = now;
+            }
+        }
+
+        private void advance(long bucketStart) {
+            curBucket = (curBucket + 1) % tables.length;
+            if (tables[curBucket] != null
+                    && (counts[curBucket] > 0 || removedCounts[curBucket] > 0)) {
+                Arrays.fill(tables[curBucket], 0L);
+                evictionCount.addAndGet(counts[curBucket]);
+            }
+            counts[curBucket] = 0;
+            removedCounts[curBucket] = 0;
+            curBucketStart = bucketStart;
+        }
+    }
+}
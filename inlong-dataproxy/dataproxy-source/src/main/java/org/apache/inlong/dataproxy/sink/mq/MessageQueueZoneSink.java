@@ -18,6 +18,7 @@
 package org.apache.inlong.dataproxy.sink.mq;
 
 import org.apache.inlong.common.monitor.LogCounter;
+import org.apache.inlong.dataproxy.channel.BufferQueueChannel;
 import org.apache.inlong.dataproxy.config.CommonConfigHolder;
 import org.apache.inlong.dataproxy.config.ConfigManager;
 import org.apache.inlong.dataproxy.config.holder.ConfigUpdateCallback;
@@ -188,6 +189,9 @@ public class MessageQueueZoneSink extends AbstractSink implements Configurable,
             }
         }
         this.dispatchManager.outputOvertimeData();
+        if (cachedMsgChannel instanceof BufferQueueChannel) {
+            return processBatch((BufferQueueChannel) cachedMsgChannel);
+        }
         Transaction tx = cachedMsgChannel.getTransaction();
         tx.begin();
         try {
@@ -265,6 +269,54 @@ public class MessageQueueZoneSink extends AbstractSink implements Configurable,
         }
     }
 
+    /**
+     * take the events in batch, the permits of the events are released at once on commit,
+     * if the dispatch fails partway, only the undispatched events are rolled back
+     *
+     * @param  channel  the buffer queue channel
+     * @return  Status
+     */
+    private Status processBatch(BufferQueueChannel channel) {
+        Transaction tx = channel.getTransaction();
+        tx.begin();
+        List<ProxyEvent> events = null;
+        int dispatchedCnt = 0;
+        try {
+            events = channel.takeBatch(context.getTakeBatchSize());
+            // no data
+            if (events.isEmpty()) {
+                tx.commit();
+                return Status.BACKOFF;
+            }
+            for (ProxyEvent event : events) {
+                context.fileMetricIncSumStats(StatConstants.EVENT_SINK_EVENT_TAKE_SUCCESS);
+                this.dispatchManager.addEvent(event);
+                dispatchedCnt++;
+            }
+            tx.commit();
+            return Status.READY;
+        } catch (Throwable t) {
+            context.fileMetricIncSumStats(StatConstants.EVENT_SINK_EVENT_TAKE_FAILURE);
+            if (logCounter.shouldPrint()) {
+                logger.error("{} process events failed!", this.cachedSinkName, t);
+            }
+            try {
+                // the dispatched events are sent by the dispatch manager, not returned to the channel
+                if (events != null && dispatchedCnt > 0 && dispatchedCnt < events.size()) {
+                    channel.commitTakes(events.subList(0, dispatchedCnt));
+                }
+                tx.rollback();
+            } catch (Throwable e) {
+                if (logCounter.shouldPrint()) {
+                    logger.error("{} channel take transaction rollback exception", this.cachedSinkName, e);
+                }
+            }
+            return Status.BACKOFF;
+        } finally {
+            tx.close();
+        }
+    }
+
     public String getCachedSinkName() {
         return cachedSinkName;
     }
@@ -43,6 +43,8 @@ public class MessageQueueZoneSinkContext extends SinkContext {
     public static final String KEY_NODE_ID = "nodeId";
     public static final String PREFIX_PRODUCER = "producer.";
     public static final String KEY_COMPRESS_TYPE = "compressType";
+    public static final String KEY_TAKE_BATCH_SIZE = "takeBatchSize";
+    public static final int DEFAULT_TAKE_BATCH_SIZE = 100;
 
     private final MessageQueueZoneSink mqZoneSink;
     private final String proxyClusterId;
@@ -50,6 +52,8 @@ public class MessageQueueZoneSinkContext extends SinkContext {
     private final Context producerContext;
     //
     private final InlongCompressType compressType;
+    // the maximum number of events taken from the buffer queue channel in a transaction
+    private final int takeBatchSize;
 
     /**
      * Constructor
@@ -66,6 +70,8 @@ public class MessageQueueZoneSinkContext extends SinkContext {
         // producerContext
         Map<String, String> producerParams = context.getSubProperties(PREFIX_PRODUCER);
         this.producerContext = new Context(producerParams);
+        // takeBatchSize
+        this.takeBatchSize = Math.max(1, context.getInteger(KEY_TAKE_BATCH_SIZE, DEFAULT_TAKE_BATCH_SIZE));
     }
 
     /**
@@ -118,6 +124,15 @@ public class MessageQueueZoneSinkContext extends SinkContext {
         return compressType;
     }
 
+    /**
+     * get takeBatchSize
+     *
+     * @return the takeBatchSize
+     */
+    public int getTakeBatchSize() {
+        return takeBatchSize;
+    }
+
     /**
      * get nodeId
      * 
@@ -32,6 +32,7 @@ import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
 import org.apache.inlong.dataproxy.metrics.audit.AuditUtils;
 import org.apache.inlong.dataproxy.metrics.stats.MonitorIndex;
 import org.apache.inlong.dataproxy.metrics.stats.MonitorStats;
+import org.apache.inlong.dataproxy.sink.common.MsgDedupHandler;
 import org.apache.inlong.dataproxy.source.httpMsg.HttpMessageHandler;
 import org.apache.inlong.dataproxy.utils.AddressUtils;
 import org.apache.inlong.dataproxy.utils.ConfStringUtils;
@@ -100,6 +101,11 @@ public abstract class BaseSource
     protected boolean isCompressed;
     // whether filter empty message
     protected boolean filterEmptyMsg;
+    // whether drop the duplicated messages
+    protected boolean enableMsgDedup;
+    protected int msgDedupSurviveTimeMs;
+    protected int msgDedupSurviveSize;
+    protected final MsgDedupHandler msgDedupHandler = new MsgDedupHandler();
     // whether custom channel processor
     protected boolean customProcessor;
     // max netty worker threads
@@ -183,6 +189,13 @@ public abstract class BaseSource
         // get whether filter empty message
         this.filterEmptyMsg = context.getBoolean(SourceConstants.SRCCXT_FILTER_EMPTY_MSG,
                 SourceConstants.VAL_DEF_FILTER_EMPTY_MSG);
+        // get message deduplication configure
+        this.enableMsgDedup = context.getBoolean(SourceConstants.SRCCXT_MSG_DEDUP_ENABLE,
+                SourceConstants.VAL_DEF_MSG_DEDUP_ENABLE);
+        this.msgDedupSurviveTimeMs = ConfStringUtils.getIntValue(context,
+                SourceConstants.SRCCXT_MSG_DEDUP_SURVIVE_TIME_MS, SourceConstants.VAL_DEF_MSG_DEDUP_SURVIVE_TIME_MS);
+        this.msgDedupSurviveSize = ConfStringUtils.getIntValue(context,
+                SourceConstants.SRCCXT_MSG_DEDUP_SURVIVE_SIZE, SourceConstants.VAL_DEF_MSG_DEDUP_SURVIVE_SIZE);
         // get whether custom channel processor
         this.customProcessor = context.getBoolean(SourceConstants.SRCCXT_CUSTOM_CHANNEL_PROCESSOR,
                 SourceConstants.VAL_DEF_CUSTOM_CH_PROCESSOR);
@@ -257,6 +270,7 @@ public abstract class BaseSource
         }
         super.start();
         this.cachedChProcessor = getChannelProcessor();
+        this.msgDedupHandler.start(enableMsgDedup, msgDedupSurviveTimeMs, msgDedupSurviveSize);
         // initial metric item set
         this.metricItemSet = new DataProxyMetricItemSet(
                 CommonConfigHolder.getInstance().getClusterName(), this.cachedSrcName, String.valueOf(srcPort));
@@ -391,6 +405,10 @@ public abstract class BaseSource
         return filterEmptyMsg;
     }
 
+    public MsgDedupHandler getMsgDedupHandler() {
+        return msgDedupHandler;
+    }
+
     public boolean isCustomProcessor() {
         return customProcessor;
     }
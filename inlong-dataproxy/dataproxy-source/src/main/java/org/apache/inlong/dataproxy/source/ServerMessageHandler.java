@@ -53,6 +53,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -288,6 +289,16 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
             responseV0Msg(channel, msgCodec, strBuff);
             return;
         }
+        // drop the message resent by the client, the order or proxy messages are responded by the sink
+        if (!msgCodec.isOrderOrProxy()
+                && source.getMsgDedupHandler().judgeDupAndPutMsgSeqId(msgCodec.getMsgSeqId())) {
+            source.fileMetricIncSumStats(StatConstants.EVENT_MSG_V0_POST_DUPLICATED);
+            if (msgCodec.isNeedResp()) {
+                msgCodec.setSuccessInfo();
+                responseV0Msg(channel, msgCodec, strBuff);
+            }
+            return;
+        }
         // build InLong event.
         Event event = msgCodec.encEventPackage(source, channel);
         try {
@@ -302,6 +313,8 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
                 responseV0Msg(channel, msgCodec, strBuff);
             }
         } catch (Throwable ex) {
+            // accept the message resent after the failure
+            source.getMsgDedupHandler().invalidMsgSeqId(msgCodec.getMsgSeqId());
             source.fileMetricAddFailStats(strBuff, msgCodec.getGroupId(), msgCodec.getStreamId(),
                     msgCodec.getTopicName(), msgCodec.getStrRemoteIP(), msgCodec.getMsgProcType(),
                     msgCodec.getDataTimeMs(), msgCodec.getMsgPkgTime(), 1);
@@ -437,18 +450,22 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
                 return;
             }
             event.setTopic(topic);
-            // put to channel
-            try {
-                source.getCachedChProcessor().processEvent(event);
-                source.addMetric(true, event.getBody().length, event);
-                source.fileMetricIncSumStats(StatConstants.EVENT_MSG_V1_POST_SUCCESS);
-            } catch (Throwable ex) {
-                logger.error("Process Controller Event error can't write event to channel.", ex);
+        }
+        // put to channel in batch
+        try {
+            source.getCachedChProcessor().processEventBatch(new ArrayList<>(events));
+        } catch (Throwable ex) {
+            logger.error("Process Controller Event error can't write event to channel.", ex);
+            for (ProxyEvent event : events) {
                 source.addMetric(false, event.getBody().length, event);
-                this.responsePackage(ctx, ProxySdk.ResultCode.ERR_REJECT, packObject);
                 source.fileMetricIncSumStats(StatConstants.EVENT_MSG_V1_POST_DROPPED);
-                return;
             }
+            this.responsePackage(ctx, ProxySdk.ResultCode.ERR_REJECT, packObject);
+            return;
+        }
+        for (ProxyEvent event : events) {
+            source.addMetric(true, event.getBody().length, event);
+            source.fileMetricIncSumStats(StatConstants.EVENT_MSG_V1_POST_SUCCESS);
         }
         this.responsePackage(ctx, ProxySdk.ResultCode.SUCCUSS, packObject);
     }
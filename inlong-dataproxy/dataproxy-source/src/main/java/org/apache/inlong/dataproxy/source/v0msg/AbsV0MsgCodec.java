@@ -116,6 +116,10 @@ public abstract class AbsV0MsgCodec {
         return this.attrMap;
     }
 
+    public String getMsgSeqId() {
+        return this.msgSeqId;
+    }
+
     public long getUniq() {
         return this.uniq;
     }
@@ -41,6 +41,7 @@ import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_AT
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_BODYLEN_OFFSET;
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_BODY_OFFSET;
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_CNT_OFFSET;
+import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_COMPRESS_TYPE_MASK;
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_DT_OFFSET;
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_EXTEND_OFFSET;
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_FORMAT_SIZE;
@@ -52,6 +53,7 @@ import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_ST
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_TOTALLEN_OFFSET;
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_TOTALLEN_SIZE;
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_MSG_UNIQ_OFFSET;
+import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.INLONG_MSG_V4_MAGIC;
 
 public class CodecBinMsg extends AbsV0MsgCodec {
 
@@ -62,6 +64,10 @@ public class CodecBinMsg extends AbsV0MsgCodec {
     private boolean num2name = false;
     private boolean transNum2Name = false;
     private boolean needTraceMsg = false;
+    // the body is kept in the inbound buffer until the event is encoded
+    private ByteBuf bodyBuf;
+    private int bodyPos;
+    private int bodyLen;
 
     public CodecBinMsg(int totalDataLen, int msgTypeValue,
             long msgRcvTime, String strRemoteIP) {
@@ -119,8 +125,9 @@ public class CodecBinMsg extends AbsV0MsgCodec {
                 msgHeadPos + BIN_MSG_BODY_OFFSET + bodyLen + BIN_MSG_ATTRLEN_SIZE)) {
             return false;
         }
-        this.bodyData = new byte[bodyLen];
-        cb.getBytes(msgHeadPos + BIN_MSG_BODY_OFFSET, this.bodyData, 0, bodyLen);
+        this.bodyBuf = cb;
+        this.bodyPos = msgHeadPos + BIN_MSG_BODY_OFFSET;
+        this.bodyLen = bodyLen;
         // process extend field value
         if (((this.extendField & 0x8) == 0x8) || ((this.extendField & 0x10) == 0x10)) {
             this.indexMsg = true;
@@ -211,9 +218,47 @@ public class CodecBinMsg extends AbsV0MsgCodec {
     }
 
     public Event encEventPackage(BaseSource source, Channel channel) {
+        byte[] inlongMsgData;
+        if (source.isCompressed()
+                && (this.msgType & BIN_MSG_COMPRESS_TYPE_MASK) == 0) {
+            // compress the body by InLongMsg
+            InLongMsg inLongMsg = InLongMsg.newInLongMsg(true, 4);
+            inLongMsg.addMsg(buildBinMsgPackage());
+            inlongMsgData = inLongMsg.buildArray();
+            msgPkgTime = inLongMsg.getCreatetime();
+            inLongMsg.reset();
+        } else {
+            // the InLongMsg v4 package is the bin msg package between magics,
+            // so build it in place and copy the body only once
+            inlongMsgData = new byte[totalDataLen + BIN_MSG_TOTALLEN_SIZE + 2 * INLONG_MSG_V4_MAGIC.length];
+            fillBinMsgPackage(ByteBuffer.wrap(inlongMsgData,
+                    INLONG_MSG_V4_MAGIC.length, totalDataLen + BIN_MSG_TOTALLEN_SIZE).slice());
+            System.arraycopy(INLONG_MSG_V4_MAGIC, 0, inlongMsgData, 0, INLONG_MSG_V4_MAGIC.length);
+            System.arraycopy(INLONG_MSG_V4_MAGIC, 0, inlongMsgData,
+                    inlongMsgData.length - INLONG_MSG_V4_MAGIC.length, INLONG_MSG_V4_MAGIC.length);
+            msgPkgTime = System.currentTimeMillis();
+        }
+        Event event = EventBuilder.withBody(inlongMsgData, buildEventHeaders(source));
+        if (isOrderOrProxy) {
+            event = new SinkRspEvent(event, MsgType.MSG_BIN_MULTI_BODY, channel);
+        }
+        return event;
+    }
+
+    @Override
+    public int getBodyLength() {
+        return this.bodyLen;
+    }
+
+    private byte[] buildBinMsgPackage() {
+        byte[] pkgData = new byte[totalDataLen + BIN_MSG_TOTALLEN_SIZE];
+        fillBinMsgPackage(ByteBuffer.wrap(pkgData));
+        return pkgData;
+    }
+
+    private void fillBinMsgPackage(ByteBuffer dataBuf) {
         // fill bin msg package
         int totalPkgLength = totalDataLen + BIN_MSG_TOTALLEN_SIZE;
-        ByteBuffer dataBuf = ByteBuffer.allocate(totalPkgLength);
         dataBuf.putInt(BIN_MSG_TOTALLEN_OFFSET, totalDataLen);
         dataBuf.put(BIN_MSG_MSGTYPE_OFFSET, msgType);
         dataBuf.putShort(BIN_MSG_GROUPIDNUM_OFFSET, (short) groupIdNum);
@@ -222,28 +267,19 @@ public class CodecBinMsg extends AbsV0MsgCodec {
         dataBuf.putInt(BIN_MSG_DT_OFFSET, (int) dataTimeSec);
         dataBuf.putShort(BIN_MSG_CNT_OFFSET, (short) msgCount);
         dataBuf.putInt(BIN_MSG_UNIQ_OFFSET, (int) uniq);
-        dataBuf.putInt(BIN_MSG_BODYLEN_OFFSET, bodyData.length);
-        if (bodyData.length > 0) {
-            System.arraycopy(bodyData, 0, dataBuf.array(), BIN_MSG_BODY_OFFSET, bodyData.length);
+        dataBuf.putInt(BIN_MSG_BODYLEN_OFFSET, bodyLen);
+        if (bodyLen > 0) {
+            bodyBuf.getBytes(bodyPos, dataBuf.array(),
+                    dataBuf.arrayOffset() + BIN_MSG_BODY_OFFSET, bodyLen);
         }
         dataBuf.putShort(totalPkgLength
                 - BIN_MSG_ATTRLEN_SIZE - BIN_MSG_MAGIC_SIZE - origAttr.length(), (short) origAttr.length());
         if (origAttr.length() > 0) {
             System.arraycopy(origAttr.getBytes(StandardCharsets.UTF_8), 0, dataBuf.array(),
-                    totalPkgLength - BIN_MSG_MAGIC_SIZE - origAttr.length(), origAttr.length());
+                    dataBuf.arrayOffset() + totalPkgLength - BIN_MSG_MAGIC_SIZE - origAttr.length(),
+                    origAttr.length());
         }
         dataBuf.putShort(totalPkgLength - BIN_MSG_MAGIC_SIZE, (short) BIN_MSG_MAGIC);
-        // build InLong message
-        InLongMsg inLongMsg = InLongMsg.newInLongMsg(source.isCompressed(), 4);
-        inLongMsg.addMsg(dataBuf.array());
-        byte[] inlongMsgData = inLongMsg.buildArray();
-        msgPkgTime = inLongMsg.getCreatetime();
-        Event event = EventBuilder.withBody(inlongMsgData, buildEventHeaders(source));
-        if (isOrderOrProxy) {
-            event = new SinkRspEvent(event, MsgType.MSG_BIN_MULTI_BODY, channel);
-        }
-        inLongMsg.reset();
-        return event;
     }
 
     private boolean validAndFillTopic(BaseSource source) {
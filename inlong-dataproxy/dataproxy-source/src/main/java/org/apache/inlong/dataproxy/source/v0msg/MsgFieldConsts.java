@@ -44,6 +44,9 @@ public class MsgFieldConsts {
     public static final int BIN_MSG_ATTRLEN_SIZE = 2;
     public static final int BIN_MSG_MAGIC_SIZE = 2;
     public static final int BIN_MSG_MAGIC = 0xEE01;
+    public static final int BIN_MSG_COMPRESS_TYPE_MASK = 0xE0;
+    // magic of the InLongMsg v4 package that wraps a bin message
+    public static final byte[] INLONG_MSG_V4_MAGIC = {(byte) 0xf, (byte) 0x4};
 
     public static final int BIN_HB_FORMAT_SIZE = 18;
     public static final int BIN_HB_TOTALLEN_OFFSET = 0;
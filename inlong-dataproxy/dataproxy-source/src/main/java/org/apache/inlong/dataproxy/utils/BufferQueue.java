@@ -17,6 +17,7 @@
 
 package org.apache.inlong.dataproxy.utils;
 
+import java.util.Collection;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -62,6 +63,19 @@ public class BufferQueue<A> {
         return record;
     }
 
+    /**
+     * poll records in batch
+     *
+     * @param records     the collection to hold the polled records
+     * @param maxRecords  the maximum number of records to poll
+     * @return the number of records polled
+     */
+    public int pollRecords(Collection<? super A> records, int maxRecords) {
+        int count = queue.drainTo(records, maxRecords);
+        this.pollCount.getAndAdd(count);
+        return count;
+    }
+
     /**
      * Take record
      */
@@ -86,6 +100,23 @@ public class BufferQueue<A> {
         this.offerCount.incrementAndGet();
     }
 
+    /**
+     * offer records in batch
+     */
+    public void offerAll(Collection<? extends A> records) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        int count = 0;
+        for (A record : records) {
+            if (record != null) {
+                queue.offer(record);
+                count++;
+            }
+        }
+        this.offerCount.addAndGet(count);
+    }
+
     /**
      * queue size
      */
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.channel;
+
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import org.apache.flume.ChannelException;
+import org.apache.flume.Context;
+import org.apache.flume.Event;
+import org.apache.flume.Transaction;
+import org.apache.flume.channel.ReplicatingChannelSelector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BufferQueueChannel test
+ */
+public class BufferQueueChannelTest {
+
+    @Test
+    public void testBatchPutAndTake() {
+        Context context = new Context();
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_COUNT, "4");
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_SIZE_KB, "1024");
+        BufferQueueChannel channel = new BufferQueueChannel();
+        channel.configure(context);
+        List<ProxyEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(new ProxyEvent("group", "stream",
+                    new byte[1500], System.currentTimeMillis(), "127.0.0.1"));
+        }
+        // put in batch
+        Transaction tx = channel.getTransaction();
+        tx.begin();
+        channel.putAll(events);
+        tx.commit();
+        tx.close();
+        Assert.assertEquals(1, channel.countSemaphore.availablePermits());
+        Assert.assertEquals(3, channel.bufferQueue.size());
+        // rolled back events are taken again
+        tx = channel.getTransaction();
+        tx.begin();
+        Assert.assertEquals(2, channel.takeBatch(2).size());
+        tx.rollback();
+        tx.close();
+        Assert.assertEquals(1, channel.countSemaphore.availablePermits());
+        // the permits are released in bulk after commit
+        tx = channel.getTransaction();
+        tx.begin();
+        Assert.assertEquals(3, channel.takeBatch(10).size());
+        Assert.assertTrue(channel.takeBatch(10).isEmpty());
+        tx.commit();
+        tx.close();
+        Assert.assertEquals(4, channel.countSemaphore.availablePermits());
+        Assert.assertEquals(1024 * 1024L, channel.bufferQueue.availablePermits() * 1024L
+                + channel.bufferQueue.leftKb());
+    }
+
+    @Test
+    public void testCommitTakesBeforeRollback() {
+        Context context = new Context();
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_COUNT, "4");
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_SIZE_KB, "1024");
+        BufferQueueChannel channel = new BufferQueueChannel();
+        channel.configure(context);
+        List<ProxyEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(new ProxyEvent("group", "stream",
+                    new byte[10], System.currentTimeMillis(), "127.0.0.1"));
+        }
+        Transaction tx = channel.getTransaction();
+        tx.begin();
+        channel.putAll(events);
+        tx.commit();
+        tx.close();
+        channel.bufferQueue.getPollCount();
+        // the processed events are committed, only the rest are rolled back
+        tx = channel.getTransaction();
+        tx.begin();
+        List<ProxyEvent> taken = channel.takeBatch(10);
+        Assert.assertEquals(3, taken.size());
+        Assert.assertEquals(3, channel.bufferQueue.getPollCount());
+        channel.commitTakes(taken.subList(0, 2));
+        tx.rollback();
+        tx.close();
+        Assert.assertEquals(3, channel.countSemaphore.availablePermits());
+        Assert.assertEquals(1, channel.bufferQueue.size());
+        Assert.assertSame(events.get(2), channel.bufferQueue.pollRecord());
+    }
+
+    @Test
+    public void testRejectOversizedBatch() {
+        Context context = new Context();
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_COUNT, "4");
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_SIZE_KB, "1024");
+        BufferQueueChannel channel = new BufferQueueChannel();
+        channel.configure(context);
+        List<ProxyEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            events.add(new ProxyEvent("group", "stream",
+                    new byte[10], System.currentTimeMillis(), "127.0.0.1"));
+        }
+        Transaction tx = channel.getTransaction();
+        tx.begin();
+        try {
+            channel.putAll(events);
+            Assert.fail("the batch over the capacity should be rejected");
+        } catch (ChannelException e) {
+            tx.rollback();
+        } finally {
+            tx.close();
+        }
+        // no permit is held by the rejected batch
+        Assert.assertEquals(4, channel.countSemaphore.availablePermits());
+        Assert.assertEquals(0, channel.bufferQueue.size());
+    }
+
+    @Test
+    public void testProcessEventBatch() {
+        Context context = new Context();
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_COUNT, "4");
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_SIZE_KB, "1024");
+        BufferQueueChannel channel = new BufferQueueChannel();
+        channel.setName("channel");
+        channel.configure(context);
+        ReplicatingChannelSelector selector = new ReplicatingChannelSelector();
+        selector.setChannels(Collections.singletonList(channel));
+        selector.configure(new Context());
+        FailoverChannelProcessor processor = new FailoverChannelProcessor(selector);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(new ProxyEvent("group", "stream",
+                    new byte[10], System.currentTimeMillis(), "127.0.0.1"));
+        }
+        processor.processEventBatch(events);
+        Assert.assertEquals(1, channel.countSemaphore.availablePermits());
+        Assert.assertEquals(3, channel.bufferQueue.size());
+        // the batch over the capacity can't be put without the optional channels
+        for (int i = 0; i < 2; i++) {
+            events.add(new ProxyEvent("group", "stream",
+                    new byte[10], System.currentTimeMillis(), "127.0.0.1"));
+        }
+        try {
+            processor.processEventBatch(events);
+            Assert.fail("the batch over the capacity should be rejected");
+        } catch (ChannelException e) {
+            // expected
+        }
+        Assert.assertEquals(1, channel.countSemaphore.availablePermits());
+        Assert.assertEquals(3, channel.bufferQueue.size());
+    }
+}
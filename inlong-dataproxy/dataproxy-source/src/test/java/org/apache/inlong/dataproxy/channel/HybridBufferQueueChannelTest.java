@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.channel;
+
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.flume.ChannelException;
+import org.apache.flume.Context;
+import org.apache.flume.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * HybridBufferQueueChannel test
+ */
+public class HybridBufferQueueChannelTest {
+
+    private static HybridBufferQueueChannel createChannel(File spillDir) {
+        Context context = new Context();
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_COUNT, "2");
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_SIZE_KB, "1024");
+        context.put(HybridBufferQueueChannel.KEY_SPILL_DIR, spillDir.getAbsolutePath());
+        context.put(HybridBufferQueueChannel.KEY_SPILL_SEGMENT_SIZE_MB, "1");
+        context.put(HybridBufferQueueChannel.KEY_MAX_SPILL_SIZE_MB, "1");
+        HybridBufferQueueChannel channel = new HybridBufferQueueChannel();
+        channel.configure(context);
+        return channel;
+    }
+
+    private static void put(HybridBufferQueueChannel channel, int from, int to) {
+        Transaction tx = channel.getTransaction();
+        tx.begin();
+        for (int i = from; i < to; i++) {
+            channel.put(new ProxyEvent("group", "stream",
+                    ("body" + i).getBytes(), System.currentTimeMillis(), "127.0.0.1"));
+        }
+        tx.commit();
+        tx.close();
+    }
+
+    @Test
+    public void testTakeInPutOrder() throws Exception {
+        File spillDir = Files.createTempDirectory("hybrid_channel").toFile();
+        try {
+            HybridBufferQueueChannel channel = createChannel(spillDir);
+            // the third event overflows to the spill files
+            put(channel, 0, 3);
+            Transaction tx = channel.getTransaction();
+            tx.begin();
+            Assert.assertEquals("body0", new String(channel.take().getBody()));
+            tx.commit();
+            tx.close();
+            // the memory has room, but the new events follow the spilled one
+            put(channel, 3, 5);
+            Assert.assertEquals(1, channel.bufferQueue.size());
+            tx = channel.getTransaction();
+            tx.begin();
+            List<ProxyEvent> events = channel.takeBatch(10);
+            events.addAll(channel.takeBatch(10));
+            tx.commit();
+            tx.close();
+            Assert.assertEquals(4, events.size());
+            for (int i = 0; i < events.size(); i++) {
+                Assert.assertEquals("body" + (i + 1), new String(events.get(i).getBody()));
+            }
+            channel.stop();
+        } finally {
+            FileUtils.deleteQuietly(spillDir);
+        }
+    }
+
+    @Test
+    public void testCommitSpillTakesBeforeRollback() throws Exception {
+        File spillDir = Files.createTempDirectory("hybrid_channel").toFile();
+        try {
+            HybridBufferQueueChannel channel = createChannel(spillDir);
+            // the last two events overflow to the spill files
+            put(channel, 0, 4);
+            Transaction tx = channel.getTransaction();
+            tx.begin();
+            Assert.assertEquals(2, channel.takeBatch(10).size());
+            tx.commit();
+            tx.close();
+            // the processed spilled event is committed, only the rest is rolled back
+            tx = channel.getTransaction();
+            tx.begin();
+            List<ProxyEvent> events = channel.takeBatch(10);
+            Assert.assertEquals(2, events.size());
+            channel.commitTakes(events.subList(0, 1));
+            tx.rollback();
+            tx.close();
+            Assert.assertEquals(2, channel.countSemaphore.availablePermits());
+            tx = channel.getTransaction();
+            tx.begin();
+            events = channel.takeBatch(10);
+            tx.commit();
+            tx.close();
+            Assert.assertEquals(1, events.size());
+            Assert.assertEquals("body3", new String(events.get(0).getBody()));
+            channel.stop();
+        } finally {
+            FileUtils.deleteQuietly(spillDir);
+        }
+    }
+
+    @Test
+    public void testSpillFailedOnCommit() throws Exception {
+        File spillDir = Files.createTempDirectory("hybrid_channel").toFile();
+        try {
+            HybridBufferQueueChannel channel = createChannel(spillDir);
+            // larger than both the memory buffer and the spill segment
+            Transaction tx = channel.getTransaction();
+            tx.begin();
+            channel.put(new ProxyEvent("group", "stream",
+                    new byte[1536 * 1024], System.currentTimeMillis(), "127.0.0.1"));
+            try {
+                tx.commit();
+                Assert.fail();
+            } catch (ChannelException e) {
+                tx.rollback();
+            }
+            tx.close();
+            Assert.assertEquals(2, channel.countSemaphore.availablePermits());
+            Assert.assertEquals(0, channel.bufferQueue.size());
+            channel.stop();
+        } finally {
+            FileUtils.deleteQuietly(spillDir);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.channel;
+
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * SpillFileQueue test
+ */
+public class SpillFileQueueTest {
+
+    @Test
+    public void testSpillAndRecover() throws Exception {
+        File spillDir = Files.createTempDirectory("spill_queue").toFile();
+        try {
+            SpillFileQueue queue = new SpillFileQueue(spillDir, 1024, 1024 * 1024);
+            for (int i = 0; i < 20; i++) {
+                ProxyEvent event = new ProxyEvent("group", "stream",
+                        ("body" + i).getBytes(), System.currentTimeMillis(), "127.0.0.1");
+                Assert.assertTrue(queue.append(event));
+            }
+            Assert.assertEquals(20, queue.size());
+            Assert.assertFalse(queue.isEmpty());
+            queue.force();
+            // take and commit the first record
+            SpillFileQueue.SpillRecord record = queue.poll();
+            Assert.assertEquals("body0", new String(record.getEvent().getBody()));
+            Assert.assertEquals("group", record.getEvent().getInlongGroupId());
+            queue.commit(record);
+            // a rolled back record is taken again
+            record = queue.poll();
+            queue.requeue(record);
+            Assert.assertEquals("body1", new String(queue.poll().getEvent().getBody()));
+            queue.close();
+            // the uncommitted records are replayed in order after reopen
+            SpillFileQueue reopened = new SpillFileQueue(spillDir, 1024, 1024 * 1024);
+            for (int i = 1; i < 20; i++) {
+                SpillFileQueue.SpillRecord replayed = reopened.poll();
+                Assert.assertNotNull(replayed);
+                Assert.assertEquals("body" + i, new String(replayed.getEvent().getBody()));
+            }
+            Assert.assertNull(reopened.poll());
+            reopened.close();
+        } finally {
+            FileUtils.deleteQuietly(spillDir);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * MsgDedupHandler test
+ */
+public class MsgDedupHandlerTest {
+
+    @Test
+    public void testJudgeDupAndPut() {
+        MsgDedupHandler handler = new MsgDedupHandler();
+        handler.start(true, 30000, 1000);
+        long dataTime = System.currentTimeMillis();
+        String msgSeqId = "group&stream&127.0.0.1#" + dataTime + "#-12";
+        Assert.assertFalse(handler.judgeDupAndPutMsgSeqId(msgSeqId));
+        Assert.assertTrue(handler.judgeDupAndPutMsgSeqId(msgSeqId));
+        // the invalidated msgSeqId is accepted again
+        handler.invalidMsgSeqId(msgSeqId);
+        Assert.assertFalse(handler.judgeDupAndPutMsgSeqId(msgSeqId));
+        Assert.assertEquals(1, handler.getCacheData().hitCount());
+        // the empty msgSeqId is not deduplicated
+        Assert.assertFalse(handler.judgeDupAndPutMsgSeqId(""));
+        Assert.assertFalse(handler.judgeDupAndPutMsgSeqId(""));
+    }
+
+    @Test
+    public void testRemove() {
+        MsgFingerprintIndex index = new MsgFingerprintIndex(60000, 1000);
+        for (long i = 1; i <= 100; i++) {
+            Assert.assertFalse(index.putIfAbsent(i, i * 31));
+        }
+        for (long i = 1; i <= 100; i++) {
+            index.remove(i, i * 31);
+        }
+        Assert.assertEquals(0, index.size());
+        Assert.assertEquals(0, index.getEvictionCount());
+        // the removed marks are reused or dropped with the bucket, the probing never loops
+        for (int round = 0; round < 100; round++) {
+            for (long i = 1; i <= 100; i++) {
+                Assert.assertFalse(index.putIfAbsent(i, i * 31 + round));
+                index.remove(i, i * 31 + round);
+            }
+        }
+        Assert.assertEquals(0, index.size());
+        Assert.assertFalse(index.putIfAbsent(1, 31));
+        Assert.assertTrue(index.putIfAbsent(1, 31));
+        Assert.assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testBucketExpire() throws Exception {
+        MsgFingerprintIndex index = new MsgFingerprintIndex(100, 1000);
+        for (long i = 0; i < 100; i++) {
+            Assert.assertFalse(index.putIfAbsent(i, i * 31));
+        }
+        Assert.assertTrue(index.putIfAbsent(10, 310));
+        Assert.assertEquals(100, index.size());
+        // the whole buckets are expired after the survive time
+        Thread.sleep(200);
+        Assert.assertFalse(index.putIfAbsent(10, 310));
+        Assert.assertTrue(index.getEvictionCount() > 0);
+        // the oldest bucket is dropped when the current bucket is full
+        MsgFingerprintIndex fullIndex = new MsgFingerprintIndex(60000, 100);
+        for (long i = 1; i <= 10000; i++) {
+            fullIndex.putIfAbsent(i, i);
+        }
+        Assert.assertTrue(fullIndex.size() <= 32 * 5 * 8);
+        Assert.assertTrue(fullIndex.putIfAbsent(10000, 10000));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.source.v0msg;
+
+import org.apache.inlong.common.msg.InLongMsg;
+import org.apache.inlong.dataproxy.source.BaseSource;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.flume.Event;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CodecBinMsg test
+ */
+public class CodecBinMsgTest {
+
+    @Test
+    public void testEncodeWithoutCompress() throws Exception {
+        byte[] body = "bin message body".getBytes(StandardCharsets.UTF_8);
+        byte[] attr = "groupId=group&streamId=stream".getBytes(StandardCharsets.UTF_8);
+        int totalDataLen = MsgFieldConsts.BIN_MSG_FORMAT_SIZE
+                - MsgFieldConsts.BIN_MSG_TOTALLEN_SIZE + body.length + attr.length;
+        ByteBuf cb = Unpooled.buffer();
+        cb.writeInt(totalDataLen);
+        cb.writeByte(7);
+        cb.writeShort(0);
+        cb.writeShort(0);
+        cb.writeShort(0x4);
+        cb.writeInt((int) (System.currentTimeMillis() / 1000));
+        cb.writeShort(1);
+        cb.writeInt(100);
+        cb.writeInt(body.length);
+        cb.writeBytes(body);
+        cb.writeShort(attr.length);
+        cb.writeBytes(attr);
+        cb.writeShort(MsgFieldConsts.BIN_MSG_MAGIC);
+        byte[] pkgData = new byte[cb.readableBytes()];
+        cb.getBytes(0, pkgData);
+        cb.readerIndex(5);
+
+        BaseSource source = Mockito.mock(BaseSource.class);
+        Mockito.when(source.isCompressed()).thenReturn(false);
+        Mockito.when(source.getSrcHost()).thenReturn("127.0.0.1");
+        CodecBinMsg msgCodec = new CodecBinMsg(totalDataLen, 7,
+                System.currentTimeMillis(), "127.0.0.1");
+        Assert.assertTrue(msgCodec.descMsg(source, cb));
+        Assert.assertEquals(body.length, msgCodec.getBodyLength());
+        Event event = msgCodec.encEventPackage(source, null);
+        cb.release();
+        // the package built in place equals the one built by InLongMsg
+        InLongMsg inLongMsg = InLongMsg.newInLongMsg(false, 4);
+        Assert.assertTrue(inLongMsg.addMsg(pkgData));
+        Assert.assertArrayEquals(inLongMsg.buildArray(), event.getBody());
+    }
+}
@@ -110,6 +110,9 @@ public enum ErrorCode {
     DP_RETURN_FAILURE(182, "DataProxy return failure"),
     HTTP_VISIT_DP_EXCEPTION(183, "Http visit exception"),
     DP_RETURN_UNKNOWN_ERROR(184, "DataProxy return unknown error"),
+    //
+    SPILL_QUEUE_FULL(191, "Local spill queue full"),
+    SPILL_WRITE_EXCEPTION(192, "Local spill write exception"),
 
     UNKNOWN_ERROR(9999, "Unknown error");
 
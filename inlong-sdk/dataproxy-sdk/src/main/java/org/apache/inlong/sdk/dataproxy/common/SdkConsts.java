@@ -103,6 +103,19 @@ public class SdkConsts {
     // sync message timeout check duration ms
     public static final long VAL_DEF_SYNC_TIMEOUT_CHK_DUR_MS = 3 * 60 * 1000L;
     public static final long VAL_MIN_SYNC_TIMEOUT_CHK_DUR_MS = 10 * 1000L;
+    // TCP async event linger ms before sending in batch, 0 means disable batching
+    public static final long VAL_DEF_TCP_LINGER_MS = 0L;
+    public static final long VAL_MAX_TCP_LINGER_MS = 10000L;
+    // TCP async event batch size in bytes
+    public static final int VAL_DEF_TCP_BATCH_SIZE_BYTES = 64 * 1024;
+    public static final int VAL_MIN_TCP_BATCH_SIZE_BYTES = 1024;
+    // TCP local spill segment file size in MB
+    public static final int VAL_DEF_TCP_SPILL_SEGMENT_SIZE_MB = 64;
+    public static final int VAL_MIN_TCP_SPILL_SEGMENT_SIZE_MB = 1;
+    public static final int VAL_MAX_TCP_SPILL_SEGMENT_SIZE_MB = 1024;
+    // TCP local spill max total size in MB
+    public static final long VAL_DEF_TCP_MAX_SPILL_SIZE_MB = 10240L;
+    public static final long VAL_MIN_TCP_MAX_SPILL_SIZE_MB = 1L;
 
     // HTTP sdk close wait period ms
     public static final long VAL_DEF_HTTP_SDK_CLOSE_WAIT_MS = 20000L;
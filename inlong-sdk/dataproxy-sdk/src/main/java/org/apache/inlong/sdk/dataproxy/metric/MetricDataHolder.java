@@ -190,6 +190,19 @@ public class MetricDataHolder implements Runnable {
         }
     }
 
+    public void addNodeRspTimeMetric(String nodeAddr, long costMs) {
+        if (!this.metricConfig.isEnableMetric()) {
+            return;
+        }
+        MetricInfoUnit selectedUnit = metricUnits[itemIndex];
+        selectedUnit.refCnt.incrementAndGet();
+        try {
+            selectedUnit.addNodeRspTimeInfo(nodeAddr, costMs);
+        } finally {
+            selectedUnit.refCnt.decrementAndGet();
+        }
+    }
+
     public void addAsyncHttpSucPutMetric(String groupId, String streamId, int msgCnt) {
         if (!this.metricConfig.isEnableMetric()) {
             return;
@@ -282,6 +295,7 @@ public class MetricDataHolder implements Runnable {
         protected final MetaSyncInfo metaSyncInfo = new MetaSyncInfo();
         protected final ConcurrentHashMap<String, TrafficInfo> trafficMap = new ConcurrentHashMap<>();
         protected final ConcurrentHashMap<Integer, LongAdder> errCodeMap = new ConcurrentHashMap<>();
+        protected final ConcurrentHashMap<String, TimeCostInfo> nodeRspTimeMap = new ConcurrentHashMap<>();
 
         public void addSyncSendSucInfo(String groupId, String streamId, int msgCnt, long costMs) {
             String recordKey = getKeyStringByConfig(groupId, streamId);
@@ -404,6 +418,18 @@ public class MetricDataHolder implements Runnable {
             addSendErrCodeInfo(errCode);
         }
 
+        public void addNodeRspTimeInfo(String nodeAddr, long costMs) {
+            TimeCostInfo timeCostInfo = this.nodeRspTimeMap.get(nodeAddr);
+            if (timeCostInfo == null) {
+                TimeCostInfo tmpInfo = new TimeCostInfo(nodeAddr);
+                timeCostInfo = this.nodeRspTimeMap.putIfAbsent(nodeAddr, tmpInfo);
+                if (timeCostInfo == null) {
+                    timeCostInfo = tmpInfo;
+                }
+            }
+            timeCostInfo.addTimeCostInMs(costMs);
+        }
+
         private void addSendErrCodeInfo(int errCode) {
             LongAdder longCount = this.errCodeMap.get(errCode);
             if (longCount == null) {
@@ -435,10 +461,19 @@ public class MetricDataHolder implements Runnable {
                 strBuff.append("\"e").append(entry.getKey())
                         .append("\":").append(entry.getValue().sumThenReset());
             }
+            strBuff.append("},\"nRt\":{");
+            count = 0;
+            for (Map.Entry<String, TimeCostInfo> entry : nodeRspTimeMap.entrySet()) {
+                if (count++ > 0) {
+                    strBuff.append(",");
+                }
+                entry.getValue().getAndResetValue(strBuff);
+            }
             strBuff.append("},");
             metaSyncInfo.getAndResetValue(strBuff);
             trafficMap.clear();
             errCodeMap.clear();
+            nodeRspTimeMap.clear();
         }
 
         private String getKeyStringByConfig(String groupId, String streamId) {
@@ -486,7 +521,8 @@ public class MetricDataHolder implements Runnable {
                     .append(",\"rB\":").append(tcpConfig.getRcvBufferSize())
                     .append(",\"cOt\":").append(tcpConfig.getConnectTimeoutMs())
                     .append(",\"rOt\":").append(tcpConfig.getRequestTimeoutMs())
-                    .append(",\"syOt\":").append(tcpConfig.getMaxAllowedSyncMsgTimeoutCnt());
+                    .append(",\"syOt\":").append(tcpConfig.getMaxAllowedSyncMsgTimeoutCnt())
+                    .append(",\"laS\":").append(tcpConfig.isEnableLatencyAwareSelect());
         } else {
             HttpMsgSenderConfig httpConfig = (HttpMsgSenderConfig) sender.getConfigure();
             strBuff.append(",\"iHs\":").append(httpConfig.isRptDataByHttps())
@@ -25,6 +25,7 @@ import org.apache.inlong.sdk.dataproxy.utils.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.Semaphore;
 
 /**
@@ -140,6 +141,33 @@ public class PkgCacheQuota {
         }
     }
 
+    /**
+     * Merge the permits taken by several packages into the permits of one package,
+     *  the surplus permits are released, the merged package holds no more permits
+     *  than the sum of the merged ones as each package pads its size
+     *
+     * @param sizesInByte the sizes of the merged packages
+     * @param mergedSize  the size of the merged package
+     */
+    public void merge(List<Integer> sizesInByte, int mergedSize) {
+        if (this.disabled || sizesInByte.isEmpty()) {
+            return;
+        }
+        if (this.pkgSizeKbQuota != null) {
+            int heldKbPermits = 0;
+            for (int sizeInByte : sizesInByte) {
+                heldKbPermits += getSizeKbPermitsByBytes(sizeInByte);
+            }
+            int surplusKbPermits = heldKbPermits - getSizeKbPermitsByBytes(mergedSize);
+            if (surplusKbPermits > 0) {
+                this.pkgSizeKbQuota.release(surplusKbPermits);
+            }
+        }
+        if (this.pkgCntQuota != null && sizesInByte.size() > 1) {
+            this.pkgCntQuota.release(sizesInByte.size() - 1);
+        }
+    }
+
     public boolean isFactoryLevel() {
         return factoryLevel;
     }
@@ -50,6 +50,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -322,6 +323,13 @@ public class TcpClientMgr implements ClientMgr {
         if (curNodeSize == 0) {
             return procResult.setFailResult(ErrorCode.EMPTY_ACTIVE_NODE_SET);
         }
+        if (tcpConfig.isEnableLatencyAwareSelect() && curNodeSize > 1) {
+            TcpNettyClient selectedClient = getClientByPowerOfTwoChoices(curNodes);
+            if (selectedClient != null) {
+                selectedClient.incClientUsingCnt();
+                return procResult.setSuccess(selectedClient);
+            }
+        }
         int indexPos;
         String curNode;
         TcpNettyClient client;
@@ -371,6 +379,49 @@ public class TcpClientMgr implements ClientMgr {
         return procResult.setFailResult(ErrorCode.NO_VALID_REMOTE_NODE);
     }
 
+    private TcpNettyClient getClientByPowerOfTwoChoices(List<String> curNodes) {
+        // pick two random nodes and select the one with the lower load score
+        int curNodeSize = curNodes.size();
+        if (curNodeSize < 2) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int fstIndex = random.nextInt(curNodeSize);
+        int secIndex = random.nextInt(curNodeSize - 1);
+        if (secIndex >= fstIndex) {
+            secIndex++;
+        }
+        // the active nodes may be cleared concurrently
+        if (fstIndex >= curNodes.size() || secIndex >= curNodes.size()) {
+            if (indexExptCnt.shouldPrint()) {
+                logger.warn("IndexOutOfBounds, curNodeSize={}, fstIndex={}, secIndex={}, realSize={}",
+                        curNodeSize, fstIndex, secIndex, curNodes.size());
+            }
+            return null;
+        }
+        TcpNettyClient fstClient = getSelectableClient(curNodes.get(fstIndex));
+        TcpNettyClient secClient = getSelectableClient(curNodes.get(secIndex));
+        if (fstClient == null || secClient == null) {
+            return fstClient == null ? secClient : fstClient;
+        }
+        long curTime = System.currentTimeMillis();
+        return fstClient.getLoadScore(curTime) <= secClient.getLoadScore(curTime) ? fstClient : secClient;
+    }
+
+    private TcpNettyClient getSelectableClient(String curNode) {
+        TcpNettyClient client = usingClientMaps.get(curNode);
+        if (client == null
+                || !client.isActive()
+                || !client.getChannel().isWritable()) {
+            return null;
+        }
+        if (tcpConfig.getMaxMsgInFlightPerConn() > 0
+                && client.getMsgInflightCnt() > tcpConfig.getMaxMsgInFlightPerConn()) {
+            return null;
+        }
+        return client;
+    }
+
     public void feedbackMsgResponse(String channelStr, DecodeObject decObject) {
         Timeout timeoutTask = this.reqTimeouts.remove(decObject.getMessageId());
         if (timeoutTask != null) {
@@ -393,8 +444,10 @@ public class TcpClientMgr implements ClientMgr {
                         senderId, ex);
             }
         } finally {
-            this.descInflightMsgCnt(callFuture);
+            this.descInflightMsgCnt(callFuture, curTime - callFuture.getRtTime());
             this.releaseAsyncCachedPermits(callFuture);
+            baseSender.getMetricHolder().addNodeRspTimeMetric(
+                    callFuture.getClientAddr(), (curTime - callFuture.getRtTime()));
             if (decObject.getSendResult().isSuccess()) {
                 baseSender.getMetricHolder().addCallbackSucMetric(callFuture.getGroupId(),
                         callFuture.getStreamId(), callFuture.getMsgCnt(),
@@ -514,11 +567,12 @@ public class TcpClientMgr implements ClientMgr {
         return messageIdGen.getNextInt();
     }
 
-    private void descInflightMsgCnt(TcpCallFuture callFuture) {
+    private void descInflightMsgCnt(TcpCallFuture callFuture, long rspTimeMs) {
         TcpNettyClient nettyTcpClient = usingClientMaps.get(callFuture.getClientAddr());
         if (nettyTcpClient != null
                 && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
             nettyTcpClient.decInFlightMsgCnt(callFuture.getChanTerm());
+            nettyTcpClient.addRspTimeCost(rspTimeMs);
             return;
         }
         nettyTcpClient = deletingClientMaps.get(callFuture.getClientAddr());
@@ -740,6 +794,8 @@ public class TcpClientMgr implements ClientMgr {
                     }
                 } finally {
                     nettyTcpClient.decInFlightMsgCnt(future.getChanTerm());
+                    // take the timeout as the response time of the node
+                    nettyTcpClient.addRspTimeCost(curTime - future.getRtTime());
                     releaseAsyncCachedPermits(future);
                     baseSender.getMetricHolder().addCallbackFailMetric(
                             ErrorCode.SEND_WAIT_TIMEOUT.getErrCode(),
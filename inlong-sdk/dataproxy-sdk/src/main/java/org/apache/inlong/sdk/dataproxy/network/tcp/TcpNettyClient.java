@@ -63,6 +63,10 @@ public class TcpNettyClient {
     private final static int CLIENT_STATUS_FROZEN = 1;
     private final static int CLIENT_STATUS_DEAD = 2;
     private final static int CLIENT_STATUS_BUSY = 3;
+    // the weight of the new response time in the moving average
+    private final static double RSP_TIME_EWMA_ALPHA = 0.3;
+    // the decay period of the average response time without new responses
+    private final static double RSP_TIME_DECAY_MS = 10000.0;
 
     private final String senderId;
     private final TcpMsgSenderConfig tcpConfig;
@@ -84,6 +88,9 @@ public class TcpNettyClient {
     private int lstRoundSentCnt = -1;
     private int clientIdleRounds = 0;
     private long fstIdleTime = 0;
+    // the peak-sensitive moving average of the response time
+    private double ewmaRspTimeMs = 0.0;
+    private long lstRspTime = 0L;
 
     public TcpNettyClient(String senderId,
             Bootstrap bootstrap, HostInfo hostInfo, TcpMsgSenderConfig tcpConfig) {
@@ -410,6 +417,45 @@ public class TcpNettyClient {
         return channelStr;
     }
 
+    /**
+     * Add the response time of a request, a response time higher than
+     *  the average is taken at once, so a slow node is avoided quickly
+     *
+     * @param rspTimeMs the response time in milliseconds
+     */
+    public synchronized void addRspTimeCost(long rspTimeMs) {
+        long curTime = System.currentTimeMillis();
+        double curAvg = getDecayedRspTime(curTime);
+        if (rspTimeMs > curAvg) {
+            this.ewmaRspTimeMs = rspTimeMs;
+        } else {
+            this.ewmaRspTimeMs = curAvg + RSP_TIME_EWMA_ALPHA * (rspTimeMs - curAvg);
+        }
+        this.lstRspTime = curTime;
+    }
+
+    /**
+     * Get the load score of the node, lower is better
+     *
+     * @param curTime the current time
+     * @return the average response time multiplied by the in-flight request count
+     */
+    public synchronized double getLoadScore(long curTime) {
+        return (getDecayedRspTime(curTime) + 1.0) * (msgInflightCnt.get() + clientUsingCnt.get() + 1);
+    }
+
+    public synchronized double getAvgRspTimeMs() {
+        return getDecayedRspTime(System.currentTimeMillis());
+    }
+
+    private double getDecayedRspTime(long curTime) {
+        // the average decays without new responses, so an idle slow node is probed again
+        if (lstRspTime == 0L) {
+            return 0.0;
+        }
+        return ewmaRspTimeMs * Math.exp(-Math.max(0L, curTime - lstRspTime) / RSP_TIME_DECAY_MS);
+    }
+
     public void decInFlightMsgCnt(long termId) {
         if (this.channelTermId.get() != termId) {
             return;
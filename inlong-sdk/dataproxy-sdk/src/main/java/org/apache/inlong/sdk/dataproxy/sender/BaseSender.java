@@ -316,6 +316,13 @@ public abstract class BaseSender implements ConfigHolder {
         }
     }
 
+    public void mergeCachePermits(List<Integer> sizesInByte, int mergedSize) {
+        this.sdkPkgCacheQuota.merge(sizesInByte, mergedSize);
+        if (this.globalCacheQuota != null) {
+            this.globalCacheQuota.merge(sizesInByte, mergedSize);
+        }
+    }
+
     public abstract int getActiveNodeCnt();
 
     public abstract int getInflightMsgCnt();
@@ -40,6 +40,8 @@ import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -56,6 +58,8 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
     protected static final LogCounter tcpExceptCnt = new LogCounter(10, 100000, 60 * 1000L);
     private final TcpMsgSenderConfig tcpConfig;
     private final TcpClientMgr tcpClientMgr;
+    private final TcpRecordAccumulator accumulator;
+    private final TcpSpillQueue spillQueue;
 
     public InLongTcpMsgSender(TcpMsgSenderConfig configure) {
         this(configure, null, null, null);
@@ -71,6 +75,24 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         this.tcpConfig = (TcpMsgSenderConfig) baseConfig;
         this.clientMgr = new TcpClientMgr(this, this.tcpConfig, selfDefineFactory);
         this.tcpClientMgr = (TcpClientMgr) clientMgr;
+        if (this.tcpConfig.getLingerMs() > 0) {
+            this.accumulator = new TcpRecordAccumulator(this,
+                    this.tcpConfig.getLingerMs(), this.tcpConfig.getBatchSizeBytes());
+        } else {
+            this.accumulator = null;
+        }
+        if (this.tcpConfig.getSpillDir() != null) {
+            try {
+                this.spillQueue = new TcpSpillQueue(this, new File(this.tcpConfig.getSpillDir()),
+                        this.tcpConfig.getSpillSegmentSizeMb() * 1024L * 1024L,
+                        this.tcpConfig.getMaxSpillSizeMb() * 1024L * 1024L);
+            } catch (IOException ex) {
+                throw new IllegalArgumentException(
+                        "Initial spill queue in " + this.tcpConfig.getSpillDir() + " failure", ex);
+            }
+        } else {
+            this.spillQueue = null;
+        }
     }
 
     @Override
@@ -108,25 +130,10 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         if (!this.isStarted()) {
             return procResult.setFailResult(ErrorCode.SDK_CLOSED);
         }
-        boolean gotPermits = false;
-        try {
-            if (!tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
-                return false;
-            }
-            gotPermits = true;
-            return processEvent(SendQos.SOURCE_ACK, eventInfo, callback, procResult);
-        } finally {
-            if (procResult.isSuccess()) {
-                metricHolder.addAsyncSucReqMetric(
-                        eventInfo.getGroupId(), eventInfo.getStreamId(), eventInfo.getMsgCnt());
-            } else {
-                if (gotPermits) {
-                    releaseCachePermits(eventInfo.getBodySize());
-                }
-                metricHolder.addAsyncFailReqMetric(procResult.getErrCode(),
-                        eventInfo.getGroupId(), eventInfo.getStreamId(), eventInfo.getMsgCnt());
-            }
+        if (accumulator != null && accumulator.isBatchable(eventInfo)) {
+            return batchSendEvent(SendQos.SOURCE_ACK, eventInfo, callback, procResult);
         }
+        return asyncSendEvent(SendQos.SOURCE_ACK, eventInfo, callback, procResult);
     }
 
     @Override
@@ -184,13 +191,108 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         if (!this.isStarted()) {
             return procResult.setFailResult(ErrorCode.SDK_CLOSED);
         }
-        boolean gotPermits = false;
+        if (accumulator != null && accumulator.isBatchable(eventInfo)) {
+            return batchSendEvent(SendQos.SINK_ACK, eventInfo, callback, procResult);
+        }
+        return asyncSendEvent(SendQos.SINK_ACK, eventInfo, callback, procResult);
+    }
+
+    @Override
+    public void close() {
+        if (accumulator != null) {
+            accumulator.close();
+        }
+        if (spillQueue != null) {
+            spillQueue.close();
+        }
+        super.close();
+    }
+
+    @Override
+    public int getActiveNodeCnt() {
+        return tcpClientMgr.getActiveNodeCnt();
+    }
+
+    @Override
+    public int getInflightMsgCnt() {
+        return tcpClientMgr.getInflightMsgCnt();
+    }
+
+    public long getSpillEventCnt() {
+        return spillQueue == null ? 0L : spillQueue.getEventCnt();
+    }
+
+    public long getSpillSizeBytes() {
+        return spillQueue == null ? 0L : spillQueue.getSpillSize();
+    }
+
+    public long getSpillRejectedCnt() {
+        return spillQueue == null ? 0L : spillQueue.getRejectedCnt();
+    }
+
+    private boolean batchSendEvent(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        if (accumulator.append(sendQos, eventInfo, callback, procResult)) {
+            return true;
+        }
+        // the quota is exhausted, spill the event like the directly sent ones
+        if (spillQueue != null && TcpSpillQueue.isSpillable(procResult)) {
+            return spillQueue.append(sendQos, eventInfo, callback, procResult);
+        }
+        return false;
+    }
+
+    protected boolean asyncSendEvent(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        return asyncSendEvent(sendQos, eventInfo, callback, procResult, false);
+    }
+
+    /**
+     * Send the batch event whose cache permits are already held,
+     *  the permits are released as the ones of a directly sent event
+     */
+    protected boolean asyncSendBatchEvent(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        return asyncSendEvent(sendQos, eventInfo, callback, procResult, true);
+    }
+
+    private boolean asyncSendEvent(SendQos sendQos, TcpEventInfo eventInfo,
+            MsgSendCallback callback, ProcessResult procResult, boolean permitsHeld) {
+        if (spillQueue == null) {
+            return doAsyncSendEvent(sendQos, eventInfo, callback, procResult, permitsHeld);
+        }
+        // keep the order with the spilled events, best-effort as the check is not atomic
+        // with the append, the spilled events are drained in batches once the sender recovers
+        if (spillQueue.isEmpty()) {
+            if (doAsyncSendEvent(sendQos, eventInfo, callback, procResult, permitsHeld)) {
+                return true;
+            }
+        } else if (permitsHeld) {
+            // the spilled events take the permits again when drained
+            releaseCachePermits(eventInfo.getBodySize());
+        }
+        if (!spillQueue.isEmpty() || TcpSpillQueue.isSpillable(procResult)) {
+            return spillQueue.append(sendQos, eventInfo, callback, procResult);
+        }
+        return false;
+    }
+
+    protected boolean doAsyncSendEvent(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        return doAsyncSendEvent(sendQos, eventInfo, callback, procResult, false);
+    }
+
+    private boolean doAsyncSendEvent(SendQos sendQos, TcpEventInfo eventInfo,
+            MsgSendCallback callback, ProcessResult procResult, boolean permitsHeld) {
+        boolean gotPermits = permitsHeld;
         try {
-            if (!tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
-                return false;
+            if (!gotPermits) {
+                if (!tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
+                    return false;
+                }
+                gotPermits = true;
             }
-            gotPermits = true;
-            return processEvent(SendQos.SINK_ACK, eventInfo, callback, procResult);
+            return processEvent(sendQos, eventInfo, callback, procResult);
         } finally {
             if (procResult.isSuccess()) {
                 metricHolder.addAsyncSucReqMetric(
@@ -205,16 +307,6 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         }
     }
 
-    @Override
-    public int getActiveNodeCnt() {
-        return tcpClientMgr.getActiveNodeCnt();
-    }
-
-    @Override
-    public int getInflightMsgCnt() {
-        return tcpClientMgr.getInflightMsgCnt();
-    }
-
     private boolean processEvent(SendQos sendQos,
             TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
         if (this.isMetaInfoUnReady()) {
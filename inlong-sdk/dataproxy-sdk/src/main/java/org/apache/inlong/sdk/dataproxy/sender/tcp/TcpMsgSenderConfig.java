@@ -24,6 +24,8 @@ import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
 import org.apache.inlong.sdk.dataproxy.exception.ProxySdkException;
 import org.apache.inlong.sdk.dataproxy.utils.ProxyUtils;
 
+import org.apache.commons.lang3.StringUtils;
+
 import java.util.Objects;
 
 /**
@@ -68,6 +70,18 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
     private int maxAllowedSyncMsgTimeoutCnt = SdkConsts.VAL_DEF_SYNC_MSG_TIMEOUT_CNT;
     // the synchronization message timeout check duration ms
     private long syncMsgTimeoutChkDurMs = SdkConsts.VAL_DEF_SYNC_TIMEOUT_CHK_DUR_MS;
+    // the linger ms of async events before sending in batch, 0 means disable batching
+    private long lingerMs = SdkConsts.VAL_DEF_TCP_LINGER_MS;
+    // the maximum body size of an async event batch
+    private int batchSizeBytes = SdkConsts.VAL_DEF_TCP_BATCH_SIZE_BYTES;
+    // whether select the proxy node by latency and in-flight load instead of round robin
+    private boolean enableLatencyAwareSelect = false;
+    // the local spill directory of async events when the proxy nodes are unavailable, null means disable spilling
+    private String spillDir = null;
+    // the size of a local spill segment file in MB
+    private int spillSegmentSizeMb = SdkConsts.VAL_DEF_TCP_SPILL_SEGMENT_SIZE_MB;
+    // the maximum total size of the local spill files in MB
+    private long maxSpillSizeMb = SdkConsts.VAL_DEF_TCP_MAX_SPILL_SIZE_MB;
 
     public TcpMsgSenderConfig(boolean visitMgrByHttps,
             String managerIP, int managerPort, String groupId) throws ProxySdkException {
@@ -247,6 +261,55 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
                 SdkConsts.VAL_MIN_SYNC_TIMEOUT_CHK_DUR_MS, syncMsgTimeoutChkDurMs);
     }
 
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(long lingerMs) {
+        this.lingerMs = Math.min(SdkConsts.VAL_MAX_TCP_LINGER_MS, Math.max(0L, lingerMs));
+    }
+
+    public int getBatchSizeBytes() {
+        return batchSizeBytes;
+    }
+
+    public void setBatchSizeBytes(int batchSizeBytes) {
+        this.batchSizeBytes = Math.max(SdkConsts.VAL_MIN_TCP_BATCH_SIZE_BYTES, batchSizeBytes);
+    }
+
+    public boolean isEnableLatencyAwareSelect() {
+        return enableLatencyAwareSelect;
+    }
+
+    public void setEnableLatencyAwareSelect(boolean enableLatencyAwareSelect) {
+        this.enableLatencyAwareSelect = enableLatencyAwareSelect;
+    }
+
+    public String getSpillDir() {
+        return spillDir;
+    }
+
+    public void setSpillDir(String spillDir) {
+        this.spillDir = StringUtils.isBlank(spillDir) ? null : spillDir.trim();
+    }
+
+    public int getSpillSegmentSizeMb() {
+        return spillSegmentSizeMb;
+    }
+
+    public void setSpillSegmentSizeMb(int spillSegmentSizeMb) {
+        this.spillSegmentSizeMb = Math.min(SdkConsts.VAL_MAX_TCP_SPILL_SEGMENT_SIZE_MB,
+                Math.max(SdkConsts.VAL_MIN_TCP_SPILL_SEGMENT_SIZE_MB, spillSegmentSizeMb));
+    }
+
+    public long getMaxSpillSizeMb() {
+        return maxSpillSizeMb;
+    }
+
+    public void setMaxSpillSizeMb(long maxSpillSizeMb) {
+        this.maxSpillSizeMb = Math.max(SdkConsts.VAL_MIN_TCP_MAX_SPILL_SIZE_MB, maxSpillSizeMb);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -272,6 +335,12 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
                 && reconFailWaitMs == config.reconFailWaitMs
                 && maxAllowedSyncMsgTimeoutCnt == config.maxAllowedSyncMsgTimeoutCnt
                 && syncMsgTimeoutChkDurMs == config.syncMsgTimeoutChkDurMs
+                && lingerMs == config.lingerMs
+                && batchSizeBytes == config.batchSizeBytes
+                && enableLatencyAwareSelect == config.enableLatencyAwareSelect
+                && spillSegmentSizeMb == config.spillSegmentSizeMb
+                && maxSpillSizeMb == config.maxSpillSizeMb
+                && Objects.equals(spillDir, config.spillDir)
                 && sdkMsgType == config.sdkMsgType;
     }
 
@@ -282,7 +351,8 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
                 nettyWorkerThreadNum, rcvBufferSize, sendBufferSize, connectTimeoutMs,
                 requestTimeoutMs, conCloseWaitPeriodMs, maxMsgInFlightPerConn,
                 frozenReconnectWaitMs, busyReconnectWaitMs, reconFailWaitMs,
-                maxAllowedSyncMsgTimeoutCnt, syncMsgTimeoutChkDurMs);
+                maxAllowedSyncMsgTimeoutCnt, syncMsgTimeoutChkDurMs, lingerMs, batchSizeBytes,
+                enableLatencyAwareSelect, spillDir, spillSegmentSizeMb, maxSpillSizeMb);
     }
 
     @Override
@@ -318,7 +388,13 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
                         .append(", busyReconnectWaitMs=").append(busyReconnectWaitMs)
                         .append(", reconFailWaitMs=").append(reconFailWaitMs)
                         .append(", maxAllowedSyncMsgTimeoutCnt=").append(maxAllowedSyncMsgTimeoutCnt)
-                        .append(", syncMsgTimeoutChkDurMs=").append(syncMsgTimeoutChkDurMs);
+                        .append(", syncMsgTimeoutChkDurMs=").append(syncMsgTimeoutChkDurMs)
+                        .append(", lingerMs=").append(lingerMs)
+                        .append(", batchSizeBytes=").append(batchSizeBytes)
+                        .append(", enableLatencyAwareSelect=").append(enableLatencyAwareSelect)
+                        .append(", spillDir='").append(spillDir).append('\'')
+                        .append(", spillSegmentSizeMb=").append(spillSegmentSizeMb)
+                        .append(", maxSpillSizeMb=").append(maxSpillSizeMb);
         return super.getSetting(strBuff);
     }
 }
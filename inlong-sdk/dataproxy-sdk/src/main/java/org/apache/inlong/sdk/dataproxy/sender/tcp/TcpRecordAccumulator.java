@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.sender.tcp;
+
+import org.apache.inlong.common.msg.AttributeConstants;
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.network.tcp.SendQos;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.utils.LogCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TCP Record Accumulator class
+ *
+ * Used to merge the async events with the same groupId, streamId, send qos, attributes
+ *  and data time minute into one request, the batch is sent when its body size reaches
+ *  batchSizeBytes or it has lingered for lingerMs, and the batch response is fanned out to
+ *  the callback of each event. The data time of a batch is the data time of its first event.
+ * The appended events take the cache quota of the sender like the directly sent ones, so the
+ *  callers get the backpressure, the quota is merged into the one of the batch request when sent.
+ */
+public class TcpRecordAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpRecordAccumulator.class);
+    private static final LogCounter batchExceptCnt = new LogCounter(10, 100000, 60 * 1000L);
+    private static final long MAX_FLUSH_CHECK_MS = 50L;
+    // the events are only merged with the ones of the same data time bucket
+    private static final long DT_BUCKET_MS = 60 * 1000L;
+
+    private final InLongTcpMsgSender sender;
+    private final long lingerMs;
+    private final int batchSizeBytes;
+    private final ConcurrentHashMap<BatchKey, RecordBatch> batches = new ConcurrentHashMap<>();
+    private final FlushThread flushThread;
+    // the appends hold the read lock, so no batch is left behind once close() sets closed
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed = false;
+
+    public TcpRecordAccumulator(InLongTcpMsgSender sender, long lingerMs, int batchSizeBytes) {
+        this.sender = sender;
+        this.lingerMs = lingerMs;
+        this.batchSizeBytes = batchSizeBytes;
+        this.flushThread = new FlushThread(sender.getSenderId());
+        this.flushThread.start();
+    }
+
+    /**
+     * Whether the event can be sent in batch
+     *
+     * @param eventInfo the event information
+     * @return true if the event can be merged with others
+     */
+    public boolean isBatchable(TcpEventInfo eventInfo) {
+        return eventInfo.getBodySize() < batchSizeBytes
+                && !eventInfo.getAttrs().containsKey(AttributeConstants.MSG_UUID);
+    }
+
+    /**
+     * Append the event to its batch
+     *
+     * @param sendQos    the send qos
+     * @param eventInfo  the event information
+     * @param callback   the callback of the event
+     * @param procResult the append result
+     * @return true if the event is accepted
+     */
+    public boolean append(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        final BatchKey batchKey = new BatchKey(sendQos, eventInfo);
+        final RecordBatch[] readyBatches = new RecordBatch[2];
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                return procResult.setFailResult(ErrorCode.SDK_CLOSED);
+            }
+            if (!sender.tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
+                return false;
+            }
+            batches.compute(batchKey, (k, batch) -> {
+                if (batch != null && batch.bodySize + eventInfo.getBodySize() > batchSizeBytes) {
+                    readyBatches[0] = batch;
+                    batch = null;
+                }
+                if (batch == null) {
+                    batch = new RecordBatch(k, eventInfo.getDtMs());
+                }
+                batch.add(eventInfo, callback);
+                if (batch.bodySize >= batchSizeBytes) {
+                    readyBatches[1] = batch;
+                    return null;
+                }
+                return batch;
+            });
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        for (RecordBatch batch : readyBatches) {
+            if (batch != null) {
+                sendBatch(batch);
+            }
+        }
+        return procResult.setSuccess();
+    }
+
+    /**
+     * Send all the accumulated batches
+     */
+    public void flushAll() {
+        for (BatchKey batchKey : batches.keySet()) {
+            RecordBatch batch = batches.remove(batchKey);
+            if (batch != null) {
+                sendBatch(batch);
+            }
+        }
+    }
+
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        flushThread.shutDown();
+        flushAll();
+    }
+
+    public int getBatchCount() {
+        return batches.size();
+    }
+
+    private void flushExpired() {
+        long curTime = System.currentTimeMillis();
+        for (Map.Entry<BatchKey, RecordBatch> entry : batches.entrySet()) {
+            RecordBatch batch = entry.getValue();
+            if (curTime - batch.createTime >= lingerMs
+                    && batches.remove(entry.getKey(), batch)) {
+                sendBatch(batch);
+            }
+        }
+    }
+
+    private void sendBatch(RecordBatch batch) {
+        ProcessResult procResult = new ProcessResult();
+        TcpEventInfo batchEvent;
+        try {
+            batchEvent = new TcpEventInfo(batch.batchKey.groupId, batch.batchKey.streamId,
+                    batch.dtMs, batch.batchKey.attrs, batch.bodyList);
+        } catch (Throwable ex) {
+            if (batchExceptCnt.shouldPrint()) {
+                logger.warn("Sender({}) build batch event exception", sender.getSenderId(), ex);
+            }
+            for (int eventSize : batch.eventSizes) {
+                sender.releaseCachePermits(eventSize);
+            }
+            procResult.setFailResult(ErrorCode.ENCODE_BODY_EXCEPTION, ex.getMessage());
+            batch.onMessageAck(procResult);
+            return;
+        }
+        // hand the quota of the events over to the batch request
+        sender.mergeCachePermits(batch.eventSizes, batchEvent.getBodySize());
+        if (!sender.asyncSendBatchEvent(batch.batchKey.sendQos, batchEvent, batch, procResult)) {
+            batch.onMessageAck(procResult);
+        }
+    }
+
+    private static class BatchKey {
+
+        private final SendQos sendQos;
+        private final String groupId;
+        private final String streamId;
+        private final Map<String, String> attrs;
+        private final long dtBucket;
+        private final int hashCode;
+
+        public BatchKey(SendQos sendQos, TcpEventInfo eventInfo) {
+            this.sendQos = sendQos;
+            this.groupId = eventInfo.getGroupId();
+            this.streamId = eventInfo.getStreamId();
+            this.attrs = eventInfo.getAttrs();
+            this.dtBucket = eventInfo.getDtMs() / DT_BUCKET_MS;
+            this.hashCode = Objects.hash(sendQos, groupId, streamId, attrs, dtBucket);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            BatchKey that = (BatchKey) o;
+            return sendQos == that.sendQos
+                    && dtBucket == that.dtBucket
+                    && groupId.equals(that.groupId)
+                    && streamId.equals(that.streamId)
+                    && attrs.equals(that.attrs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class RecordBatch implements MsgSendCallback {
+
+        private final BatchKey batchKey;
+        private final long dtMs;
+        private final long createTime = System.currentTimeMillis();
+        private final List<byte[]> bodyList = new ArrayList<>();
+        private final List<MsgSendCallback> callbacks = new ArrayList<>();
+        private final List<Integer> eventSizes = new ArrayList<>();
+        private int bodySize = 0;
+
+        public RecordBatch(BatchKey batchKey, long dtMs) {
+            this.batchKey = batchKey;
+            this.dtMs = dtMs;
+        }
+
+        public void add(TcpEventInfo eventInfo, MsgSendCallback callback) {
+            this.bodyList.addAll(eventInfo.getBodyList());
+            this.bodySize += eventInfo.getBodySize();
+            this.callbacks.add(callback);
+            this.eventSizes.add(eventInfo.getBodySize());
+        }
+
+        @Override
+        public void onMessageAck(ProcessResult result) {
+            for (MsgSendCallback callback : callbacks) {
+                ProcessResult eventResult = new ProcessResult();
+                if (result.isSuccess()) {
+                    eventResult.setSuccess();
+                } else {
+                    eventResult.setFailResult(result);
+                }
+                try {
+                    callback.onMessageAck(eventResult);
+                } catch (Throwable ex) {
+                    if (batchExceptCnt.shouldPrint()) {
+                        logger.warn("Event callback onMessageAck throw exception", ex);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onException(Throwable ex) {
+            for (MsgSendCallback callback : callbacks) {
+                try {
+                    callback.onException(ex);
+                } catch (Throwable ex2) {
+                    if (batchExceptCnt.shouldPrint()) {
+                        logger.warn("Event callback onException throw exception", ex2);
+                    }
+                }
+            }
+        }
+    }
+
+    private class FlushThread extends Thread {
+
+        private volatile boolean bShutDown = false;
+
+        public FlushThread(String senderId) {
+            super("TcpRecordAccumulator-" + senderId);
+            this.setDaemon(true);
+        }
+
+        public void shutDown() {
+            this.bShutDown = true;
+            this.interrupt();
+        }
+
+        @Override
+        public void run() {
+            long checkDurMs = Math.max(1L, Math.min(lingerMs / 2, MAX_FLUSH_CHECK_MS));
+            while (!bShutDown) {
+                try {
+                    Thread.sleep(checkDurMs);
+                } catch (InterruptedException ex) {
+                    if (bShutDown) {
+                        break;
+                    }
+                }
+                try {
+                    flushExpired();
+                } catch (Throwable ex) {
+                    if (batchExceptCnt.shouldPrint()) {
+                        logger.warn("Sender({}) flush batches throw exception", sender.getSenderId(), ex);
+                    }
+                }
+            }
+        }
+    }
+}
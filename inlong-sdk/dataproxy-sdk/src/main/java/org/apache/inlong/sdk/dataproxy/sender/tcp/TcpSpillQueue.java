@@ -0,0 +1,649 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.sender.tcp;
+
+import org.apache.inlong.common.msg.AttributeConstants;
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.network.tcp.SendQos;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.utils.LogCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * TCP Spill Queue class
+ *
+ * Used to keep the async events in local segment files when the in-flight quota is exhausted
+ *  or no proxy node is available, the spilled events are resent in order by a drain thread
+ *  once the sender recovers, which reads and sends the records in batches, and the new async
+ *  events are spilled too until the queue is empty, so the events are not reordered.
+ * The order is best-effort: the emptiness check of the sender is not atomic with the append,
+ *  so an event sent concurrently with the last drained one may overtake it.
+ * The record format is: payload length 4 + payload crc32 4 + payload, the segment files left
+ *  by the previous run are verified and replayed after restart, their callbacks are lost, so
+ *  the results of the replayed events are only logged.
+ */
+public class TcpSpillQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpSpillQueue.class);
+    private static final LogCounter spillExceptCnt = new LogCounter(10, 100000, 60 * 1000L);
+    private static final String SEGMENT_FILE_SUFFIX = ".spill";
+    private static final int RECORD_HEAD_LEN = 8;
+    private static final long DRAIN_RETRY_WAIT_MS = 100L;
+    // the max bytes and count of the records read together by the drain thread
+    private static final int DRAIN_BATCH_READ_SIZE = 1024 * 1024;
+    private static final int DRAIN_BATCH_MAX_CNT = 512;
+    private static final long STAT_PRINT_DUR_MS = 60 * 1000L;
+    // the failures that the event can be sent after the sender recovers
+    private static final Set<Integer> SPILLABLE_ERR_CODES = new HashSet<>(Arrays.asList(
+            ErrorCode.INF_REQ_COUNT_REACH_FACTORY_LIMIT.getErrCode(),
+            ErrorCode.INF_REQ_SIZE_REACH_FACTORY_LIMIT.getErrCode(),
+            ErrorCode.INF_REQ_COUNT_REACH_SDK_LIMIT.getErrCode(),
+            ErrorCode.INF_REQ_SIZE_REACH_SDK_LIMIT.getErrCode(),
+            ErrorCode.NO_NODE_META_INFOS.getErrCode(),
+            ErrorCode.EMPTY_ACTIVE_NODE_SET.getErrCode(),
+            ErrorCode.EMPTY_WRITABLE_NODE_SET.getErrCode(),
+            ErrorCode.NO_VALID_REMOTE_NODE.getErrCode(),
+            ErrorCode.CONNECTION_UNAVAILABLE.getErrCode(),
+            ErrorCode.CONNECTION_BREAK.getErrCode(),
+            ErrorCode.CONNECTION_UNWRITABLE.getErrCode()));
+    // the callback of the events without callback, such as the ones replayed from the previous run
+    private static final MsgSendCallback LOGGING_EVENT_CALLBACK = new MsgSendCallback() {
+
+        @Override
+        public void onMessageAck(ProcessResult result) {
+            if (!result.isSuccess() && spillExceptCnt.shouldPrint()) {
+                logger.warn("Spill event send failure, result={}", result);
+            }
+        }
+
+        @Override
+        public void onException(Throwable ex) {
+            if (spillExceptCnt.shouldPrint()) {
+                logger.warn("Spill event send exception", ex);
+            }
+        }
+    };
+
+    private final InLongTcpMsgSender sender;
+    private final File spillDir;
+    private final long segmentSize;
+    private final long maxSpillSize;
+    // the segments in write order, the last one is being written
+    private final LinkedList<SpillSegment> segments = new LinkedList<>();
+    // the callbacks of the events spilled in this run, in spill order
+    private final ArrayDeque<MsgSendCallback> callbacks = new ArrayDeque<>();
+    private final CRC32 crc32 = new CRC32();
+    // the count of the events replayed from the previous run and not yet drained
+    private long replayedEventCnt = 0;
+    private SpillSegment writeSegment;
+    private long nextSegmentId = 0;
+    private long totalSize = 0;
+    private volatile long eventCnt = 0;
+    private volatile boolean closed = false;
+    // backpressure statistics
+    private final AtomicLong spilledCnt = new AtomicLong(0);
+    private final AtomicLong drainedCnt = new AtomicLong(0);
+    private final AtomicLong rejectedCnt = new AtomicLong(0);
+    private final DrainThread drainThread;
+
+    public TcpSpillQueue(InLongTcpMsgSender sender,
+            File spillDir, long segmentSize, long maxSpillSize) throws IOException {
+        this.sender = sender;
+        this.spillDir = spillDir;
+        this.segmentSize = segmentSize;
+        this.maxSpillSize = maxSpillSize;
+        if (!spillDir.exists() && !spillDir.mkdirs()) {
+            throw new IOException("Could not create spill directory " + spillDir.getAbsolutePath());
+        }
+        this.loadSegments();
+        this.drainThread = new DrainThread(sender.getSenderId());
+        this.drainThread.start();
+    }
+
+    /**
+     * Whether the failed event can be spilled and sent later
+     *
+     * @param procResult the send result
+     * @return true if the failure is caused by the unavailable proxy nodes or quota
+     */
+    public static boolean isSpillable(ProcessResult procResult) {
+        return SPILLABLE_ERR_CODES.contains(procResult.getErrCode());
+    }
+
+    public boolean isEmpty() {
+        return eventCnt == 0;
+    }
+
+    /**
+     * Append the event to the spill files
+     *
+     * @param sendQos    the send qos
+     * @param eventInfo  the event information
+     * @param callback   the callback of the event
+     * @param procResult the append result
+     * @return true if the event is spilled
+     */
+    public boolean append(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        byte[] payload;
+        try {
+            payload = encode(sendQos, eventInfo);
+        } catch (Throwable ex) {
+            rejectedCnt.incrementAndGet();
+            return procResult.setFailResult(ErrorCode.ENCODE_BODY_EXCEPTION, ex.getMessage());
+        }
+        synchronized (this) {
+            if (closed) {
+                return procResult.setFailResult(ErrorCode.SDK_CLOSED);
+            }
+            long recordSize = RECORD_HEAD_LEN + payload.length;
+            if (totalSize + recordSize > maxSpillSize) {
+                rejectedCnt.incrementAndGet();
+                return procResult.setFailResult(ErrorCode.SPILL_QUEUE_FULL);
+            }
+            try {
+                if (writeSegment == null
+                        || (writeSegment.writePos > 0 && writeSegment.writePos + recordSize > segmentSize)) {
+                    rollSegment();
+                }
+                crc32.reset();
+                crc32.update(payload, 0, payload.length);
+                writeSegment.write(payload, (int) crc32.getValue());
+            } catch (IOException ex) {
+                rejectedCnt.incrementAndGet();
+                if (spillExceptCnt.shouldPrint()) {
+                    logger.warn("Sender({}) spill event to {} exception",
+                            sender.getSenderId(), spillDir.getAbsolutePath(), ex);
+                }
+                return procResult.setFailResult(ErrorCode.SPILL_WRITE_EXCEPTION, ex.getMessage());
+            }
+            totalSize += recordSize;
+            callbacks.addLast(callback == null ? LOGGING_EVENT_CALLBACK : callback);
+            eventCnt++;
+        }
+        spilledCnt.incrementAndGet();
+        return procResult.setSuccess();
+    }
+
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        drainThread.shutDown();
+        try {
+            drainThread.join(DRAIN_RETRY_WAIT_MS * 10);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (SpillSegment segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+            writeSegment = null;
+            if (eventCnt > 0) {
+                logger.warn("Sender({}) left {} spilled events in {}, they will be resent after restart",
+                        sender.getSenderId(), eventCnt, spillDir.getAbsolutePath());
+            }
+            callbacks.clear();
+        }
+    }
+
+    public long getEventCnt() {
+        return eventCnt;
+    }
+
+    public synchronized long getSpillSize() {
+        return totalSize;
+    }
+
+    public long getSpilledCnt() {
+        return spilledCnt.get();
+    }
+
+    public long getDrainedCnt() {
+        return drainedCnt.get();
+    }
+
+    public long getRejectedCnt() {
+        return rejectedCnt.get();
+    }
+
+    private synchronized List<SpillRecord> peekBatch() {
+        List<SpillRecord> records = new ArrayList<>();
+        while (!closed && !segments.isEmpty()) {
+            SpillSegment segment = segments.getFirst();
+            if (segment.readPos < segment.writePos) {
+                try {
+                    readBatch(segment, records);
+                } catch (IOException ex) {
+                    if (spillExceptCnt.shouldPrint()) {
+                        logger.warn("Sender({}) read spill segment {} exception",
+                                sender.getSenderId(), segment.file.getAbsolutePath(), ex);
+                    }
+                }
+                return records;
+            }
+            if (segment == writeSegment) {
+                return records;
+            }
+            segments.removeFirst();
+            deleteSegment(segment);
+        }
+        return records;
+    }
+
+    private void readBatch(SpillSegment segment, List<SpillRecord> records) throws IOException {
+        // read the following records of the segment together
+        ByteBuffer buffer = segment.readChunk(segment.readPos,
+                (int) Math.min(DRAIN_BATCH_READ_SIZE, segment.writePos - segment.readPos));
+        Iterator<MsgSendCallback> callbackIt = callbacks.iterator();
+        long replayedCnt = replayedEventCnt;
+        int offset = 0;
+        while (records.size() < DRAIN_BATCH_MAX_CNT
+                && offset + RECORD_HEAD_LEN <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            byte[] payload;
+            if (offset + RECORD_HEAD_LEN + length <= buffer.limit()) {
+                payload = new byte[length];
+                System.arraycopy(buffer.array(), offset + RECORD_HEAD_LEN, payload, 0, length);
+            } else if (records.isEmpty()) {
+                // the record is larger than the read chunk
+                payload = segment.readPayload(segment.readPos, length);
+            } else {
+                break;
+            }
+            MsgSendCallback callback;
+            if (replayedCnt > 0) {
+                replayedCnt--;
+                callback = LOGGING_EVENT_CALLBACK;
+            } else {
+                callback = callbackIt.hasNext() ? callbackIt.next() : LOGGING_EVENT_CALLBACK;
+            }
+            records.add(new SpillRecord(segment, RECORD_HEAD_LEN + length, payload, callback));
+            offset += RECORD_HEAD_LEN + length;
+        }
+    }
+
+    private synchronized void commit(SpillRecord record) {
+        if (closed) {
+            return;
+        }
+        record.segment.readPos += record.recordSize;
+        totalSize -= record.recordSize;
+        eventCnt--;
+        if (replayedEventCnt > 0) {
+            replayedEventCnt--;
+        } else {
+            callbacks.pollFirst();
+        }
+        if (record.segment != writeSegment
+                && record.segment.readPos >= record.segment.writePos) {
+            segments.remove(record.segment);
+            deleteSegment(record.segment);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        if (writeSegment != null) {
+            writeSegment.channel.force(false);
+            if (writeSegment.readPos >= writeSegment.writePos) {
+                segments.remove(writeSegment);
+                deleteSegment(writeSegment);
+            }
+        }
+        File file = new File(spillDir, String.format("%020d", nextSegmentId++) + SEGMENT_FILE_SUFFIX);
+        writeSegment = new SpillSegment(file);
+        segments.addLast(writeSegment);
+    }
+
+    private void deleteSegment(SpillSegment segment) {
+        segment.close();
+        totalSize -= segment.writePos - segment.readPos;
+        if (!segment.file.delete()) {
+            logger.warn("Sender({}) delete spill segment {} failure",
+                    sender.getSenderId(), segment.file.getAbsolutePath());
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        File[] files = spillDir.listFiles((dir, name) -> name.endsWith(SEGMENT_FILE_SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            long segmentId = Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+            nextSegmentId = Math.max(nextSegmentId, segmentId + 1);
+            SpillSegment segment = new SpillSegment(file);
+            int recordCnt = segment.recover(crc32);
+            if (recordCnt == 0) {
+                segment.close();
+                if (!file.delete()) {
+                    logger.warn("Sender({}) delete empty spill segment {} failure",
+                            sender.getSenderId(), file.getAbsolutePath());
+                }
+                continue;
+            }
+            logger.info("Sender({}) recovered {} spilled events from {}",
+                    sender.getSenderId(), recordCnt, file.getAbsolutePath());
+            segments.addLast(segment);
+            totalSize += segment.writePos;
+            replayedEventCnt += recordCnt;
+            eventCnt += recordCnt;
+        }
+    }
+
+    private static byte[] encode(SendQos sendQos, TcpEventInfo eventInfo) throws IOException {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream(eventInfo.getBodySize() + 256);
+        DataOutputStream out = new DataOutputStream(byteOut);
+        out.writeByte(sendQos.ordinal());
+        out.writeUTF(eventInfo.getGroupId());
+        out.writeUTF(eventInfo.getStreamId());
+        out.writeLong(eventInfo.getDtMs());
+        Map<String, String> attrs = eventInfo.getAttrs();
+        out.writeInt(attrs.size());
+        for (Map.Entry<String, String> entry : attrs.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeBoolean(entry.getValue() != null);
+            if (entry.getValue() != null) {
+                out.writeUTF(entry.getValue());
+            }
+        }
+        List<byte[]> bodyList = eventInfo.getBodyList();
+        out.writeInt(bodyList.size());
+        for (byte[] body : bodyList) {
+            out.writeInt(body.length);
+            out.write(body);
+        }
+        out.flush();
+        return byteOut.toByteArray();
+    }
+
+    private static SpillEvent decode(byte[] payload) throws Exception {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        SendQos sendQos = SendQos.values()[in.readByte()];
+        String groupId = in.readUTF();
+        String streamId = in.readUTF();
+        long dtMs = in.readLong();
+        int attrCnt = in.readInt();
+        Map<String, String> attrs = new HashMap<>(attrCnt * 2);
+        for (int i = 0; i < attrCnt; i++) {
+            String key = in.readUTF();
+            attrs.put(key, in.readBoolean() ? in.readUTF() : null);
+        }
+        int bodyCnt = in.readInt();
+        List<byte[]> bodyList = new ArrayList<>(bodyCnt);
+        for (int i = 0; i < bodyCnt; i++) {
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            bodyList.add(body);
+        }
+        // msgUUID is a reserved attribute, so set it by the constructor
+        String msgUUID = attrs.remove(AttributeConstants.MSG_UUID);
+        return new SpillEvent(sendQos,
+                new TcpEventInfo(groupId, streamId, dtMs, msgUUID, attrs, bodyList));
+    }
+
+    private static class SpillEvent {
+
+        private final SendQos sendQos;
+        private final TcpEventInfo eventInfo;
+
+        public SpillEvent(SendQos sendQos, TcpEventInfo eventInfo) {
+            this.sendQos = sendQos;
+            this.eventInfo = eventInfo;
+        }
+    }
+
+    private static class SpillRecord {
+
+        private final SpillSegment segment;
+        private final int recordSize;
+        private final byte[] payload;
+        private final MsgSendCallback callback;
+
+        public SpillRecord(SpillSegment segment,
+                int recordSize, byte[] payload, MsgSendCallback callback) {
+            this.segment = segment;
+            this.recordSize = recordSize;
+            this.payload = payload;
+            this.callback = callback;
+        }
+    }
+
+    private static class SpillSegment {
+
+        private final File file;
+        private final RandomAccessFile randFile;
+        private final FileChannel channel;
+        private long writePos = 0;
+        private long readPos = 0;
+
+        public SpillSegment(File file) throws IOException {
+            this.file = file;
+            this.randFile = new RandomAccessFile(file, "rw");
+            this.channel = randFile.getChannel();
+        }
+
+        public void write(byte[] payload, int crc) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEAD_LEN + payload.length);
+            buffer.putInt(payload.length);
+            buffer.putInt(crc);
+            buffer.put(payload);
+            buffer.flip();
+            long pos = writePos;
+            while (buffer.hasRemaining()) {
+                pos += channel.write(buffer, pos);
+            }
+            writePos = pos;
+        }
+
+        public ByteBuffer readChunk(long pos, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            readFully(buffer, pos);
+            buffer.flip();
+            return buffer;
+        }
+
+        public int readInt(long pos) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            readFully(buffer, pos);
+            return buffer.getInt(0);
+        }
+
+        public byte[] readPayload(long pos, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            readFully(buffer, pos + RECORD_HEAD_LEN);
+            return buffer.array();
+        }
+
+        public int recover(CRC32 crc32) throws IOException {
+            int recordCnt = 0;
+            long fileSize = channel.size();
+            long pos = 0;
+            while (pos + RECORD_HEAD_LEN <= fileSize) {
+                int length = readInt(pos);
+                if (length <= 0 || pos + RECORD_HEAD_LEN + length > fileSize) {
+                    break;
+                }
+                byte[] payload = readPayload(pos, length);
+                crc32.reset();
+                crc32.update(payload, 0, length);
+                if ((int) crc32.getValue() != readInt(pos + 4)) {
+                    break;
+                }
+                pos += RECORD_HEAD_LEN + length;
+                recordCnt++;
+            }
+            // drop the partially written tail
+            if (pos < fileSize) {
+                channel.truncate(pos);
+            }
+            writePos = pos;
+            return recordCnt;
+        }
+
+        public void close() {
+            try {
+                channel.force(false);
+                randFile.close();
+            } catch (IOException ex) {
+                logger.warn("Close spill segment {} exception", file.getAbsolutePath(), ex);
+            }
+        }
+
+        private void readFully(ByteBuffer buffer, long pos) throws IOException {
+            while (buffer.hasRemaining()) {
+                int readLen = channel.read(buffer, pos + buffer.position());
+                if (readLen < 0) {
+                    throw new IOException("Unexpected end of spill segment " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    private class DrainThread extends Thread {
+
+        private volatile boolean bShutDown = false;
+        private long lastPrintTime = System.currentTimeMillis();
+
+        public DrainThread(String senderId) {
+            super("TcpSpillQueue-" + senderId);
+            this.setDaemon(true);
+        }
+
+        public void shutDown() {
+            this.bShutDown = true;
+            this.interrupt();
+        }
+
+        @Override
+        public void run() {
+            while (!bShutDown) {
+                try {
+                    if (!drainBatch()) {
+                        Thread.sleep(DRAIN_RETRY_WAIT_MS);
+                    }
+                } catch (InterruptedException ex) {
+                    if (bShutDown) {
+                        break;
+                    }
+                } catch (Throwable ex) {
+                    if (spillExceptCnt.shouldPrint()) {
+                        logger.warn("Sender({}) drain spill events throw exception", sender.getSenderId(), ex);
+                    }
+                }
+                printStatistics();
+            }
+        }
+
+        private boolean drainBatch() {
+            if (!sender.isStarted()) {
+                return false;
+            }
+            List<SpillRecord> records = peekBatch();
+            if (records.isEmpty()) {
+                return false;
+            }
+            for (SpillRecord record : records) {
+                if (bShutDown) {
+                    return true;
+                }
+                SpillEvent spillEvent;
+                try {
+                    spillEvent = decode(record.payload);
+                } catch (Throwable ex) {
+                    commit(record);
+                    ackFailure(record.callback,
+                            new ProcessResult(ErrorCode.ENCODE_BODY_EXCEPTION, ex.getMessage()));
+                    continue;
+                }
+                ProcessResult procResult = new ProcessResult();
+                if (sender.doAsyncSendEvent(spillEvent.sendQos,
+                        spillEvent.eventInfo, record.callback, procResult)) {
+                    commit(record);
+                    drainedCnt.incrementAndGet();
+                    continue;
+                }
+                if (isSpillable(procResult)) {
+                    // wait the sender to recover, the left records are read again
+                    return false;
+                }
+                commit(record);
+                ackFailure(record.callback, procResult);
+            }
+            return true;
+        }
+
+        private void ackFailure(MsgSendCallback callback, ProcessResult procResult) {
+            if (callback == null) {
+                return;
+            }
+            try {
+                callback.onMessageAck(procResult);
+            } catch (Throwable ex) {
+                if (spillExceptCnt.shouldPrint()) {
+                    logger.warn("Spill event callback onMessageAck throw exception", ex);
+                }
+            }
+        }
+
+        private void printStatistics() {
+            long curTime = System.currentTimeMillis();
+            if (curTime - lastPrintTime < STAT_PRINT_DUR_MS) {
+                return;
+            }
+            lastPrintTime = curTime;
+            if (eventCnt > 0 || rejectedCnt.get() > 0) {
+                logger.info("Sender({}) spill queue: events={}, size={}, spilled={}, drained={}, rejected={}",
+                        sender.getSenderId(), eventCnt, getSpillSize(),
+                        spilledCnt.get(), drainedCnt.get(), rejectedCnt.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy;
+
+import org.apache.inlong.sdk.dataproxy.config.HostInfo;
+import org.apache.inlong.sdk.dataproxy.network.tcp.TcpNettyClient;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.TcpMsgSenderConfig;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TcpNettyClientTest {
+
+    @Test
+    public void testLoadScore() throws Exception {
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        TcpNettyClient fastClient = new TcpNettyClient("test",
+                null, new HostInfo("127.0.0.1", 46801), tcpConfig);
+        TcpNettyClient slowClient = new TcpNettyClient("test",
+                null, new HostInfo("127.0.0.2", 46801), tcpConfig);
+        Assert.assertEquals(0.0, fastClient.getAvgRspTimeMs(), 0.001);
+        for (int i = 0; i < 10; i++) {
+            fastClient.addRspTimeCost(5);
+            slowClient.addRspTimeCost(5);
+        }
+        // a slow response is taken at once
+        slowClient.addRspTimeCost(500);
+        long curTime = System.currentTimeMillis();
+        Assert.assertTrue(slowClient.getAvgRspTimeMs() > 400);
+        Assert.assertTrue(fastClient.getLoadScore(curTime) < slowClient.getLoadScore(curTime));
+        // the fast responses lower the average gradually
+        slowClient.addRspTimeCost(5);
+        Assert.assertTrue(slowClient.getAvgRspTimeMs() > 300);
+        // the in-flight requests raise the score
+        fastClient.incClientUsingCnt();
+        Assert.assertTrue(fastClient.getLoadScore(curTime) > 10.0);
+        // the average decays without new responses
+        Assert.assertTrue(slowClient.getLoadScore(curTime + 100000L) < 2.0);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy;
+
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.exception.ProxyEventException;
+import org.apache.inlong.sdk.dataproxy.network.tcp.SendQos;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.InLongTcpMsgSender;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.TcpEventInfo;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.TcpMsgSenderConfig;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.TcpRecordAccumulator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TcpRecordAccumulatorTest {
+
+    @Test
+    public void testMergeAndFanOut() throws Exception {
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        BatchCaptureSender sender = new BatchCaptureSender(tcpConfig);
+        TcpRecordAccumulator accumulator = new TcpRecordAccumulator(sender, 200L, 1024);
+        AtomicInteger ackCnt = new AtomicInteger(0);
+        MsgSendCallback callback = new MsgSendCallback() {
+
+            @Override
+            public void onMessageAck(ProcessResult result) {
+                if (result.isSuccess()) {
+                    ackCnt.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void onException(Throwable ex) {
+            }
+        };
+        ProcessResult procResult = new ProcessResult();
+        final long dtMs = System.currentTimeMillis();
+        // the events reaching the batch size are sent at once
+        for (int i = 0; i < 5; i++) {
+            TcpEventInfo eventInfo = new TcpEventInfo("test_group", "test_stream",
+                    dtMs, Collections.emptyMap(), new byte[200]);
+            Assert.assertTrue(accumulator.isBatchable(eventInfo));
+            Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK, eventInfo, callback, procResult));
+        }
+        Assert.assertEquals(0, sender.batches.size());
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                "test_stream", dtMs, Collections.emptyMap(), new byte[100]),
+                callback, procResult));
+        Assert.assertEquals(1, sender.batches.size());
+        Assert.assertEquals(5, sender.batches.get(0).getMsgCnt());
+        Assert.assertEquals(5, ackCnt.get());
+        // the other streams are batched separately and sent after linger
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                "test_stream2", dtMs, Collections.emptyMap(), new byte[100]),
+                callback, procResult));
+        Assert.assertEquals(2, accumulator.getBatchCount());
+        Thread.sleep(500L);
+        Assert.assertEquals(0, accumulator.getBatchCount());
+        Assert.assertEquals(3, sender.batches.size());
+        Assert.assertEquals(7, ackCnt.get());
+        accumulator.close();
+        Assert.assertFalse(accumulator.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                "test_stream", dtMs, Collections.emptyMap(), new byte[100]),
+                callback, procResult));
+    }
+
+    @Test
+    public void testDtBucketAndQuota() throws Exception {
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        BatchCaptureSender sender = new BatchCaptureSender(tcpConfig);
+        sender.leftPermits.set(3);
+        TcpRecordAccumulator accumulator = new TcpRecordAccumulator(sender, 60000L, 1024);
+        MsgSendCallback callback = new MsgSendCallback() {
+
+            @Override
+            public void onMessageAck(ProcessResult result) {
+            }
+
+            @Override
+            public void onException(Throwable ex) {
+            }
+        };
+        ProcessResult procResult = new ProcessResult();
+        final long dtMs = 1700000000000L;
+        // the events of different data time minutes are not merged
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                "test_stream", dtMs, Collections.emptyMap(), new byte[100]), callback, procResult));
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                "test_stream", dtMs + 1000L, Collections.emptyMap(), new byte[100]), callback, procResult));
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                "test_stream", dtMs + 60 * 1000L, Collections.emptyMap(), new byte[100]), callback, procResult));
+        Assert.assertEquals(2, accumulator.getBatchCount());
+        // the accumulated events hold the quota
+        Assert.assertFalse(accumulator.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                "test_stream", dtMs, Collections.emptyMap(), new byte[100]), callback, procResult));
+        Assert.assertEquals(0, sender.leftPermits.get());
+        // the quota is merged into the batch requests and released when acked
+        accumulator.flushAll();
+        Assert.assertEquals(2, sender.batches.size());
+        Assert.assertEquals(3, sender.leftPermits.get());
+        accumulator.close();
+    }
+
+    @Test
+    public void testCloseWithConcurrentAppends() throws Exception {
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        BatchCaptureSender sender = new BatchCaptureSender(tcpConfig);
+        final int initPermits = sender.leftPermits.get();
+        TcpRecordAccumulator accumulator = new TcpRecordAccumulator(sender, 60000L, 1024);
+        AtomicInteger ackCnt = new AtomicInteger(0);
+        MsgSendCallback callback = new MsgSendCallback() {
+
+            @Override
+            public void onMessageAck(ProcessResult result) {
+                ackCnt.incrementAndGet();
+            }
+
+            @Override
+            public void onException(Throwable ex) {
+            }
+        };
+        AtomicInteger acceptedCnt = new AtomicInteger(0);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> appenders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final String streamId = "test_stream" + i;
+            Thread appender = new Thread(() -> {
+                ProcessResult procResult = new ProcessResult();
+                try {
+                    startLatch.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                try {
+                    for (int j = 0; j < 10000; j++) {
+                        if (accumulator.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                                streamId, System.currentTimeMillis(), Collections.emptyMap(), new byte[10]),
+                                callback, procResult)) {
+                            acceptedCnt.incrementAndGet();
+                        }
+                    }
+                } catch (ProxyEventException ex) {
+                    Assert.fail(ex.getMessage());
+                }
+            });
+            appender.start();
+            appenders.add(appender);
+        }
+        startLatch.countDown();
+        Thread.sleep(5L);
+        accumulator.close();
+        for (Thread appender : appenders) {
+            appender.join();
+        }
+        // every accepted event is sent and acked, and its quota is returned
+        Assert.assertEquals(0, accumulator.getBatchCount());
+        Assert.assertEquals(acceptedCnt.get(), ackCnt.get());
+        Assert.assertEquals(initPermits, sender.leftPermits.get());
+    }
+
+    private static class BatchCaptureSender extends InLongTcpMsgSender {
+
+        private final List<TcpEventInfo> batches = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger leftPermits = new AtomicInteger(Integer.MAX_VALUE / 2);
+
+        public BatchCaptureSender(TcpMsgSenderConfig configure) {
+            super(configure);
+        }
+
+        @Override
+        public boolean tryAcquireCachePermits(int sizeInByte, ProcessResult procResult) {
+            if (leftPermits.getAndDecrement() <= 0) {
+                leftPermits.incrementAndGet();
+                return procResult.setFailResult(ErrorCode.INF_REQ_COUNT_REACH_SDK_LIMIT);
+            }
+            return procResult.setSuccess();
+        }
+
+        @Override
+        public void releaseCachePermits(int sizeInByte) {
+            leftPermits.incrementAndGet();
+        }
+
+        @Override
+        public void mergeCachePermits(List<Integer> sizesInByte, int mergedSize) {
+            leftPermits.addAndGet(sizesInByte.size() - 1);
+        }
+
+        @Override
+        protected boolean asyncSendBatchEvent(SendQos sendQos,
+                TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+            batches.add(eventInfo);
+            // the permits are released on ack like the client manager does
+            releaseCachePermits(eventInfo.getBodySize());
+            ProcessResult ackResult = new ProcessResult();
+            ackResult.setSuccess();
+            callback.onMessageAck(ackResult);
+            return procResult.setSuccess();
+        }
+    }
+}
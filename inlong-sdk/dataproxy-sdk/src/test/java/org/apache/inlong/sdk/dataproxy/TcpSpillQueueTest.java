@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy;
+
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.network.tcp.SendQos;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.InLongTcpMsgSender;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.TcpEventInfo;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.TcpMsgSenderConfig;
+import org.apache.inlong.sdk.dataproxy.sender.tcp.TcpSpillQueue;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TcpSpillQueueTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testSpillAndDrainInOrder() throws Exception {
+        File spillDir = tempFolder.newFolder("spill");
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        SpillCaptureSender sender = new SpillCaptureSender(tcpConfig);
+        AtomicInteger ackCnt = new AtomicInteger(0);
+        MsgSendCallback callback = new MsgSendCallback() {
+
+            @Override
+            public void onMessageAck(ProcessResult result) {
+                ackCnt.incrementAndGet();
+            }
+
+            @Override
+            public void onException(Throwable ex) {
+            }
+        };
+        // spill the events while the sender is unavailable
+        TcpSpillQueue spillQueue = new TcpSpillQueue(sender, spillDir, 1024L, 1024L * 1024L);
+        ProcessResult procResult = new ProcessResult();
+        for (int i = 0; i < 20; i++) {
+            TcpEventInfo eventInfo = new TcpEventInfo("test_group", "stream_" + i,
+                    System.currentTimeMillis(), "uuid_" + i, Collections.emptyMap(), new byte[100]);
+            Assert.assertTrue(spillQueue.append(SendQos.SOURCE_ACK, eventInfo, callback, procResult));
+        }
+        Assert.assertEquals(20, spillQueue.getEventCnt());
+        Assert.assertTrue(spillDir.listFiles().length > 1);
+        spillQueue.close();
+        // the partially written tail is dropped when recovered
+        File[] files = spillDir.listFiles();
+        try (FileOutputStream out = new FileOutputStream(files[files.length - 1], true)) {
+            out.write(new byte[]{0, 0, 0, 100, 1, 2});
+        }
+        spillQueue = new TcpSpillQueue(sender, spillDir, 1024L, 1024L * 1024L);
+        Assert.assertEquals(20, spillQueue.getEventCnt());
+        Assert.assertTrue(spillQueue.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                "stream_20", System.currentTimeMillis(), Collections.emptyMap(), new byte[100]),
+                callback, procResult));
+        // drain the events in order after the sender recovers
+        sender.available = true;
+        long startTime = System.currentTimeMillis();
+        while (!spillQueue.isEmpty() && System.currentTimeMillis() - startTime < 10000L) {
+            Thread.sleep(50L);
+        }
+        Assert.assertTrue(spillQueue.isEmpty());
+        Assert.assertEquals(21, sender.events.size());
+        for (int i = 0; i < 21; i++) {
+            Assert.assertEquals("stream_" + i, sender.events.get(i).getStreamId());
+        }
+        Assert.assertEquals("uuid_0", sender.events.get(0).getAttrs().get("msgUUID"));
+        // only the callback of the event spilled in this run is kept
+        Assert.assertEquals(1, ackCnt.get());
+        Assert.assertEquals(0, spillQueue.getSpillSize());
+        spillQueue.close();
+        Assert.assertTrue(spillDir.listFiles().length <= 1);
+    }
+
+    @Test
+    public void testDrainBatchWithBusySender() throws Exception {
+        File spillDir = tempFolder.newFolder("busy");
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        SpillCaptureSender sender = new SpillCaptureSender(tcpConfig);
+        TcpSpillQueue spillQueue = new TcpSpillQueue(sender, spillDir, 1024L * 1024L, 4 * 1024L * 1024L);
+        ProcessResult procResult = new ProcessResult();
+        for (int i = 0; i < 20; i++) {
+            TcpEventInfo eventInfo = new TcpEventInfo("test_group", "stream_" + i,
+                    System.currentTimeMillis(), Collections.emptyMap(), new byte[100]);
+            Assert.assertTrue(spillQueue.append(SendQos.SOURCE_ACK, eventInfo, null, procResult));
+        }
+        // the sender is full in the middle of a drained batch
+        sender.leftQuota.set(5);
+        sender.available = true;
+        long startTime = System.currentTimeMillis();
+        while (sender.events.size() < 5 && System.currentTimeMillis() - startTime < 10000L) {
+            Thread.sleep(50L);
+        }
+        Thread.sleep(300L);
+        Assert.assertEquals(5, sender.events.size());
+        Assert.assertEquals(15, spillQueue.getEventCnt());
+        // the left events are drained in order once the sender has capacity
+        sender.leftQuota.set(Integer.MAX_VALUE);
+        startTime = System.currentTimeMillis();
+        while (!spillQueue.isEmpty() && System.currentTimeMillis() - startTime < 10000L) {
+            Thread.sleep(50L);
+        }
+        Assert.assertEquals(20, sender.events.size());
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals("stream_" + i, sender.events.get(i).getStreamId());
+        }
+        spillQueue.close();
+    }
+
+    @Test
+    public void testSpillQueueFull() throws Exception {
+        File spillDir = tempFolder.newFolder("full");
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        SpillCaptureSender sender = new SpillCaptureSender(tcpConfig);
+        TcpSpillQueue spillQueue = new TcpSpillQueue(sender, spillDir, 1024L, 1024L);
+        ProcessResult procResult = new ProcessResult();
+        TcpEventInfo eventInfo = new TcpEventInfo("test_group", "test_stream",
+                System.currentTimeMillis(), Collections.emptyMap(), new byte[400]);
+        Assert.assertTrue(spillQueue.append(SendQos.SOURCE_ACK, eventInfo, null, procResult));
+        Assert.assertTrue(spillQueue.append(SendQos.SOURCE_ACK, eventInfo, null, procResult));
+        Assert.assertFalse(spillQueue.append(SendQos.SOURCE_ACK, eventInfo, null, procResult));
+        Assert.assertEquals(ErrorCode.SPILL_QUEUE_FULL.getErrCode(), procResult.getErrCode());
+        Assert.assertEquals(1, spillQueue.getRejectedCnt());
+        spillQueue.close();
+    }
+
+    private static class SpillCaptureSender extends InLongTcpMsgSender {
+
+        private final List<TcpEventInfo> events = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean available = false;
+        private final AtomicInteger leftQuota = new AtomicInteger(Integer.MAX_VALUE);
+
+        public SpillCaptureSender(TcpMsgSenderConfig configure) {
+            super(configure);
+        }
+
+        @Override
+        public boolean isStarted() {
+            return true;
+        }
+
+        @Override
+        protected boolean doAsyncSendEvent(SendQos sendQos,
+                TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+            if (!available) {
+                return procResult.setFailResult(ErrorCode.EMPTY_ACTIVE_NODE_SET);
+            }
+            if (leftQuota.getAndDecrement() <= 0) {
+                leftQuota.incrementAndGet();
+                return procResult.setFailResult(ErrorCode.INF_REQ_COUNT_REACH_SDK_LIMIT);
+            }
+            events.add(eventInfo);
+            if (callback != null) {
+                ProcessResult ackResult = new ProcessResult();
+                ackResult.setSuccess();
+                callback.onMessageAck(ackResult);
+            }
+            return procResult.setSuccess();
+        }
+    }
+}
@@ -18,8 +18,8 @@
 package org.apache.inlong.sdk.sort.fetcher.kafka;
 
 import org.apache.inlong.sdk.sort.api.Seeker;
+import org.apache.inlong.sdk.sort.util.AckOffsetTracker;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
@@ -27,14 +27,9 @@ import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -46,7 +41,7 @@ public class AckOffsetOnRebalance implements ConsumerRebalanceListener {
     private final String clusterId;
     private final Seeker seeker;
     private final ConcurrentHashMap<TopicPartition, OffsetAndMetadata> commitOffsetMap;
-    private final ConcurrentHashMap<TopicPartition, ConcurrentSkipListMap<Long, Boolean>> ackOffsetMap;
+    private final AckOffsetTracker<TopicPartition> ackOffsetTracker;
     private final KafkaConsumer<byte[], byte[]> consumer;
     private final AtomicLong revokedNum = new AtomicLong(0);
     private final AtomicLong assignedNum = new AtomicLong(0);
@@ -63,22 +58,22 @@ public class AckOffsetOnRebalance implements ConsumerRebalanceListener {
             String clusterId,
             Seeker seeker,
             ConcurrentHashMap<TopicPartition, OffsetAndMetadata> commitOffsetMap,
-            ConcurrentHashMap<TopicPartition, ConcurrentSkipListMap<Long, Boolean>> ackOffsetMap,
+            AckOffsetTracker<TopicPartition> ackOffsetTracker,
             KafkaConsumer<byte[], byte[]> consumer) {
-        this(clusterId, seeker, commitOffsetMap, ackOffsetMap, consumer, DEFAULT_MAX_WAIT_FOR_ACK_TIME);
+        this(clusterId, seeker, commitOffsetMap, ackOffsetTracker, consumer, DEFAULT_MAX_WAIT_FOR_ACK_TIME);
     }
 
     public AckOffsetOnRebalance(
             String clusterId,
             Seeker seeker,
             ConcurrentHashMap<TopicPartition, OffsetAndMetadata> commitOffsetMap,
-            ConcurrentHashMap<TopicPartition, ConcurrentSkipListMap<Long, Boolean>> ackOffsetMap,
+            AckOffsetTracker<TopicPartition> ackOffsetTracker,
             KafkaConsumer<byte[], byte[]> consumer,
             long maxWaitForAckTime) {
         this.clusterId = clusterId;
         this.seeker = seeker;
         this.commitOffsetMap = commitOffsetMap;
-        this.ackOffsetMap = ackOffsetMap;
+        this.ackOffsetTracker = ackOffsetTracker;
         this.consumer = consumer;
         this.maxWaitForAckTime = maxWaitForAckTime;
     }
@@ -92,7 +87,7 @@ public class AckOffsetOnRebalance implements ConsumerRebalanceListener {
         });
 
         try {
-            if (Objects.nonNull(ackOffsetMap) && Objects.nonNull(commitOffsetMap)) {
+            if (Objects.nonNull(ackOffsetTracker) && Objects.nonNull(commitOffsetMap)) {
                 // sleep 15s to wait un-ack messages
                 long startTime = System.currentTimeMillis();
                 while (System.currentTimeMillis() - startTime < maxWaitForAckTime && !ackReady(collection)) {
@@ -107,15 +102,10 @@ public class AckOffsetOnRebalance implements ConsumerRebalanceListener {
 
     private boolean ackReady(Collection<TopicPartition> revoked) {
         for (TopicPartition tp : revoked) {
-            ConcurrentSkipListMap<Long, Boolean> tpMap = ackOffsetMap.get(tp);
-            if (Objects.isNull(tpMap)) {
-                continue;
-            }
-            for (Map.Entry<Long, Boolean> entry : tpMap.entrySet()) {
-                if (!entry.getValue()) {
-                    LOGGER.info("tp {}, offset {} has not been ack, wait", tp, entry.getKey());
-                    return false;
-                }
+            long pendingCount = ackOffsetTracker.getPendingCount(tp);
+            if (pendingCount > 0) {
+                LOGGER.info("tp {} has {} offsets not been ack, wait", tp, pendingCount);
+                return false;
             }
         }
         LOGGER.info("all revoked tp have been ack, re-balance right now.");
@@ -127,34 +117,12 @@ public class AckOffsetOnRebalance implements ConsumerRebalanceListener {
         prepareCommit();
         consumer.commitSync(commitOffsetMap);
         // remove revoked topic partitions
-        Set<TopicPartition> keySet = ackOffsetMap.keySet();
-        revoked.stream()
-                .filter(keySet::contains)
-                .forEach(ackOffsetMap::remove);
+        revoked.forEach(ackOffsetTracker::remove);
     }
 
     private void prepareCommit() {
-        List<Long> removeOffsets = new ArrayList<>();
-        ackOffsetMap.forEach((topicPartition, tpOffsetMap) -> {
-            // get the remove list
-            long commitOffset = -1;
-            for (Long ackOffset : tpOffsetMap.keySet()) {
-                if (!tpOffsetMap.get(ackOffset)) {
-                    break;
-                }
-                removeOffsets.add(ackOffset);
-                commitOffset = ackOffset;
-            }
-            // the first haven't ack, do nothing
-            if (CollectionUtils.isEmpty(removeOffsets)) {
-                return;
-            }
-
-            // remove offset and commit offset
-            removeOffsets.forEach(tpOffsetMap::remove);
-            removeOffsets.clear();
-            commitOffsetMap.put(topicPartition, new OffsetAndMetadata(commitOffset));
-        });
+        ackOffsetTracker.pollCommitOffsets().forEach((topicPartition, commitOffset) -> commitOffsetMap
+                .put(topicPartition, new OffsetAndMetadata(commitOffset)));
     }
 
     @Override
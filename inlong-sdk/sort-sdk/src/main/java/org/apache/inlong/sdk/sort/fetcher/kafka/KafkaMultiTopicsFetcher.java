@@ -27,6 +27,7 @@ import org.apache.inlong.sdk.sort.entity.InLongMessage;
 import org.apache.inlong.sdk.sort.entity.InLongTopic;
 import org.apache.inlong.sdk.sort.entity.MessageRecord;
 import org.apache.inlong.sdk.sort.fetcher.pulsar.PulsarMultiTopicsFetcher;
+import org.apache.inlong.sdk.sort.util.AckOffsetTracker;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
@@ -48,11 +49,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -63,7 +62,7 @@ public class KafkaMultiTopicsFetcher extends MultiTopicsFetcher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PulsarMultiTopicsFetcher.class);
     private final ConcurrentHashMap<TopicPartition, OffsetAndMetadata> commitOffsetMap;
-    private final ConcurrentHashMap<TopicPartition, ConcurrentSkipListMap<Long, Boolean>> ackOffsetMap;
+    private final AckOffsetTracker<TopicPartition> ackOffsetTracker;
     private final String bootstrapServers;
     private ConsumerRebalanceListener listener;
     private KafkaConsumer<byte[], byte[]> consumer;
@@ -78,7 +77,7 @@ public class KafkaMultiTopicsFetcher extends MultiTopicsFetcher {
         super(topics, context, interceptor, deserializer, fetchKey);
         this.bootstrapServers = bootstrapServers;
         this.commitOffsetMap = new ConcurrentHashMap<>();
-        this.ackOffsetMap = new ConcurrentHashMap<>();
+        this.ackOffsetTracker = new AckOffsetTracker<>();
     }
 
     @Override
@@ -88,7 +87,7 @@ public class KafkaMultiTopicsFetcher extends MultiTopicsFetcher {
             InLongTopic topic = onlineTopics.values().stream().findFirst().get();
             this.seeker = SeekerFactory.createKafkaSeeker(consumer, topic);
             this.listener = new AckOffsetOnRebalance(topic.getInLongCluster().getClusterId(), seeker,
-                    commitOffsetMap, ackOffsetMap, consumer);
+                    commitOffsetMap, ackOffsetTracker, consumer);
             consumer.subscribe(onlineTopics.keySet(), listener);
             LOGGER.info("init kafka multi topic fetcher success, bootstrap is {}, fetchKey is {}",
                     bootstrapServers, fetchKey);
@@ -137,30 +136,23 @@ public class KafkaMultiTopicsFetcher extends MultiTopicsFetcher {
 
     @Override
     public void ack(String msgOffset) throws Exception {
-        LOGGER.info("ack {}", msgOffset);
         // the format of multi topic kafka fetcher msg offset is topic:partitionId:offset, such as topic1:20:1746839
-        String[] offset = msgOffset.split(":");
-        if (offset.length != 3) {
+        int offsetIndex = msgOffset.lastIndexOf(':');
+        int partitionIndex = offsetIndex > 0 ? msgOffset.lastIndexOf(':', offsetIndex - 1) : -1;
+        if (partitionIndex <= 0) {
             throw new Exception("offset is illegal, the correct format is topic:partitionId:offset, "
                     + "the error offset is:" + msgOffset);
         }
 
         // parse topic partition offset
-        TopicPartition topicPartition = new TopicPartition(offset[0], Integer.parseInt(offset[1]));
-        long ackOffset = Long.parseLong(offset[2]);
-
-        // ack
-        if (!ackOffsetMap.containsKey(topicPartition) || !ackOffsetMap.get(topicPartition).containsKey(ackOffset)) {
-            LOGGER.warn("did not find offsetMap to ack offset of {}, offset {}, just ignore it",
-                    topicPartition, ackOffset);
-            return;
-        }
+        TopicPartition topicPartition = new TopicPartition(msgOffset.substring(0, partitionIndex),
+                Integer.parseInt(msgOffset.substring(partitionIndex + 1, offsetIndex)));
+        long ackOffset = Long.parseLong(msgOffset.substring(offsetIndex + 1));
 
         // mark this offset has been ack.
-        ConcurrentSkipListMap<Long, Boolean> tpOffsetMap = ackOffsetMap.get(topicPartition);
-        // to prevent race condition in AckOffsetOnRebalance::onPartitionsRevoked
-        if (Objects.nonNull(tpOffsetMap)) {
-            tpOffsetMap.put(ackOffset, true);
+        if (!ackOffsetTracker.ack(topicPartition, ackOffset)) {
+            LOGGER.warn("did not find offset to ack of {}, offset {}, just ignore it",
+                    topicPartition, ackOffset);
         }
     }
 
@@ -186,7 +178,7 @@ public class KafkaMultiTopicsFetcher extends MultiTopicsFetcher {
                 consumer.commitSync(commitOffsetMap);
                 consumer.close();
             }
-            ackOffsetMap.clear();
+            ackOffsetTracker.clear();
             commitOffsetMap.clear();
         } catch (Throwable t) {
             LOGGER.warn("got exception in multi topic fetcher close: ", t);
@@ -227,27 +219,8 @@ public class KafkaMultiTopicsFetcher extends MultiTopicsFetcher {
     }
 
     private void prepareCommit() {
-        List<Long> removeOffsets = new ArrayList<>();
-        ackOffsetMap.forEach((topicPartition, tpOffsetMap) -> {
-            // get the remove list
-            long commitOffset = -1;
-            for (Long ackOffset : tpOffsetMap.keySet()) {
-                if (!tpOffsetMap.get(ackOffset)) {
-                    break;
-                }
-                removeOffsets.add(ackOffset);
-                commitOffset = ackOffset;
-            }
-            // the first haven't ack, do nothing
-            if (CollectionUtils.isEmpty(removeOffsets)) {
-                return;
-            }
-
-            // remove offset and commit offset
-            removeOffsets.forEach(tpOffsetMap::remove);
-            removeOffsets.clear();
-            commitOffsetMap.put(topicPartition, new OffsetAndMetadata(commitOffset));
-        });
+        ackOffsetTracker.pollCommitOffsets().forEach((topicPartition, commitOffset) -> commitOffsetMap
+                .put(topicPartition, new OffsetAndMetadata(commitOffset)));
     }
 
     public class Fetcher implements Runnable {
@@ -305,8 +278,7 @@ public class KafkaMultiTopicsFetcher extends MultiTopicsFetcher {
         }
 
         private String getOffset(String topic, int partitionId, long offset) {
-            TopicPartition topicPartition = new TopicPartition(topic, partitionId);
-            ackOffsetMap.computeIfAbsent(topicPartition, k -> new ConcurrentSkipListMap<>()).put(offset, false);
+            ackOffsetTracker.track(new TopicPartition(topic, partitionId), offset);
             return topic + ":" + partitionId + ":" + offset;
         }
 
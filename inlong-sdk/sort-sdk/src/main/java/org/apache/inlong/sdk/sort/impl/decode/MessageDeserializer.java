@@ -18,7 +18,7 @@
 package org.apache.inlong.sdk.sort.impl.decode;
 
 import org.apache.inlong.common.enums.MessageWrapType;
-import org.apache.inlong.common.msg.InLongMsg;
+import org.apache.inlong.common.msg.InLongMsgReader;
 import org.apache.inlong.common.util.StringUtil;
 import org.apache.inlong.common.util.Utils;
 import org.apache.inlong.sdk.commons.protocol.EventConstants;
@@ -34,10 +34,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 
 public class MessageDeserializer implements Deserializer {
@@ -56,11 +54,11 @@ public class MessageDeserializer implements Deserializer {
     private static final String INLONGMSG_ATTR_TIME_T = "t";
     private static final String INLONGMSG_ATTR_TIME_DT = "dt";
     private static final String INLONGMSG_ATTR_CLIENT_IP = "clientIp";
-    private static final char INLONGMSG_ATTR_ENTRY_DELIMITER = '&';
-    private static final char INLONGMSG_ATTR_KV_DELIMITER = '=';
     private static final String DEFAULT_IP = "127.0.0.1";
 
     private static final String PARSE_ATTR_ERROR_STRING = "Could not find %s in attributes!";
+    // the reader keeps the uncompress buffer, so it is reused by the messages of each thread
+    private static final ThreadLocal<InLongMsgReader> READER = ThreadLocal.withInitial(InLongMsgReader::new);
 
     public MessageDeserializer() {
     }
@@ -165,48 +163,49 @@ public class MessageDeserializer implements Deserializer {
             ClientContext context,
             InLongTopic inLongTopic,
             byte[] msgBytes,
-            Map<String, String> headers) {
+            Map<String, String> headers) throws IOException {
         List<InLongMessage> messageList = new ArrayList<>();
 
-        InLongMsg inLongMsg = InLongMsg.parseFrom(msgBytes);
-        for (String attr : inLongMsg.getAttrs()) {
-            Map<String, String> attributes = StringUtil.splitKv(attr, INLONGMSG_ATTR_ENTRY_DELIMITER,
-                    INLONGMSG_ATTR_KV_DELIMITER, null, null);
-
-            String groupId = Optional.ofNullable(attributes.get(INLONGMSG_ATTR_GROUP_ID))
-                    .orElseThrow(() -> new IllegalArgumentException(String.format(PARSE_ATTR_ERROR_STRING,
-                            INLONGMSG_ATTR_GROUP_ID)));
-
-            String streamId = Optional.ofNullable(attributes.get(INLONGMSG_ATTR_STREAM_ID))
-                    .orElseThrow(() -> new IllegalArgumentException(String.format(PARSE_ATTR_ERROR_STRING,
-                            INLONGMSG_ATTR_STREAM_ID)));
-
-            // Extracts time from the attributes
-            long msgTime;
-            if (attributes.containsKey(INLONGMSG_ATTR_TIME_T)) {
-                String date = attributes.get(INLONGMSG_ATTR_TIME_T).trim();
-                msgTime = StringUtil.parseDateTime(date);
-            } else if (attributes.containsKey(INLONGMSG_ATTR_TIME_DT)) {
-                String epoch = attributes.get(INLONGMSG_ATTR_TIME_DT).trim();
-                msgTime = Long.parseLong(epoch);
-            } else {
-                throw new IllegalArgumentException(String.format(PARSE_ATTR_ERROR_STRING,
-                        INLONGMSG_ATTR_TIME_T + " or " + INLONGMSG_ATTR_TIME_DT));
-            }
-
-            String srcIp = Optional.ofNullable(attributes.get(INLONGMSG_ATTR_CLIENT_IP))
-                    .orElse(DEFAULT_IP);
-
-            Iterator<byte[]> iterator = inLongMsg.getIterator(attr);
-            while (iterator.hasNext()) {
-                byte[] bodyBytes = iterator.next();
-                if (Objects.isNull(bodyBytes)) {
-                    continue;
+        InLongMsgReader reader = READER.get();
+        if (!reader.reset(msgBytes)) {
+            throw new IllegalArgumentException("Could not parse the InLongMsg!");
+        }
+        String groupId = null;
+        String streamId = null;
+        long msgTime = 0;
+        String srcIp = null;
+        Map<String, String> attributes = null;
+        while (reader.next()) {
+            // the attributes are parsed once for the adjacent records with the same attributes
+            if (reader.isAttrChanged()) {
+                InLongMsgReader.AttrView attrView = reader.getAttrView();
+                groupId = Optional.ofNullable(attrView.get(INLONGMSG_ATTR_GROUP_ID))
+                        .orElseThrow(() -> new IllegalArgumentException(String.format(PARSE_ATTR_ERROR_STRING,
+                                INLONGMSG_ATTR_GROUP_ID)));
+
+                streamId = Optional.ofNullable(attrView.get(INLONGMSG_ATTR_STREAM_ID))
+                        .orElseThrow(() -> new IllegalArgumentException(String.format(PARSE_ATTR_ERROR_STRING,
+                                INLONGMSG_ATTR_STREAM_ID)));
+
+                // Extracts time from the attributes
+                String date = attrView.get(INLONGMSG_ATTR_TIME_T);
+                String epoch = attrView.get(INLONGMSG_ATTR_TIME_DT);
+                if (date != null) {
+                    msgTime = StringUtil.parseDateTime(date.trim());
+                } else if (epoch != null) {
+                    msgTime = Long.parseLong(epoch.trim());
+                } else {
+                    throw new IllegalArgumentException(String.format(PARSE_ATTR_ERROR_STRING,
+                            INLONGMSG_ATTR_TIME_T + " or " + INLONGMSG_ATTR_TIME_DT));
                 }
-                InLongMessage inLongMessage = new InLongMessage(groupId, streamId, msgTime,
-                        srcIp, bodyBytes, attributes);
-                messageList.add(inLongMessage);
+
+                srcIp = Optional.ofNullable(attrView.get(INLONGMSG_ATTR_CLIENT_IP))
+                        .orElse(DEFAULT_IP);
+                attributes = attrView.toMap();
             }
+            InLongMessage inLongMessage = new InLongMessage(groupId, streamId, msgTime,
+                    srcIp, reader.getData(), attributes);
+            messageList.add(inLongMessage);
         }
         return messageList;
     }
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.sort.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Track the fetched and acked offsets of each partition, and compute the contiguous
+ * acked watermark of each partition to commit.
+ * The un-acked offsets of a partition are kept by the bits of a ring buffer starting
+ * from the watermark, the ring buffer grows when the un-acked offsets exceed it, up to
+ * MAX_WORDS long words. An offset beyond that window from the oldest un-acked offset resets
+ * the partition from it, the older un-acked offsets are given up.
+ *
+ * @param <P> the type of the partition
+ */
+public class AckOffsetTracker<P> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AckOffsetTracker.class);
+    private static final int DEFAULT_INIT_WORDS = 64;
+    // 8MB of bits, tracking the 64M offsets after the watermark at most
+    private static final int MAX_WORDS = 1 << 20;
+
+    private final ConcurrentHashMap<P, PartitionTracker> partitionTrackers = new ConcurrentHashMap<>();
+    private final int initWords;
+
+    public AckOffsetTracker() {
+        this(DEFAULT_INIT_WORDS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param initWords the initial long words of the ring buffer of each partition,
+     *                  must be a power of 2 and not more than MAX_WORDS
+     */
+    public AckOffsetTracker(int initWords) {
+        if (initWords <= 0 || initWords > MAX_WORDS || Integer.bitCount(initWords) != 1) {
+            throw new IllegalArgumentException("initWords must be a power of 2 not more than "
+                    + MAX_WORDS + ", but is " + initWords);
+        }
+        this.initWords = initWords;
+    }
+
+    /**
+     * Track a fetched offset, it is not acked
+     */
+    public void track(P partition, long offset) {
+        partitionTrackers.computeIfAbsent(partition, k -> new PartitionTracker(initWords)).track(offset);
+    }
+
+    /**
+     * Ack a tracked offset
+     *
+     * @return false if the offset is not tracked or already acked
+     */
+    public boolean ack(P partition, long offset) {
+        PartitionTracker tracker = partitionTrackers.get(partition);
+        return tracker != null && tracker.ack(offset);
+    }
+
+    /**
+     * Get the offsets to commit of the partitions whose watermark advanced since the last call,
+     * the offset to commit is the max offset that it and all the tracked offsets before it are acked.
+     */
+    public Map<P, Long> pollCommitOffsets() {
+        Map<P, Long> commitOffsets = new HashMap<>();
+        partitionTrackers.forEach((partition, tracker) -> {
+            long commitOffset = tracker.pollCommitOffset();
+            if (commitOffset >= 0) {
+                commitOffsets.put(partition, commitOffset);
+            }
+        });
+        return commitOffsets;
+    }
+
+    /**
+     * Whether all the tracked offsets of the partitions are acked
+     */
+    public boolean isAllAcked(Collection<P> partitions) {
+        for (P partition : partitions) {
+            PartitionTracker tracker = partitionTrackers.get(partition);
+            if (tracker != null && tracker.getPendingCount() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getPendingCount(P partition) {
+        PartitionTracker tracker = partitionTrackers.get(partition);
+        return tracker == null ? 0 : tracker.getPendingCount();
+    }
+
+    public void remove(P partition) {
+        partitionTrackers.remove(partition);
+    }
+
+    public void clear() {
+        partitionTrackers.clear();
+    }
+
+    /**
+     * The offsets of one partition, the bit of an offset is set when it is tracked
+     * and cleared when it is acked.
+     */
+    private static class PartitionTracker {
+
+        private long[] words;
+        private int mask;
+        // all the offsets before the watermark are acked
+        private long watermark = -1;
+        private long maxOffset = -1;
+        private long committedOffset = -1;
+        private long pendingCount = 0;
+
+        PartitionTracker(int initWords) {
+            this.words = new long[initWords];
+            this.mask = initWords - 1;
+        }
+
+        synchronized void track(long offset) {
+            if (offset < 0) {
+                return;
+            }
+            if (watermark < 0 || offset < watermark) {
+                // the first offset, or the offsets are fetched again from an earlier position
+                reset(offset);
+            } else if (pendingCount == 0 && (offset >>> 6) - (watermark >>> 6) >= words.length) {
+                // all the bits are cleared, skip the gap of the offsets without growing the ring buffer
+                watermark = offset;
+            }
+            ensureCapacity(offset);
+            int index = (int) (offset >>> 6) & mask;
+            long bit = 1L << offset;
+            if ((words[index] & bit) == 0) {
+                words[index] |= bit;
+                pendingCount++;
+            }
+            maxOffset = Math.max(maxOffset, offset);
+        }
+
+        synchronized boolean ack(long offset) {
+            if (offset < watermark || offset > maxOffset) {
+                return false;
+            }
+            int index = (int) (offset >>> 6) & mask;
+            long bit = 1L << offset;
+            if ((words[index] & bit) == 0) {
+                return false;
+            }
+            words[index] &= ~bit;
+            pendingCount--;
+            return true;
+        }
+
+        synchronized long pollCommitOffset() {
+            if (maxOffset < 0) {
+                return -1;
+            }
+            // find the first un-acked offset from the watermark
+            long firstPending = maxOffset + 1;
+            long lastWord = maxOffset >>> 6;
+            for (long wordOffset = watermark >>> 6; wordOffset <= lastWord; wordOffset++) {
+                long word = words[(int) wordOffset & mask];
+                if (word != 0) {
+                    firstPending = (wordOffset << 6) + Long.numberOfTrailingZeros(word);
+                    break;
+                }
+            }
+            watermark = firstPending;
+            long commitOffset = firstPending - 1;
+            if (commitOffset <= committedOffset) {
+                return -1;
+            }
+            committedOffset = commitOffset;
+            return commitOffset;
+        }
+
+        synchronized long getPendingCount() {
+            return pendingCount;
+        }
+
+        private void reset(long offset) {
+            Arrays.fill(words, 0L);
+            watermark = offset;
+            maxOffset = -1;
+            committedOffset = offset - 1;
+            pendingCount = 0;
+        }
+
+        private void ensureCapacity(long offset) {
+            long wordCount = (offset >>> 6) - (watermark >>> 6) + 1;
+            if (wordCount <= words.length) {
+                return;
+            }
+            if (wordCount > MAX_WORDS) {
+                logger.warn("offset {} is too far from the un-acked watermark {}, give up the {} un-acked offsets",
+                        offset, watermark, pendingCount);
+                reset(offset);
+                return;
+            }
+            // computed in long and bounded by MAX_WORDS, so it never overflows
+            long newLength = words.length;
+            while (newLength < wordCount) {
+                newLength <<= 1;
+            }
+            long[] newWords = new long[(int) newLength];
+            int newMask = (int) newLength - 1;
+            if (maxOffset >= 0) {
+                for (long wordOffset = watermark >>> 6; wordOffset <= maxOffset >>> 6; wordOffset++) {
+                    newWords[(int) wordOffset & newMask] = words[(int) wordOffset & mask];
+                }
+            }
+            words = newWords;
+            mask = newMask;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.sort.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class AckOffsetTrackerTest {
+
+    @Test
+    public void testOutOfOrderAck() {
+        AckOffsetTracker<String> tracker = new AckOffsetTracker<>(1);
+        for (long offset = 100; offset < 110; offset++) {
+            tracker.track("p0", offset);
+        }
+        Assert.assertTrue(tracker.pollCommitOffsets().isEmpty());
+
+        // the un-acked offset 102 holds back the watermark
+        Assert.assertTrue(tracker.ack("p0", 100));
+        Assert.assertTrue(tracker.ack("p0", 101));
+        Assert.assertTrue(tracker.ack("p0", 103));
+        Assert.assertFalse(tracker.ack("p0", 103));
+        Assert.assertFalse(tracker.ack("p0", 200));
+        Assert.assertFalse(tracker.ack("p1", 100));
+        Assert.assertEquals(Long.valueOf(101), tracker.pollCommitOffsets().get("p0"));
+        Assert.assertTrue(tracker.pollCommitOffsets().isEmpty());
+
+        for (long offset = 102; offset < 110; offset++) {
+            tracker.ack("p0", offset);
+        }
+        Assert.assertEquals(Long.valueOf(109), tracker.pollCommitOffsets().get("p0"));
+        Assert.assertEquals(0, tracker.getPendingCount("p0"));
+    }
+
+    @Test
+    public void testGrowAndSkipGap() {
+        AckOffsetTracker<String> tracker = new AckOffsetTracker<>(1);
+        // exceed the initial 64 bits of the ring buffer
+        for (long offset = 0; offset < 1000; offset++) {
+            tracker.track("p0", offset);
+        }
+        for (long offset = 999; offset > 0; offset--) {
+            Assert.assertTrue(tracker.ack("p0", offset));
+        }
+        Assert.assertTrue(tracker.pollCommitOffsets().isEmpty());
+        Assert.assertTrue(tracker.ack("p0", 0));
+        Assert.assertEquals(Long.valueOf(999), tracker.pollCommitOffsets().get("p0"));
+
+        // the compacted offsets are skipped
+        tracker.track("p0", 100000);
+        tracker.track("p0", 100005);
+        tracker.ack("p0", 100000);
+        Assert.assertEquals(Long.valueOf(100004), tracker.pollCommitOffsets().get("p0"));
+    }
+
+    @Test
+    public void testResetOnHugeGap() {
+        AckOffsetTracker<String> tracker = new AckOffsetTracker<>(1);
+        tracker.track("p0", 0);
+        tracker.track("p0", 1);
+        tracker.ack("p0", 1);
+        // too far from the un-acked offset 0, the partition is reset from it
+        long farOffset = Long.MAX_VALUE / 2;
+        tracker.track("p0", farOffset);
+        Assert.assertEquals(1, tracker.getPendingCount("p0"));
+        Assert.assertFalse(tracker.ack("p0", 0));
+        Assert.assertTrue(tracker.ack("p0", farOffset));
+        Assert.assertEquals(Long.valueOf(farOffset), tracker.pollCommitOffsets().get("p0"));
+    }
+
+    @Test
+    public void testSeekBackAndRemove() {
+        AckOffsetTracker<String> tracker = new AckOffsetTracker<>();
+        tracker.track("p0", 50);
+        tracker.track("p1", 10);
+        tracker.ack("p0", 50);
+        Assert.assertFalse(tracker.isAllAcked(Arrays.asList("p0", "p1")));
+        Assert.assertTrue(tracker.isAllAcked(Arrays.asList("p0", "p2")));
+
+        // fetched again from an earlier position
+        tracker.track("p0", 20);
+        Assert.assertEquals(1, tracker.getPendingCount("p0"));
+        tracker.ack("p0", 20);
+        Map<String, Long> commitOffsets = tracker.pollCommitOffsets();
+        Assert.assertEquals(Long.valueOf(20), commitOffsets.get("p0"));
+        Assert.assertFalse(commitOffsets.containsKey("p1"));
+
+        tracker.remove("p1");
+        Assert.assertTrue(tracker.isAllAcked(Arrays.asList("p0", "p1")));
+    }
+}
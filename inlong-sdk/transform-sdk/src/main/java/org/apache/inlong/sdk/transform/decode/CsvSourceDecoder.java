@@ -23,8 +23,10 @@ import org.apache.inlong.sdk.transform.process.Context;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 
 import java.nio.charset.Charset;
+import java.util.Set;
 
 /**
  * CsvSourceDecoder
@@ -36,6 +38,8 @@ public class CsvSourceDecoder extends SourceDecoder<String> {
     private Charset srcCharset = Charset.defaultCharset();
     private Character delimiter = '|';
     private Character escapeChar = null;
+    // the max field count to split of each line, negative if all fields are required
+    private volatile int maxFieldCount = -1;
 
     public CsvSourceDecoder(CsvSourceInfo sourceInfo) {
         super(sourceInfo.getFields());
@@ -51,6 +55,33 @@ public class CsvSourceDecoder extends SourceDecoder<String> {
         }
     }
 
+    @Override
+    public synchronized void pushDownRequiredFields(Set<String> fieldNames) {
+        super.pushDownRequiredFields(fieldNames);
+        Set<String> curFields = this.requiredFields;
+        if (curFields == null) {
+            this.maxFieldCount = -1;
+            return;
+        }
+        int fieldCount = 0;
+        if (CollectionUtils.isEmpty(fields)) {
+            // the fields are referenced by the index, such as $1
+            for (String fieldName : curFields) {
+                if (fieldName.startsWith(SourceData.FIELD_DEFAULT_PREFIX)) {
+                    int fieldIndex = NumberUtils.toInt(fieldName.substring(SourceData.FIELD_DEFAULT_PREFIX.length()));
+                    fieldCount = Math.max(fieldCount, fieldIndex);
+                }
+            }
+        } else {
+            for (int i = 0; i < fields.size(); i++) {
+                if (curFields.contains(fields.get(i).getName())) {
+                    fieldCount = i + 1;
+                }
+            }
+        }
+        this.maxFieldCount = fieldCount;
+    }
+
     @Override
     public SourceData decode(byte[] srcBytes, Context context) {
         String srcString = new String(srcBytes, srcCharset);
@@ -59,7 +90,8 @@ public class CsvSourceDecoder extends SourceDecoder<String> {
 
     @Override
     public SourceData decode(String srcString, Context context) {
-        String[][] rowValues = SplitUtils.splitCsv(srcString, delimiter, escapeChar, '\"', '\n', true);
+        String[][] rowValues = SplitUtils.splitCsv(srcString, delimiter, escapeChar,
+                '\"', '\n', false, true, maxFieldCount);
         CsvSourceData sourceData = new CsvSourceData();
         for (int i = 0; i < rowValues.length; i++) {
             String[] fieldValues = rowValues[i];
@@ -74,6 +106,10 @@ public class CsvSourceDecoder extends SourceDecoder<String> {
             int fieldIndex = 0;
             for (FieldInfo field : fields) {
                 String fieldName = field.getName();
+                if (!isRequiredField(fieldName)) {
+                    fieldIndex++;
+                    continue;
+                }
                 Object fieldValue = null;
                 if (fieldIndex < fieldValues.length) {
                     try {
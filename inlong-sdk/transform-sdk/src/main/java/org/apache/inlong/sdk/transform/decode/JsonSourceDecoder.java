@@ -24,12 +24,19 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * JsonSourceDecoder
@@ -41,6 +48,8 @@ public class JsonSourceDecoder extends SourceDecoder<String> {
     private Charset srcCharset = Charset.defaultCharset();
     private String rowsNodePath;
     private List<JsonNode> childNodes;
+    // the member names of the root referenced by the transform sql, null if all members are required
+    private volatile Set<String> requiredRootNames;
 
     private Gson gson = new Gson();
 
@@ -63,6 +72,32 @@ public class JsonSourceDecoder extends SourceDecoder<String> {
         }
     }
 
+    @Override
+    public synchronized void pushDownRequiredFields(Set<String> fieldNames) {
+        super.pushDownRequiredFields(fieldNames);
+        Set<String> curFields = this.requiredFields;
+        if (curFields == null) {
+            this.requiredRootNames = null;
+            return;
+        }
+        Set<String> rootNames = new HashSet<>();
+        for (String fieldName : curFields) {
+            String[] nodeStrings = fieldName.split("\\.");
+            if (StringUtils.equals(JsonSourceData.ROOT_KEY, nodeStrings[0])) {
+                if (nodeStrings.length < 2) {
+                    // the whole root is referenced
+                    this.requiredRootNames = null;
+                    return;
+                }
+                rootNames.add(new JsonNode(nodeStrings[1]).getName());
+            } else if (StringUtils.equals(JsonSourceData.CHILD_KEY, nodeStrings[0])
+                    && !CollectionUtils.isEmpty(childNodes)) {
+                rootNames.add(childNodes.get(0).getName());
+            }
+        }
+        this.requiredRootNames = rootNames;
+    }
+
     /**
      * decode
      * @param srcBytes
@@ -83,7 +118,7 @@ public class JsonSourceDecoder extends SourceDecoder<String> {
      */
     @Override
     public SourceData decode(String srcString, Context context) {
-        JsonObject root = gson.fromJson(srcString, JsonObject.class);
+        JsonObject root = this.parseRoot(srcString);
         JsonArray childRoot = null;
         if (CollectionUtils.isEmpty(childNodes)) {
             return new JsonSourceData(root, null);
@@ -119,6 +154,34 @@ public class JsonSourceDecoder extends SourceDecoder<String> {
         return new JsonSourceData(root, childRoot);
     }
 
+    private JsonObject parseRoot(String srcString) {
+        Set<String> rootNames = this.requiredRootNames;
+        if (rootNames == null || StringUtils.isBlank(srcString)) {
+            return gson.fromJson(srcString, JsonObject.class);
+        }
+        // stream the members of the root, and skip the members not referenced
+        try (JsonReader reader = new JsonReader(new StringReader(srcString))) {
+            reader.setLenient(true);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return gson.fromJson(srcString, JsonObject.class);
+            }
+            JsonObject root = new JsonObject();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (rootNames.contains(name)) {
+                    root.add(name, gson.fromJson(reader, JsonElement.class));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return root;
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
     private JsonElement getElementFromArray(JsonNode node, JsonElement curElement) {
         if (node.getArrayIndices().isEmpty()) {
             // error data
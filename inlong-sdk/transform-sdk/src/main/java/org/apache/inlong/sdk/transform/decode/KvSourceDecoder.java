@@ -79,7 +79,11 @@ public class KvSourceDecoder extends SourceDecoder<String> {
         if (CollectionUtils.isEmpty(fields)) {
             for (Map<String, String> row : rowValues) {
                 sourceData.addRow();
-                row.forEach(sourceData::putField);
+                row.forEach((fieldName, fieldValue) -> {
+                    if (isRequiredField(fieldName)) {
+                        sourceData.putField(fieldName, fieldValue);
+                    }
+                });
             }
             return sourceData;
         }
@@ -87,6 +91,9 @@ public class KvSourceDecoder extends SourceDecoder<String> {
             sourceData.addRow();
             for (FieldInfo field : fields) {
                 String fieldName = field.getName();
+                if (!isRequiredField(fieldName)) {
+                    continue;
+                }
                 String fieldValue = row.get(fieldName);
                 sourceData.putField(fieldName, fieldValue);
             }
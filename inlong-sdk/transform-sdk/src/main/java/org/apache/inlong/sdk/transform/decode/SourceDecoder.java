@@ -23,7 +23,9 @@ import org.apache.inlong.sdk.transform.process.Context;
 import com.google.common.collect.ImmutableList;
 import lombok.Getter;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * SourceDecoder
@@ -32,6 +34,9 @@ import java.util.List;
 public abstract class SourceDecoder<Input> {
 
     protected final List<FieldInfo> fields;
+    // the fields referenced by the transform sql, null if all fields are required
+    protected volatile Set<String> requiredFields;
+    private boolean requiredFieldsPushed = false;
 
     public SourceDecoder() {
         this(ImmutableList.of());
@@ -41,6 +46,30 @@ public abstract class SourceDecoder<Input> {
         this.fields = fields;
     }
 
+    /**
+     * Push down the fields referenced by a transform processor, the decoder may skip the other fields.
+     * The fields of all the processors sharing the decoder are kept.
+     *
+     * @param fieldNames the referenced field names, null if all fields are required
+     */
+    public synchronized void pushDownRequiredFields(Set<String> fieldNames) {
+        if (fieldNames == null) {
+            this.requiredFields = null;
+        } else if (!requiredFieldsPushed) {
+            this.requiredFields = new HashSet<>(fieldNames);
+        } else if (this.requiredFields != null) {
+            Set<String> newFields = new HashSet<>(this.requiredFields);
+            newFields.addAll(fieldNames);
+            this.requiredFields = newFields;
+        }
+        this.requiredFieldsPushed = true;
+    }
+
+    protected boolean isRequiredField(String fieldName) {
+        Set<String> curFields = this.requiredFields;
+        return curFields == null || curFields.contains(fieldName);
+    }
+
     public abstract SourceData decode(byte[] srcBytes, Context context);
 
     public abstract SourceData decode(Input input, Context context);
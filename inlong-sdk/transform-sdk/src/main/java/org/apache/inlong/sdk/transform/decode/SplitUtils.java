@@ -53,6 +53,19 @@ public class SplitUtils {
     public static String[][] splitCsv(@Nonnull String text, @Nonnull Character delimiter,
             @Nullable Character escapeChar, @Nullable Character quoteChar, @Nullable Character lineDelimiter,
             boolean deleteHeadDelimiter, boolean hasEscapeProcess) {
+        return splitCsv(text, delimiter, escapeChar, quoteChar, lineDelimiter,
+                deleteHeadDelimiter, hasEscapeProcess, -1);
+    }
+
+    /**
+     * Split the csv text, only the first maxFieldCount fields of each line are kept,
+     * the other fields are scanned to find the line delimiter but not copied.
+     *
+     * @param maxFieldCount the max field count of each line, negative if unlimited
+     */
+    public static String[][] splitCsv(@Nonnull String text, @Nonnull Character delimiter,
+            @Nullable Character escapeChar, @Nullable Character quoteChar, @Nullable Character lineDelimiter,
+            boolean deleteHeadDelimiter, boolean hasEscapeProcess, int maxFieldCount) {
         char deli = delimiter.charValue();
         char escape = (escapeChar == null) ? '\\' : escapeChar.charValue();
         char quote = (quoteChar == null) ? '\"' : quoteChar.charValue();
@@ -74,7 +87,9 @@ public class SplitUtils {
                         if (fieldIndex == 0 && deleteHeadDelimiter && fields.isEmpty()) {
                             break;
                         }
-                        fields.add(new String(fieldValue, 0, fieldIndex));
+                        if (maxFieldCount < 0 || fields.size() < maxFieldCount) {
+                            fields.add(new String(fieldValue, 0, fieldIndex));
+                        }
                         fieldIndex = 0;
                         break;
                     case STATE_ESCAPING:
@@ -126,7 +141,9 @@ public class SplitUtils {
             } else if (lineDelimiter != null && ch == line) {
                 switch (state) {
                     case STATE_NORMAL:
-                        fields.add(new String(fieldValue, 0, fieldIndex));
+                        if (maxFieldCount < 0 || fields.size() < maxFieldCount) {
+                            fields.add(new String(fieldValue, 0, fieldIndex));
+                        }
                         fieldIndex = 0;
                         lines.add(fields.toArray(new String[0]));
                         fields.clear();
@@ -151,7 +168,9 @@ public class SplitUtils {
                 fieldValue[fieldIndex++] = ch;
             }
         }
-        fields.add(new String(fieldValue, 0, fieldIndex));
+        if (maxFieldCount < 0 || fields.size() < maxFieldCount) {
+            fields.add(new String(fieldValue, 0, fieldIndex));
+        }
         fieldIndex = 0;
         lines.add(fields.toArray(new String[0]));
 
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.encode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ColumnarSinkData
+ * Description: The sink data of a batch, the values are kept by column.
+ * It is read by the encoder row by row through the current row index.
+ */
+public class ColumnarSinkData implements SinkData {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final List<String> fieldNames;
+    private final List<String> keyList;
+    private final Map<String, Integer> fieldIndexes = new HashMap<>();
+    private final String[][] columns;
+    private int capacity;
+    private int rowCount = 0;
+    private int rowIndex = -1;
+
+    /**
+     * Constructor
+     *
+     * @param fieldNames the field names of the columns
+     * @param keyList the key list of the sink, null if same as the field names
+     * @param capacity the initial row capacity
+     */
+    public ColumnarSinkData(List<String> fieldNames, List<String> keyList, int capacity) {
+        this.fieldNames = fieldNames;
+        this.keyList = keyList == null ? fieldNames : keyList;
+        for (int i = 0; i < fieldNames.size(); i++) {
+            // the last value wins when the field names are duplicated, the same as DefaultSinkData
+            fieldIndexes.put(fieldNames.get(i), i);
+        }
+        this.capacity = Math.max(capacity, MIN_CAPACITY);
+        this.columns = new String[fieldNames.size()][this.capacity];
+    }
+
+    /**
+     * Add a row and make it the current row
+     *
+     * @return the index of the row
+     */
+    public int addRow() {
+        if (rowCount == capacity) {
+            capacity = capacity << 1;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+        rowIndex = rowCount++;
+        return rowIndex;
+    }
+
+    public void setField(int fieldIndex, String fieldValue) {
+        columns[fieldIndex][rowIndex] = fieldValue;
+    }
+
+    public String[] getColumn(int fieldIndex) {
+        return columns[fieldIndex];
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowIndex(int rowIndex) {
+        this.rowIndex = rowIndex;
+    }
+
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    @Override
+    public void addField(String fieldName, String fieldValue) {
+        Integer fieldIndex = fieldIndexes.get(fieldName);
+        if (fieldIndex != null) {
+            columns[fieldIndex][rowIndex] = fieldValue;
+        }
+    }
+
+    @Override
+    public String getField(String fieldName) {
+        Integer fieldIndex = fieldIndexes.get(fieldName);
+        if (fieldIndex == null) {
+            return "";
+        }
+        String fieldValue = columns[fieldIndex][rowIndex];
+        return fieldValue == null ? "" : fieldValue;
+    }
+
+    @Override
+    public List<String> keyList() {
+        return keyList;
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.inlong.sdk.transform.process.Context;
 import com.google.common.collect.ImmutableList;
 import lombok.Getter;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -44,4 +45,20 @@ public abstract class SinkEncoder<Output> {
     }
 
     public abstract Output encode(SinkData sinkData, Context context);
+
+    /**
+     * Encode the rows of a batch, the rows are read from the columns in place
+     *
+     * @param sinkData the columnar sink data of the batch
+     * @param context the context
+     * @return the outputs
+     */
+    public List<Output> encodeBatch(ColumnarSinkData sinkData, Context context) {
+        List<Output> outputs = new ArrayList<>(sinkData.getRowCount());
+        for (int i = 0; i < sinkData.getRowCount(); i++) {
+            sinkData.setRowIndex(i);
+            outputs.add(this.encode(sinkData, context));
+        }
+        return outputs;
+    }
 }
@@ -17,6 +17,9 @@
 
 package org.apache.inlong.sdk.transform.process;
 
+import org.apache.inlong.sdk.transform.decode.SourceData;
+
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -31,9 +34,15 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class Context {
 
+    public static final Object UNSET_VALUE = new Object();
+
     private final Map<String, Object> configuration;
     private final Map<String, Object> extParams;
     private final Map<String, Object> runtimeParams;
+    // the values of the common sub-expressions of the current row
+    private Object[] sharedValues;
+    private SourceData sharedSourceData;
+    private int sharedRowIndex = -1;
 
     public Context(Map<String, Object> configuration, Map<String, Object> extParams) {
         this.configuration = configuration;
@@ -89,4 +98,15 @@ public class Context {
         return null;
     }
 
+    public Object[] getSharedValues(SourceData sourceData, int rowIndex, int size) {
+        if (sharedValues == null || sharedValues.length < size) {
+            sharedValues = new Object[size];
+            Arrays.fill(sharedValues, UNSET_VALUE);
+        } else if (sharedSourceData != sourceData || sharedRowIndex != rowIndex) {
+            Arrays.fill(sharedValues, UNSET_VALUE);
+        }
+        sharedSourceData = sourceData;
+        sharedRowIndex = rowIndex;
+        return sharedValues;
+    }
 }
@@ -19,6 +19,7 @@ package org.apache.inlong.sdk.transform.process;
 
 import org.apache.inlong.sdk.transform.decode.SourceData;
 import org.apache.inlong.sdk.transform.decode.SourceDecoder;
+import org.apache.inlong.sdk.transform.encode.ColumnarSinkData;
 import org.apache.inlong.sdk.transform.encode.DefaultSinkData;
 import org.apache.inlong.sdk.transform.encode.SinkEncoder;
 import org.apache.inlong.sdk.transform.pojo.FieldInfo;
@@ -26,6 +27,7 @@ import org.apache.inlong.sdk.transform.pojo.TransformConfig;
 import org.apache.inlong.sdk.transform.process.operator.ExpressionOperator;
 import org.apache.inlong.sdk.transform.process.operator.OperatorTools;
 import org.apache.inlong.sdk.transform.process.parser.ColumnParser;
+import org.apache.inlong.sdk.transform.process.parser.ExpressionCompiler;
 import org.apache.inlong.sdk.transform.process.parser.ValueParser;
 
 import com.google.common.collect.ImmutableMap;
@@ -60,6 +62,7 @@ public class TransformProcessor<I, O> {
     private PlainSelect transformSelect;
     private ExpressionOperator where;
     private List<ValueParserNode> selectItems;
+    private List<String> selectFieldNames;
 
     private List<String> sinkFieldList;
 
@@ -99,8 +102,20 @@ public class TransformProcessor<I, O> {
         CCJSqlParserManager parserManager = new CCJSqlParserManager();
         Select select = (Select) parserManager.parse(new StringReader(sql));
         this.transformSelect = (PlainSelect) select.getSelectBody();
-        this.where = OperatorTools.buildOperator(this.transformSelect.getWhere());
-        List<SelectItem> items = this.transformSelect.getSelectItems();
+        // build the parsers by the compiler to fold the constants and share the common sub-expressions
+        ExpressionCompiler compiler = new ExpressionCompiler(config.getConfiguration());
+        compiler.compile(() -> {
+            this.where = OperatorTools.buildOperator(this.transformSelect.getWhere());
+            this.initSelectItems(this.transformSelect.getSelectItems());
+        });
+        if (this.transformSelect.getSelectItems().stream().anyMatch(item -> item instanceof AllColumns)) {
+            compiler.setAllFieldsRequired();
+        }
+        // the decoder may skip the fields not referenced by the sql
+        this.decoder.pushDownRequiredFields(compiler.getRequiredFields());
+    }
+
+    private void initSelectItems(List<SelectItem> items) throws JSQLParserException {
         this.selectItems = new ArrayList<>(items.size());
         List<FieldInfo> fields = this.encoder.getFields();
         for (int i = 0; i < items.size(); i++) {
@@ -131,6 +146,8 @@ public class TransformProcessor<I, O> {
                 }
             }
         }
+        this.selectFieldNames = new ArrayList<>(this.selectItems.size());
+        this.selectItems.forEach(node -> this.selectFieldNames.add(node.getFieldName()));
     }
 
     public boolean checkSelectField(String fieldName) {
@@ -164,26 +181,7 @@ public class TransformProcessor<I, O> {
             // parse value
             DefaultSinkData sinkData = new DefaultSinkData();
             for (ValueParserNode node : this.selectItems) {
-                String fieldName = node.getFieldName();
-                ValueParser parser = node.getParser();
-                if (parser == null || StringUtils.equals(fieldName, SinkEncoder.ALL_SOURCE_FIELD_SIGN)) {
-                    if (input instanceof String) {
-                        sinkData.addField(fieldName, (String) input);
-                    } else {
-                        sinkData.addField(fieldName, "");
-                    }
-                    continue;
-                }
-                try {
-                    Object fieldValue = parser.parse(sourceData, i, context);
-                    if (fieldValue == null) {
-                        sinkData.addField(fieldName, "");
-                    } else {
-                        sinkData.addField(fieldName, fieldValue.toString());
-                    }
-                } catch (Throwable t) {
-                    sinkData.addField(fieldName, "");
-                }
+                sinkData.addField(node.getFieldName(), this.parseFieldValue(node, input, sourceData, i, context));
             }
 
             if (this.sinkFieldList != null) {
@@ -195,4 +193,60 @@ public class TransformProcessor<I, O> {
         return sinkDatas;
     }
 
+    public List<O> transformBatch(List<I> inputs) {
+        return this.transformBatch(inputs, EMPTY_EXT_PARAMS);
+    }
+
+    /**
+     * Transform a batch of inputs, the rows of all the inputs share one context,
+     * and the field values are kept by column before encoding.
+     *
+     * @param inputs the inputs
+     * @param extParams the ext params of the inputs
+     * @return the outputs of all the inputs
+     */
+    public List<O> transformBatch(List<I> inputs, Map<String, Object> extParams) {
+        Context context = new Context(config.getConfiguration(), extParams);
+        ColumnarSinkData sinkData = new ColumnarSinkData(this.selectFieldNames, this.sinkFieldList, inputs.size());
+        for (I input : inputs) {
+            // decode
+            SourceData sourceData = this.decoder.decode(input, context);
+            if (sourceData == null) {
+                continue;
+            }
+            for (int i = 0; i < sourceData.getRowCount(); i++) {
+                // where check
+                if (this.where != null && !this.where.check(sourceData, i, context)) {
+                    continue;
+                }
+                // parse value
+                sinkData.addRow();
+                for (int j = 0; j < this.selectItems.size(); j++) {
+                    sinkData.setField(j, this.parseFieldValue(this.selectItems.get(j), input, sourceData, i, context));
+                }
+            }
+        }
+        // encode
+        return this.encoder.encodeBatch(sinkData, context);
+    }
+
+    private String parseFieldValue(ValueParserNode node, I input, SourceData sourceData, int rowIndex,
+            Context context) {
+        ValueParser parser = node.getParser();
+        if (parser == null || StringUtils.equals(node.getFieldName(), SinkEncoder.ALL_SOURCE_FIELD_SIGN)) {
+            if (input instanceof String) {
+                return (String) input;
+            }
+            return "";
+        }
+        try {
+            Object fieldValue = parser.parse(sourceData, rowIndex, context);
+            if (fieldValue == null) {
+                return "";
+            }
+            return fieldValue.toString();
+        } catch (Throwable t) {
+            return "";
+        }
+    }
 }
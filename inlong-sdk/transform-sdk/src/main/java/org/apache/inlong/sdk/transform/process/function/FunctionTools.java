@@ -116,6 +116,13 @@ public class FunctionTools {
         return FunctionDocHolder.functionDocMap;
     }
 
+    public static Class<?> getFunctionClass(String functionName) {
+        if (functionName == null) {
+            return null;
+        }
+        return functionMap.get(functionName.toLowerCase());
+    }
+
     public static ValueParser getTransformFunction(Function func) {
         if (func == null) {
             return null;
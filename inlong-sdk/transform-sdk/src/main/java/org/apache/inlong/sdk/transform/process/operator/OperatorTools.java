@@ -19,6 +19,7 @@ package org.apache.inlong.sdk.transform.process.operator;
 
 import org.apache.inlong.sdk.transform.process.function.FunctionTools;
 import org.apache.inlong.sdk.transform.process.parser.ColumnParser;
+import org.apache.inlong.sdk.transform.process.parser.ExpressionCompiler;
 import org.apache.inlong.sdk.transform.process.parser.ParserTools;
 import org.apache.inlong.sdk.transform.process.parser.ValueParser;
 
@@ -105,6 +106,14 @@ public class OperatorTools {
     }
 
     public static ValueParser buildParser(Expression expr) {
+        ExpressionCompiler compiler = ExpressionCompiler.current();
+        if (compiler != null) {
+            return compiler.buildParser(expr, () -> buildOriginParser(expr));
+        }
+        return buildOriginParser(expr);
+    }
+
+    private static ValueParser buildOriginParser(Expression expr) {
         if (expr instanceof Function) {
             String exprString = expr.toString();
             if (exprString.startsWith(ROOT_KEY) || exprString.startsWith(CHILD_KEY)) {
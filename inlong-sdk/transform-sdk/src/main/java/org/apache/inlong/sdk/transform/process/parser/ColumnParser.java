@@ -34,10 +34,19 @@ public class ColumnParser implements ValueParser {
 
     public ColumnParser(Column expr) {
         this.fieldName = expr.toString();
+        this.addRequiredField();
     }
 
     public ColumnParser(Function expr) {
         this.fieldName = expr.toString();
+        this.addRequiredField();
+    }
+
+    private void addRequiredField() {
+        ExpressionCompiler compiler = ExpressionCompiler.current();
+        if (compiler != null) {
+            compiler.addRequiredField(fieldName);
+        }
     }
 
     /**
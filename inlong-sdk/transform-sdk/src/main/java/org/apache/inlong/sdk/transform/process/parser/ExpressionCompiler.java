@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.process.parser;
+
+import org.apache.inlong.sdk.transform.process.Context;
+import org.apache.inlong.sdk.transform.process.function.FunctionTools;
+import org.apache.inlong.sdk.transform.process.function.arithmetic.RandFunction;
+import org.apache.inlong.sdk.transform.process.function.arithmetic.RandIntegerFunction;
+import org.apache.inlong.sdk.transform.process.function.string.UuidFunction;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.CaseExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.IntervalExpression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.SignedExpression;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * ExpressionCompiler
+ * Description: Compile the select items and where condition of a transform sql once when
+ * the processor is created. The constant sub-expressions are folded into their values, and
+ * the sub-expressions appearing more than once are parsed once per row and shared.
+ * The sub-expressions are found by building the parsers twice, the first build only counts
+ * them, and the second build replaces them. The fields referenced by the column parsers are
+ * collected to be pushed down to the source decoder.
+ */
+@Slf4j
+public class ExpressionCompiler {
+
+    private static final ThreadLocal<ExpressionCompiler> CURRENT = new ThreadLocal<>();
+    // the functions returning a different value on each call are never shared
+    private static final Set<Class<?>> NON_DETERMINISTIC_FUNCTIONS =
+            ImmutableSet.of(RandFunction.class, RandIntegerFunction.class, UuidFunction.class);
+
+    private final Context constContext;
+    private final Map<String, Integer> exprCounts = new HashMap<>();
+    private final Map<String, ValueParser> sharedParsers = new HashMap<>();
+    private final Set<String> requiredFields = new HashSet<>();
+    private boolean allFieldsRequired = false;
+    private boolean analyzing = true;
+    private int slotCount = 0;
+    private int sharedCount = 0;
+    private int foldedCount = 0;
+
+    public ExpressionCompiler(Map<String, Object> configuration) {
+        this.constContext = new Context(configuration, ImmutableMap.of());
+    }
+
+    /**
+     * Get the compiler of the current thread
+     *
+     * @return the compiler, or null if not compiling
+     */
+    public static ExpressionCompiler current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Compile the parsers built by the task
+     *
+     * @param task the task building the parsers
+     */
+    public <T extends Exception> void compile(CompileTask<T> task) throws T {
+        ExpressionCompiler former = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            this.analyzing = true;
+            task.build();
+            this.analyzing = false;
+            this.slotCount = (int) exprCounts.values().stream().filter(count -> count > 1).count();
+            task.build();
+        } finally {
+            if (former == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(former);
+            }
+        }
+        log.debug("compiled transform expressions, shared count={}, folded count={}", sharedCount, foldedCount);
+    }
+
+    /**
+     * Build the parser of the expression
+     *
+     * @param expr the expression
+     * @param builder the builder of the original parser
+     * @return the compiled parser
+     */
+    public ValueParser buildParser(Expression expr, Supplier<ValueParser> builder) {
+        if (expr == null || isLeaf(expr)) {
+            return builder.get();
+        }
+        String exprKey = expr.toString();
+        if (analyzing) {
+            exprCounts.merge(exprKey, 1, Integer::sum);
+            return builder.get();
+        }
+        ValueParser sharedParser = sharedParsers.get(exprKey);
+        if (sharedParser != null) {
+            return sharedParser;
+        }
+        ExpressionInfo exprInfo = new ExpressionInfo();
+        expr.accept(exprInfo);
+        ValueParser parser = builder.get();
+        if (exprInfo.isConstant()) {
+            try {
+                ValueParser constParser = new ConstantParser(parser.parse(null, 0, constContext));
+                foldedCount++;
+                return constParser;
+            } catch (Throwable t) {
+                // keep the expression failed for every row
+                return parser;
+            }
+        }
+        if (exprInfo.isDeterministic() && exprCounts.getOrDefault(exprKey, 0) > 1) {
+            sharedParser = new SharedParser(sharedCount, slotCount, parser);
+            sharedParsers.put(exprKey, sharedParser);
+            sharedCount++;
+            return sharedParser;
+        }
+        return parser;
+    }
+
+    public void addRequiredField(String fieldName) {
+        requiredFields.add(fieldName);
+    }
+
+    public void setAllFieldsRequired() {
+        this.allFieldsRequired = true;
+    }
+
+    /**
+     * Get the fields referenced by the compiled parsers
+     *
+     * @return the field names, or null if all fields are required
+     */
+    public Set<String> getRequiredFields() {
+        return allFieldsRequired ? null : requiredFields;
+    }
+
+    public int getSharedCount() {
+        return sharedCount;
+    }
+
+    public int getFoldedCount() {
+        return foldedCount;
+    }
+
+    private static boolean isLeaf(Expression expr) {
+        // the literals, columns and intervals are cheap to parse, and the intervals are checked by type
+        return !(expr instanceof Function
+                || expr instanceof BinaryExpression
+                || expr instanceof Parenthesis
+                || expr instanceof SignedExpression
+                || expr instanceof CaseExpression);
+    }
+
+    /**
+     * The compile task building the parsers
+     */
+    public interface CompileTask<T extends Exception> {
+
+        void build() throws T;
+    }
+
+    /**
+     * Visit the expression to find its columns and functions
+     */
+    private static class ExpressionInfo extends ExpressionVisitorAdapter {
+
+        private boolean hasColumn = false;
+        private boolean hasFunction = false;
+        private boolean deterministic = true;
+
+        @Override
+        public void visit(Column column) {
+            this.hasColumn = true;
+        }
+
+        @Override
+        public void visit(Function function) {
+            this.hasFunction = true;
+            Class<?> clazz = FunctionTools.getFunctionClass(function.getName());
+            if (clazz != null && NON_DETERMINISTIC_FUNCTIONS.contains(clazz)) {
+                this.deterministic = false;
+            }
+            super.visit(function);
+        }
+
+        @Override
+        public void visit(IntervalExpression expr) {
+            // the interval parameter may be a column
+            this.hasColumn = true;
+            super.visit(expr);
+        }
+
+        public boolean isConstant() {
+            return !hasColumn && !hasFunction;
+        }
+
+        public boolean isDeterministic() {
+            return deterministic;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.process.parser;
+
+import org.apache.inlong.sdk.transform.decode.SourceData;
+import org.apache.inlong.sdk.transform.process.Context;
+
+/**
+ * SharedParser
+ * Description: A common sub-expression of the select items and where condition,
+ * it is parsed once per row and the value is shared by the context of the row
+ */
+public class SharedParser implements ValueParser {
+
+    private final int slot;
+    private final int slotCount;
+    private final ValueParser parser;
+
+    public SharedParser(int slot, int slotCount, ValueParser parser) {
+        this.slot = slot;
+        this.slotCount = slotCount;
+        this.parser = parser;
+    }
+
+    @Override
+    public Object parse(SourceData sourceData, int rowIndex, Context context) {
+        Object[] values = context.getSharedValues(sourceData, rowIndex, slotCount);
+        Object value = values[slot];
+        if (value == Context.UNSET_VALUE) {
+            value = parser.parse(sourceData, rowIndex, context);
+            values[slot] = value;
+        }
+        return value;
+    }
+}
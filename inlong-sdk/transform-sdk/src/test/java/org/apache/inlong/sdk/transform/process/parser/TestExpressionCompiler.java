@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.process.parser;
+
+import org.apache.inlong.sdk.transform.decode.SourceDecoderFactory;
+import org.apache.inlong.sdk.transform.encode.SinkEncoderFactory;
+import org.apache.inlong.sdk.transform.pojo.FieldInfo;
+import org.apache.inlong.sdk.transform.pojo.KvSinkInfo;
+import org.apache.inlong.sdk.transform.pojo.TransformConfig;
+import org.apache.inlong.sdk.transform.process.TransformProcessor;
+import org.apache.inlong.sdk.transform.process.operator.OperatorTools;
+
+import com.google.common.collect.ImmutableMap;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class TestExpressionCompiler extends AbstractParserTestBase {
+
+    @Test
+    public void testCompile() throws Exception {
+        PlainSelect select = (PlainSelect) ((Select) CCJSqlParserUtil.parse(
+                "select 1 + 2 * 3, numeric1 + numeric2, (numeric1 + numeric2) * 2, rand() + 1, rand() + 1 "
+                        + "from source")).getSelectBody();
+        List<ValueParser> parsers = new ArrayList<>();
+        ExpressionCompiler compiler = new ExpressionCompiler(ImmutableMap.of());
+        compiler.compile(() -> {
+            parsers.clear();
+            for (SelectItem item : select.getSelectItems()) {
+                parsers.add(OperatorTools.buildParser(((SelectExpressionItem) item).getExpression()));
+            }
+        });
+        Assert.assertNull(ExpressionCompiler.current());
+        Assert.assertTrue(parsers.get(0) instanceof ConstantParser);
+        Assert.assertTrue(parsers.get(1) instanceof SharedParser);
+        Assert.assertFalse(parsers.get(3) instanceof SharedParser);
+        Assert.assertEquals(1, compiler.getSharedCount());
+        // the nested 2 * 3 is folded before 1 + 2 * 3
+        Assert.assertEquals(2, compiler.getFoldedCount());
+    }
+
+    @Test
+    public void testCompiledProcessor() throws Exception {
+        List<FieldInfo> fields = new ArrayList<>();
+        for (String name : new String[]{"const", "sum", "doubled"}) {
+            FieldInfo field = new FieldInfo();
+            field.setName(name);
+            fields.add(field);
+        }
+        KvSinkInfo sink = new KvSinkInfo("UTF-8", fields);
+        String transformSql = "select 1 + 2 * 3 as const, numeric1 + numeric2 as sum, "
+                + "(numeric1 + numeric2) * 2 as doubled from source where numeric1 + numeric2 > 2";
+        TransformConfig config = new TransformConfig(transformSql);
+        TransformProcessor<String, String> processor = TransformProcessor
+                .create(config, SourceDecoderFactory.createCsvDecoder(csvSource),
+                        SinkEncoderFactory.createKvEncoder(sink));
+        // case1: the shared sub-expression is parsed for each row
+        List<String> output = processor.transform("1|2|0|0", new HashMap<>());
+        Assert.assertEquals(1, output.size());
+        Assert.assertEquals("const=7&sum=3&doubled=6", output.get(0));
+        output = processor.transform("3|4|0|0", new HashMap<>());
+        Assert.assertEquals(1, output.size());
+        Assert.assertEquals("const=7&sum=7&doubled=14", output.get(0));
+        // case2: the shared sub-expression of the where condition
+        output = processor.transform("1|1|0|0", new HashMap<>());
+        Assert.assertEquals(0, output.size());
+    }
+}
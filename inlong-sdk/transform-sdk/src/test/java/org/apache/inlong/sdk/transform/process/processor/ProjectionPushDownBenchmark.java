@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.process.processor;
+
+import org.apache.inlong.sdk.transform.decode.SourceDecoder;
+import org.apache.inlong.sdk.transform.decode.SourceDecoderFactory;
+import org.apache.inlong.sdk.transform.encode.SinkEncoderFactory;
+import org.apache.inlong.sdk.transform.pojo.CsvSinkInfo;
+import org.apache.inlong.sdk.transform.pojo.CsvSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.FieldInfo;
+import org.apache.inlong.sdk.transform.pojo.JsonSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.KvSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.PbSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.TransformConfig;
+import org.apache.inlong.sdk.transform.process.TransformProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transform throughput of the wide records referencing two fields, with and without
+ * the projection push down to the source decoder.
+ * Run by the main method, or by the JMH runner with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionPushDownBenchmark extends AbstractProcessorTestBase {
+
+    @Param({"csv", "json", "kv", "pb"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean pushDown;
+
+    @Param({"100"})
+    public int fieldCount;
+
+    private TransformProcessor<Object, String> processor;
+    private Object input;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String[] fieldNames = new String[fieldCount];
+        StringBuilder csvBuilder = new StringBuilder();
+        StringBuilder jsonBuilder = new StringBuilder("{");
+        StringBuilder kvBuilder = new StringBuilder();
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames[i] = "f" + i;
+            String delimiter = i == 0 ? "" : "|";
+            csvBuilder.append(delimiter).append("value").append(i);
+            jsonBuilder.append(i == 0 ? "" : ",").append("\"f").append(i).append("\":\"value").append(i).append("\"");
+            kvBuilder.append(i == 0 ? "" : "&").append("f").append(i).append("=value").append(i);
+        }
+        jsonBuilder.append("}");
+        List<FieldInfo> fields = this.getTestFieldList(fieldNames);
+        CsvSinkInfo csvSink = new CsvSinkInfo("UTF-8", '|', '\\', this.getTestFieldList("f2", "f10"));
+        SourceDecoder<?> decoder;
+        String transformSql = "select f2,f10 from source";
+        switch (format) {
+            case "json":
+                decoder = SourceDecoderFactory.createJsonDecoder(new JsonSourceInfo("UTF-8", null));
+                transformSql = "select $root.f2 f2,$root.f10 f10 from source";
+                input = jsonBuilder.toString();
+                break;
+            case "kv":
+                decoder = SourceDecoderFactory.createKvDecoder(new KvSourceInfo("UTF-8", fields));
+                input = kvBuilder.toString();
+                break;
+            case "pb":
+                decoder = SourceDecoderFactory.createPbDecoder(
+                        new PbSourceInfo("UTF-8", this.getPbTestDescription(), "SdkDataRequest", "msgs"));
+                transformSql = "select $root.sid f2,$child.msg f10 from source";
+                input = this.getPbTestData();
+                break;
+            default:
+                decoder = SourceDecoderFactory.createCsvDecoder(new CsvSourceInfo("UTF-8", '|', '\\', fields));
+                input = csvBuilder.toString();
+                break;
+        }
+        processor = this.createProcessor(new TransformConfig(transformSql), decoder, csvSink);
+        if (!pushDown) {
+            decoder.pushDownRequiredFields(null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TransformProcessor<Object, String> createProcessor(TransformConfig config,
+            SourceDecoder<?> decoder, CsvSinkInfo csvSink) throws Exception {
+        return TransformProcessor.create(config, (SourceDecoder<Object>) decoder,
+                SinkEncoderFactory.createCsvEncoder(csvSink));
+    }
+
+    @Benchmark
+    public List<String> transform() {
+        return processor.transform(input);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ProjectionPushDownBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
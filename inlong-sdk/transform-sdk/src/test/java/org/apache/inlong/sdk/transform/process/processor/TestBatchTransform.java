@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.process.processor;
+
+import org.apache.inlong.sdk.transform.decode.SourceDecoderFactory;
+import org.apache.inlong.sdk.transform.encode.SinkEncoderFactory;
+import org.apache.inlong.sdk.transform.pojo.CsvSinkInfo;
+import org.apache.inlong.sdk.transform.pojo.CsvSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.FieldInfo;
+import org.apache.inlong.sdk.transform.pojo.JsonSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.KvSinkInfo;
+import org.apache.inlong.sdk.transform.pojo.TransformConfig;
+import org.apache.inlong.sdk.transform.process.TransformProcessor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestBatchTransform extends AbstractProcessorTestBase {
+
+    @Test
+    public void testCsv2KvBatch() throws Exception {
+        List<FieldInfo> fields = this.getTestFieldList("ftime", "extinfo", "cnt");
+        CsvSourceInfo csvSource = new CsvSourceInfo("UTF-8", '|', '\\', fields);
+        KvSinkInfo kvSink = new KvSinkInfo("UTF-8", this.getTestFieldList("ftime", "total"));
+        String transformSql = "select ftime,cnt + 1 as total from source where extinfo='ok'";
+        TransformProcessor<String, String> processor = TransformProcessor
+                .create(new TransformConfig(transformSql), SourceDecoderFactory.createCsvDecoder(csvSource),
+                        SinkEncoderFactory.createKvEncoder(kvSink));
+        List<String> inputs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        // more rows than the initial capacity of the batch
+        for (int i = 0; i < 40; i++) {
+            String input = "2024-04-28 00:00:" + i + "|" + (i % 3 == 0 ? "no" : "ok") + "|" + i
+                    + "\n2024-04-29 00:00:" + i + "|ok|x";
+            inputs.add(input);
+            expected.addAll(processor.transform(input));
+        }
+        List<String> output = processor.transformBatch(inputs);
+        Assert.assertEquals(expected, output);
+        Assert.assertEquals("ftime=2024-04-29 00:00:0&total=", output.get(0));
+        Assert.assertEquals("ftime=2024-04-28 00:00:1&total=2", output.get(1));
+        // case2: the empty batch
+        Assert.assertEquals(0, processor.transformBatch(new ArrayList<>()).size());
+    }
+
+    @Test
+    public void testJson2CsvBatch() throws Exception {
+        List<FieldInfo> fields = this.getTestFieldList("sid", "msg");
+        JsonSourceInfo jsonSource = new JsonSourceInfo("UTF-8", "msgs");
+        CsvSinkInfo csvSink = new CsvSinkInfo("UTF-8", '|', '\\', fields);
+        String transformSql = "select $root.sid,$child.msg from source";
+        TransformProcessor<String, String> processor = TransformProcessor
+                .create(new TransformConfig(transformSql), SourceDecoderFactory.createJsonDecoder(jsonSource),
+                        SinkEncoderFactory.createCsvEncoder(csvSink));
+        List<String> output = processor.transformBatch(Arrays.asList(
+                "{\"sid\":\"s1\",\"msgs\":[{\"msg\":\"v1\"},{\"msg\":\"v2\"}]}",
+                "{\"sid\":\"s2\",\"msgs\":[]}",
+                "{\"sid\":\"s3\",\"msgs\":[{\"msg\":\"v3\"}]}"));
+        Assert.assertEquals(Arrays.asList("s1|v1", "s1|v2", "s3|v3"), output);
+    }
+}
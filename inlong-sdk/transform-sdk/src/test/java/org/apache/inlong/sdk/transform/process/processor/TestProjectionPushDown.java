@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.process.processor;
+
+import org.apache.inlong.sdk.transform.decode.CsvSourceDecoder;
+import org.apache.inlong.sdk.transform.decode.JsonSourceDecoder;
+import org.apache.inlong.sdk.transform.decode.KvSourceDecoder;
+import org.apache.inlong.sdk.transform.decode.SourceDecoderFactory;
+import org.apache.inlong.sdk.transform.encode.SinkEncoderFactory;
+import org.apache.inlong.sdk.transform.pojo.CsvSinkInfo;
+import org.apache.inlong.sdk.transform.pojo.CsvSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.FieldInfo;
+import org.apache.inlong.sdk.transform.pojo.JsonSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.KvSinkInfo;
+import org.apache.inlong.sdk.transform.pojo.KvSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.TransformConfig;
+import org.apache.inlong.sdk.transform.process.TransformProcessor;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TestProjectionPushDown extends AbstractProcessorTestBase {
+
+    @Test
+    public void testCsvPushDown() throws Exception {
+        List<FieldInfo> srcFields = this.getTestFieldList("f1", "f2", "f3", "f4", "f5", "f6");
+        CsvSourceInfo csvSource = new CsvSourceInfo("UTF-8", '|', '\\', srcFields);
+        KvSinkInfo kvSink = new KvSinkInfo("UTF-8", this.getTestFieldList("f2", "f4"));
+        CsvSourceDecoder decoder = SourceDecoderFactory.createCsvDecoder(csvSource);
+        TransformProcessor<String, String> processor = TransformProcessor
+                .create(new TransformConfig("select f2,f4 from source where f4='d'"), decoder,
+                        SinkEncoderFactory.createKvEncoder(kvSink));
+        Assert.assertEquals(ImmutableSet.of("f2", "f4"), decoder.getRequiredFields());
+        // case1: the fields after f4 are not split
+        List<String> output = processor.transform("a|b|c|d|e|f");
+        Assert.assertEquals(1, output.size());
+        Assert.assertEquals("f2=b&f4=d", output.get(0));
+        Assert.assertNull(decoder.decode("a|b|c|d|e|f", null).getField(0, "f6"));
+        // case2: the quoted delimiter in the skipped fields
+        output = processor.transform("a|b|c|d|\"e|\nf\"|g");
+        Assert.assertEquals(1, output.size());
+        Assert.assertEquals("f2=b&f4=d", output.get(0));
+        // case3: the short line
+        output = processor.transform("a|b");
+        Assert.assertEquals(0, output.size());
+    }
+
+    @Test
+    public void testCsvIndexPushDown() throws Exception {
+        CsvSourceInfo csvSource = new CsvSourceInfo("UTF-8", '|', '\\', null);
+        CsvSinkInfo csvSink = new CsvSinkInfo("UTF-8", '|', '\\', this.getTestFieldList("f1", "f3"));
+        CsvSourceDecoder decoder = SourceDecoderFactory.createCsvDecoder(csvSource);
+        TransformProcessor<String, String> processor = TransformProcessor
+                .create(new TransformConfig("select $1 f1,$3 f3 from source"), decoder,
+                        SinkEncoderFactory.createCsvEncoder(csvSink));
+        List<String> output = processor.transform("a|b|c|d|e\nf|g|h|i");
+        Assert.assertEquals(2, output.size());
+        Assert.assertEquals("a|c", output.get(0));
+        Assert.assertEquals("f|h", output.get(1));
+        Assert.assertNull(decoder.decode("a|b|c|d|e", null).getField(0, "$4"));
+    }
+
+    @Test
+    public void testJsonPushDown() throws Exception {
+        JsonSourceInfo jsonSource = new JsonSourceInfo("UTF-8", "msgs");
+        CsvSinkInfo csvSink = new CsvSinkInfo("UTF-8", '|', '\\', this.getTestFieldList("sid", "msg"));
+        JsonSourceDecoder decoder = SourceDecoderFactory.createJsonDecoder(jsonSource);
+        TransformProcessor<String, String> processor = TransformProcessor
+                .create(new TransformConfig("select $root.sid,$child.msg from source"), decoder,
+                        SinkEncoderFactory.createCsvEncoder(csvSink));
+        String srcString = "{\"ext\":{\"a\":[1,{\"b\":\"c\"}],\"d\":null},\"sid\":\"sid1\","
+                + "\"msgs\":[{\"msg\":\"v1\",\"ext\":[true]},{\"msg\":\"v2\"}],\"tail\":\"x\"}";
+        List<String> output = processor.transform(srcString);
+        Assert.assertEquals(2, output.size());
+        Assert.assertEquals("sid1|v1", output.get(0));
+        Assert.assertEquals("sid1|v2", output.get(1));
+        Assert.assertEquals("", decoder.decode(srcString, null).getField(0, "$root.tail"));
+    }
+
+    @Test
+    public void testKvPushDown() throws Exception {
+        List<FieldInfo> srcFields = this.getTestFieldList("k1", "k2", "k3");
+        KvSourceInfo kvSource = new KvSourceInfo("UTF-8", srcFields);
+        KvSinkInfo kvSink = new KvSinkInfo("UTF-8", this.getTestFieldList("k3"));
+        KvSourceDecoder decoder = SourceDecoderFactory.createKvDecoder(kvSource);
+        TransformProcessor<String, String> processor = TransformProcessor
+                .create(new TransformConfig("select k3 from source"), decoder,
+                        SinkEncoderFactory.createKvEncoder(kvSink));
+        List<String> output = processor.transform("k1=v1&k2=v2&k3=v3");
+        Assert.assertEquals(1, output.size());
+        Assert.assertEquals("k3=v3", output.get(0));
+        Assert.assertNull(decoder.decode("k1=v1&k2=v2&k3=v3", null).getField(0, "k1"));
+    }
+
+    @Test
+    public void testSharedDecoder() throws Exception {
+        List<FieldInfo> srcFields = this.getTestFieldList("f1", "f2", "f3", "f4");
+        CsvSourceInfo csvSource = new CsvSourceInfo("UTF-8", '|', '\\', srcFields);
+        CsvSourceDecoder decoder = SourceDecoderFactory.createCsvDecoder(csvSource);
+        TransformProcessor<String, String> processor1 = TransformProcessor
+                .create(new TransformConfig("select f1 from source"), decoder,
+                        SinkEncoderFactory.createKvEncoder(new KvSinkInfo("UTF-8", this.getTestFieldList("f1"))));
+        TransformProcessor<String, String> processor2 = TransformProcessor
+                .create(new TransformConfig("select f3 from source"), decoder,
+                        SinkEncoderFactory.createKvEncoder(new KvSinkInfo("UTF-8", this.getTestFieldList("f3"))));
+        // case1: the fields of both processors are kept
+        Assert.assertEquals(ImmutableSet.of("f1", "f3"), decoder.getRequiredFields());
+        Assert.assertEquals("f1=a", processor1.transform("a|b|c|d").get(0));
+        Assert.assertEquals("f3=c", processor2.transform("a|b|c|d").get(0));
+        // case2: select * requires all fields
+        TransformProcessor
+                .create(new TransformConfig("select * from source"), decoder,
+                        SinkEncoderFactory.createKvEncoder(new KvSinkInfo("UTF-8", srcFields)));
+        Assert.assertNull(decoder.getRequiredFields());
+        Assert.assertEquals("d", decoder.decode("a|b|c|d", null).getField(0, "f4"));
+    }
+}
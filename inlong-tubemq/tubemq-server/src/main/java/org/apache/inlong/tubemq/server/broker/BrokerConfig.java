@@ -137,6 +137,27 @@ public class BrokerConfig extends AbstractFileConfig {
             TServerConstants.CFG_DEFAULT_GROUP_OFFSET_SCAN_DUR;
     // whether to enable the memory cache storage, the default is true, open the memory cache
     private boolean enableMemStore = true;
+    // whether to read file messages by contiguous data region, the default is false
+    private boolean enableFileRegionRead = false;
+    // whether to append messages through the store's single appender thread, the default is false
+    private boolean enableAppendPipeline = false;
+    // whether to group the threshold flushes of stores on the same disk, the default is false
+    private boolean enableGroupFlush = false;
+    // the max delay of a grouped flush request
+    private long groupFlushLatencyMs = TServerConstants.CFG_DEF_GROUP_FLUSH_LATENCY_MS;
+    // whether to offload the sealed segments to the cold tier, the default is false
+    private boolean enableColdTier = false;
+    // the cold tier directory
+    private String coldTierPath = "";
+    // the min duration a sealed segment kept on local disk before offloaded
+    private long coldTierOffloadDelayMs = TServerConstants.CFG_DEF_COLD_TIER_OFFLOAD_DELAY_MS;
+    // whether to append the committed offsets to the journal instead of rewriting the offset file,
+    // the default is false
+    private boolean enableOffsetJournal = false;
+    // the max duration between two compactions of the offset journal
+    private long offsetJournalCompactMs = TServerConstants.CFG_DEF_OFFSET_JOURNAL_COMPACT_MS;
+    // the offset journal size that triggers the compaction
+    private long offsetJournalMaxSize = TServerConstants.CFG_DEF_OFFSET_JOURNAL_MAX_SIZE;
 
     public BrokerConfig() {
         super();
@@ -146,6 +167,46 @@ public class BrokerConfig extends AbstractFileConfig {
         return enableMemStore;
     }
 
+    public boolean isEnableFileRegionRead() {
+        return enableFileRegionRead;
+    }
+
+    public boolean isEnableAppendPipeline() {
+        return enableAppendPipeline;
+    }
+
+    public boolean isEnableGroupFlush() {
+        return enableGroupFlush;
+    }
+
+    public long getGroupFlushLatencyMs() {
+        return groupFlushLatencyMs;
+    }
+
+    public boolean isEnableColdTier() {
+        return enableColdTier;
+    }
+
+    public String getColdTierPath() {
+        return coldTierPath;
+    }
+
+    public long getColdTierOffloadDelayMs() {
+        return coldTierOffloadDelayMs;
+    }
+
+    public boolean isEnableOffsetJournal() {
+        return enableOffsetJournal;
+    }
+
+    public long getOffsetJournalCompactMs() {
+        return offsetJournalCompactMs;
+    }
+
+    public long getOffsetJournalMaxSize() {
+        return offsetJournalMaxSize;
+    }
+
     public boolean isUpdateConsumerOffsets() {
         return this.updateConsumerOffsets;
     }
@@ -459,6 +520,47 @@ public class BrokerConfig extends AbstractFileConfig {
         if (TStringUtils.isNotBlank(brokerSect.get("enableMemStore"))) {
             this.enableMemStore = this.getBoolean(brokerSect, "enableMemStore");
         }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableFileRegionRead"))) {
+            this.enableFileRegionRead = this.getBoolean(brokerSect, "enableFileRegionRead");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableAppendPipeline"))) {
+            this.enableAppendPipeline = this.getBoolean(brokerSect, "enableAppendPipeline");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableGroupFlush"))) {
+            this.enableGroupFlush = this.getBoolean(brokerSect, "enableGroupFlush");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("groupFlushLatencyMs"))) {
+            this.groupFlushLatencyMs =
+                    MixedUtils.mid(getLong(brokerSect, "groupFlushLatencyMs"),
+                            TServerConstants.CFG_MIN_GROUP_FLUSH_LATENCY_MS,
+                            TServerConstants.CFG_MAX_GROUP_FLUSH_LATENCY_MS);
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableColdTier"))) {
+            this.enableColdTier = this.getBoolean(brokerSect, "enableColdTier");
+        }
+        if (this.enableColdTier) {
+            if (TStringUtils.isBlank(brokerSect.get("coldTierPath"))) {
+                throw new IllegalArgumentException(new StringBuilder(256)
+                        .append("coldTierPath is null or Blank in ")
+                        .append(SECT_TOKEN_BROKER).append(" section!").toString());
+            }
+            this.coldTierPath = brokerSect.get("coldTierPath").trim();
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("coldTierOffloadDelayMs"))) {
+            this.coldTierOffloadDelayMs = Math.max(getLong(brokerSect, "coldTierOffloadDelayMs"),
+                    TServerConstants.CFG_MIN_COLD_TIER_OFFLOAD_DELAY_MS);
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableOffsetJournal"))) {
+            this.enableOffsetJournal = this.getBoolean(brokerSect, "enableOffsetJournal");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("offsetJournalCompactMs"))) {
+            this.offsetJournalCompactMs = Math.max(getLong(brokerSect, "offsetJournalCompactMs"),
+                    TServerConstants.CFG_MIN_OFFSET_JOURNAL_COMPACT_MS);
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("offsetJournalMaxSize"))) {
+            this.offsetJournalMaxSize = Math.max(getLong(brokerSect, "offsetJournalMaxSize"),
+                    TServerConstants.CFG_MIN_OFFSET_JOURNAL_MAX_SIZE);
+        }
     }
 
     public long getLogClearupDurationMs() {
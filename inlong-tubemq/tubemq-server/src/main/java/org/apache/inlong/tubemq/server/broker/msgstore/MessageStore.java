@@ -25,7 +25,9 @@ import org.apache.inlong.tubemq.corebase.utils.ThreadUtils;
 import org.apache.inlong.tubemq.corebase.utils.Tuple3;
 import org.apache.inlong.tubemq.server.broker.BrokerConfig;
 import org.apache.inlong.tubemq.server.broker.metadata.TopicMetadata;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.ColdTierStorage;
 import org.apache.inlong.tubemq.server.broker.msgstore.disk.GetMessageResult;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.GroupCommitFlusher;
 import org.apache.inlong.tubemq.server.broker.msgstore.disk.MsgFileStore;
 import org.apache.inlong.tubemq.server.broker.msgstore.disk.Segment;
 import org.apache.inlong.tubemq.server.broker.msgstore.mem.GetCacheMsgResult;
@@ -34,6 +36,7 @@ import org.apache.inlong.tubemq.server.broker.nodeinfo.ConsumerNodeInfo;
 import org.apache.inlong.tubemq.server.broker.stats.MsgStoreStatsHolder;
 import org.apache.inlong.tubemq.server.broker.stats.TrafficInfo;
 import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+import org.apache.inlong.tubemq.server.common.TServerConstants;
 import org.apache.inlong.tubemq.server.common.utils.AppendResult;
 import org.apache.inlong.tubemq.server.common.utils.IdWorker;
 
@@ -105,6 +108,8 @@ public class MessageStore implements Closeable {
             new AtomicInteger(this.fileLowReqMaxFilterIndexReadCnt.get() * DataStoreUtils.STORE_INDEX_HEAD_LEN);
     private MsgMemStore msgMemStore;
     private MsgMemStore msgMemStoreBeingFlush;
+    // single appender pipeline, null if appending in producer threads
+    private MsgAppendPipeline appendPipeline = null;
 
     /**
      * MessageStore, initial message store block
@@ -169,6 +174,11 @@ public class MessageStore implements Closeable {
             this.msgMemStoreBeingFlush = new MsgMemStore(this.writeCacheMaxSize, this.writeCacheMaxCnt,
                     this.msgFileStore.getDataMaxOffset(), this.msgFileStore.getIndexMaxOffset());
             this.lastMemFlushTime.set(System.currentTimeMillis());
+            if (this.tubeConfig.isEnableAppendPipeline()) {
+                this.appendPipeline = new MsgAppendPipeline(this,
+                        TServerConstants.CFG_STORE_APPEND_RING_SIZE,
+                        TServerConstants.CFG_STORE_APPEND_MAX_BATCH_CNT);
+            }
         }
     }
 
@@ -208,6 +218,8 @@ public class MessageStore implements Closeable {
             if (reqSwitch > 1) {
                 // in read memory situation, read main memory or backup memory by consumer's config.
                 long maxIndexOffset = TBaseConstants.META_VALUE_UNDEFINED;
+                HashMap<String, TrafficInfo> countMap = new HashMap<>();
+                List<ClientBroker.TransferedMessage> transferedMessageList = new ArrayList<>();
                 if (requestOffset >= this.msgFileStore.getIndexMaxOffset()) {
                     this.writeCacheMutex.readLock().lock();
                     try {
@@ -234,6 +246,19 @@ public class MessageStore implements Closeable {
                                                 consumerNodeInfo.isFilterConsume(),
                                                 consumerNodeInfo.getFilterCondCodeSet(), reqRcvTime);
                             }
+                            // the cached messages are slices of the memory cache,
+                            // convert them before the cache can be swapped and reset.
+                            if (memMsgRlt.isSuccess && !memMsgRlt.cacheMsgList.isEmpty()) {
+                                final StringBuilder strBuffer = new StringBuilder(512);
+                                for (ByteBuffer dataBuffer : memMsgRlt.cacheMsgList) {
+                                    ClientBroker.TransferedMessage transferedMessage =
+                                            DataStoreUtils.getTransferMsg(dataBuffer, false,
+                                                    countMap, statsKeyBase, strBuffer);
+                                    if (transferedMessage != null) {
+                                        transferedMessageList.add(transferedMessage);
+                                    }
+                                }
+                            }
                         }
                     } finally {
                         this.writeCacheMutex.readLock().unlock();
@@ -242,22 +267,6 @@ public class MessageStore implements Closeable {
                 if (inMemCache) {
                     // return not found when data is under memory sink operation.
                     if (memMsgRlt.isSuccess) {
-                        HashMap<String, TrafficInfo> countMap =
-                                new HashMap<>();
-                        List<ClientBroker.TransferedMessage> transferedMessageList =
-                                new ArrayList<>();
-                        if (!memMsgRlt.cacheMsgList.isEmpty()) {
-                            final StringBuilder strBuffer = new StringBuilder(512);
-                            for (ByteBuffer dataBuffer : memMsgRlt.cacheMsgList) {
-                                ClientBroker.TransferedMessage transferedMessage =
-                                        DataStoreUtils.getTransferMsg(dataBuffer,
-                                                dataBuffer.array().length,
-                                                countMap, statsKeyBase, strBuffer);
-                                if (transferedMessage != null) {
-                                    transferedMessageList.add(transferedMessage);
-                                }
-                            }
-                        }
                         GetMessageResult getResult =
                                 new GetMessageResult(true, 0, memMsgRlt.errInfo, requestOffset,
                                         memMsgRlt.dltOffset, memMsgRlt.lastRdDataOff,
@@ -430,33 +439,15 @@ public class MessageStore implements Closeable {
         indexBuffer.putLong(receivedTime);
         indexBuffer.flip();
         appendResult.putReceivedInfo(messageId, receivedTime);
-        boolean appendSuss = true;
         long startTime = System.currentTimeMillis();
         if (this.tubeConfig.isEnableMemStore()) {
-            do {
-                this.writeCacheMutex.readLock().lock();
-                try {
-                    appendSuss = this.msgMemStore.appendMsg(msgStoreStatsHolder,
-                            partitionId, msgTypeCode, receivedTime, indexBuffer,
-                            msgBufLen, dataBuffer, appendResult);
-                } finally {
-                    this.writeCacheMutex.readLock().unlock();
-                }
-                if (appendSuss) {
-                    msgStoreStatsHolder.addMsgWriteSuccess(msgBufLen,
-                            System.currentTimeMillis() - startTime);
-                    return true;
-                }
-                if (triggerFlushAndAddMsg(true, false, partitionId, msgTypeCode,
-                        receivedTime, indexBuffer, msgBufLen, dataBuffer, appendResult)) {
-                    msgStoreStatsHolder.addMsgWriteSuccess(msgBufLen,
-                            System.currentTimeMillis() - startTime);
-                    return true;
-                }
-                ThreadUtils.sleep(waitRetryMs);
-            } while (count-- >= 0);
-            msgStoreStatsHolder.addMsgWriteFailure();
-            return false;
+            if (this.appendPipeline != null) {
+                return this.appendPipeline.append(new MsgAppendPipeline.AppendRequest(
+                        partitionId, msgTypeCode, receivedTime, indexBuffer, msgBufLen,
+                        dataBuffer, appendResult, startTime, count, waitRetryMs));
+            }
+            return appendToMemStore(partitionId, msgTypeCode, receivedTime, indexBuffer,
+                    msgBufLen, dataBuffer, appendResult, startTime, count, waitRetryMs);
         } else {
             StringBuilder strBuffer =
                     new StringBuilder(TBaseConstants.BUILDER_DEFAULT_SIZE);
@@ -475,10 +466,121 @@ public class MessageStore implements Closeable {
         }
     }
 
+    /**
+     * Append a batch of messages to memory store, called by the append pipeline.
+     * The messages are appended under one cache lock acquisition until the cache is full,
+     * the rest are appended one by one with cache flush and retry, keeping their order.
+     *
+     * @param batch    the append requests
+     */
+    void appendMsgBatch(List<MsgAppendPipeline.AppendRequest> batch) {
+        int appendedCnt = 0;
+        MsgAppendPipeline.AppendRequest request;
+        this.writeCacheMutex.readLock().lock();
+        try {
+            for (; appendedCnt < batch.size(); appendedCnt++) {
+                request = batch.get(appendedCnt);
+                if (!this.msgMemStore.appendMsg(msgStoreStatsHolder,
+                        request.getPartitionId(), request.getKeyCode(),
+                        request.getReceivedTime(), request.getIndexEntry(),
+                        request.getDataLength(), request.getDataEntry(),
+                        request.getAppendResult())) {
+                    break;
+                }
+            }
+        } finally {
+            this.writeCacheMutex.readLock().unlock();
+        }
+        for (int i = 0; i < appendedCnt; i++) {
+            request = batch.get(i);
+            msgStoreStatsHolder.addMsgWriteSuccess(request.getDataLength(),
+                    System.currentTimeMillis() - request.getStartTime());
+            request.complete(true, null);
+        }
+        for (int i = appendedCnt; i < batch.size(); i++) {
+            request = batch.get(i);
+            try {
+                request.complete(appendToMemStore(request.getPartitionId(),
+                        request.getKeyCode(), request.getReceivedTime(),
+                        request.getIndexEntry(), request.getDataLength(),
+                        request.getDataEntry(), request.getAppendResult(),
+                        request.getStartTime(), request.getRetryCount(),
+                        request.getWaitRetryMs()), null);
+            } catch (Throwable e) {
+                request.complete(false, e);
+            }
+        }
+    }
+
+    private boolean appendToMemStore(int partitionId, int msgTypeCode,
+            long receivedTime, ByteBuffer indexBuffer,
+            int msgBufLen, ByteBuffer dataBuffer,
+            AppendResult appendResult, long startTime,
+            int count, long waitRetryMs) throws IOException {
+        boolean appendSuss;
+        do {
+            this.writeCacheMutex.readLock().lock();
+            try {
+                appendSuss = this.msgMemStore.appendMsg(msgStoreStatsHolder,
+                        partitionId, msgTypeCode, receivedTime, indexBuffer,
+                        msgBufLen, dataBuffer, appendResult);
+            } finally {
+                this.writeCacheMutex.readLock().unlock();
+            }
+            if (appendSuss) {
+                msgStoreStatsHolder.addMsgWriteSuccess(msgBufLen,
+                        System.currentTimeMillis() - startTime);
+                return true;
+            }
+            if (triggerFlushAndAddMsg(true, false, partitionId, msgTypeCode,
+                    receivedTime, indexBuffer, msgBufLen, dataBuffer, appendResult)) {
+                msgStoreStatsHolder.addMsgWriteSuccess(msgBufLen,
+                        System.currentTimeMillis() - startTime);
+                return true;
+            }
+            ThreadUtils.sleep(waitRetryMs);
+        } while (count-- >= 0);
+        msgStoreStatsHolder.addMsgWriteFailure();
+        return false;
+    }
+
     public void getMsgStoreStatsInfo(boolean needRefresh, StringBuilder strBuff) {
         msgStoreStatsHolder.getMsgStoreStatsInfo(needRefresh, strBuff);
     }
 
+    /**
+     * Get the broker-wide group flusher of file stores.
+     *
+     * @return the group flusher, null if group flush is disabled
+     */
+    public GroupCommitFlusher getGroupCommitFlusher() {
+        return (msgStoreMgr == null) ? null : msgStoreMgr.getGroupCommitFlusher();
+    }
+
+    /**
+     * Get the cold tier storage of the sealed segments.
+     *
+     * @return the cold tier storage, null if the cold tier is disabled
+     */
+    public ColdTierStorage getColdTierStorage() {
+        return (msgStoreMgr == null) ? null : msgStoreMgr.getColdTierStorage();
+    }
+
+    /**
+     * Offload the sealed file segments to the cold tier
+     *
+     * @param offloadDelayMs   the min duration a sealed segment kept on local disk
+     * @return the count of offloaded segments
+     */
+    public int runOffloadPolicy(long offloadDelayMs) {
+        if (this.closed.get()) {
+            throw new IllegalStateException(new StringBuilder(512)
+                    .append("[Data Store] Closed MessageStore for storeKey ")
+                    .append(this.storeKey).toString());
+        }
+        return msgFileStore.offloadSealedSegments(offloadDelayMs);
+    }
+
     public MsgStoreStatsHolder getMsgStoreStatsHolder() {
         return this.msgStoreStatsHolder;
     }
@@ -576,6 +678,9 @@ public class MessageStore implements Closeable {
                     .append(this.storeKey).toString());
             strBuffer.delete(0, strBuffer.length());
             if (tubeConfig.isEnableMemStore()) {
+                if (this.appendPipeline != null) {
+                    this.appendPipeline.close();
+                }
                 ThreadUtils.sleep(100);
                 flush(strBuffer);
                 this.msgMemStore.close();
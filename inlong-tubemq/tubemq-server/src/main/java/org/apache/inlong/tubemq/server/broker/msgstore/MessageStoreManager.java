@@ -26,11 +26,16 @@ import org.apache.inlong.tubemq.server.broker.TubeBroker;
 import org.apache.inlong.tubemq.server.broker.exception.StartupException;
 import org.apache.inlong.tubemq.server.broker.metadata.MetadataManager;
 import org.apache.inlong.tubemq.server.broker.metadata.TopicMetadata;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.ColdSegment;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.ColdTierStorage;
 import org.apache.inlong.tubemq.server.broker.msgstore.disk.GetMessageResult;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.GroupCommitFlusher;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.LocalDirColdTierStorage;
 import org.apache.inlong.tubemq.server.broker.nodeinfo.ConsumerNodeInfo;
 import org.apache.inlong.tubemq.server.broker.offset.topicpub.TopicPubInfo;
 import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
 import org.apache.inlong.tubemq.server.broker.utils.TopicPubStoreInfo;
+import org.apache.inlong.tubemq.server.common.TServerConstants;
 import org.apache.inlong.tubemq.server.common.TStatusConstants;
 
 import org.slf4j.Logger;
@@ -83,6 +88,12 @@ public class MessageStoreManager implements StoreService {
     private final ScheduledExecutorService unFlushMemScheduler;
     // max transfer size.
     private final int maxMsgTransferSize;
+    // broker-wide group flusher of file stores, null if disabled
+    private final GroupCommitFlusher groupCommitFlusher;
+    // cold tier storage of the sealed segments, null if disabled
+    private final ColdTierStorage coldTierStorage;
+    // cold tier offload scheduler, null if the cold tier is disabled.
+    private final ScheduledExecutorService coldTierOffloadScheduler;
     // the status that is deleting topic.
     private final AtomicBoolean isRemovingTopic = new AtomicBoolean(false);
 
@@ -102,6 +113,13 @@ public class MessageStoreManager implements StoreService {
         this.isRemovingTopic.set(false);
         this.maxMsgTransferSize =
                 Math.min(tubeConfig.getTransferSize(), DataStoreUtils.MAX_MSG_TRANSFER_SIZE);
+        this.groupCommitFlusher = tubeConfig.isEnableGroupFlush()
+                ? new GroupCommitFlusher(tubeConfig.getGroupFlushLatencyMs(),
+                        TServerConstants.CFG_GROUP_FLUSH_MAX_BATCH_CNT)
+                : null;
+        this.coldTierStorage = tubeConfig.isEnableColdTier()
+                ? new LocalDirColdTierStorage(new File(tubeConfig.getColdTierPath()))
+                : null;
         this.metadataManager.addPropertyChangeListener("topicConfigMap", new PropertyChangeListener() {
 
             @Override
@@ -136,6 +154,16 @@ public class MessageStoreManager implements StoreService {
                         return new Thread(r, "Broker Log Mem Flush Thread");
                     }
                 });
+        // the upload of the sealed segments runs apart from the log clear,
+        // so a slow upload does not delay the expiry of the other topics
+        this.coldTierOffloadScheduler = (this.coldTierStorage == null) ? null
+                : Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, "Broker Cold Tier Offload Thread");
+                    }
+                });
 
     }
 
@@ -164,6 +192,13 @@ public class MessageStoreManager implements StoreService {
                 tubeConfig.getLogFlushMemDurMs(),
                 TimeUnit.MILLISECONDS);
 
+        if (this.coldTierOffloadScheduler != null) {
+            this.coldTierOffloadScheduler.scheduleWithFixedDelay(new ColdTierOffloadRunner(),
+                    tubeConfig.getLogClearupDurationMs(),
+                    tubeConfig.getLogClearupDurationMs(),
+                    TimeUnit.MILLISECONDS);
+        }
+
     }
 
     @Override
@@ -176,6 +211,13 @@ public class MessageStoreManager implements StoreService {
             this.logClearScheduler.shutdownNow();
             this.unFlushDiskScheduler.shutdownNow();
             this.unFlushMemScheduler.shutdownNow();
+            if (this.coldTierOffloadScheduler != null) {
+                this.coldTierOffloadScheduler.shutdownNow();
+            }
+            // flush the queued requests before closing stores
+            if (this.groupCommitFlusher != null) {
+                this.groupCommitFlusher.close();
+            }
             for (Map.Entry<String, ConcurrentHashMap<Integer, MessageStore>> entry : this.dataStores.entrySet()) {
                 if (entry.getValue() != null) {
                     ConcurrentHashMap<Integer, MessageStore> subMap = entry.getValue();
@@ -193,6 +235,9 @@ public class MessageStoreManager implements StoreService {
                 }
             }
             this.dataStores.clear();
+            if (this.coldTierStorage != null) {
+                this.coldTierStorage.close();
+            }
             logger.info("[Store Manager] Store Manager stopped!");
         }
     }
@@ -395,6 +440,14 @@ public class MessageStoreManager implements StoreService {
         return maxMsgTransferSize;
     }
 
+    public GroupCommitFlusher getGroupCommitFlusher() {
+        return groupCommitFlusher;
+    }
+
+    public ColdTierStorage getColdTierStorage() {
+        return coldTierStorage;
+    }
+
     public Map<String, ConcurrentHashMap<Integer, MessageStore>> getMessageStores() {
         return Collections.unmodifiableMap(this.dataStores);
     }
@@ -654,6 +707,15 @@ public class MessageStoreManager implements StoreService {
         File targetFile = new File(filepath);
         if (targetFile.exists()) {
             if (targetFile.isFile()) {
+                if (this.coldTierStorage != null
+                        && targetFile.getName().endsWith(DataStoreUtils.COLD_SEGMENT_FILE_SUFFIX)) {
+                    // delete the cold tier object of the offloaded segment with its stub
+                    try {
+                        ColdSegment.deleteStub(targetFile, this.coldTierStorage);
+                    } catch (IOException e) {
+                        logger.warn("[Remove Topic] delete cold tier object error : ", e);
+                    }
+                }
                 targetFile.delete();
             } else if (targetFile.isDirectory()) {
                 File[] files = targetFile.listFiles();
@@ -705,6 +767,45 @@ public class MessageStoreManager implements StoreService {
         }
     }
 
+    private class ColdTierOffloadRunner implements Runnable {
+
+        public ColdTierOffloadRunner() {
+            //
+        }
+
+        @Override
+        public void run() {
+            StringBuilder sBuilder = new StringBuilder(256);
+            int offloadCnt = 0;
+            for (Map<Integer, MessageStore> storeMap : dataStores.values()) {
+                if (storeMap == null || storeMap.isEmpty()) {
+                    continue;
+                }
+                for (MessageStore msgStore : storeMap.values()) {
+                    if (msgStore == null) {
+                        continue;
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    try {
+                        offloadCnt += msgStore.runOffloadPolicy(tubeConfig.getColdTierOffloadDelayMs());
+                    } catch (final Throwable e) {
+                        logger.error(sBuilder.append("Try to run offload policy with ")
+                                .append(msgStore.getStoreKey())
+                                .append("'s log file failed").toString(), e);
+                        sBuilder.delete(0, sBuilder.length());
+                    }
+                }
+            }
+            if (offloadCnt > 0) {
+                logger.info(sBuilder.append("Cold Tier Offload Scheduler offloaded ")
+                        .append(offloadCnt).append(" segments to cold tier!").toString());
+                sBuilder.delete(0, sBuilder.length());
+            }
+        }
+    }
+
     private class LogClearRunner implements Runnable {
 
         public LogClearRunner() {
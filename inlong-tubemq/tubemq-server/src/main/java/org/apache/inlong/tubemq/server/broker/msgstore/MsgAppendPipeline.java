@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore;
+
+import org.apache.inlong.tubemq.server.common.utils.AppendResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer append pipeline of a message store.
+ * Producer threads put append requests into a bounded lock-free multi-producer
+ * single-consumer ring, one appender thread drains the ring in batches into the
+ * store's memory cache, so producers no longer hand off the cache locks to each other.
+ */
+public class MsgAppendPipeline implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MsgAppendPipeline.class);
+    private static final long APPENDER_IDLE_WAIT_NS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long PRODUCER_WAIT_NS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_RING_MIN_WAIT_NS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long FULL_RING_MAX_WAIT_NS = TimeUnit.MILLISECONDS.toNanos(1);
+    private final MessageStore messageStore;
+    private final int maxBatchCnt;
+    // ring slots, the sequence of slot i is i + n * ringSize when writable
+    // and i + n * ringSize + 1 when readable
+    private final int ringMask;
+    private final AppendRequest[] ringSlots;
+    private final AtomicLongArray slotSeqs;
+    private final AtomicLong producerSeq = new AtomicLong(0);
+    // only accessed by the appender thread
+    private long consumerSeq = 0;
+    private final Thread appenderThread;
+    private volatile boolean appenderIdle = false;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    // the producers past the closed check and not yet published,
+    // the appender exits only when none is left after close
+    private final AtomicInteger inflightProducers = new AtomicInteger(0);
+
+    /**
+     * MsgAppendPipeline, start the appender thread of message store
+     *
+     * @param messageStore    the message store to append
+     * @param ringSize        the ring capacity, rounded up to a power of 2
+     * @param maxBatchCnt     the max request count drained in one batch
+     */
+    public MsgAppendPipeline(MessageStore messageStore, int ringSize, int maxBatchCnt) {
+        int capacity = 2;
+        while (capacity < ringSize) {
+            capacity <<= 1;
+        }
+        this.messageStore = messageStore;
+        this.maxBatchCnt = Math.max(1, maxBatchCnt);
+        this.ringMask = capacity - 1;
+        this.ringSlots = new AppendRequest[capacity];
+        this.slotSeqs = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.slotSeqs.set(i, i);
+        }
+        this.appenderThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                runAppend();
+            }
+        }, "Store_Appender_" + messageStore.getStoreKey());
+        this.appenderThread.setDaemon(true);
+        this.appenderThread.start();
+    }
+
+    /**
+     * Put the request into the ring and wait for the appender to process it.
+     *
+     * @param request       the append request
+     * @return              whether the message was appended
+     * @throws IOException  the exception during processing
+     */
+    public boolean append(AppendRequest request) throws IOException {
+        this.inflightProducers.incrementAndGet();
+        try {
+            if (this.closed.get()) {
+                throw new IllegalStateException(new StringBuilder(512)
+                        .append("[Data Store] Closed append pipeline for storeKey ")
+                        .append(messageStore.getStoreKey()).toString());
+            }
+            publish(request);
+        } finally {
+            this.inflightProducers.decrementAndGet();
+        }
+        if (this.appenderIdle) {
+            LockSupport.unpark(this.appenderThread);
+        }
+        return request.awaitResult(this.appenderThread);
+    }
+
+    private void publish(AppendRequest request) throws IOException {
+        long seq;
+        int index;
+        long slotSeq;
+        long fullWaitNs = FULL_RING_MIN_WAIT_NS;
+        while (true) {
+            seq = this.producerSeq.get();
+            index = (int) (seq & this.ringMask);
+            slotSeq = this.slotSeqs.get(index);
+            if (slotSeq == seq) {
+                if (this.producerSeq.compareAndSet(seq, seq + 1)) {
+                    break;
+                }
+            } else if (slotSeq < seq) {
+                // the ring is full, back off until the appender releases slots
+                if (!this.appenderThread.isAlive()) {
+                    throw new IOException("[Data Store] Append pipeline stopped for storeKey "
+                            + messageStore.getStoreKey());
+                }
+                LockSupport.unpark(this.appenderThread);
+                LockSupport.parkNanos(this, fullWaitNs);
+                fullWaitNs = Math.min(fullWaitNs << 1, FULL_RING_MAX_WAIT_NS);
+            }
+        }
+        this.ringSlots[index] = request;
+        this.slotSeqs.set(index, seq + 1);
+    }
+
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            LockSupport.unpark(this.appenderThread);
+            try {
+                this.appenderThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runAppend() {
+        final List<AppendRequest> batch = new ArrayList<>(this.maxBatchCnt);
+        while (true) {
+            batch.clear();
+            drainTo(batch);
+            if (batch.isEmpty()) {
+                if (this.closed.get() && this.inflightProducers.get() == 0
+                        && this.producerSeq.get() == this.consumerSeq) {
+                    break;
+                }
+                this.appenderIdle = true;
+                if (!isReadable(this.consumerSeq)) {
+                    LockSupport.parkNanos(this, APPENDER_IDLE_WAIT_NS);
+                }
+                this.appenderIdle = false;
+                continue;
+            }
+            try {
+                this.messageStore.appendMsgBatch(batch);
+            } catch (Throwable e) {
+                logger.error("[Data Store] Append pipeline process failure", e);
+                for (AppendRequest request : batch) {
+                    request.complete(false, e);
+                }
+            }
+        }
+    }
+
+    private void drainTo(List<AppendRequest> batch) {
+        int index;
+        while (batch.size() < this.maxBatchCnt && isReadable(this.consumerSeq)) {
+            index = (int) (this.consumerSeq & this.ringMask);
+            batch.add(this.ringSlots[index]);
+            this.ringSlots[index] = null;
+            this.slotSeqs.set(index, this.consumerSeq + this.ringMask + 1);
+            this.consumerSeq++;
+        }
+    }
+
+    private boolean isReadable(long seq) {
+        return this.slotSeqs.get((int) (seq & this.ringMask)) == seq + 1;
+    }
+
+    /**
+     * Append request of a message, completed by the appender thread.
+     */
+    public static class AppendRequest {
+
+        private static final int STATE_PENDING = 0;
+        private static final int STATE_SUCCESS = 1;
+        private static final int STATE_FAILURE = 2;
+        private final int partitionId;
+        private final int keyCode;
+        private final long receivedTime;
+        private final ByteBuffer indexEntry;
+        private final int dataLength;
+        private final ByteBuffer dataEntry;
+        private final AppendResult appendResult;
+        private final long startTime;
+        private final int retryCount;
+        private final long waitRetryMs;
+        private final Thread waiter = Thread.currentThread();
+        private volatile int state = STATE_PENDING;
+        private Throwable failure = null;
+
+        public AppendRequest(int partitionId, int keyCode, long receivedTime,
+                ByteBuffer indexEntry, int dataLength, ByteBuffer dataEntry,
+                AppendResult appendResult, long startTime,
+                int retryCount, long waitRetryMs) {
+            this.partitionId = partitionId;
+            this.keyCode = keyCode;
+            this.receivedTime = receivedTime;
+            this.indexEntry = indexEntry;
+            this.dataLength = dataLength;
+            this.dataEntry = dataEntry;
+            this.appendResult = appendResult;
+            this.startTime = startTime;
+            this.retryCount = retryCount;
+            this.waitRetryMs = waitRetryMs;
+        }
+
+        public int getPartitionId() {
+            return partitionId;
+        }
+
+        public int getKeyCode() {
+            return keyCode;
+        }
+
+        public long getReceivedTime() {
+            return receivedTime;
+        }
+
+        public ByteBuffer getIndexEntry() {
+            return indexEntry;
+        }
+
+        public int getDataLength() {
+            return dataLength;
+        }
+
+        public ByteBuffer getDataEntry() {
+            return dataEntry;
+        }
+
+        public AppendResult getAppendResult() {
+            return appendResult;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public int getRetryCount() {
+            return retryCount;
+        }
+
+        public long getWaitRetryMs() {
+            return waitRetryMs;
+        }
+
+        /**
+         * Complete the request and wake up the waiting producer.
+         *
+         * @param isSuccess   whether the message was appended
+         * @param cause       the failure cause, or null
+         */
+        public void complete(boolean isSuccess, Throwable cause) {
+            this.failure = cause;
+            this.state = isSuccess ? STATE_SUCCESS : STATE_FAILURE;
+            LockSupport.unpark(this.waiter);
+        }
+
+        private boolean awaitResult(Thread appender) throws IOException {
+            while (this.state == STATE_PENDING) {
+                LockSupport.parkNanos(this, PRODUCER_WAIT_NS);
+                if (this.state == STATE_PENDING && !appender.isAlive()) {
+                    throw new IOException("[Data Store] Append pipeline stopped before processing");
+                }
+            }
+            if (this.failure != null) {
+                if (this.failure instanceof IOException) {
+                    throw (IOException) this.failure;
+                }
+                throw new IOException(this.failure);
+            }
+            return this.state == STATE_SUCCESS;
+        }
+    }
+}
@@ -0,0 +1,440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.corebase.utils.ServiceStatusHolder;
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
+import org.apache.inlong.tubemq.server.broker.stats.BrokerSrvStatsHolder;
+import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sealed segment offloaded to the cold tier.
+ *
+ * The segment content is read from the cold tier storage by range, only a small stub file
+ * with the segment's metadata and the sparse time index of the index segment are kept on
+ * the local disk, so that the segment is loaded again after the broker restarts.
+ *
+ * The stub format is:
+ *   magic 4 + size 8 + left append time 8 + right append time 8
+ *   + last modified time 8 + object key length 4 + object key
+ */
+public class ColdSegment implements Segment {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(ColdSegment.class);
+    private static final int COLD_STUB_MAGIC = 0x434F4C44;
+    private final long start;
+    // the original segment file, not existed on local disk
+    private final File file;
+    private final File stubFile;
+    private final SegmentType segmentType;
+    private final ColdTierStorage storage;
+    private final String objectKey;
+    private final long size;
+    private final long leftAppendTime;
+    private final long rightAppendTime;
+    private final long lastModified;
+    // sparse time index, only for index segment, null if not loaded
+    private final SegmentTimeIndex timeIndex;
+    private long expiredTime = 0;
+    private final AtomicBoolean expired = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private ColdSegment(long start, File file, SegmentType type,
+            ColdTierStorage storage, String objectKey, long size,
+            long leftAppendTime, long rightAppendTime, long lastModified) {
+        this.start = start;
+        this.file = file;
+        this.stubFile = getStubFile(file);
+        this.segmentType = type;
+        this.storage = storage;
+        this.objectKey = objectKey;
+        this.size = size;
+        this.leftAppendTime = leftAppendTime;
+        this.rightAppendTime = rightAppendTime;
+        this.lastModified = lastModified;
+        if (type == SegmentType.INDEX) {
+            SegmentTimeIndex tmpTimeIndex = new SegmentTimeIndex();
+            this.timeIndex = tmpTimeIndex.load(getTimeIndexFile(), size) ? tmpTimeIndex : null;
+        } else {
+            this.timeIndex = null;
+        }
+    }
+
+    /**
+     * Upload the sealed segment to the cold tier and write its local stub.
+     * The local segment file is kept, the caller replaces and deletes it later.
+     *
+     * @param segment      the sealed segment
+     * @param type         the segment type
+     * @param storage      the cold tier storage
+     * @param objectKey    the object key of the segment
+     * @return             the cold segment
+     * @throws IOException exception while uploading or writing the stub
+     */
+    public static ColdSegment offload(Segment segment, SegmentType type,
+            ColdTierStorage storage, String objectKey) throws IOException {
+        if (segment.isMutable()) {
+            throw new UnsupportedOperationException("[File Store] Segment is not sealed!");
+        }
+        storage.upload(objectKey, segment.getFile());
+        ColdSegment coldSegment = new ColdSegment(segment.getStart(), segment.getFile(),
+                type, storage, objectKey, segment.getCachedSize(), segment.getLeftAppendTime(),
+                segment.getRightAppendTime(), segment.getFile().lastModified());
+        try {
+            coldSegment.storeStub();
+        } catch (IOException e) {
+            // not referenced by any stub, delete the uploaded object
+            coldSegment.discard();
+            throw e;
+        }
+        return coldSegment;
+    }
+
+    /**
+     * Load the cold segment from its local stub file.
+     *
+     * @param stubFile     the stub file
+     * @param start        the segment start offset
+     * @param type         the segment type
+     * @param storage      the cold tier storage
+     * @return             the cold segment
+     * @throws IOException exception while reading the stub
+     */
+    public static ColdSegment load(File stubFile, long start,
+            SegmentType type, ColdTierStorage storage) throws IOException {
+        final String stubName = stubFile.getName();
+        final File file = new File(stubFile.getParentFile(), stubName.substring(0,
+                stubName.length() - DataStoreUtils.COLD_SEGMENT_FILE_SUFFIX.length()));
+        final ByteBuffer buffer = readStub(stubFile);
+        final long size = buffer.getLong();
+        final long leftTime = buffer.getLong();
+        final long rightTime = buffer.getLong();
+        final long lastModified = buffer.getLong();
+        return new ColdSegment(start, file, type, storage,
+                readObjectKey(buffer), size, leftTime, rightTime, lastModified);
+    }
+
+    /**
+     * Delete the stub file that is no longer used, together with its cold tier object.
+     *
+     * @param stubFile     the stub file
+     * @param storage      the cold tier storage
+     * @throws IOException exception while reading the stub
+     */
+    public static void deleteStub(File stubFile, ColdTierStorage storage) throws IOException {
+        final ByteBuffer buffer = readStub(stubFile);
+        // skip the size and the times
+        buffer.position(buffer.position() + 32);
+        final String objectKey = readObjectKey(buffer);
+        logger.info(new StringBuilder(512)
+                .append("[File Store] delete unused cold segment ")
+                .append(objectKey).toString());
+        storage.delete(objectKey);
+        stubFile.delete();
+    }
+
+    public static File getStubFile(File segmentFile) {
+        return new File(segmentFile.getParentFile(),
+                segmentFile.getName() + DataStoreUtils.COLD_SEGMENT_FILE_SUFFIX);
+    }
+
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            this.storage.release(this.objectKey);
+        }
+    }
+
+    /**
+     * Delete the cold tier object and the stub of the segment not taken in use,
+     * the local segment file and its time index are kept.
+     */
+    public void discard() {
+        this.closed.set(true);
+        this.storage.delete(this.objectKey);
+        this.stubFile.delete();
+    }
+
+    @Override
+    public void deleteFile() {
+        this.closed.set(true);
+        logger.info(new StringBuilder(512)
+                .append("[File Store] delete cold segment ")
+                .append(this.objectKey).toString());
+        this.storage.delete(this.objectKey);
+        this.stubFile.delete();
+        if (this.segmentType == SegmentType.INDEX) {
+            getTimeIndexFile().delete();
+        }
+    }
+
+    @Override
+    public long append(ByteBuffer buf, long leftTime, long rightTime) throws IOException {
+        throw new UnsupportedOperationException("[File Store] Cold Segment is immutable!");
+    }
+
+    @Override
+    public long flush(boolean force) throws IOException {
+        return this.start + this.size;
+    }
+
+    @Override
+    public long flush(boolean force, long cachedSize) throws IOException {
+        return this.start + this.size;
+    }
+
+    @Override
+    public int checkAndSetExpired(long checkTimestamp, long maxValidTimeMs) {
+        if (expired.get()) {
+            return -1;
+        }
+        if (closed.get()) {
+            return 0;
+        }
+        if (checkTimestamp - this.lastModified > maxValidTimeMs) {
+            if (expired.compareAndSet(false, true)) {
+                expiredTime = System.currentTimeMillis();
+            }
+            return 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public boolean needDelete() {
+        return (expired.get() && (System.currentTimeMillis() - expiredTime > 120000));
+    }
+
+    @Override
+    public long getStart() {
+        return start;
+    }
+
+    @Override
+    public long getLast() {
+        return start + size;
+    }
+
+    @Override
+    public long getCommitLast() {
+        return start + size;
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public long getCachedSize() {
+        return size;
+    }
+
+    @Override
+    public long getCommitSize() {
+        return size;
+    }
+
+    @Override
+    public boolean isExpired() {
+        return expired.get();
+    }
+
+    @Override
+    public boolean contains(long offset) {
+        return (this.size == 0
+                && offset == this.start
+                || this.size > 0
+                        && offset >= this.start
+                        && offset <= this.start + this.size - 1);
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public void setMutable(boolean mutable) {
+        if (mutable) {
+            throw new UnsupportedOperationException("[File Store] Cold Segment is immutable!");
+        }
+    }
+
+    @Override
+    public void relViewRef() {
+
+    }
+
+    @Override
+    public void read(ByteBuffer bf, long absOffset) throws IOException {
+        relRead(bf, absOffset - this.start);
+    }
+
+    @Override
+    public void relRead(ByteBuffer bf, long relOffset) throws IOException {
+        if (this.closed.get()) {
+            throw new IOException("[File Store] Segment is closed!");
+        }
+        if (relOffset >= this.size) {
+            return;
+        }
+        if (bf.remaining() > this.size - relOffset) {
+            // not read beyond the sealed size
+            final int oldLimit = bf.limit();
+            bf.limit(bf.position() + (int) (this.size - relOffset));
+            try {
+                this.storage.read(this.objectKey, relOffset, bf);
+            } finally {
+                bf.limit(oldLimit);
+            }
+        } else {
+            this.storage.read(this.objectKey, relOffset, bf);
+        }
+    }
+
+    @Override
+    public ByteBuffer readRegion(long absOffset, int length, ByteBuffer readBuffer) throws IOException {
+        long startPos = absOffset - start;
+        if (startPos < 0 || length < 0) {
+            throw new IllegalArgumentException(new StringBuilder(256)
+                    .append("[File Store] Illegal region read, start=").append(start)
+                    .append(", offset=").append(absOffset)
+                    .append(", length=").append(length).toString());
+        }
+        final int regionLen = (int) Math.max(0, Math.min(length, this.size - startPos));
+        ByteBuffer regionBuffer = (readBuffer == null || readBuffer.capacity() < regionLen)
+                ? ByteBuffer.allocate(regionLen)
+                : readBuffer;
+        regionBuffer.clear();
+        regionBuffer.limit(regionLen);
+        relRead(regionBuffer, startPos);
+        regionBuffer.flip();
+        return regionBuffer;
+    }
+
+    @Override
+    public long getLeftAppendTime() {
+        return leftAppendTime;
+    }
+
+    @Override
+    public long getRightAppendTime() {
+        return rightAppendTime;
+    }
+
+    @Override
+    public boolean containTime(long timestamp) {
+        if (this.size == 0) {
+            return false;
+        }
+        return timestamp >= this.leftAppendTime && timestamp <= this.rightAppendTime;
+    }
+
+    @Override
+    public long getRecordTime(long reqOffset) throws IOException {
+        ByteBuffer readUnit = ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        read(readUnit, reqOffset);
+        readUnit.flip();
+        return readUnit.getLong(DataStoreUtils.INDEX_POS_TIME_RECV);
+    }
+
+    @Override
+    public Tuple2<Long, Long> getTimeSearchRange(long timestamp, long lastRecPos) {
+        if (this.timeIndex == null) {
+            return new Tuple2<>(0L, lastRecPos);
+        }
+        return this.timeIndex.getSearchRange(timestamp, lastRecPos);
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    private void storeStub() throws IOException {
+        final byte[] keyBytes = this.objectKey.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer = ByteBuffer.allocate(40 + keyBytes.length);
+        buffer.putInt(COLD_STUB_MAGIC);
+        buffer.putLong(this.size);
+        buffer.putLong(this.leftAppendTime);
+        buffer.putLong(this.rightAppendTime);
+        buffer.putLong(this.lastModified);
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
+        buffer.flip();
+        try (RandomAccessFile randFile = new RandomAccessFile(this.stubFile, "rw")) {
+            FileChannel channel = randFile.getChannel();
+            channel.truncate(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            ServiceStatusHolder.addWriteIOErrCnt();
+            BrokerSrvStatsHolder.incDiskIOExcCnt();
+            throw e;
+        }
+    }
+
+    private static ByteBuffer readStub(File stubFile) throws IOException {
+        try (RandomAccessFile randFile = new RandomAccessFile(stubFile, "r")) {
+            FileChannel channel = randFile.getChannel();
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            if (buffer.remaining() < 40 || buffer.getInt() != COLD_STUB_MAGIC) {
+                throw new IOException(new StringBuilder(256)
+                        .append("[File Store] Illegal cold segment stub ")
+                        .append(stubFile.getAbsolutePath()).toString());
+            }
+            return buffer;
+        }
+    }
+
+    private static String readObjectKey(ByteBuffer buffer) {
+        final byte[] keyBytes = new byte[buffer.getInt()];
+        buffer.get(keyBytes);
+        return new String(keyBytes, StandardCharsets.UTF_8);
+    }
+
+    private File getTimeIndexFile() {
+        return new File(this.file.getParentFile(),
+                DataStoreUtils.nameFromOffset(this.start, DataStoreUtils.TIME_INDEX_FILE_SUFFIX));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Cold tier backend of the sealed segments.
+ * The sealed segment files are uploaded as objects, and read back by range.
+ */
+public interface ColdTierStorage extends Closeable {
+
+    /**
+     * Upload the sealed segment file as an object.
+     *
+     * @param objectKey     the object key
+     * @param localFile     the sealed segment file
+     * @throws IOException  exception while uploading
+     */
+    void upload(String objectKey, File localFile) throws IOException;
+
+    /**
+     * Read the object content from the position until the buffer is full or the object ends.
+     *
+     * @param objectKey     the object key
+     * @param position      the start position in the object
+     * @param bf            the buffer to fill
+     * @throws IOException  exception while reading
+     */
+    void read(String objectKey, long position, ByteBuffer bf) throws IOException;
+
+    /**
+     * Release the resources opened for reading the object.
+     *
+     * @param objectKey     the object key
+     */
+    void release(String objectKey);
+
+    /**
+     * Delete the object.
+     *
+     * @param objectKey     the object key
+     */
+    void delete(String objectKey);
+
+    @Override
+    void close();
+}
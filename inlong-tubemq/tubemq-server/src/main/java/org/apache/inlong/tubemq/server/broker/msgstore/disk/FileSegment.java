@@ -20,6 +20,7 @@ package org.apache.inlong.tubemq.server.broker.msgstore.disk;
 import org.apache.inlong.tubemq.corebase.TBaseConstants;
 import org.apache.inlong.tubemq.corebase.utils.CheckSum;
 import org.apache.inlong.tubemq.corebase.utils.ServiceStatusHolder;
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
 import org.apache.inlong.tubemq.server.broker.stats.BrokerSrvStatsHolder;
 import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
 
@@ -30,6 +31,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -50,6 +52,10 @@ public class FileSegment implements Segment {
     private final AtomicLong flushedSize;
     private final SegmentType segmentType;
     private volatile boolean mutable = false;
+    // sparse time index, only for index segment
+    private final SegmentTimeIndex timeIndex;
+    // read-only view over the sealed segment, created at first region read
+    private volatile MappedByteBuffer mappedView = null;
     private long expiredTime = 0;
     private final AtomicBoolean expired = new AtomicBoolean(false);
     private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -83,6 +89,7 @@ public class FileSegment implements Segment {
         this.mutable = mutable;
         this.cachedSize = new AtomicLong(0);
         this.flushedSize = new AtomicLong(0);
+        this.timeIndex = (type == SegmentType.INDEX) ? new SegmentTimeIndex() : null;
         this.randFile = new RandomAccessFile(this.file, "rw");
         this.channel = this.randFile.getChannel();
         if (mutable) {
@@ -134,6 +141,7 @@ public class FileSegment implements Segment {
             }
         }
         if (this.segmentType == SegmentType.INDEX) {
+            loadTimeIndex();
             if (this.cachedSize.get() == 0) {
                 if (this.mutable) {
                     this.leftAppendTime.set(System.currentTimeMillis());
@@ -150,6 +158,7 @@ public class FileSegment implements Segment {
     @Override
     public void close() {
         if (this.closed.compareAndSet(false, true)) {
+            releaseView();
             try {
                 if (this.channel.isOpen()) {
                     if (this.mutable) {
@@ -173,6 +182,7 @@ public class FileSegment implements Segment {
     @Override
     public void deleteFile() {
         this.closed.set(true);
+        releaseView();
         try {
             if (this.channel.isOpen()) {
                 if (this.mutable) {
@@ -193,6 +203,9 @@ public class FileSegment implements Segment {
                     .append("[File Store] delete file ")
                     .append(file.getAbsoluteFile()).toString());
             this.file.delete();
+            if (this.segmentType == SegmentType.INDEX) {
+                getTimeIndexFile().delete();
+            }
         } catch (Throwable ee) {
             if (ee instanceof IOException) {
                 ServiceStatusHolder.addReadIOErrCnt();
@@ -226,12 +239,14 @@ public class FileSegment implements Segment {
             throw new UnsupportedOperationException("[File Store] Segment is closed!");
         }
         final long offset = this.cachedSize.get();
+        final int bufStartPos = buf.position();
         int sizeInBytes = 0;
         while (buf.hasRemaining()) {
             sizeInBytes += this.channel.write(buf);
         }
         this.cachedSize.addAndGet(sizeInBytes);
         if (segmentType == SegmentType.INDEX) {
+            this.timeIndex.append(buf, bufStartPos, offset, sizeInBytes);
             this.rightAppendTime.set(rightTime);
             if (offset == 0) {
                 this.leftAppendTime.set(leftTime);
@@ -255,6 +270,17 @@ public class FileSegment implements Segment {
         return this.start + this.flushedSize.get();
     }
 
+    @Override
+    public long flush(boolean force, long cachedSize) throws IOException {
+        this.channel.force(force);
+        long curFlushedSize = this.flushedSize.get();
+        while (cachedSize > curFlushedSize
+                && !this.flushedSize.compareAndSet(curFlushedSize, cachedSize)) {
+            curFlushedSize = this.flushedSize.get();
+        }
+        return this.start + this.flushedSize.get();
+    }
+
     @Override
     public boolean isExpired() {
         return expired.get();
@@ -321,6 +347,9 @@ public class FileSegment implements Segment {
     @Override
     public void setMutable(boolean mutable) {
         this.mutable = mutable;
+        if (!mutable && this.segmentType == SegmentType.INDEX) {
+            this.timeIndex.store(getTimeIndexFile());
+        }
     }
 
     @Override
@@ -393,6 +422,70 @@ public class FileSegment implements Segment {
         }
     }
 
+    @Override
+    public ByteBuffer readRegion(long absOffset, int length, ByteBuffer readBuffer) throws IOException {
+        if (this.closed.get()) {
+            throw new IOException("[File Store] Segment is closed!");
+        }
+        long startPos = absOffset - start;
+        if (startPos < 0 || length < 0) {
+            throw new IllegalArgumentException(new StringBuilder(256)
+                    .append("[File Store] Illegal region read, start=").append(start)
+                    .append(", offset=").append(absOffset)
+                    .append(", length=").append(length).toString());
+        }
+        MappedByteBuffer fileView = getMappedView();
+        if (fileView == null) {
+            ByteBuffer regionBuffer = (readBuffer == null || readBuffer.capacity() < length)
+                    ? ByteBuffer.allocate(length)
+                    : readBuffer;
+            regionBuffer.clear();
+            regionBuffer.limit(length);
+            relRead(regionBuffer, startPos);
+            regionBuffer.flip();
+            return regionBuffer;
+        }
+        ByteBuffer regionBuffer = fileView.duplicate();
+        int regionStart = (int) Math.min(startPos, regionBuffer.capacity());
+        regionBuffer.limit((int) Math.min((long) regionStart + length, regionBuffer.capacity()));
+        regionBuffer.position(regionStart);
+        return regionBuffer.slice();
+    }
+
+    /**
+     * Drop the mapped view of the closed or deleted segment. It is not unmapped
+     * explicitly, as the messages in flight may still wrap its content, the
+     * mapping is released when the last view is garbage collected.
+     */
+    private void releaseView() {
+        synchronized (this) {
+            this.mappedView = null;
+        }
+    }
+
+    /**
+     * Map the sealed segment's file content in read-only mode.
+     * The writable segment and the oversize file are not mapped.
+     *
+     * @return the mapped view, or null if not mapped
+     */
+    private MappedByteBuffer getMappedView() throws IOException {
+        MappedByteBuffer fileView = this.mappedView;
+        if (fileView != null || this.mutable) {
+            return fileView;
+        }
+        synchronized (this) {
+            if (this.mappedView == null
+                    && !this.mutable
+                    && !this.closed.get()
+                    && this.cachedSize.get() <= Integer.MAX_VALUE) {
+                this.mappedView = this.channel.map(
+                        FileChannel.MapMode.READ_ONLY, 0, this.cachedSize.get());
+            }
+            return this.mappedView;
+        }
+    }
+
     /**
      * read index record's append time.
      * @param reqOffset request offset.
@@ -413,6 +506,14 @@ public class FileSegment implements Segment {
         return readUnit.getLong(DataStoreUtils.INDEX_POS_TIME_RECV);
     }
 
+    @Override
+    public Tuple2<Long, Long> getTimeSearchRange(long timestamp, long lastRecPos) {
+        if (this.segmentType != SegmentType.INDEX) {
+            return new Tuple2<>(0L, lastRecPos);
+        }
+        return this.timeIndex.getSearchRange(timestamp, lastRecPos);
+    }
+
     /**
      * Check whether this FileSegment is expired, and set expire status.
      * The last FileSegment cannot be marked expired.
@@ -440,6 +541,38 @@ public class FileSegment implements Segment {
         return 0;
     }
 
+    private File getTimeIndexFile() {
+        return new File(this.file.getParentFile(),
+                DataStoreUtils.nameFromOffset(this.start, DataStoreUtils.TIME_INDEX_FILE_SUFFIX));
+    }
+
+    /**
+     * Load the sparse time index of the index segment.
+     * The writable segment and the stale time index file are rebuilt from the index file.
+     */
+    private void loadTimeIndex() {
+        if (this.cachedSize.get() == 0) {
+            return;
+        }
+        final File timeIndexFile = getTimeIndexFile();
+        if (!this.mutable && this.timeIndex.load(timeIndexFile, this.cachedSize.get())) {
+            return;
+        }
+        try {
+            this.timeIndex.rebuild(this.channel, this.cachedSize.get());
+            if (!this.mutable) {
+                this.timeIndex.store(timeIndexFile);
+            }
+        } catch (Throwable ex) {
+            if (ex instanceof IOException) {
+                ServiceStatusHolder.addReadIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
+            }
+            logger.error(new StringBuilder(512).append("[File Store] Rebuild time index of ")
+                    .append(this.file.getAbsolutePath()).append(" failure").toString(), ex);
+        }
+    }
+
     private RecoverResult recoverData(long checkOffset) throws IOException {
         if (!this.mutable) {
             throw new UnsupportedOperationException(
@@ -154,6 +154,36 @@ public class FileSegmentList implements SegmentList {
         }
     }
 
+    /**
+     * Replace the segment with the new one covering the same range.
+     *
+     * @param oldSegment   the segment to replace
+     * @param newSegment   the new segment
+     * @return             whether the segment was found and replaced
+     */
+    @Override
+    public boolean replace(final Segment oldSegment, final Segment newSegment) {
+        while (true) {
+            int index = -1;
+            final Segment[] curViews = segmentList.get();
+            for (int i = 0; i < curViews.length; i++) {
+                if (curViews[i] == oldSegment) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == -1) {
+                return false;
+            }
+            final Segment[] update = new Segment[curViews.length];
+            System.arraycopy(curViews, 0, update, 0, curViews.length);
+            update[index] = newSegment;
+            if (this.segmentList.compareAndSet(curViews, update)) {
+                return true;
+            }
+        }
+    }
+
     @Override
     public void flushLast(boolean force) throws IOException {
         final Segment[] curViews = segmentList.get();
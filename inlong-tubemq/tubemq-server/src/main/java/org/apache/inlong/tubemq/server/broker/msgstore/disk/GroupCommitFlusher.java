@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.server.broker.stats.BrokerSrvStatsHolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Broker-wide group flusher of message file stores.
+ *
+ * The file stores on the same disk put their flush requests into the disk's queue,
+ * one flush thread per disk collects the requests arrived within the latency budget
+ * and flushes them in one round: the flush positions of all the stores are taken first,
+ * then the segments are forced outside the stores' write locks. A force syncs one file,
+ * so a round still forces each segment file once, but the many small stores of a broker
+ * issue at most one flush per budget each, serialized on their disk instead of inside
+ * the append path.
+ */
+public class GroupCommitFlusher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitFlusher.class);
+    private static final long QUEUE_POLL_WAIT_MS = 100L;
+    private final long latencyBudgetNs;
+    private final int maxBatchCnt;
+    private final ConcurrentHashMap<String, DiskFlushQueue> diskQueues = new ConcurrentHashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * GroupCommitFlusher, initial the broker-wide group flusher
+     *
+     * @param latencyBudgetMs   the max delay of a flush request
+     * @param maxBatchCnt       the max store count flushed in one round
+     */
+    public GroupCommitFlusher(long latencyBudgetMs, int maxBatchCnt) {
+        this.latencyBudgetNs = TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs);
+        this.maxBatchCnt = Math.max(1, maxBatchCnt);
+    }
+
+    /**
+     * Get the disk key of the store directory, the stores with the same key share a flush queue.
+     *
+     * @param storeDir   the store directory
+     * @return           the disk key
+     */
+    public String getDiskKey(File storeDir) {
+        try {
+            return Files.getFileStore(storeDir.toPath()).toString();
+        } catch (IOException e) {
+            return storeDir.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Put the flush request of the file store into its disk queue.
+     *
+     * @param diskKey     the disk key of the file store
+     * @param fileStore   the file store to flush
+     * @return            whether the request was accepted
+     */
+    public boolean submit(String diskKey, MsgFileStore fileStore) {
+        if (this.closed.get()) {
+            return false;
+        }
+        DiskFlushQueue diskQueue = this.diskQueues.get(diskKey);
+        if (diskQueue == null) {
+            DiskFlushQueue newQueue = new DiskFlushQueue(diskKey);
+            diskQueue = this.diskQueues.putIfAbsent(diskKey, newQueue);
+            if (diskQueue == null) {
+                diskQueue = newQueue;
+                diskQueue.start();
+            }
+        }
+        return diskQueue.offer(fileStore);
+    }
+
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            for (Map.Entry<String, DiskFlushQueue> entry : this.diskQueues.entrySet()) {
+                entry.getValue().shutdown();
+            }
+            this.diskQueues.clear();
+        }
+    }
+
+    private class DiskFlushQueue extends Thread {
+
+        private final LinkedBlockingQueue<MsgFileStore> requests = new LinkedBlockingQueue<>();
+
+        public DiskFlushQueue(String diskKey) {
+            super("Broker Group Flush Thread-" + diskKey);
+            setDaemon(true);
+        }
+
+        public boolean offer(MsgFileStore fileStore) {
+            return this.requests.offer(fileStore);
+        }
+
+        public void shutdown() {
+            this.interrupt();
+            try {
+                this.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            final List<MsgFileStore> batch = new ArrayList<>();
+            long deadline;
+            long leftNs;
+            MsgFileStore fileStore;
+            while (true) {
+                batch.clear();
+                try {
+                    fileStore = this.requests.poll(QUEUE_POLL_WAIT_MS, TimeUnit.MILLISECONDS);
+                    if (fileStore == null) {
+                        continue;
+                    }
+                    batch.add(fileStore);
+                    // wait for the other requests within the latency budget
+                    deadline = System.nanoTime() + latencyBudgetNs;
+                    while (batch.size() < maxBatchCnt) {
+                        leftNs = deadline - System.nanoTime();
+                        if (leftNs <= 0) {
+                            break;
+                        }
+                        fileStore = this.requests.poll(leftNs, TimeUnit.NANOSECONDS);
+                        if (fileStore == null) {
+                            break;
+                        }
+                        batch.add(fileStore);
+                    }
+                } catch (InterruptedException e) {
+                    // flush the collected and remained requests before exit
+                    this.requests.drainTo(batch);
+                    flushBatch(batch);
+                    break;
+                }
+                flushBatch(batch);
+            }
+        }
+
+        private void flushBatch(List<MsgFileStore> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            long startTime = System.currentTimeMillis();
+            // take the flush positions of the round first
+            List<MsgFileStore.PendingFlush> pendingFlushes = new ArrayList<>(batch.size());
+            for (MsgFileStore fileStore : batch) {
+                MsgFileStore.PendingFlush pendingFlush = fileStore.takeGroupFlush();
+                if (pendingFlush != null) {
+                    pendingFlushes.add(pendingFlush);
+                }
+            }
+            for (MsgFileStore.PendingFlush pendingFlush : pendingFlushes) {
+                try {
+                    pendingFlush.flush();
+                } catch (Throwable e) {
+                    logger.error(new StringBuilder(512)
+                            .append("[File Store] Group flush failure, storeKey=")
+                            .append(pendingFlush.getStoreKey()).toString(), e);
+                }
+            }
+            BrokerSrvStatsHolder.updGroupFlushDlt(System.currentTimeMillis() - startTime);
+        }
+    }
+}
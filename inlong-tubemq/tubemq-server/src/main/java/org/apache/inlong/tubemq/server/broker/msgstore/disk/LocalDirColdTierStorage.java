@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.server.common.utils.FileUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cold tier backend on a local directory, such as a mounted cold disk or
+ * a stand-in of object storage. The objects are stored as files under the root directory.
+ */
+public class LocalDirColdTierStorage implements ColdTierStorage {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(LocalDirColdTierStorage.class);
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private final File rootDir;
+    // opened object files for range reading
+    private final ConcurrentHashMap<String, RandomAccessFile> openedFiles =
+            new ConcurrentHashMap<>();
+
+    public LocalDirColdTierStorage(File rootDir) {
+        this.rootDir = rootDir;
+        FileUtil.checkDir(this.rootDir);
+    }
+
+    @Override
+    public void upload(String objectKey, File localFile) throws IOException {
+        final File objectFile = getObjectFile(objectKey);
+        FileUtil.checkDir(objectFile.getParentFile());
+        final File tmpFile = new File(objectFile.getParentFile(),
+                objectFile.getName() + TMP_FILE_SUFFIX);
+        Files.copy(localFile.toPath(), tmpFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try (RandomAccessFile randFile = new RandomAccessFile(tmpFile, "rw")) {
+            randFile.getChannel().force(true);
+        }
+        Files.move(tmpFile.toPath(), objectFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void read(String objectKey, long position, ByteBuffer bf) throws IOException {
+        final FileChannel channel = getChannel(objectKey);
+        int size = 0;
+        while (bf.hasRemaining()) {
+            final int l = channel.read(bf, position + size);
+            if (l < 0) {
+                break;
+            }
+            size += l;
+        }
+    }
+
+    @Override
+    public void release(String objectKey) {
+        closeFile(this.openedFiles.remove(objectKey));
+    }
+
+    @Override
+    public void delete(String objectKey) {
+        closeFile(this.openedFiles.remove(objectKey));
+        final File objectFile = getObjectFile(objectKey);
+        if (objectFile.exists() && !objectFile.delete()) {
+            logger.warn(new StringBuilder(256)
+                    .append("[File Store] Delete cold tier object ")
+                    .append(objectFile.getAbsolutePath()).append(" failure").toString());
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Map.Entry<String, RandomAccessFile> entry : this.openedFiles.entrySet()) {
+            closeFile(entry.getValue());
+        }
+        this.openedFiles.clear();
+    }
+
+    private FileChannel getChannel(String objectKey) throws IOException {
+        RandomAccessFile randFile = this.openedFiles.get(objectKey);
+        if (randFile == null) {
+            final File objectFile = getObjectFile(objectKey);
+            if (!objectFile.exists()) {
+                throw new IOException(new StringBuilder(256)
+                        .append("[File Store] Not found cold tier object ")
+                        .append(objectFile.getAbsolutePath()).toString());
+            }
+            RandomAccessFile newFile = new RandomAccessFile(objectFile, "r");
+            randFile = this.openedFiles.putIfAbsent(objectKey, newFile);
+            if (randFile == null) {
+                randFile = newFile;
+            } else {
+                closeFile(newFile);
+            }
+        }
+        return randFile.getChannel();
+    }
+
+    private File getObjectFile(String objectKey) {
+        return new File(this.rootDir, objectKey);
+    }
+
+    private void closeFile(RandomAccessFile randFile) {
+        if (randFile == null) {
+            return;
+        }
+        try {
+            randFile.close();
+        } catch (IOException e) {
+            logger.warn("[File Store] Close cold tier object failure", e);
+        }
+    }
+}
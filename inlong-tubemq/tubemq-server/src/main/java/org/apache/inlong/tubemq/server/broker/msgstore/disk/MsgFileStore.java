@@ -20,6 +20,7 @@ package org.apache.inlong.tubemq.server.broker.msgstore.disk;
 import org.apache.inlong.tubemq.corebase.TErrCodeConstants;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker;
 import org.apache.inlong.tubemq.corebase.utils.ServiceStatusHolder;
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
 import org.apache.inlong.tubemq.corebase.utils.Tuple3;
 import org.apache.inlong.tubemq.server.broker.BrokerConfig;
 import org.apache.inlong.tubemq.server.broker.msgstore.MessageStore;
@@ -41,8 +42,10 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -55,6 +58,9 @@ public class MsgFileStore implements Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(MsgFileStore.class);
     private static final int MAX_META_REFRESH_DUR = 1000 * 60 * 60;
+    // the reusable buffer of the region read that copies data, one per reading thread
+    private static final ThreadLocal<ByteBuffer> regionReadBuffer = ThreadLocal.withInitial(
+            () -> ByteBuffer.allocate(TServerConstants.CFG_STORE_DEFAULT_MSG_READ_UNIT));
     private static final DiskSamplePrint samplePrintCtrl =
             new DiskSamplePrint(logger);
     // storage ID
@@ -86,6 +92,21 @@ public class MsgFileStore implements Closeable {
     private SegmentList indexSegments;
     // close status
     private final AtomicBoolean closed = new AtomicBoolean(false);
+    // broker-wide group flusher, null if flushing in the append path
+    private final GroupCommitFlusher groupFlusher;
+    // the disk key of the store for group flush
+    private final String diskKey;
+    // whether a group flush request is queued, guarded by the write lock
+    private boolean groupFlushQueued = false;
+    // whether the queued group flush should force the metadata, guarded by the write lock
+    private boolean groupFlushForceMeta = false;
+    // the time of the queued group flush request, guarded by the write lock
+    private long groupFlushReqTime = 0L;
+    // cold tier storage of the sealed segments, null if disabled
+    private final ColdTierStorage coldTierStorage;
+    // the offloaded local segments and their offload time, deleted after the readers leave
+    private final ConcurrentLinkedQueue<Tuple2<Segment, Long>> offloadedSegments =
+            new ConcurrentLinkedQueue<>();
 
     /**
      * MsgFileStore, initial message file store block
@@ -113,6 +134,9 @@ public class MsgFileStore implements Closeable {
         sBuilder.delete(0, sBuilder.length());
         FileUtil.checkDir(this.dataDir);
         FileUtil.checkDir(this.indexDir);
+        this.groupFlusher = messageStore.getGroupCommitFlusher();
+        this.diskKey = (this.groupFlusher == null) ? null : this.groupFlusher.getDiskKey(this.dataDir);
+        this.coldTierStorage = messageStore.getColdTierStorage();
         loadSegments(SegmentType.DATA, offsetIfCreate, sBuilder);
         loadSegments(SegmentType.INDEX, offsetIfCreate, sBuilder);
         this.lastFlushTime.set(System.currentTimeMillis());
@@ -219,17 +243,24 @@ public class MsgFileStore implements Closeable {
                     || pendingMsgSizeExceed || isDataSegFlushed || isIndexSegFlushed) {
                 isForceMetadata = (isDataSegFlushed || isIndexSegFlushed
                         || (currTime - this.lastMetaFlushTime.get() > MAX_META_REFRESH_DUR));
-                if (!isDataSegFlushed) {
-                    curDataSeg.flush(isForceMetadata);
-                }
-                if (!isIndexSegFlushed) {
-                    curIndexSeg.flush(isForceMetadata);
-                }
-                flushedMsgCnt = this.curUnflushed.getAndSet(0);
-                flushedDataSize = this.curUnflushSize.getAndSet(0);
-                this.lastFlushTime.set(currTime);
-                if (isForceMetadata) {
-                    this.lastMetaFlushTime.set(this.lastFlushTime.get());
+                if (this.groupFlusher != null && !isDataSegFlushed && !isIndexSegFlushed
+                        && submitGroupFlush(isForceMetadata, currTime)) {
+                    // hand the flush over to the disk's group flusher,
+                    // the unflushed counters are reset when the flusher takes the flush
+                    isForceMetadata = false;
+                } else {
+                    if (!isDataSegFlushed) {
+                        curDataSeg.flush(isForceMetadata);
+                    }
+                    if (!isIndexSegFlushed) {
+                        curIndexSeg.flush(isForceMetadata);
+                    }
+                    flushedMsgCnt = this.curUnflushed.getAndSet(0);
+                    flushedDataSize = this.curUnflushSize.getAndSet(0);
+                    this.lastFlushTime.set(currTime);
+                    if (isForceMetadata) {
+                        this.lastMetaFlushTime.set(this.lastFlushTime.get());
+                    }
                 }
             }
             // print abnormal information
@@ -316,6 +347,11 @@ public class MsgFileStore implements Closeable {
         long recvTimeInMillsec = 0L;
         long maxDataLimitOffset = 0L;
         long lastRdDataOffset = 0L;
+        // the data region read in one pass, and its start offset
+        ByteBuffer regionBuffer = null;
+        long regionStartOffset = 0L;
+        boolean regionShared = false;
+        final boolean readByRegion = tubeConfig.isEnableFileRegionRead();
         final StringBuilder sBuilder = new StringBuilder(512);
         final long curDataMaxOffset = getDataMaxOffset();
         final long curDataMinOffset = getDataMinOffset();
@@ -367,6 +403,7 @@ public class MsgFileStore implements Closeable {
                         recordSeg.relViewRef();
                         recordSeg = null;
                     }
+                    regionBuffer = null;
                     recordSeg = dataSegments.getRecordSeg(curIndexDataOffset);
                     if (recordSeg == null) {
                         continue;
@@ -375,18 +412,48 @@ public class MsgFileStore implements Closeable {
                         throw new Exception("Read Service has closed!");
                     }
                 }
-                if (dataBuffer.capacity() < curIndexDataSize) {
-                    dataBuffer = ByteBuffer.allocate(curIndexDataSize);
-                }
-                dataBuffer.clear();
-                dataBuffer.limit(curIndexDataSize);
-                recordSeg.read(dataBuffer, curIndexDataOffset);
-                dataBuffer.flip();
-                dataRealLimit = dataBuffer.limit();
-                if (dataRealLimit < curIndexDataSize) {
-                    lastRdDataOffset = curIndexDataOffset;
-                    readedOffset = curIndexOffset + DataStoreUtils.STORE_INDEX_HEAD_LEN;
-                    continue;
+                if (readByRegion) {
+                    // read the following contiguous records together with the current one,
+                    // bounded by the remaining transfer size and the committed segment data
+                    if (regionBuffer == null
+                            || curIndexDataOffset < regionStartOffset
+                            || maxDataLimitOffset > regionStartOffset + regionBuffer.limit()) {
+                        final int regionLen =
+                                (int) Math.min(Math.max(curIndexDataSize, maxMsgTransferSize - totalSize),
+                                        recordSeg.getStart() + recordSeg.getCommitSize() - curIndexDataOffset);
+                        ByteBuffer readBuffer = regionReadBuffer.get();
+                        if (readBuffer.capacity() < regionLen) {
+                            readBuffer = ByteBuffer.allocate(regionLen);
+                            regionReadBuffer.set(readBuffer);
+                        }
+                        regionStartOffset = curIndexDataOffset;
+                        regionBuffer = recordSeg.readRegion(curIndexDataOffset, regionLen, readBuffer);
+                        // the mapped view can be shared, the reused read buffer must be copied
+                        regionShared = (regionBuffer != readBuffer);
+                    }
+                    if (maxDataLimitOffset > regionStartOffset + regionBuffer.limit()) {
+                        lastRdDataOffset = curIndexDataOffset;
+                        readedOffset = curIndexOffset + DataStoreUtils.STORE_INDEX_HEAD_LEN;
+                        continue;
+                    }
+                    dataBuffer = regionBuffer.duplicate();
+                    dataBuffer.position((int) (curIndexDataOffset - regionStartOffset));
+                    dataBuffer.limit(dataBuffer.position() + curIndexDataSize);
+                    dataBuffer = dataBuffer.slice();
+                } else {
+                    if (dataBuffer.capacity() < curIndexDataSize) {
+                        dataBuffer = ByteBuffer.allocate(curIndexDataSize);
+                    }
+                    dataBuffer.clear();
+                    dataBuffer.limit(curIndexDataSize);
+                    recordSeg.read(dataBuffer, curIndexDataOffset);
+                    dataBuffer.flip();
+                    dataRealLimit = dataBuffer.limit();
+                    if (dataRealLimit < curIndexDataSize) {
+                        lastRdDataOffset = curIndexDataOffset;
+                        readedOffset = curIndexOffset + DataStoreUtils.STORE_INDEX_HEAD_LEN;
+                        continue;
+                    }
                 }
             } catch (Throwable e2) {
                 if (e2 instanceof IOException) {
@@ -406,8 +473,10 @@ public class MsgFileStore implements Closeable {
             // build query result.
             readedOffset = curIndexOffset + DataStoreUtils.STORE_INDEX_HEAD_LEN;
             lastRdDataOffset = maxDataLimitOffset;
-            ClientBroker.TransferedMessage transferedMessage =
-                    DataStoreUtils.getTransferMsg(dataBuffer,
+            ClientBroker.TransferedMessage transferedMessage = readByRegion
+                    ? DataStoreUtils.getTransferMsg(dataBuffer, regionShared,
+                            countMap, statsKeyBase, sBuilder)
+                    : DataStoreUtils.getTransferMsg(dataBuffer,
                             curIndexDataSize, countMap, statsKeyBase, sBuilder);
             if (transferedMessage == null) {
                 continue;
@@ -470,10 +539,14 @@ public class MsgFileStore implements Closeable {
         if (timestamp > foundTime) {
             return recordSeg.getStart() + endPos * DataStoreUtils.STORE_INDEX_HEAD_LEN;
         }
+        // narrow the search range by the segment's sparse time index
+        Tuple2<Long, Long> searchRange =
+                recordSeg.getTimeSearchRange(timestamp, endPos);
         long midPos = 0;
-        long startPos = 0;
-        long firstLowPos = 0;
+        long startPos = searchRange.getF0();
+        long firstLowPos = startPos;
         long firstEqualPos = -1;
+        endPos = searchRange.getF1();
         // Dichotomy finds the first offset position less than the specified time
         while (startPos <= endPos) {
             midPos = endPos + startPos >>> 1;
@@ -504,6 +577,11 @@ public class MsgFileStore implements Closeable {
             try {
                 this.indexSegments.close();
                 this.dataSegments.close();
+                Tuple2<Segment, Long> offloaded;
+                while ((offloaded = this.offloadedSegments.poll()) != null) {
+                    offloaded.getF0().close();
+                    offloaded.getF0().getFile().delete();
+                }
             } finally {
                 this.writeLock.unlock();
             }
@@ -535,6 +613,86 @@ public class MsgFileStore implements Closeable {
         return (hasExpiredDataSegs || hasExpiredIndexSegs);
     }
 
+    /**
+     * Offload the sealed segments to the cold tier, and delete the local files
+     * offloaded before the segment deletion delay.
+     *
+     * @param offloadDelayMs   the min duration a sealed segment kept on local disk
+     * @return                 the count of offloaded segments
+     */
+    public int offloadSealedSegments(long offloadDelayMs) {
+        if (this.coldTierStorage == null || this.closed.get()) {
+            return 0;
+        }
+        final StringBuilder sBuilder = new StringBuilder(512);
+        final long checkTime = System.currentTimeMillis();
+        // the offloaded local files are deleted after the in-flight reads finished,
+        // with the same delay as the expired segments. The mapped content wrapped by
+        // the messages in flight stays valid after the close, it is not unmapped
+        Tuple2<Segment, Long> offloaded;
+        while ((offloaded = this.offloadedSegments.peek()) != null
+                && checkTime - offloaded.getF1() > DataStoreUtils.COLD_SEGMENT_LOCAL_DEL_DELAY_MS) {
+            if (!this.offloadedSegments.remove(offloaded)) {
+                // taken by the store close
+                continue;
+            }
+            offloaded.getF0().close();
+            if (offloaded.getF0().getFile().delete()) {
+                logger.info(sBuilder.append("[File Store] delete offloaded file ")
+                        .append(offloaded.getF0().getFile().getAbsolutePath()).toString());
+                sBuilder.delete(0, sBuilder.length());
+            }
+        }
+        int offloadCnt = offloadSegments(dataSegments, SegmentType.DATA,
+                checkTime, offloadDelayMs, sBuilder);
+        offloadCnt += offloadSegments(indexSegments, SegmentType.INDEX,
+                checkTime, offloadDelayMs, sBuilder);
+        return offloadCnt;
+    }
+
+    /**
+     * Take the queued group flush, called by the group flusher.
+     *
+     * The flush positions of the last data and index segments and the unflushed counters
+     * are taken together under the write lock, the data appended later is left to the next flush.
+     *
+     * @return the pending flush, null if no flush is queued
+     */
+    public PendingFlush takeGroupFlush() {
+        this.writeLock.lock();
+        try {
+            if (!this.groupFlushQueued) {
+                return null;
+            }
+            this.groupFlushQueued = false;
+            boolean forceMetadata = this.groupFlushForceMeta;
+            this.groupFlushForceMeta = false;
+            if (this.closed.get()) {
+                return null;
+            }
+            Segment dataSeg = this.dataSegments.last();
+            Segment indexSeg = this.indexSegments.last();
+            if (dataSeg == null || indexSeg == null) {
+                return null;
+            }
+            PendingFlush pendingFlush = new PendingFlush(dataSeg, dataSeg.getCachedSize(),
+                    indexSeg, indexSeg.getCachedSize(), forceMetadata, this.groupFlushReqTime,
+                    this.curUnflushed.getAndSet(0), this.curUnflushSize.getAndSet(0));
+            long currTime = System.currentTimeMillis();
+            this.lastFlushTime.set(currTime);
+            if (forceMetadata) {
+                this.lastMetaFlushTime.set(currTime);
+            }
+            return pendingFlush;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    public String getStoreKey() {
+        return storeKey;
+    }
+
     /**
      * Flush data to disk at interval.
      *
@@ -572,6 +730,89 @@ public class MsgFileStore implements Closeable {
         msgStoreStatsHolder.chkStatsExpired(checkTimestamp);
     }
 
+    private int offloadSegments(SegmentList segments, SegmentType segType,
+            long checkTime, long offloadDelayMs, StringBuilder sBuilder) {
+        int offloadCnt = 0;
+        final Segment[] curViews = segments.getView();
+        // the last segment is writable, never offloaded
+        for (int i = 0; i < curViews.length - 1 && !this.closed.get(); i++) {
+            final Segment segment = curViews[i];
+            if (!(segment instanceof FileSegment)
+                    || segment.isMutable()
+                    || segment.isExpired()
+                    || segment.isClosed()
+                    || checkTime - segment.getFile().lastModified() < offloadDelayMs) {
+                continue;
+            }
+            sBuilder.append(this.storeKey).append("/");
+            if (segType == SegmentType.INDEX) {
+                sBuilder.append("index/");
+            }
+            final String objectKey = sBuilder.append(segment.getFile().getName()).toString();
+            sBuilder.delete(0, sBuilder.length());
+            try {
+                final ColdSegment coldSegment =
+                        ColdSegment.offload(segment, segType, this.coldTierStorage, objectKey);
+                // the upload is done out of the lock, the replace is serialized with the close
+                boolean replaced = false;
+                this.writeLock.lock();
+                try {
+                    if (!this.closed.get() && segments.replace(segment, coldSegment)) {
+                        this.offloadedSegments.offer(new Tuple2<>(segment, checkTime));
+                        replaced = true;
+                    }
+                } finally {
+                    this.writeLock.unlock();
+                }
+                if (!replaced) {
+                    // the segment is deleted or the store is closed during the upload
+                    coldSegment.discard();
+                    continue;
+                }
+                offloadCnt++;
+                logger.info(sBuilder.append("[File Store] Offloaded ").append(segType)
+                        .append(" segment ").append(segment.getFile().getAbsolutePath())
+                        .append(" to cold tier object ").append(objectKey).toString());
+                sBuilder.delete(0, sBuilder.length());
+            } catch (Throwable e) {
+                if (e instanceof IOException) {
+                    ServiceStatusHolder.addWriteIOErrCnt();
+                    BrokerSrvStatsHolder.incDiskIOExcCnt();
+                }
+                logger.error(sBuilder.append("[File Store] Offload ").append(segType)
+                        .append(" segment ").append(segment.getFile().getAbsolutePath())
+                        .append(" failure").toString(), e);
+                sBuilder.delete(0, sBuilder.length());
+                // retry in the next round
+                break;
+            }
+        }
+        return offloadCnt;
+    }
+
+    /**
+     * Queue a group flush request, called under the write lock.
+     *
+     * @param forceMetadata   whether to force the metadata
+     * @param reqTime         the request time
+     * @return                false if the flusher is closed and the caller should flush in place
+     */
+    private boolean submitGroupFlush(boolean forceMetadata, long reqTime) {
+        if (forceMetadata) {
+            this.groupFlushForceMeta = true;
+        }
+        if (this.groupFlushQueued) {
+            return true;
+        }
+        if (!this.groupFlusher.submit(this.diskKey, this)) {
+            this.groupFlushForceMeta = false;
+            return false;
+        }
+        this.groupFlushQueued = true;
+        this.groupFlushReqTime = reqTime;
+        return true;
+    }
+
     public long getDataSizeInBytes() {
         return dataSegments.getSizeInBytes();
     }
@@ -627,12 +868,18 @@ public class MsgFileStore implements Closeable {
                 .append(segListDir.getAbsolutePath()).toString());
         sBuilder.delete(0, sBuilder.length());
         final List<Segment> accum = new ArrayList<>();
+        final List<File> coldStubs = new ArrayList<>();
+        final String coldStubSuffix = fileSuffix + DataStoreUtils.COLD_SEGMENT_FILE_SUFFIX;
         final File[] ls = segListDir.listFiles();
         if (ls != null) {
             for (final File file : ls) {
                 if (file == null) {
                     continue;
                 }
+                if (file.isFile() && file.toString().endsWith(coldStubSuffix)) {
+                    coldStubs.add(file);
+                    continue;
+                }
                 if (file.isFile() && file.toString().endsWith(fileSuffix)) {
                     if (!file.canRead()) {
                         throw new IOException(new StringBuilder(512)
@@ -646,6 +893,7 @@ public class MsgFileStore implements Closeable {
                 }
             }
         }
+        loadColdSegments(segTypeStr, segType, coldStubs, accum, sBuilder);
         if (accum.size() == 0) {
             final File newFile =
                     new File(segListDir,
@@ -701,6 +949,44 @@ public class MsgFileStore implements Closeable {
         sBuilder.delete(0, sBuilder.length());
     }
 
+    private void loadColdSegments(String segTypeStr, SegmentType segType,
+            List<File> coldStubs, List<Segment> accum,
+            StringBuilder sBuilder) throws IOException {
+        if (coldStubs.isEmpty()) {
+            return;
+        }
+        final Set<Long> localStarts = new HashSet<>();
+        for (Segment segment : accum) {
+            localStarts.add(segment.getStart());
+        }
+        for (File stubFile : coldStubs) {
+            final String segFileName = stubFile.getName().substring(0,
+                    stubFile.getName().length() - DataStoreUtils.COLD_SEGMENT_FILE_SUFFIX.length());
+            final long start = Long.parseLong(segFileName.substring(0, segFileName.indexOf('.')));
+            if (localStarts.contains(start)) {
+                // offload interrupted before the local file deleted, keep the local one,
+                // the stub is kept until the cold tier is configured to delete its object
+                if (this.coldTierStorage != null) {
+                    try {
+                        ColdSegment.deleteStub(stubFile, this.coldTierStorage);
+                    } catch (IOException e) {
+                        logger.warn(sBuilder.append("[File Store] Delete cold segment stub ")
+                                .append(stubFile.getAbsolutePath()).append(" failure").toString(), e);
+                        sBuilder.delete(0, sBuilder.length());
+                        stubFile.delete();
+                    }
+                }
+                continue;
+            }
+            if (this.coldTierStorage == null) {
+                throw new IOException(sBuilder.append("Found cold ").append(segTypeStr)
+                        .append(" segment ").append(stubFile.getAbsolutePath())
+                        .append(", but the cold tier is not configured").toString());
+            }
+            accum.add(ColdSegment.load(stubFile, start, segType, this.coldTierStorage));
+        }
+    }
+
     private void validateSegments(String segTypeStr, final List<Segment> segments) {
         // valid segments, continuous
         for (int i = 0; i < segments.size() - 1; i++) {
@@ -745,4 +1031,63 @@ public class MsgFileStore implements Closeable {
             return -1;
         }
     }
+
+    /**
+     * The flush taken from the store by the group flusher, forced outside the write lock.
+     */
+    public class PendingFlush {
+
+        private final Segment dataSeg;
+        private final long dataCachedSize;
+        private final Segment indexSeg;
+        private final long indexCachedSize;
+        private final boolean forceMetadata;
+        private final long reqTime;
+        private final int msgCnt;
+        private final long dataSize;
+
+        private PendingFlush(Segment dataSeg, long dataCachedSize,
+                Segment indexSeg, long indexCachedSize, boolean forceMetadata,
+                long reqTime, int msgCnt, long dataSize) {
+            this.dataSeg = dataSeg;
+            this.dataCachedSize = dataCachedSize;
+            this.indexSeg = indexSeg;
+            this.indexCachedSize = indexCachedSize;
+            this.forceMetadata = forceMetadata;
+            this.reqTime = reqTime;
+            this.msgCnt = msgCnt;
+            this.dataSize = dataSize;
+        }
+
+        /**
+         * Force the data and index segments up to the taken positions.
+         *
+         * @throws IOException the exception during processing
+         */
+        public void flush() throws IOException {
+            try {
+                this.dataSeg.flush(this.forceMetadata, this.dataCachedSize);
+                this.indexSeg.flush(this.forceMetadata, this.indexCachedSize);
+            } catch (IOException e) {
+                if (closed.get()) {
+                    return;
+                }
+                // the data is still unflushed, left to the next flush
+                curUnflushed.addAndGet(this.msgCnt);
+                curUnflushSize.addAndGet(this.dataSize);
+                ServiceStatusHolder.addWriteIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
+                throw e;
+            }
+            BrokerSrvStatsHolder.updGroupFlushWaitDlt(System.currentTimeMillis() - this.reqTime);
+        }
+
+        public boolean isForceMetadata() {
+            return forceMetadata;
+        }
+
+        public String getStoreKey() {
+            return storeKey;
+        }
+    }
 }
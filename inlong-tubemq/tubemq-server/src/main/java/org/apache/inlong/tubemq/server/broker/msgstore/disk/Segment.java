@@ -17,6 +17,8 @@
 
 package org.apache.inlong.tubemq.server.broker.msgstore.disk;
 
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -42,6 +44,17 @@ public interface Segment {
 
     long flush(boolean force) throws IOException;
 
+    /**
+     * Flush file cache to disk, and commit the data up to the cached size taken before,
+     * the data appended after the cached size is left to the next flush.
+     *
+     * @param force          whether to force the metadata
+     * @param cachedSize     the cached size taken before the flush
+     * @return               the committed position
+     * @throws IOException   exception while force data to disk
+     */
+    long flush(boolean force, long cachedSize) throws IOException;
+
     int checkAndSetExpired(long checkTimestamp, long maxValidTimeMs);
 
     boolean isClosed();
@@ -88,6 +101,21 @@ public interface Segment {
      */
     void relRead(ByteBuffer bf, long relOffset) throws IOException;
 
+    /**
+     * Read a contiguous data region from absolute position.
+     * Sealed segments return a read-only view over the mapped file without
+     * copying, the other segments fill the read buffer by a single read, or a
+     * new buffer if the read buffer is null or too small. The content of a
+     * returned read buffer is overwritten by the caller's next read, so it
+     * must be copied out, while the mapped view is never modified afterwards.
+     *
+     * @param absOffset   absolute read position
+     * @param length      region length in bytes
+     * @param readBuffer  the reusable buffer for the copied read, may be null
+     * @return            the region buffer, position 0 and limit the bytes available
+     */
+    ByteBuffer readRegion(long absOffset, int length, ByteBuffer readBuffer) throws IOException;
+
     long getLeftAppendTime();
 
     long getRightAppendTime();
@@ -95,4 +123,13 @@ public interface Segment {
     boolean containTime(long timestamp);
 
     long getRecordTime(long reqOffset) throws IOException;
+
+    /**
+     * Narrow the index record range to search for the given timestamp.
+     *
+     * @param timestamp    the timestamp to search
+     * @param lastRecPos   the last record position of the segment
+     * @return             the first and last record positions to search
+     */
+    Tuple2<Long, Long> getTimeSearchRange(long timestamp, long lastRecPos);
 }
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
+import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Sparse time index of an index segment.
+ * It records the receive time of one index record every
+ * {@link DataStoreUtils#STORE_TIME_INDEX_STEP_CNT} records, so that a timestamp lookup
+ * can narrow the index segment range in memory before reading the index file.
+ *
+ * The persisted format is:
+ *   magic 4 + step count 4 + covered index size 8 + entry count 4
+ *   + entry count * receive time 8
+ */
+public class SegmentTimeIndex {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(SegmentTimeIndex.class);
+    private static final int TIME_INDEX_MAGIC = 0x54494458;
+    private static final int TIME_INDEX_HEAD_LEN = 20;
+    // the index bytes between two sparse entries
+    private final long stepSize =
+            (long) DataStoreUtils.STORE_TIME_INDEX_STEP_CNT * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+    // the receive time of the sampled records, entry i samples record at i * stepSize
+    private long[] recvTimes = new long[16];
+    private int entryCount = 0;
+    // the index segment size covered by this time index
+    private long coveredSize = 0;
+
+    public SegmentTimeIndex() {
+
+    }
+
+    /**
+     * Sample the index records appended to the segment.
+     *
+     * @param indexBuffer    the appended index buffer
+     * @param bufStartPos    the start position of the appended records in buffer
+     * @param relOffset      the relative segment position of the appended records
+     * @param appendSize     the appended size in bytes
+     */
+    public synchronized void append(ByteBuffer indexBuffer, int bufStartPos,
+            long relOffset, int appendSize) {
+        if (relOffset != this.coveredSize) {
+            return;
+        }
+        long sampleOffset = ((relOffset + stepSize - 1) / stepSize) * stepSize;
+        long appendEnd = relOffset + appendSize;
+        while (sampleOffset + DataStoreUtils.STORE_INDEX_HEAD_LEN <= appendEnd) {
+            addEntry(indexBuffer.getLong(bufStartPos
+                    + (int) (sampleOffset - relOffset) + DataStoreUtils.INDEX_POS_TIME_RECV));
+            sampleOffset += stepSize;
+        }
+        this.coveredSize = appendEnd;
+    }
+
+    /**
+     * Rebuild the time index by reading the sampled records of the index segment.
+     *
+     * @param channel      the index segment file channel
+     * @param segSize      the valid index segment size
+     * @throws IOException exception while read the index file
+     */
+    public synchronized void rebuild(FileChannel channel, long segSize) throws IOException {
+        this.entryCount = 0;
+        this.coveredSize = 0;
+        final ByteBuffer readUnit = ByteBuffer.allocate(8);
+        long sampleOffset = 0;
+        while (sampleOffset + DataStoreUtils.STORE_INDEX_HEAD_LEN <= segSize) {
+            readUnit.clear();
+            int size = 0;
+            while (readUnit.hasRemaining()) {
+                final int l = channel.read(readUnit,
+                        sampleOffset + DataStoreUtils.INDEX_POS_TIME_RECV + size);
+                if (l < 0) {
+                    break;
+                }
+                size += l;
+            }
+            if (readUnit.hasRemaining()) {
+                break;
+            }
+            readUnit.flip();
+            addEntry(readUnit.getLong());
+            sampleOffset += stepSize;
+        }
+        this.coveredSize = segSize;
+    }
+
+    /**
+     * Narrow the record search range for the given timestamp.
+     *
+     * @param timestamp    the timestamp to search
+     * @param lastRecPos   the last record position of the search range
+     * @return  the first and last record positions that bound the first record
+     *          whose receive time is not earlier than the timestamp
+     */
+    public synchronized Tuple2<Long, Long> getSearchRange(long timestamp, long lastRecPos) {
+        long startPos = 0;
+        long endPos = lastRecPos;
+        if (this.entryCount > 0) {
+            // the first sampled entry not earlier than the timestamp
+            int idx = Arrays.binarySearch(this.recvTimes, 0, this.entryCount, timestamp);
+            if (idx >= 0) {
+                while (idx > 0 && this.recvTimes[idx - 1] == timestamp) {
+                    idx--;
+                }
+            } else {
+                idx = -idx - 1;
+            }
+            if (idx > 0) {
+                startPos = (idx - 1) * (long) DataStoreUtils.STORE_TIME_INDEX_STEP_CNT;
+            }
+            if (idx < this.entryCount) {
+                endPos = Math.min(lastRecPos,
+                        idx * (long) DataStoreUtils.STORE_TIME_INDEX_STEP_CNT);
+            }
+        }
+        return new Tuple2<>(Math.min(startPos, endPos), endPos);
+    }
+
+    /**
+     * Store time index to file.
+     *
+     * @param file     the time index file
+     */
+    public synchronized void store(File file) {
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(TIME_INDEX_HEAD_LEN + this.entryCount * 8);
+        buffer.putInt(TIME_INDEX_MAGIC);
+        buffer.putInt(DataStoreUtils.STORE_TIME_INDEX_STEP_CNT);
+        buffer.putLong(this.coveredSize);
+        buffer.putInt(this.entryCount);
+        for (int i = 0; i < this.entryCount; i++) {
+            buffer.putLong(this.recvTimes[i]);
+        }
+        buffer.flip();
+        try (RandomAccessFile randFile = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = randFile.getChannel();
+            channel.truncate(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (Throwable ex) {
+            logger.warn(new StringBuilder(256).append("[File Store] Store time index ")
+                    .append(file.getAbsolutePath()).append(" failure").toString(), ex);
+        }
+    }
+
+    /**
+     * Load time index from file.
+     *
+     * @param file        the time index file
+     * @param segSize     the valid index segment size
+     * @return  whether the stored time index matches the index segment
+     */
+    public synchronized boolean load(File file, long segSize) {
+        if (!file.exists()) {
+            return false;
+        }
+        try (RandomAccessFile randFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randFile.getChannel();
+            if (channel.size() < TIME_INDEX_HEAD_LEN) {
+                return false;
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != TIME_INDEX_MAGIC
+                    || buffer.getInt() != DataStoreUtils.STORE_TIME_INDEX_STEP_CNT
+                    || buffer.getLong() != segSize) {
+                return false;
+            }
+            int count = buffer.getInt();
+            if (count < 0 || buffer.remaining() != count * 8) {
+                return false;
+            }
+            this.entryCount = 0;
+            for (int i = 0; i < count; i++) {
+                addEntry(buffer.getLong());
+            }
+            this.coveredSize = segSize;
+            return true;
+        } catch (Throwable ex) {
+            logger.warn(new StringBuilder(256).append("[File Store] Load time index ")
+                    .append(file.getAbsolutePath()).append(" failure").toString(), ex);
+            return false;
+        }
+    }
+
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    private void addEntry(long recvTime) {
+        if (this.entryCount == this.recvTimes.length) {
+            this.recvTimes = Arrays.copyOf(this.recvTimes, this.entryCount * 2);
+        }
+        this.recvTimes[this.entryCount++] = recvTime;
+    }
+}
@@ -34,10 +34,10 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -55,10 +55,10 @@ public class MsgMemStore implements Closeable {
     private final ReentrantLock writeLock = new ReentrantLock();
     // partitionId to index position, accelerate query
     private final Map<Integer, Integer> queuesMap =
-            new HashMap<>(20);
+            new ConcurrentHashMap<>(20);
     // key to index position, used for filter consume
     private final Map<Integer, Integer> keysMap =
-            new HashMap<>(100);
+            new ConcurrentHashMap<>(100);
     // where messages in memory will sink to disk
     private final int maxDataCacheSize;
     private long writeDataStartPos = -1;
@@ -180,6 +180,13 @@ public class MsgMemStore implements Closeable {
     /**
      * Read from memory, read index, then data.
      *
+     * The read does not lock against appendMsg: the index offset is read before the
+     * data offset, and appendMsg advances them in the opposite order, so every index
+     * record within the snapshot refers to data that has been completely written.
+     * The returned messages are read-only slices of the cache, not copies, they are
+     * only valid until this cache is reset, so the caller must consume them while
+     * holding the lock that protects the cache swap.
+     *
      * @param lstRdDataOffset       the recent data offset read before
      * @param lstRdIndexOffset      the recent index offset read before
      * @param maxReadSize           the max read size
@@ -215,32 +222,28 @@ public class MsgMemStore implements Closeable {
         int currDataOffset;
         long lastDataRdOff = lstRdDataOffset;
         int startReadOff = (int) (lstRdIndexOffset - this.writeIndexStartPos);
-        this.writeLock.lock();
-        try {
-            if (isFilterConsume) {
-                // filter conduct. accelerate by keysMap.
-                for (Integer keyCode : filterKeySet) {
-                    if (keyCode != null) {
-                        lastWritePos = this.keysMap.get(keyCode);
-                        if ((lastWritePos != null) && (lastWritePos >= startReadOff)) {
-                            hasMsg = true;
-                            break;
-                        }
+        if (isFilterConsume) {
+            // filter conduct. accelerate by keysMap.
+            for (Integer keyCode : filterKeySet) {
+                if (keyCode != null) {
+                    lastWritePos = this.keysMap.get(keyCode);
+                    if ((lastWritePos != null) && (lastWritePos >= startReadOff)) {
+                        hasMsg = true;
+                        break;
                     }
                 }
-            } else {
-                // orderly consume by partition id.
-                lastWritePos = this.queuesMap.get(partitionId);
-                if ((lastWritePos != null) && (lastWritePos >= startReadOff)) {
-                    hasMsg = true;
-                }
             }
-            currDataOffset = this.cacheDataOffset.get();
-            currIndexOffset = this.cacheIndexOffset.get();
-            lastDataRdOff = this.writeDataStartPos + currDataOffset;
-        } finally {
-            this.writeLock.unlock();
+        } else {
+            // orderly consume by partition id.
+            lastWritePos = this.queuesMap.get(partitionId);
+            if ((lastWritePos != null) && (lastWritePos >= startReadOff)) {
+                hasMsg = true;
+            }
         }
+        // snapshot index offset first, then data offset
+        currIndexOffset = this.cacheIndexOffset.get();
+        currDataOffset = this.cacheDataOffset.get();
+        lastDataRdOff = this.writeDataStartPos + currDataOffset;
         int limitReadSize = currIndexOffset - startReadOff;
         // cannot find message, return not found
         if (!hasMsg) {
@@ -295,13 +298,11 @@ public class MsgMemStore implements Closeable {
             if (reqRcvTime != 0 && cTimeRecv < reqRcvTime) {
                 continue;
             }
-            // read data file.
-            byte[] tmpArray = new byte[cDataSize];
-            final ByteBuffer buffer = ByteBuffer.wrap(tmpArray);
+            // slice data from cache.
+            tmpDataRdBuf.limit(cDataOffset + cDataSize);
             tmpDataRdBuf.position(cDataOffset);
-            tmpDataRdBuf.get(tmpArray);
-            buffer.rewind();
-            cacheMsgList.add(buffer);
+            cacheMsgList.add(tmpDataRdBuf.slice());
+            tmpDataRdBuf.limit(tmpDataRdBuf.capacity());
             lastDataRdOff = cDataPos + cDataSize;
             readedSize += DataStoreUtils.STORE_INDEX_HEAD_LEN;
             totalReadSize += cDataSize;
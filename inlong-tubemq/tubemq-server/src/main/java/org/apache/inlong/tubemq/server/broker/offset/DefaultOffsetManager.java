@@ -20,6 +20,7 @@ package org.apache.inlong.tubemq.server.broker.offset;
 import org.apache.inlong.tubemq.corebase.TBaseConstants;
 import org.apache.inlong.tubemq.corebase.daemon.AbstractDaemonService;
 import org.apache.inlong.tubemq.corebase.rv.RetValue;
+import org.apache.inlong.tubemq.corebase.utils.ConcurrentHashSet;
 import org.apache.inlong.tubemq.corebase.utils.MixedUtils;
 import org.apache.inlong.tubemq.corebase.utils.TStringUtils;
 import org.apache.inlong.tubemq.corebase.utils.Tuple2;
@@ -40,6 +41,7 @@ import org.apache.inlong.tubemq.server.common.TServerConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -70,6 +72,8 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
             new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, OffsetHistoryInfo> offlineGroupHisInfoMap =
             new ConcurrentHashMap<>();
+    // the groups with modified offsets since the last commit
+    private final ConcurrentHashSet<String> dirtyGroups = new ConcurrentHashSet<>();
 
     public DefaultOffsetManager(final BrokerConfig brokerConfig,
             final MetadataManager metadataManager) {
@@ -78,7 +82,8 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
         this.metadataManager = metadataManager;
         this.fileOffsetStorage = new FileOffsetStorage(brokerConfig.getBrokerId(),
                 brokerConfig.getOffsetStgFilePath(), brokerConfig.getOffsetStgFileSyncMs(),
-                brokerConfig.getOffsetStgSyncDurWarnMs());
+                brokerConfig.getOffsetStgSyncDurWarnMs(), brokerConfig.isEnableOffsetJournal(),
+                brokerConfig.getOffsetJournalCompactMs(), brokerConfig.getOffsetJournalMaxSize());
         if (brokerConfig.getZkConfig() != null
                 && (this.fileOffsetStorage.isFistUseFileStg()
                         || this.brokerConfig.isEnableWriteOffset2Zk())) {
@@ -200,6 +205,7 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
                 adjOffset = MixedUtils.mid(reqOffset, indexMinOffset, indexMaxOffset);
             }
             regInfo.getAndSetOffset(adjOffset);
+            this.dirtyGroups.add(group);
         }
         sBuilder.append("[Offset Manager]");
         switch (readStatus) {
@@ -338,6 +344,7 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
             return regInfo.getOffset();
         }
         updatedOffset = regInfo.addAndGetOffset(tmpOffset);
+        this.dirtyGroups.add(group);
         if (logger.isDebugEnabled()) {
             logger.debug(new StringBuilder(512)
                     .append("[Offset Manager] Update offset finished, offset=").append(updatedOffset)
@@ -370,6 +377,7 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
             OffsetStorageInfo regInfo =
                     loadOrCreateOffset(group, topic, partitionId, offsetCacheKey, 0);
             oldOffset = regInfo.getAndSetOffset(reSetOffset);
+            this.dirtyGroups.add(group);
             long currentOffset = regInfo.getOffset();
             long offsetDelta = indexMaxOffset - currentOffset;
             logger.info(new StringBuilder(512)
@@ -670,6 +678,7 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
                 OffsetStorageInfo regInfo = loadOrCreateOffset(group,
                         tuple3.getF0(), tuple3.getF1(), offsetCacheKey, 0);
                 oldOffset = regInfo.getAndSetOffset(tuple3.getF2());
+                this.dirtyGroups.add(group);
                 changed = true;
                 logger.info(strBuff
                         .append("[Offset Manager] Update offset by modifier=")
@@ -716,6 +725,7 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
                 OffsetStorageInfo regInfo = loadOrCreateOffset(group,
                         tuple4.getF1(), tuple4.getF2(), offsetCacheKey, 0);
                 oldOffset = regInfo.getAndSetOffset(tuple4.getF3());
+                this.dirtyGroups.add(group);
                 changed = true;
                 logger.info(strBuff.append("[Offset Manager2] Update offset by modifier=").append(modifier)
                         .append(",recordTime=").append(tuple4.getF0())
@@ -852,32 +862,37 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
     private boolean commitCfmOffsets(boolean retryable) {
         boolean updated = false;
         long startTime = System.currentTimeMillis();
-        if (this.zkOffsetStorage == null) {
-            for (Map.Entry<String, ConcurrentHashMap<String, OffsetStorageInfo>> entry : cfmOffsetMap.entrySet()) {
-                if (TStringUtils.isBlank(entry.getKey())
-                        || entry.getValue() == null || entry.getValue().isEmpty()) {
-                    continue;
-                }
-                if (this.fileOffsetStorage.commitOffset(entry.getKey(), entry.getValue().values(), retryable)) {
-                    updated = true;
-                }
+        // only commit the modified offsets of the dirty groups
+        List<OffsetStorageInfo> modifiedInfos = new ArrayList<>();
+        for (String group : this.dirtyGroups) {
+            // remove before collecting, the later modification marks the group again
+            this.dirtyGroups.remove(group);
+            ConcurrentHashMap<String, OffsetStorageInfo> regInfoMap = cfmOffsetMap.get(group);
+            if (TStringUtils.isBlank(group)
+                    || regInfoMap == null || regInfoMap.isEmpty()) {
+                continue;
             }
-            BrokerSrvStatsHolder.updOffsetFileSyncDataDlt(System.currentTimeMillis() - startTime);
-        } else {
-            for (Map.Entry<String, ConcurrentHashMap<String, OffsetStorageInfo>> entry : cfmOffsetMap.entrySet()) {
-                if (TStringUtils.isBlank(entry.getKey())
-                        || entry.getValue() == null || entry.getValue().isEmpty()) {
-                    continue;
-                }
-                if (this.fileOffsetStorage.commitOffset(entry.getKey(), entry.getValue().values(), retryable)) {
-                    updated = true;
+            modifiedInfos.clear();
+            for (OffsetStorageInfo info : regInfoMap.values()) {
+                if (info != null && info.isModified()) {
+                    modifiedInfos.add(info);
                 }
-                this.zkOffsetStorage.commitOffset(entry.getKey(), entry.getValue().values(), retryable);
             }
-            long endTime = System.currentTimeMillis();
+            if (modifiedInfos.isEmpty()) {
+                continue;
+            }
+            if (this.fileOffsetStorage.commitOffset(group, modifiedInfos, retryable)) {
+                updated = true;
+            }
+            if (this.zkOffsetStorage != null) {
+                this.zkOffsetStorage.commitOffset(group, modifiedInfos, retryable);
+            }
+        }
+        long endTime = System.currentTimeMillis();
+        if (this.zkOffsetStorage != null) {
             BrokerSrvStatsHolder.updZKSyncDataDlt(endTime - startTime);
-            BrokerSrvStatsHolder.updOffsetFileSyncDataDlt(endTime - startTime);
         }
+        BrokerSrvStatsHolder.updOffsetFileSyncDataDlt(endTime - startTime);
         return updated;
     }
 
@@ -914,6 +929,9 @@ public class DefaultOffsetManager extends AbstractDaemonService implements Offse
             regInfo = regInfoMap.putIfAbsent(offsetCacheKey, tmpRegInfo);
             if (regInfo == null) {
                 regInfo = tmpRegInfo;
+                if (regInfo.isModified()) {
+                    this.dirtyGroups.add(group);
+                }
             }
         }
         return regInfo;
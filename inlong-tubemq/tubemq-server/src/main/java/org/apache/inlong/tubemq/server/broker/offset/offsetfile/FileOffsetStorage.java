@@ -21,6 +21,7 @@ import org.apache.inlong.tubemq.corebase.daemon.AbstractDaemonService;
 import org.apache.inlong.tubemq.corebase.rv.RetValue;
 import org.apache.inlong.tubemq.corebase.utils.ConcurrentHashSet;
 import org.apache.inlong.tubemq.corebase.utils.ServiceStatusHolder;
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
 import org.apache.inlong.tubemq.server.broker.offset.OffsetHistoryInfo;
 import org.apache.inlong.tubemq.server.broker.offset.OffsetStorage;
 import org.apache.inlong.tubemq.server.broker.offset.OffsetStorageInfo;
@@ -53,6 +54,7 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
     private static final String OFFSET_FILENAME_SUFFIX_TMP = ".tmp";
     private static final String OFFSET_FILENAME_SUFFIX_MID = ".mid";
     private static final String OFFSET_FILENAME_SUFFIX_OLD = ".old";
+    private static final String OFFSET_FILENAME_SUFFIX_JOURNAL = ".journal";
     private final int brokerId;
     private final String offsetsDirBase;
     private final String offsetsFileBase;
@@ -61,13 +63,39 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
     private final AtomicBoolean isUpdated = new AtomicBoolean(false);
     private GroupOffsetStgInfo groupOffsetInfo;
     private final ConcurrentHashMap<String, ConcurrentHashSet<String>> groupTopicsInfo = new ConcurrentHashMap<>();
+    // offset journal configure
+    private final boolean enableJournal;
+    private final long journalCompactMs;
+    private final long journalMaxSize;
+    private final AtomicBoolean isJournalUpdated = new AtomicBoolean(false);
+    private OffsetJournal journal = null;
+    private long lstCompactTime = System.currentTimeMillis();
 
     public FileOffsetStorage(int brokerId, String offsetFilePath, long syncIntMs, long syncDurWarnMs) {
+        this(brokerId, offsetFilePath, syncIntMs, syncDurWarnMs, false, 0L, 0L);
+    }
+
+    /**
+     * Initial file offset storage
+     *
+     * @param brokerId           the broker id
+     * @param offsetFilePath     the offset file path
+     * @param syncIntMs          the sync interval
+     * @param syncDurWarnMs      the sync duration warning value
+     * @param enableJournal      whether to append the committed offsets to the journal
+     * @param journalCompactMs   the max duration between two compactions of the journal
+     * @param journalMaxSize     the journal size that triggers the compaction
+     */
+    public FileOffsetStorage(int brokerId, String offsetFilePath, long syncIntMs,
+            long syncDurWarnMs, boolean enableJournal, long journalCompactMs, long journalMaxSize) {
         super("Offset-File", syncIntMs);
         this.brokerId = brokerId;
         this.syncDurWarnMs = syncDurWarnMs;
         this.offsetsDirBase = offsetFilePath + File.separator + offsetSubDir;
         this.offsetsFileBase = this.offsetsDirBase + File.separator + OFFSET_FILENAME;
+        this.enableJournal = enableJournal;
+        this.journalCompactMs = journalCompactMs;
+        this.journalMaxSize = journalMaxSize;
     }
 
     @Override
@@ -91,11 +119,28 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         if (!this.isStarted.get()) {
             return;
         }
-        if (!this.isUpdated.compareAndSet(true, false)) {
-            return;
-        }
         long curStartTime = System.currentTimeMillis();
-        storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+        if (this.journal == null) {
+            if (!this.isUpdated.compareAndSet(true, false)) {
+                return;
+            }
+            storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+        } else {
+            // compact the journal into the offset file when the offsets are removed,
+            // or the journal is too large or old, otherwise only sync the journal
+            long journalSize = this.journal.size();
+            if (this.isUpdated.compareAndSet(true, false)
+                    || journalSize > this.journalMaxSize
+                    || (journalSize > 0 && curStartTime - this.lstCompactTime > this.journalCompactMs)) {
+                compactJournal();
+            } else if (this.isJournalUpdated.compareAndSet(true, false)) {
+                if (!this.journal.sync()) {
+                    this.isUpdated.set(true);
+                }
+            } else {
+                return;
+            }
+        }
         long wastMs = System.currentTimeMillis() - curStartTime;
         if (wastMs > syncDurWarnMs) {
             logger.warn("[File offsets] sync offsets to file over warn value, wast={}ms, warnMs={}",
@@ -111,7 +156,12 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         super.stop();
         logger.info("[File offsets] begin sync content to file, begin");
         long curStartTime = System.currentTimeMillis();
-        storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+        if (this.journal == null) {
+            storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+        } else {
+            compactJournal();
+            this.journal.close();
+        }
         long wastMs = System.currentTimeMillis() - curStartTime;
         if (wastMs > syncDurWarnMs) {
             logger.warn("[File offsets] close and sync offsets to file, wast={}ms, warnMs={}",
@@ -162,12 +212,29 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         if (offsetInfoList == null || offsetInfoList.isEmpty()) {
             return false;
         }
-        if (this.groupOffsetInfo.storeOffsetStgInfo(
-                group, offsetInfoList, this.groupTopicsInfo)) {
-            isUpdated.set(true);
+        if (this.journal == null) {
+            if (this.groupOffsetInfo.storeOffsetStgInfo(
+                    group, offsetInfoList, this.groupTopicsInfo)) {
+                isUpdated.set(true);
+                return true;
+            }
+            return false;
+        }
+        // keep the stored offsets and their journal records atomic to the compaction
+        synchronized (this.journal) {
+            Tuple2<Boolean, Boolean> result = this.groupOffsetInfo.storeOffsetStgInfo(
+                    group, offsetInfoList, this.groupTopicsInfo, this.journal);
+            if (!result.getF0()) {
+                return false;
+            }
+            if (result.getF1()) {
+                isJournalUpdated.set(true);
+            } else {
+                // fall back to store the whole offsets
+                isUpdated.set(true);
+            }
             return true;
         }
-        return false;
     }
 
     @Override
@@ -414,6 +481,9 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
             }
         }
         this.groupOffsetInfo = tmpOffsetInfoMap;
+        if (!loadOffsetJournal()) {
+            return false;
+        }
         Map<String, OffsetStgInfo> offsetStgInfos = tmpOffsetInfoMap.getGroupOffsetStgInfo();
         if (offsetStgInfos == null || offsetStgInfos.isEmpty()) {
             return true;
@@ -448,6 +518,79 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         return true;
     }
 
+    /**
+     * Replay the offset journal over the loaded offsets and compact them into the offset file,
+     * the journal left by a previous run is replayed even if the journal is disabled now.
+     *
+     * @return   whether the journal was loaded
+     */
+    private boolean loadOffsetJournal() {
+        File journalFile = new File(this.offsetsFileBase + OFFSET_FILENAME_SUFFIX_JOURNAL);
+        if (!this.enableJournal && !journalFile.exists()) {
+            return true;
+        }
+        OffsetJournal tmpJournal;
+        try {
+            tmpJournal = new OffsetJournal(journalFile);
+        } catch (IOException ex) {
+            ServiceStatusHolder.addReadIOErrCnt();
+            BrokerSrvStatsHolder.incDiskIOExcCnt();
+            logger.error("[File offsets] open offset journal {} failure!",
+                    journalFile.getAbsoluteFile(), ex);
+            return false;
+        }
+        try {
+            int recordCnt = tmpJournal.replay(this.groupOffsetInfo);
+            if (recordCnt > 0) {
+                logger.info("[File offsets] replayed {} records from offset journal {}",
+                        recordCnt, journalFile.getAbsoluteFile());
+                RetValue retValue = storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+                if (!retValue.isSuccess()) {
+                    logger.error("[File offsets] compact offset journal failure: {}",
+                            retValue.getErrMsg());
+                    tmpJournal.close();
+                    return false;
+                }
+            }
+        } catch (IOException ex) {
+            ServiceStatusHolder.addReadIOErrCnt();
+            BrokerSrvStatsHolder.incDiskIOExcCnt();
+            logger.error("[File offsets] replay offset journal {} failure!",
+                    journalFile.getAbsoluteFile(), ex);
+            tmpJournal.close();
+            return false;
+        }
+        if (!tmpJournal.reset()) {
+            tmpJournal.close();
+            return false;
+        }
+        if (this.enableJournal) {
+            this.journal = tmpJournal;
+            this.lstCompactTime = System.currentTimeMillis();
+        } else {
+            tmpJournal.close();
+            FileUtils.deleteQuietly(journalFile);
+        }
+        return true;
+    }
+
+    /**
+     * Store the whole offsets into the offset file, and truncate the journal.
+     */
+    private void compactJournal() {
+        synchronized (this.journal) {
+            this.isJournalUpdated.set(false);
+            RetValue retValue = storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+            if (retValue.isSuccess() && this.journal.reset()) {
+                this.lstCompactTime = System.currentTimeMillis();
+                return;
+            }
+            // keep the journal, and retry the compaction next round
+            this.journal.sync();
+            this.isUpdated.set(true);
+        }
+    }
+
     private boolean checkAndRecoverStgFiles() {
         String fileContent;
         GroupOffsetStgInfo tmpGroupStgInfo;
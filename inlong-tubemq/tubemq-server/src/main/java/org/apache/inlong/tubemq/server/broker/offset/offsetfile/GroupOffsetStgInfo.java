@@ -18,6 +18,7 @@
 package org.apache.inlong.tubemq.server.broker.offset.offsetfile;
 
 import org.apache.inlong.tubemq.corebase.utils.ConcurrentHashSet;
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
 import org.apache.inlong.tubemq.server.broker.offset.OffsetStorageInfo;
 
 import java.util.Collection;
@@ -44,6 +45,23 @@ public class GroupOffsetStgInfo {
 
     public boolean storeOffsetStgInfo(String group, Collection<OffsetStorageInfo> offsetInfoList,
             ConcurrentHashMap<String, ConcurrentHashSet<String>> groupTopicsInfo) {
+        return storeOffsetStgInfo(group, offsetInfoList, groupTopicsInfo, null).getF0();
+    }
+
+    /**
+     * Store the modified offsets of the group, and append them to the journal if required.
+     *
+     * @param group             the consume group name
+     * @param offsetInfoList    the offsets to store
+     * @param groupTopicsInfo   the group's topic cache
+     * @param journal           the offset journal, null if not required
+     * @return                  whether there are stored offsets, and whether all of them
+     *                          appended to the journal
+     */
+    public Tuple2<Boolean, Boolean> storeOffsetStgInfo(String group,
+            Collection<OffsetStorageInfo> offsetInfoList,
+            ConcurrentHashMap<String, ConcurrentHashSet<String>> groupTopicsInfo,
+            OffsetJournal journal) {
         OffsetStgInfo curOffsetStgInfo = groupOffsetStgInfo.get(group);
         if (curOffsetStgInfo == null) {
             OffsetStgInfo tmpOffsetStgInfo = new OffsetStgInfo();
@@ -53,13 +71,21 @@ public class GroupOffsetStgInfo {
             }
         }
         boolean updated = false;
+        boolean journaled = true;
         ConcurrentHashSet<String> tmpSet;
         ConcurrentHashSet<String> topicSet;
         for (OffsetStorageInfo info : offsetInfoList) {
             if (info == null || !info.isModified()) {
                 continue;
             }
-            if (curOffsetStgInfo.updOffsetInfo(info)) {
+            // clear the flag before reading, the later modification is stored next round
+            info.setModified(false);
+            boolean isAdded = curOffsetStgInfo.updOffsetInfo(info);
+            if (journal != null && !journal.append(group,
+                    curOffsetStgInfo.getPartOffsetInfo(info.getTopic(), info.getPartitionId()))) {
+                journaled = false;
+            }
+            if (isAdded) {
                 topicSet = groupTopicsInfo.get(group);
                 if (topicSet == null) {
                     tmpSet = new ConcurrentHashSet<>();
@@ -71,9 +97,8 @@ public class GroupOffsetStgInfo {
                 topicSet.add(info.getTopic());
             }
             updated = true;
-            info.setModified(false);
         }
-        return updated;
+        return new Tuple2<>(updated, journaled);
     }
 
     public boolean addOffsetStgInfo(String group, String topic, int partId, long offset, long msgId) {
@@ -88,6 +113,19 @@ public class GroupOffsetStgInfo {
         return curOffsetStgInfo.updOffsetInfo(topic, partId, 0, msgId, offset, System.currentTimeMillis());
     }
 
+    public boolean updOffsetStgInfo(String group, String topic, int partId,
+            long lstRstTerm, long msgId, long offset, long lstUpdTime) {
+        OffsetStgInfo curOffsetStgInfo = groupOffsetStgInfo.get(group);
+        if (curOffsetStgInfo == null) {
+            OffsetStgInfo tmpOffsetStgInfo = new OffsetStgInfo();
+            curOffsetStgInfo = groupOffsetStgInfo.putIfAbsent(group, tmpOffsetStgInfo);
+            if (curOffsetStgInfo == null) {
+                curOffsetStgInfo = tmpOffsetStgInfo;
+            }
+        }
+        return curOffsetStgInfo.updOffsetInfo(topic, partId, lstRstTerm, msgId, offset, lstUpdTime);
+    }
+
     public Map<Integer, Long> queryGroupOffsetInfo(String group, String topic, Set<Integer> partIds) {
         OffsetStgInfo offsetStgInfo = groupOffsetStgInfo.get(group);
         if (offsetStgInfo == null) {
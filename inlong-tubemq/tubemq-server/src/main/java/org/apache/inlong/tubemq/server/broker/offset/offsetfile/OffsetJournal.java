@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.offset.offsetfile;
+
+import org.apache.inlong.tubemq.corebase.utils.ServiceStatusHolder;
+import org.apache.inlong.tubemq.server.broker.stats.BrokerSrvStatsHolder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the committed offsets.
+ *
+ * Each commit of a partition's offset is appended as a small record instead of
+ * rewriting the whole offset file, the records are replayed over the offset file
+ * while loading, and the journal is truncated after the offsets are compacted
+ * into the offset file.
+ *
+ * The record format is:
+ *   body length 4 + body crc32 4 + body, where the body is
+ *   group length 2 + group + topic length 2 + topic + partition id 4
+ *   + reset term 8 + message id 8 + offset 8 + update time 8
+ */
+public class OffsetJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffsetJournal.class);
+    private static final int RECORD_HEAD_LEN = 8;
+    private static final int RECORD_BODY_FIXED_LEN = 36;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private final File file;
+    private final RandomAccessFile randFile;
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private final CRC32 crc32 = new CRC32();
+
+    public OffsetJournal(File file) throws IOException {
+        this.file = file;
+        this.randFile = new RandomAccessFile(file, "rw");
+        this.channel = this.randFile.getChannel();
+        this.channel.position(this.channel.size());
+    }
+
+    /**
+     * Replay the journal records over the loaded offsets, the records after
+     * the first broken one are discarded.
+     *
+     * @param groupOffsetInfo   the loaded offsets
+     * @return                  the replayed record count
+     * @throws IOException      exception while reading the journal
+     */
+    public synchronized int replay(GroupOffsetStgInfo groupOffsetInfo) throws IOException {
+        int recordCnt = 0;
+        long validPos = 0;
+        final long fileSize = this.channel.size();
+        final ByteBuffer headBuffer = ByteBuffer.allocate(RECORD_HEAD_LEN);
+        while (validPos + RECORD_HEAD_LEN <= fileSize) {
+            headBuffer.clear();
+            readFully(headBuffer, validPos);
+            headBuffer.flip();
+            final int bodyLen = headBuffer.getInt();
+            final long crcValue = headBuffer.getInt() & 0xFFFFFFFFL;
+            if (bodyLen < RECORD_BODY_FIXED_LEN + 4
+                    || validPos + RECORD_HEAD_LEN + bodyLen > fileSize) {
+                break;
+            }
+            final ByteBuffer bodyBuffer = ByteBuffer.allocate(bodyLen);
+            readFully(bodyBuffer, validPos + RECORD_HEAD_LEN);
+            this.crc32.reset();
+            this.crc32.update(bodyBuffer.array(), 0, bodyLen);
+            if (this.crc32.getValue() != crcValue) {
+                break;
+            }
+            bodyBuffer.flip();
+            final String group = readString(bodyBuffer);
+            final String topic = readString(bodyBuffer);
+            groupOffsetInfo.updOffsetStgInfo(group, topic, bodyBuffer.getInt(),
+                    bodyBuffer.getLong(), bodyBuffer.getLong(),
+                    bodyBuffer.getLong(), bodyBuffer.getLong());
+            validPos += RECORD_HEAD_LEN + bodyLen;
+            recordCnt++;
+        }
+        if (validPos < fileSize) {
+            logger.warn(new StringBuilder(512)
+                    .append("[File offsets] discard broken journal records of ")
+                    .append(this.file.getAbsolutePath()).append(", validPos=")
+                    .append(validPos).append(", fileSize=").append(fileSize).toString());
+            this.channel.truncate(validPos);
+        }
+        this.channel.position(validPos);
+        return recordCnt;
+    }
+
+    /**
+     * Append the partition's offset to the journal.
+     *
+     * @param group      the consume group name
+     * @param partInfo   the partition offset
+     * @return           whether the record was appended
+     */
+    public synchronized boolean append(String group, PartStgInfo partInfo) {
+        final byte[] groupBytes = group.getBytes(StandardCharsets.UTF_8);
+        final byte[] topicBytes = partInfo.getTopic().getBytes(StandardCharsets.UTF_8);
+        final int bodyLen = RECORD_BODY_FIXED_LEN + 4 + groupBytes.length + topicBytes.length;
+        try {
+            if (this.writeBuffer.remaining() < RECORD_HEAD_LEN + bodyLen) {
+                writeBuffered();
+            }
+            ByteBuffer buffer = this.writeBuffer;
+            if (buffer.remaining() < RECORD_HEAD_LEN + bodyLen) {
+                // oversized record, write it directly
+                buffer = ByteBuffer.allocate(RECORD_HEAD_LEN + bodyLen);
+            }
+            final int startPos = buffer.position();
+            buffer.putInt(bodyLen);
+            buffer.putInt(0);
+            buffer.putShort((short) groupBytes.length);
+            buffer.put(groupBytes);
+            buffer.putShort((short) topicBytes.length);
+            buffer.put(topicBytes);
+            buffer.putInt(partInfo.getPartId());
+            buffer.putLong(partInfo.getLstRstTerm());
+            buffer.putLong(partInfo.getMsgId());
+            buffer.putLong(partInfo.getLstOffset());
+            buffer.putLong(partInfo.getLstUpdTime());
+            this.crc32.reset();
+            this.crc32.update(buffer.array(), startPos + RECORD_HEAD_LEN, bodyLen);
+            buffer.putInt(startPos + 4, (int) this.crc32.getValue());
+            if (buffer != this.writeBuffer) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    this.channel.write(buffer);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            ServiceStatusHolder.addWriteIOErrCnt();
+            BrokerSrvStatsHolder.incDiskIOExcCnt();
+            logger.error("[File offsets] append offset journal failure", e);
+            return false;
+        }
+    }
+
+    /**
+     * Write the buffered records and force them to disk.
+     *
+     * @return     whether the records were synced
+     */
+    public synchronized boolean sync() {
+        try {
+            writeBuffered();
+            this.channel.force(false);
+            return true;
+        } catch (IOException e) {
+            ServiceStatusHolder.addWriteIOErrCnt();
+            BrokerSrvStatsHolder.incDiskIOExcCnt();
+            logger.error("[File offsets] sync offset journal failure", e);
+            return false;
+        }
+    }
+
+    /**
+     * Truncate the journal after its records are compacted into the offset file.
+     *
+     * @return     whether the journal was truncated
+     */
+    public synchronized boolean reset() {
+        this.writeBuffer.clear();
+        try {
+            this.channel.truncate(0);
+            this.channel.position(0);
+            this.channel.force(true);
+            return true;
+        } catch (IOException e) {
+            ServiceStatusHolder.addWriteIOErrCnt();
+            BrokerSrvStatsHolder.incDiskIOExcCnt();
+            logger.error("[File offsets] truncate offset journal failure", e);
+            return false;
+        }
+    }
+
+    public synchronized long size() {
+        try {
+            return this.channel.position() + this.writeBuffer.position();
+        } catch (IOException e) {
+            return this.writeBuffer.position();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writeBuffered();
+            this.channel.force(true);
+        } catch (IOException e) {
+            ServiceStatusHolder.addWriteIOErrCnt();
+            BrokerSrvStatsHolder.incDiskIOExcCnt();
+            logger.error("[File offsets] sync offset journal failure while closing", e);
+        }
+        try {
+            this.randFile.close();
+        } catch (IOException e) {
+            logger.warn("[File offsets] close offset journal failure", e);
+        }
+    }
+
+    private void writeBuffered() throws IOException {
+        if (this.writeBuffer.position() == 0) {
+            return;
+        }
+        this.writeBuffer.flip();
+        try {
+            while (this.writeBuffer.hasRemaining()) {
+                this.channel.write(this.writeBuffer);
+            }
+        } finally {
+            this.writeBuffer.clear();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        long readPos = position;
+        while (buffer.hasRemaining()) {
+            final int l = this.channel.read(buffer, readPos);
+            if (l < 0) {
+                throw new IOException("[File offsets] unexpected end of offset journal");
+            }
+            readPos += l;
+        }
+    }
+
+    private String readString(ByteBuffer buffer) {
+        final byte[] strBytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(strBytes);
+        return new String(strBytes, StandardCharsets.UTF_8);
+    }
+}
@@ -178,13 +178,10 @@ public class ZkOffsetStorage implements OffsetStorage {
         for (final OffsetStorageInfo info : infoList) {
             long newOffset = -1;
             long msgId = -1;
+            // the caller only passes the modified offsets, whose flags are cleared by the file storage
             synchronized (info) {
-                if (!info.isModified()) {
-                    continue;
-                }
                 newOffset = info.getOffset();
                 msgId = info.getMessageId();
-                info.setModified(false);
             }
             final String topic = info.getTopic();
             String offsetPath = sb.append(this.consumerZkDir).append("/")
@@ -142,6 +142,14 @@ public class BrokerSrvStatsHolder {
         switchableSets[getIndex()].fileSyncDltStats.update(dltTime);
     }
 
+    public static void updGroupFlushDlt(long dltTime) {
+        switchableSets[getIndex()].groupFlushDltStats.update(dltTime);
+    }
+
+    public static void updGroupFlushWaitDlt(long dltTime) {
+        switchableSets[getIndex()].groupFlushWaitDltStats.update(dltTime);
+    }
+
     public static void updZKSyncDataDlt(long dltTime) {
         switchableSets[getIndex()].zkSyncDltStats.update(dltTime);
     }
@@ -214,6 +222,8 @@ public class BrokerSrvStatsHolder {
                     statsSet.errPubOverFlowStats.getAndResetValue());
             statsSet.fileSyncDltStats.snapShort(statsMap, false);
             statsSet.offsetFileSyncDltStats.snapShort(statsMap, false);
+            statsSet.groupFlushDltStats.snapShort(statsMap, false);
+            statsSet.groupFlushWaitDltStats.snapShort(statsMap, false);
             statsSet.zkSyncDltStats.snapShort(statsMap, false);
             statsSet.msgPubLatencyStats.snapShort(statsMap, false);
             statsSet.msgSubLatencyStats.snapShort(statsMap, false);
@@ -237,6 +247,8 @@ public class BrokerSrvStatsHolder {
                     statsSet.errPubOverFlowStats.getValue());
             statsSet.fileSyncDltStats.getValue(statsMap, false);
             statsSet.offsetFileSyncDltStats.getValue(statsMap, false);
+            statsSet.groupFlushDltStats.getValue(statsMap, false);
+            statsSet.groupFlushWaitDltStats.getValue(statsMap, false);
             statsSet.zkSyncDltStats.getValue(statsMap, false);
             statsSet.msgPubLatencyStats.getValue(statsMap, false);
             statsSet.msgSubLatencyStats.getValue(statsMap, false);
@@ -272,6 +284,10 @@ public class BrokerSrvStatsHolder {
             strBuff.append(",");
             statsSet.offsetFileSyncDltStats.snapShort(strBuff, false);
             strBuff.append(",");
+            statsSet.groupFlushDltStats.snapShort(strBuff, false);
+            strBuff.append(",");
+            statsSet.groupFlushWaitDltStats.snapShort(strBuff, false);
+            strBuff.append(",");
             statsSet.zkSyncDltStats.snapShort(strBuff, false);
             strBuff.append(",");
             statsSet.msgPubLatencyStats.snapShort(strBuff, false);
@@ -302,6 +318,10 @@ public class BrokerSrvStatsHolder {
             strBuff.append(",");
             statsSet.offsetFileSyncDltStats.getValue(strBuff, false);
             strBuff.append(",");
+            statsSet.groupFlushDltStats.getValue(strBuff, false);
+            strBuff.append(",");
+            statsSet.groupFlushWaitDltStats.getValue(strBuff, false);
+            strBuff.append(",");
             statsSet.zkSyncDltStats.getValue(strBuff, false);
             strBuff.append(",");
             statsSet.msgPubLatencyStats.getValue(strBuff, false);
@@ -358,6 +378,12 @@ public class BrokerSrvStatsHolder {
         // Delay statistics for syncing data to File offset
         protected final ESTHistogram offsetFileSyncDltStats =
                 new ESTHistogram("offset_file_sync_dlt", null);
+        // Duration statistics of the grouped disk flushes
+        protected final ESTHistogram groupFlushDltStats =
+                new ESTHistogram("group_flush_dlt", null);
+        // Delay statistics from flush request to grouped flush finished
+        protected final ESTHistogram groupFlushWaitDltStats =
+                new ESTHistogram("group_flush_wait_dlt", null);
         // Broker 2 Master status statistics
         protected final LongStatsCounter brokerTimeoutStats =
                 new LongStatsCounter("broker_timeout_cnt", null);
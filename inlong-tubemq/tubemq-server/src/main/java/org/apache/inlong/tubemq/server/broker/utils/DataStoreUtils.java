@@ -25,9 +25,11 @@ import org.apache.inlong.tubemq.corebase.utils.TStringUtils;
 import org.apache.inlong.tubemq.server.broker.stats.TrafficInfo;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
 import java.util.HashMap;
 
@@ -89,8 +91,15 @@ public class DataStoreUtils {
                     + TBaseConstants.META_MB_UNIT_SIZE * 8;
     public static final int STORE_MAX_MESSAGE_STORE_LEN = STORE_DATA_HEADER_LEN + MAX_MSG_DATA_STORE_SIZE;
 
+    // the index record count between two sparse time index entries
+    public static final int STORE_TIME_INDEX_STEP_CNT = 1024;
+
     public static final String DATA_FILE_SUFFIX = ".tube";
     public static final String INDEX_FILE_SUFFIX = ".index";
+    public static final String TIME_INDEX_FILE_SUFFIX = ".tidx";
+    public static final String COLD_SEGMENT_FILE_SUFFIX = ".cold";
+    // the delay to delete the local file of an offloaded segment
+    public static final long COLD_SEGMENT_LOCAL_DEL_DELAY_MS = 120000L;
 
     public static int getInt(final int offset, final byte[] data) {
         return ByteBuffer.wrap(data, offset, 4).getInt();
@@ -168,6 +177,93 @@ public class DataStoreUtils {
                 }
             }
         }
+        addTrafficStats(attribute, payLoadLen2, countMap, statisKeyBase, sBuilder);
+        ClientBroker.TransferedMessage transferedMessage = dataBuilder.build();
+        dataBuilder.clear();
+        return transferedMessage;
+    }
+
+    /**
+     * Convert inner message stored in a data-file region to protobuf format.
+     * Unlike {@link #getTransferMsg(ByteBuffer, int, HashMap, String, StringBuilder)},
+     * the buffer is not required to be array backed, and the payload is not staged
+     * through an intermediate byte array.
+     *
+     * @param msgBuffer       the raw stored message, from position 0 to limit
+     * @param shareData       whether the buffer content is immutable and may be
+     *                        referenced by the result instead of being copied
+     * @param countMap        the statistics map
+     * @param statisKeyBase   the statistics key prefix
+     * @param sBuilder        the string buffer
+     * @return                the converted messages
+     */
+    public static ClientBroker.TransferedMessage getTransferMsg(ByteBuffer msgBuffer, boolean shareData,
+            HashMap<String, TrafficInfo> countMap,
+            String statisKeyBase,
+            StringBuilder sBuilder) {
+        final int dataTotalSize = msgBuffer.limit();
+        if (dataTotalSize < DataStoreUtils.STORE_DATA_HEADER_LEN) {
+            return null;
+        }
+        final int msgLen =
+                msgBuffer.getInt(DataStoreUtils.STORE_HEADER_POS_LENGTH);
+        final int msgToken =
+                msgBuffer.getInt(DataStoreUtils.STORE_HEADER_POS_DATATYPE);
+        final int checkSum =
+                msgBuffer.getInt(DataStoreUtils.STORE_HEADER_POS_CHECKSUM);
+        int payLoadLen = msgLen - DataStoreUtils.STORE_DATA_PREFX_LEN;
+        int payLoadOffset = DataStoreUtils.STORE_DATA_HEADER_LEN;
+        if ((msgToken != DataStoreUtils.STORE_DATA_TOKER_BEGIN_VALUE)
+                || (payLoadLen <= 0)
+                || (payLoadLen > dataTotalSize - DataStoreUtils.STORE_DATA_HEADER_LEN)) {
+            return null;
+        }
+        final long msgId = msgBuffer.getLong(DataStoreUtils.STORE_HEADER_POS_MSGID);
+        final int flag = msgBuffer.getInt(DataStoreUtils.STORE_HEADER_POS_MSGFLAG);
+        final int payLoadLen2 = payLoadLen;
+        ByteBuffer payLoadView = msgBuffer.duplicate();
+        payLoadView.limit(payLoadOffset + payLoadLen).position(payLoadOffset);
+        ClientBroker.TransferedMessage.Builder dataBuilder =
+                ClientBroker.TransferedMessage.newBuilder();
+        dataBuilder.setMessageId(msgId);
+        dataBuilder.setCheckSum(checkSum);
+        dataBuilder.setFlag(flag);
+        if (shareData) {
+            dataBuilder.setPayLoadData(UnsafeByteOperations.unsafeWrap(payLoadView.slice()));
+        } else {
+            dataBuilder.setPayLoadData(ByteString.copyFrom(payLoadView));
+        }
+        // get statistic data
+        int attrLen = 0;
+        String attribute = null;
+        if (MessageFlagUtils.hasAttribute(flag)) {
+            if (payLoadLen < 4) {
+                return null;
+            }
+            attrLen = msgBuffer.getInt(DataStoreUtils.STORE_DATA_HEADER_LEN);
+            payLoadOffset += 4;
+            payLoadLen -= 4;
+            if (attrLen > payLoadLen) {
+                return null;
+            }
+            if (attrLen > 0) {
+                final byte[] attrData = new byte[attrLen];
+                ByteBuffer attrView = msgBuffer.duplicate();
+                attrView.position(payLoadOffset);
+                attrView.get(attrData);
+                attribute = new String(attrData, StandardCharsets.UTF_8);
+            }
+        }
+        addTrafficStats(attribute, payLoadLen2, countMap, statisKeyBase, sBuilder);
+        ClientBroker.TransferedMessage transferedMessage = dataBuilder.build();
+        dataBuilder.clear();
+        return transferedMessage;
+    }
+
+    private static void addTrafficStats(String attribute, int payLoadLen,
+            HashMap<String, TrafficInfo> countMap,
+            String statisKeyBase,
+            StringBuilder sBuilder) {
         String messageTime = "";
         if (TStringUtils.isNotBlank(attribute)) {
             if (attribute.contains(TokenConstants.TOKEN_MSG_TIME)) {
@@ -190,12 +286,9 @@ public class DataStoreUtils {
         sBuilder.delete(0, sBuilder.length());
         TrafficInfo getCount = countMap.get(baseKey);
         if (getCount == null) {
-            countMap.put(baseKey, new TrafficInfo(1L, payLoadLen2));
+            countMap.put(baseKey, new TrafficInfo(1L, payLoadLen));
         } else {
-            getCount.addMsgCntAndSize(1L, payLoadLen2);
+            getCount.addMsgCntAndSize(1L, payLoadLen);
         }
-        ClientBroker.TransferedMessage transferedMessage = dataBuilder.build();
-        dataBuilder.clear();
-        return transferedMessage;
     }
 }
@@ -79,6 +79,18 @@ public final class TServerConstants {
     public static final int CFG_ROWLOCK_DEFAULT_DURATION = 30000;
     public static final int CFG_ZK_COMMIT_DEFAULT_RETRIES = 10;
     public static final int CFG_STORE_DEFAULT_MSG_READ_UNIT = 327680;
+    public static final int CFG_STORE_APPEND_RING_SIZE = 4096;
+    public static final int CFG_STORE_APPEND_MAX_BATCH_CNT = 256;
+    public static final long CFG_DEF_GROUP_FLUSH_LATENCY_MS = 10L;
+    public static final long CFG_MIN_GROUP_FLUSH_LATENCY_MS = 1L;
+    public static final long CFG_MAX_GROUP_FLUSH_LATENCY_MS = 1000L;
+    public static final int CFG_GROUP_FLUSH_MAX_BATCH_CNT = 1024;
+    public static final long CFG_DEF_COLD_TIER_OFFLOAD_DELAY_MS = 6 * 3600 * 1000L;
+    public static final long CFG_MIN_COLD_TIER_OFFLOAD_DELAY_MS = 60 * 1000L;
+    public static final long CFG_DEF_OFFSET_JOURNAL_COMPACT_MS = 5 * 60 * 1000L;
+    public static final long CFG_MIN_OFFSET_JOURNAL_COMPACT_MS = 10 * 1000L;
+    public static final long CFG_DEF_OFFSET_JOURNAL_MAX_SIZE = 64 * 1024 * 1024L;
+    public static final long CFG_MIN_OFFSET_JOURNAL_MAX_SIZE = 1024 * 1024L;
     public static final int CFG_BATCH_BROKER_OPERATE_MAX_COUNT = 50;
     public static final int CFG_BATCH_RECORD_OPERATE_MAX_COUNT = 100;
 
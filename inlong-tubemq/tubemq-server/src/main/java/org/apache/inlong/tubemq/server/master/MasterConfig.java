@@ -85,6 +85,9 @@ public class MasterConfig extends AbstractFileConfig {
     private String visitPassword = "";
     private long authValidTimeStampPeriodMs = TBaseConstants.CFG_DEFAULT_AUTH_TIMESTAMP_VALID_INTERVAL;
     private int rebalanceParallel = 4;
+    // whether to rebalance the groups by the minimal partition moves,
+    // and push the connect events once their partitions are released
+    private boolean enableStickyRebalance = false;
     private long maxMetaForceUpdatePeriodMs = TBaseConstants.CFG_DEF_META_FORCE_UPDATE_PERIOD;
 
     /**
@@ -275,6 +278,10 @@ public class MasterConfig extends AbstractFileConfig {
         return maxMetaForceUpdatePeriodMs;
     }
 
+    public boolean isEnableStickyRebalance() {
+        return enableStickyRebalance;
+    }
+
     public boolean isUseBdbStoreMetaData() {
         return useBdbStoreMetaData;
     }
@@ -533,6 +540,9 @@ public class MasterConfig extends AbstractFileConfig {
             }
             this.maxMetaForceUpdatePeriodMs = tmpPeriodMs;
         }
+        if (TStringUtils.isNotBlank(masterConf.get("enableStickyRebalance"))) {
+            this.enableStickyRebalance = this.getBoolean(masterConf, "enableStickyRebalance");
+        }
     }
 
     /**
@@ -837,6 +847,7 @@ public class MasterConfig extends AbstractFileConfig {
                 .append("authValidTimeStampPeriodMs", authValidTimeStampPeriodMs)
                 .append("rebalanceParallel", rebalanceParallel)
                 .append("maxMetaForceUpdatePeriodMs", maxMetaForceUpdatePeriodMs)
+                .append("enableStickyRebalance", enableStickyRebalance)
                 .toString();
     }
 }
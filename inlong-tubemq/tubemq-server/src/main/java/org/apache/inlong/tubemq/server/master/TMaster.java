@@ -199,9 +199,10 @@ public class TMaster extends HasThread implements MasterService, Stoppable {
         this.heartbeatManager = new HeartbeatManager();
         this.producerHolder = new ProducerInfoHolder();
         this.consumerHolder = new ConsumerInfoHolder(this);
-        this.consumerEventManager = new ConsumerEventManager(consumerHolder);
+        this.consumerEventManager = new ConsumerEventManager(consumerHolder,
+                this.masterConfig.isEnableStickyRebalance());
         this.topicPSInfoManager = new TopicPSInfoManager(this);
-        this.loadBalancer = new DefaultLoadBalancer();
+        this.loadBalancer = new DefaultLoadBalancer(this.masterConfig.isEnableStickyRebalance());
         heartbeatManager.regConsumerCheckBusiness(masterConfig.getConsumerHeartbeatTimeoutMs(),
                 new TimeoutListener() {
 
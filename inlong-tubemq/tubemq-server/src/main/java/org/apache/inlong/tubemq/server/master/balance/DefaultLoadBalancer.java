@@ -50,9 +50,15 @@ public class DefaultLoadBalancer implements LoadBalancer {
 
     private static final Logger logger = LoggerFactory.getLogger(LoadBalancer.class);
     private static final Random RANDOM = new Random(System.currentTimeMillis());
+    // whether to balance the groups by the minimal partition moves
+    private final boolean stickyRebalance;
 
     public DefaultLoadBalancer() {
-        // initial information
+        this(false);
+    }
+
+    public DefaultLoadBalancer(boolean stickyRebalance) {
+        this.stickyRebalance = stickyRebalance;
     }
 
     /**
@@ -81,6 +87,7 @@ public class DefaultLoadBalancer implements LoadBalancer {
         Map<String, RebProcessInfo> rejGroupClientInfoMap = new HashMap<>();
         Set<String> onlineOfflineGroupSet = new HashSet<>();
         Set<String> boundGroupSet = new HashSet<>();
+        Set<String> stickyGroupSet = new HashSet<>();
         for (String group : groupSet) {
             if (group == null) {
                 continue;
@@ -152,21 +159,27 @@ public class DefaultLoadBalancer implements LoadBalancer {
                 }
             }
             List<ConsumerInfo> newConsumerList2 = new ArrayList<>();
+            List<ConsumerInfo> stickyConsumerList = new ArrayList<>();
             Map<String, Partition> partMap =
                     brokerRunManager.getSubBrokerAcceptSubParts(topicSet);
             Map<String, NodeRebInfo> rebProcessInfoMap = consumeGroupInfo.getBalanceMap();
             for (ConsumerInfo consumer : newConsumerList) {
                 Map<String, List<Partition>> partitions = new HashMap<>();
                 finalSubInfoMap.put(consumer.getConsumerId(), partitions);
+                // filter client which can not meet requirements
+                boolean needProcess = rebProcessInfo.needProcessList.contains(consumer.getConsumerId())
+                        || rebProcessInfo.needEscapeList.contains(consumer.getConsumerId());
+                NodeRebInfo tmpNodeRegInfo = rebProcessInfoMap.get(consumer.getConsumerId());
+                boolean canAssign = !needProcess
+                        || (tmpNodeRegInfo != null && tmpNodeRegInfo.getReqType() == 0);
+                // the sticky candidates include the new consumers without partitions
+                if (canAssign) {
+                    stickyConsumerList.add(consumer);
+                }
                 Map<String, Map<String, Partition>> relation = clusterState.get(consumer.getConsumerId());
                 if (relation != null) {
-                    // filter client which can not meet requirements
-                    if (rebProcessInfo.needProcessList.contains(consumer.getConsumerId())
-                            || rebProcessInfo.needEscapeList.contains(consumer.getConsumerId())) {
-                        NodeRebInfo tmpNodeRegInfo =
-                                rebProcessInfoMap.get(consumer.getConsumerId());
-                        if (tmpNodeRegInfo != null
-                                && tmpNodeRegInfo.getReqType() == 0) {
+                    if (needProcess) {
+                        if (canAssign) {
                             newConsumerList2.add(consumer);
                         }
                         for (Entry<String, Map<String, Partition>> entry : relation.entrySet()) {
@@ -190,6 +203,15 @@ public class DefaultLoadBalancer implements LoadBalancer {
                     }
                 }
             }
+            // balance the group by the minimal partition moves
+            if (this.stickyRebalance) {
+                stickyGroupSet.add(group);
+                if (!stickyConsumerList.isEmpty()) {
+                    this.stickyAssign(partMap, stickyConsumerList,
+                            finalSubInfoMap, clusterState, rebProcessInfo.needProcessList);
+                }
+                continue;
+            }
             // random allocate
             if (!partMap.isEmpty()) {
                 onlineOfflineGroupSet.add(group);
@@ -222,6 +244,9 @@ public class DefaultLoadBalancer implements LoadBalancer {
                 groupsNeedToBalance.remove(group);
             }
         }
+        if (!stickyGroupSet.isEmpty()) {
+            groupsNeedToBalance.removeAll(stickyGroupSet);
+        }
         if (!groupsNeedToBalance.isEmpty()) {
             balance(finalSubInfoMap, consumerHolder, brokerRunManager,
                     groupsNeedToBalance, clusterState, rejGroupClientInfoMap);
@@ -416,6 +441,112 @@ public class DefaultLoadBalancer implements LoadBalancer {
         }
     }
 
+    /**
+     * Sticky assign partitions, the consumers keep their partitions as much as possible,
+     * only the unassigned partitions and the partitions over the consumers' quota are moved,
+     * and the group is balanced in one round.
+     *
+     * @param partitionToAssignMap   the unassigned partitions
+     * @param consumerList           the consumers to assign
+     * @param clusterState           the kept partitions of the consumers
+     * @param oldClusterState        the current partitions of the consumers
+     * @param filterList             the consumers not to take back their partitions
+     */
+    private void stickyAssign(Map<String, Partition> partitionToAssignMap,
+            List<ConsumerInfo> consumerList,
+            Map<String, Map<String, List<Partition>>> clusterState,
+            Map<String, Map<String, Map<String, Partition>>> oldClusterState,
+            List<String> filterList) {
+        // count the kept partitions of the consumers
+        int totalCnt = partitionToAssignMap.size();
+        Map<String, Integer> consumerLoads = new HashMap<>();
+        for (ConsumerInfo consumer : consumerList) {
+            int load = 0;
+            Map<String, List<Partition>> partitions = clusterState.get(consumer.getConsumerId());
+            if (partitions != null) {
+                for (List<Partition> ps : partitions.values()) {
+                    load += ps.size();
+                }
+            }
+            consumerLoads.put(consumer.getConsumerId(), load);
+            totalCnt += load;
+        }
+        // the heavier consumers take the extra partitions, so fewer partitions are moved
+        List<String> consumerIds = new ArrayList<>(consumerLoads.keySet());
+        consumerIds.sort((o1, o2) -> {
+            int result = Integer.compare(consumerLoads.get(o2), consumerLoads.get(o1));
+            return result != 0 ? result : o1.compareTo(o2);
+        });
+        int min = totalCnt / consumerIds.size();
+        int extraCnt = totalCnt % consumerIds.size();
+        Map<String, Integer> consumerQuotas = new HashMap<>();
+        List<Partition> partitionToMove = new ArrayList<>(partitionToAssignMap.values());
+        for (int i = 0; i < consumerIds.size(); i++) {
+            String consumerId = consumerIds.get(i);
+            int quota = min + (i < extraCnt ? 1 : 0);
+            consumerQuotas.put(consumerId, quota);
+            int numToOffload = consumerLoads.get(consumerId) - quota;
+            if (numToOffload <= 0) {
+                continue;
+            }
+            // release the partitions of the topic with the most partitions first
+            Map<String, List<Partition>> partitions = clusterState.get(consumerId);
+            while (numToOffload > 0) {
+                List<Partition> maxList = null;
+                for (List<Partition> ps : partitions.values()) {
+                    if (maxList == null || ps.size() > maxList.size()) {
+                        maxList = ps;
+                    }
+                }
+                if (maxList == null || maxList.isEmpty()) {
+                    break;
+                }
+                partitionToMove.add(maxList.remove(maxList.size() - 1));
+                numToOffload--;
+            }
+            consumerLoads.put(consumerId, quota);
+        }
+        Collections.sort(partitionToMove);
+        // assign the moved partitions to the consumers under their quota
+        for (Partition partition : partitionToMove) {
+            String selConsumerId = null;
+            String spareConsumerId = null;
+            for (String consumerId : consumerIds) {
+                if (consumerLoads.get(consumerId) >= consumerQuotas.get(consumerId)) {
+                    continue;
+                }
+                if (filterList.contains(consumerId)
+                        && isOldPartition(oldClusterState, consumerId, partition)) {
+                    if (spareConsumerId == null) {
+                        spareConsumerId = consumerId;
+                    }
+                    continue;
+                }
+                selConsumerId = consumerId;
+                break;
+            }
+            if (selConsumerId == null) {
+                selConsumerId = spareConsumerId;
+            }
+            if (selConsumerId == null) {
+                continue;
+            }
+            assign(partition, clusterState, selConsumerId);
+            consumerLoads.put(selConsumerId, consumerLoads.get(selConsumerId) + 1);
+        }
+    }
+
+    private boolean isOldPartition(Map<String, Map<String, Map<String, Partition>>> oldClusterState,
+            String consumerId, Partition partition) {
+        Map<String, Map<String, Partition>> oldPartitionMap = oldClusterState.get(consumerId);
+        if (oldPartitionMap == null) {
+            return false;
+        }
+        Map<String, Partition> oldPartitions = oldPartitionMap.get(partition.getTopic());
+        return oldPartitions != null
+                && oldPartitions.get(partition.getPartitionKey()) != null;
+    }
+
     /**
      * Round robin assign partitions
      *
@@ -18,6 +18,7 @@
 package org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer;
 
 import org.apache.inlong.tubemq.corebase.balance.ConsumerEvent;
+import org.apache.inlong.tubemq.corebase.cluster.SubscribeInfo;
 import org.apache.inlong.tubemq.server.master.stats.MasterSrvStatsHolder;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -44,9 +45,17 @@ public class ConsumerEventManager {
             new ConcurrentHashMap<>();
 
     private final ConsumerInfoHolder consumerHolder;
+    // whether to push the connect events whose partitions are released,
+    // instead of waiting for all disconnect events of the group finished
+    private final boolean pipelineEvents;
 
     public ConsumerEventManager(ConsumerInfoHolder consumerHolder) {
+        this(consumerHolder, false);
+    }
+
+    public ConsumerEventManager(ConsumerInfoHolder consumerHolder, boolean pipelineEvents) {
         this.consumerHolder = consumerHolder;
+        this.pipelineEvents = pipelineEvents;
     }
 
     public boolean addDisconnectEvent(String consumerId,
@@ -99,7 +108,7 @@ public class ConsumerEventManager {
                 consumerHolder.getGroupName(consumerId);
         if (group != null) {
             ConcurrentHashMap<String, LinkedList<ConsumerEvent>> currentEventMap =
-                    hasDisconnectEvent(group)
+                    selDisconnectEventMap(group, consumerId)
                             ? disconnectEventMap
                             : connectEventMap;
             LinkedList<ConsumerEvent> eventList =
@@ -126,7 +135,7 @@ public class ConsumerEventManager {
     public void removeFirst(String consumerId, StringBuilder strBuffer) {
         ConsumerEvent event = null;
         String group = consumerHolder.getGroupName(consumerId);
-        boolean selDisConnMap = hasDisconnectEvent(group);
+        boolean selDisConnMap = selDisconnectEventMap(group, consumerId);
         ConcurrentHashMap<String, LinkedList<ConsumerEvent>> currentEventMap =
                 selDisConnMap ? disconnectEventMap : connectEventMap;
         LinkedList<ConsumerEvent> eventList = currentEventMap.get(consumerId);
@@ -258,6 +267,88 @@ public class ConsumerEventManager {
         return false;
     }
 
+    /**
+     * Select the event map of the consumer, the disconnect events of the group are handled first,
+     * if pipelined, the connect events of the consumer are handled once their partitions
+     * are not in the group's disconnect events.
+     *
+     * @param group         the group name
+     * @param consumerId    the consumer id
+     * @return true if select the disconnect event map, otherwise false
+     */
+    private boolean selDisconnectEventMap(String group, String consumerId) {
+        if (!this.pipelineEvents) {
+            return hasDisconnectEvent(group);
+        }
+        LinkedList<ConsumerEvent> eventList = disconnectEventMap.get(consumerId);
+        if (eventList != null) {
+            synchronized (eventList) {
+                if (CollectionUtils.isNotEmpty(eventList)) {
+                    return true;
+                }
+            }
+        }
+        ConsumerEvent connectEvent = null;
+        eventList = connectEventMap.get(consumerId);
+        if (eventList != null) {
+            synchronized (eventList) {
+                connectEvent = eventList.peek();
+            }
+        }
+        if (connectEvent == null || connectEvent.getSubscribeInfoList() == null) {
+            return hasDisconnectEvent(group);
+        }
+        Set<String> releasingPartKeys = getDisconnectPartKeys(group);
+        if (releasingPartKeys.isEmpty()) {
+            return false;
+        }
+        for (SubscribeInfo info : connectEvent.getSubscribeInfoList()) {
+            if (info != null
+                    && releasingPartKeys.contains(info.getPartition().getPartitionKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the partitions in the disconnect events of the group
+     *
+     * @param group    the group name
+     * @return the partition key set
+     */
+    private Set<String> getDisconnectPartKeys(String group) {
+        Set<String> partKeys = new HashSet<>();
+        List<String> consumerIdList =
+                consumerHolder.getConsumerIdList(group);
+        if (CollectionUtils.isEmpty(consumerIdList)) {
+            return partKeys;
+        }
+        for (String consumerId : consumerIdList) {
+            if (consumerId == null) {
+                continue;
+            }
+            List<ConsumerEvent> eventList =
+                    disconnectEventMap.get(consumerId);
+            if (eventList == null) {
+                continue;
+            }
+            synchronized (eventList) {
+                for (ConsumerEvent event : eventList) {
+                    if (event == null || event.getSubscribeInfoList() == null) {
+                        continue;
+                    }
+                    for (SubscribeInfo info : event.getSubscribeInfoList()) {
+                        if (info != null) {
+                            partKeys.add(info.getPartition().getPartitionKey());
+                        }
+                    }
+                }
+            }
+        }
+        return partKeys;
+    }
+
     /**
      * Get all consumer id which have unfinished event
      *
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore;
+
+import org.apache.inlong.tubemq.corebase.utils.CheckSum;
+import org.apache.inlong.tubemq.server.broker.BrokerConfig;
+import org.apache.inlong.tubemq.server.broker.metadata.BrokerDefMetadata;
+import org.apache.inlong.tubemq.server.broker.metadata.TopicMetadata;
+import org.apache.inlong.tubemq.server.common.utils.AppendResult;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contended append throughput of MessageStore, with and without the append pipeline.
+ * Run by the main method, or by the JMH runner with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class MessageStoreAppendBenchmark {
+
+    @Param({"false", "true"})
+    public boolean enableAppendPipeline;
+
+    @Param({"256"})
+    public int msgSize;
+
+    private File storeDir;
+    private MessageStore messageStore;
+    private byte[] msgData;
+    private int msgCheckSum;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        storeDir = Files.createTempDirectory("tube_append_bench").toFile();
+        File iniFile = new File(storeDir, "broker.ini");
+        String iniContent = new StringBuilder(512)
+                .append("[broker]\n")
+                .append("brokerId=1\n")
+                .append("hostName=127.0.0.1\n")
+                .append("masterAddressList=127.0.0.1:8715\n")
+                .append("primaryPath=").append(storeDir.getAbsolutePath()).append("\n")
+                .append("maxSegmentSize=1073741824\n")
+                .append("transferSize=524288\n")
+                .append("enableAppendPipeline=").append(enableAppendPipeline).append("\n")
+                .append("[zookeeper]\n")
+                .append("zkNodeRoot=/tubemq\n")
+                .append("zkServerAddr=localhost:2181\n").toString();
+        Files.write(iniFile.toPath(), iniContent.getBytes(StandardCharsets.UTF_8));
+        BrokerConfig brokerConfig = new BrokerConfig();
+        brokerConfig.loadFromFile(iniFile.getAbsolutePath());
+        TopicMetadata topicMetadata =
+                new TopicMetadata(new BrokerDefMetadata(), "bench_topic", 1, 16);
+        messageStore = new MessageStore(null, topicMetadata, 0, brokerConfig, 1024 * 1024);
+        msgData = new byte[msgSize];
+        ThreadLocalRandom.current().nextBytes(msgData);
+        msgCheckSum = CheckSum.crc32(msgData);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        messageStore.close();
+        FileUtils.deleteQuietly(storeDir);
+    }
+
+    @Benchmark
+    public boolean appendMsg() throws Exception {
+        return messageStore.appendMsg(new AppendResult(), msgData.length, msgCheckSum,
+                msgData, 0, 0, ThreadLocalRandom.current().nextInt(16), 0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(MessageStoreAppendBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
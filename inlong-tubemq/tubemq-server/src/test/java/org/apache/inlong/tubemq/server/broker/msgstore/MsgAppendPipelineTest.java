@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MsgAppendPipelineTest {
+
+    private final List<MsgAppendPipeline.AppendRequest> appended =
+            Collections.synchronizedList(new ArrayList<>());
+    private volatile CountDownLatch appendGate = new CountDownLatch(0);
+    private MessageStore messageStore;
+
+    @Before
+    public void setUp() {
+        messageStore = mock(MessageStore.class);
+        when(messageStore.getStoreKey()).thenReturn("test-0");
+        doAnswer(invocation -> {
+            appendGate.await();
+            List<MsgAppendPipeline.AppendRequest> batch = invocation.getArgument(0);
+            for (MsgAppendPipeline.AppendRequest request : batch) {
+                appended.add(request);
+                request.complete(true, null);
+            }
+            return null;
+        }).when(messageStore).appendMsgBatch(anyList());
+    }
+
+    @After
+    public void tearDown() {
+        appendGate.countDown();
+    }
+
+    @Test
+    public void testPerProducerOrder() throws Exception {
+        MsgAppendPipeline pipeline = new MsgAppendPipeline(messageStore, 8, 4);
+        final int producerCnt = 8;
+        final int msgCnt = 2000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < producerCnt; i++) {
+            final int producerId = i;
+            producers.add(new Thread(() -> {
+                try {
+                    for (int seq = 0; seq < msgCnt; seq++) {
+                        Assert.assertTrue(pipeline.append(newRequest(producerId, seq)));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        pipeline.close();
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(producerCnt * msgCnt, appended.size());
+        // the messages of each producer are appended in its put order
+        int[] nextSeqs = new int[producerCnt];
+        for (MsgAppendPipeline.AppendRequest request : appended) {
+            Assert.assertEquals(nextSeqs[request.getPartitionId()]++, request.getKeyCode());
+        }
+    }
+
+    @Test
+    public void testFullRingBackpressure() throws Exception {
+        appendGate = new CountDownLatch(1);
+        // one request is held by the appender, then 4 fill the ring
+        MsgAppendPipeline pipeline = new MsgAppendPipeline(messageStore, 4, 1);
+        final int producerCnt = 6;
+        AtomicInteger completedCnt = new AtomicInteger(0);
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < producerCnt; i++) {
+            final int producerId = i;
+            Thread producer = new Thread(() -> {
+                try {
+                    if (pipeline.append(newRequest(producerId, 0))) {
+                        completedCnt.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    // counted as not completed
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        // the producers wait parked instead of spinning while the ring is full
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (System.currentTimeMillis() < deadline && !allWaiting(producers)) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(allWaiting(producers));
+        Assert.assertEquals(0, completedCnt.get());
+        Assert.assertEquals(0, appended.size());
+        // the ring is drained once the store accepts the messages again
+        appendGate.countDown();
+        for (Thread producer : producers) {
+            producer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        Assert.assertEquals(producerCnt, completedCnt.get());
+        Assert.assertEquals(producerCnt, appended.size());
+        pipeline.close();
+    }
+
+    @Test
+    public void testCloseWithProducersInFlight() throws Exception {
+        MsgAppendPipeline pipeline = new MsgAppendPipeline(messageStore, 16, 8);
+        final int producerCnt = 8;
+        AtomicInteger acceptedCnt = new AtomicInteger(0);
+        AtomicInteger rejectedCnt = new AtomicInteger(0);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < producerCnt; i++) {
+            final int producerId = i;
+            Thread producer = new Thread(() -> {
+                try {
+                    startLatch.await();
+                    for (int seq = 0; seq < 100000; seq++) {
+                        if (pipeline.append(newRequest(producerId, seq))) {
+                            acceptedCnt.incrementAndGet();
+                        }
+                    }
+                } catch (IllegalStateException e) {
+                    rejectedCnt.incrementAndGet();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        startLatch.countDown();
+        Thread.sleep(20);
+        pipeline.close();
+        for (Thread producer : producers) {
+            producer.join(TimeUnit.SECONDS.toMillis(10));
+            Assert.assertFalse(producer.isAlive());
+        }
+        // every put request is appended or rejected by the closed check, none is lost
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(producerCnt, rejectedCnt.get());
+        Assert.assertEquals(acceptedCnt.get(), appended.size());
+    }
+
+    private static boolean allWaiting(List<Thread> producers) {
+        for (Thread producer : producers) {
+            if (producer.getState() != Thread.State.TIMED_WAITING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MsgAppendPipeline.AppendRequest newRequest(int producerId, int seq) {
+        return new MsgAppendPipeline.AppendRequest(producerId, seq,
+                System.currentTimeMillis(), null, 0, null, null,
+                System.currentTimeMillis(), 0, 0L);
+    }
+}
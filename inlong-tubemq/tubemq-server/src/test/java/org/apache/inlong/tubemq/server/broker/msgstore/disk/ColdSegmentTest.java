@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * ColdSegment test.
+ */
+public class ColdSegmentTest {
+
+    @Test
+    public void offloadAndRead() throws IOException {
+        File baseDir = Files.createTempDirectory("cold_segment").toFile();
+        File hotDir = new File(baseDir, "hot");
+        hotDir.mkdirs();
+        LocalDirColdTierStorage storage =
+                new LocalDirColdTierStorage(new File(baseDir, "cold"));
+        long start = 100;
+        File file = new File(hotDir, DataStoreUtils.nameFromOffset(start,
+                DataStoreUtils.DATA_FILE_SUFFIX));
+        FileSegment fileSegment = new FileSegment(start, file, SegmentType.DATA);
+        try {
+            long appendTime = System.currentTimeMillis();
+            fileSegment.append(ByteBuffer.wrap("abcdef".getBytes()), appendTime, appendTime);
+            fileSegment.flush(true);
+            fileSegment.setMutable(false);
+            // offload the sealed segment, and read from the cold tier
+            ColdSegment coldSegment = ColdSegment.offload(fileSegment,
+                    SegmentType.DATA, storage, "topic-0/" + file.getName());
+            fileSegment.close();
+            file.delete();
+            Assert.assertEquals(start, coldSegment.getStart());
+            Assert.assertEquals(start + 6, coldSegment.getCommitLast());
+            Assert.assertTrue(coldSegment.contains(start + 5));
+            Assert.assertFalse(coldSegment.contains(start + 6));
+            ByteBuffer region = coldSegment.readRegion(start + 2, 10, null);
+            byte[] readBytes = new byte[region.remaining()];
+            region.get(readBytes);
+            Assert.assertEquals("cdef", new String(readBytes));
+            coldSegment.close();
+            // reload the segment from its local stub
+            File stubFile = ColdSegment.getStubFile(file);
+            Assert.assertTrue(stubFile.exists());
+            ColdSegment loadedSegment =
+                    ColdSegment.load(stubFile, start, SegmentType.DATA, storage);
+            Assert.assertEquals(6, loadedSegment.getCachedSize());
+            ByteBuffer readBuffer = ByteBuffer.allocate(3);
+            loadedSegment.read(readBuffer, start + 1);
+            Assert.assertEquals("bcd", new String(readBuffer.array()));
+            Assert.assertEquals(file.getAbsolutePath(), loadedSegment.getFile().getAbsolutePath());
+            // delete the cold segment
+            loadedSegment.deleteFile();
+            Assert.assertFalse(stubFile.exists());
+            Assert.assertFalse(new File(new File(baseDir, "cold"),
+                    loadedSegment.getObjectKey()).exists());
+        } finally {
+            fileSegment.close();
+            storage.close();
+            FileUtils.deleteQuietly(baseDir);
+        }
+    }
+
+    @Test
+    public void deleteUnusedStubWithObject() throws IOException {
+        File baseDir = Files.createTempDirectory("cold_segment").toFile();
+        File hotDir = new File(baseDir, "hot");
+        hotDir.mkdirs();
+        File coldDir = new File(baseDir, "cold");
+        LocalDirColdTierStorage storage = new LocalDirColdTierStorage(coldDir);
+        long start = 200;
+        File file = new File(hotDir, DataStoreUtils.nameFromOffset(start,
+                DataStoreUtils.DATA_FILE_SUFFIX));
+        FileSegment fileSegment = new FileSegment(start, file, SegmentType.DATA);
+        try {
+            long appendTime = System.currentTimeMillis();
+            fileSegment.append(ByteBuffer.wrap("abcdef".getBytes()), appendTime, appendTime);
+            fileSegment.flush(true);
+            fileSegment.setMutable(false);
+            File stubFile = ColdSegment.getStubFile(file);
+            // the offloaded segment not taken in use is discarded with its object
+            ColdSegment coldSegment = ColdSegment.offload(fileSegment,
+                    SegmentType.DATA, storage, "topic-0/" + file.getName());
+            File objectFile = new File(coldDir, coldSegment.getObjectKey());
+            Assert.assertTrue(objectFile.exists());
+            coldSegment.discard();
+            Assert.assertFalse(stubFile.exists());
+            Assert.assertFalse(objectFile.exists());
+            Assert.assertTrue(file.exists());
+            // the stub left on local disk is deleted with its object
+            ColdSegment.offload(fileSegment, SegmentType.DATA, storage, "topic-0/" + file.getName());
+            Assert.assertTrue(stubFile.exists());
+            Assert.assertTrue(objectFile.exists());
+            ColdSegment.deleteStub(stubFile, storage);
+            Assert.assertFalse(stubFile.exists());
+            Assert.assertFalse(objectFile.exists());
+        } finally {
+            fileSegment.close();
+            storage.close();
+            FileUtils.deleteQuietly(baseDir);
+        }
+    }
+}
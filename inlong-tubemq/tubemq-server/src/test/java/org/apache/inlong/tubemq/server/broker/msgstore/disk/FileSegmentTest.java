@@ -17,6 +17,9 @@
 
 package org.apache.inlong.tubemq.server.broker.msgstore.disk;
 
+import org.junit.Assert;
+import org.junit.Test;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -28,7 +31,7 @@ public class FileSegmentTest {
 
     FileSegment fileSegment;
 
-    @org.junit.Test
+    @Test
     public void append() {
         long start = 0;
         File file = null;
@@ -53,7 +56,7 @@ public class FileSegmentTest {
         }
     }
 
-    @org.junit.Test
+    @Test
     public void getViewRef() {
         long start = 0;
         File file = null;
@@ -83,4 +86,50 @@ public class FileSegmentTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void readRegion() throws IOException {
+        long start = 100;
+        File file = File.createTempFile("testdata", null);
+        try {
+            // create FileSegment.
+            fileSegment = new FileSegment(start, file, true, SegmentType.DATA);
+            byte[] bytes = "abcdef".getBytes();
+            long appendTime = System.currentTimeMillis();
+            fileSegment.append(ByteBuffer.wrap(bytes), appendTime, appendTime);
+            fileSegment.flush(true);
+            // read region from writable segment into the reused buffer
+            ByteBuffer readBuffer = ByteBuffer.allocate(16);
+            ByteBuffer region = fileSegment.readRegion(start + 1, 3, readBuffer);
+            Assert.assertSame(readBuffer, region);
+            byte[] readBytes = new byte[region.remaining()];
+            region.get(readBytes);
+            Assert.assertEquals("bcd", new String(readBytes));
+            region = fileSegment.readRegion(start + 3, 2, readBuffer);
+            Assert.assertSame(readBuffer, region);
+            Assert.assertEquals(2, region.remaining());
+            // read region from sealed segment
+            fileSegment.setMutable(false);
+            region = fileSegment.readRegion(start + 2, 10, readBuffer);
+            Assert.assertNotSame(readBuffer, region);
+            readBytes = new byte[region.remaining()];
+            region.get(readBytes);
+            Assert.assertEquals("cdef", new String(readBytes));
+            // the region still in use stays readable after the segment is closed
+            region.rewind();
+            fileSegment.close();
+            readBytes = new byte[region.remaining()];
+            region.get(readBytes);
+            Assert.assertEquals("cdef", new String(readBytes));
+            try {
+                fileSegment.readRegion(start + 2, 10, readBuffer);
+                Assert.fail();
+            } catch (IOException e) {
+                //
+            }
+        } finally {
+            fileSegment.close();
+            file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.server.broker.BrokerConfig;
+import org.apache.inlong.tubemq.server.broker.msgstore.MessageStore;
+import org.apache.inlong.tubemq.server.broker.stats.MsgStoreStatsHolder;
+import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * GroupCommitFlusher test
+ */
+public class GroupCommitFlusherTest {
+
+    private static final int DATA_SIZE = 64;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MsgFileStore fileStore;
+
+    @After
+    public void tearDown() throws Exception {
+        if (fileStore != null) {
+            fileStore.close();
+        }
+    }
+
+    @Test
+    public void testGroupFlush() throws Exception {
+        GroupCommitFlusher flusher = new GroupCommitFlusher(10, 16);
+        try {
+            fileStore = newFileStore(flusher);
+            long currTime = System.currentTimeMillis();
+            for (int i = 0; i < 10; i++) {
+                Assert.assertTrue(appendMsg(fileStore, currTime));
+            }
+            Assert.assertEquals(10 * DATA_SIZE, fileStore.getDataMaxOffset());
+            // the flush is committed by the flush thread of the disk
+            long deadline = System.currentTimeMillis() + 5000;
+            while (fileStore.getDataHighMaxOffset() < fileStore.getDataMaxOffset()
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(fileStore.getDataMaxOffset(), fileStore.getDataHighMaxOffset());
+            Assert.assertEquals(fileStore.getIndexMaxOffset(), fileStore.getIndexMaxHighOffset());
+        } finally {
+            flusher.close();
+        }
+    }
+
+    @Test
+    public void testTakeGroupFlush() throws Exception {
+        GroupCommitFlusher flusher = mock(GroupCommitFlusher.class);
+        when(flusher.getDiskKey(any())).thenReturn("disk");
+        when(flusher.submit(anyString(), any())).thenReturn(true);
+        fileStore = newFileStore(flusher);
+        long currTime = System.currentTimeMillis();
+        // the first flush forces the metadata
+        Assert.assertTrue(appendMsg(fileStore, currTime));
+        MsgFileStore.PendingFlush pendingFlush = fileStore.takeGroupFlush();
+        Assert.assertNotNull(pendingFlush);
+        Assert.assertTrue(pendingFlush.isForceMetadata());
+        Assert.assertNull(fileStore.takeGroupFlush());
+        pendingFlush.flush();
+        Assert.assertEquals(DATA_SIZE, fileStore.getDataHighMaxOffset());
+        // a later request of forcing the metadata is handed to the queued flush
+        Assert.assertTrue(appendMsg(fileStore, currTime));
+        Assert.assertTrue(appendMsg(fileStore, currTime + 2 * 60 * 60 * 1000L));
+        verify(flusher, times(2)).submit(anyString(), any());
+        pendingFlush = fileStore.takeGroupFlush();
+        Assert.assertNotNull(pendingFlush);
+        Assert.assertTrue(pendingFlush.isForceMetadata());
+        // the data appended after the flush is taken is left to the next flush
+        Assert.assertTrue(appendMsg(fileStore, currTime));
+        pendingFlush.flush();
+        Assert.assertEquals(3 * DATA_SIZE, fileStore.getDataHighMaxOffset());
+        Assert.assertEquals(4 * DATA_SIZE, fileStore.getDataMaxOffset());
+        pendingFlush = fileStore.takeGroupFlush();
+        Assert.assertNotNull(pendingFlush);
+        Assert.assertFalse(pendingFlush.isForceMetadata());
+        pendingFlush.flush();
+        Assert.assertEquals(4 * DATA_SIZE, fileStore.getDataHighMaxOffset());
+    }
+
+    private MsgFileStore newFileStore(GroupCommitFlusher flusher) throws Exception {
+        MessageStore messageStore = mock(MessageStore.class);
+        when(messageStore.getStoreKey()).thenReturn("test-0");
+        when(messageStore.getMsgStoreStatsHolder()).thenReturn(new MsgStoreStatsHolder());
+        when(messageStore.getGroupCommitFlusher()).thenReturn(flusher);
+        when(messageStore.getUnflushThreshold()).thenReturn(1);
+        when(messageStore.getUnflushInterval()).thenReturn(Integer.MAX_VALUE);
+        BrokerConfig brokerConfig = mock(BrokerConfig.class);
+        when(brokerConfig.getMaxSegmentSize()).thenReturn(1024 * 1024);
+        when(brokerConfig.getMaxIndexSegmentSize()).thenReturn(1024 * 1024);
+        return new MsgFileStore(messageStore, brokerConfig,
+                folder.getRoot().getAbsolutePath(), 0L);
+    }
+
+    private boolean appendMsg(MsgFileStore store, long currTime) {
+        ByteBuffer indexBuffer = ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        ByteBuffer dataBuffer = ByteBuffer.allocate(DATA_SIZE);
+        return store.appendMsg(false, currTime, new StringBuilder(), 1,
+                DataStoreUtils.STORE_INDEX_HEAD_LEN, indexBuffer,
+                DATA_SIZE, dataBuffer, currTime, currTime).getF0();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
+import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * SegmentTimeIndex test.
+ */
+public class SegmentTimeIndexTest {
+
+    private static final int RECORD_CNT = DataStoreUtils.STORE_TIME_INDEX_STEP_CNT * 4;
+
+    @Test
+    public void testSearchRange() {
+        SegmentTimeIndex timeIndex = new SegmentTimeIndex();
+        // the i-th record's receive time is 1000 + i
+        ByteBuffer indexBuffer = buildIndexRecords(RECORD_CNT);
+        timeIndex.append(indexBuffer, 0, 0, indexBuffer.limit());
+        Assert.assertEquals(4, timeIndex.getEntryCount());
+        long step = DataStoreUtils.STORE_TIME_INDEX_STEP_CNT;
+        Tuple2<Long, Long> range = timeIndex.getSearchRange(1000 + step + 10, RECORD_CNT - 1);
+        Assert.assertEquals(step, range.getF0().longValue());
+        Assert.assertEquals(2 * step, range.getF1().longValue());
+        range = timeIndex.getSearchRange(1000 + 2 * step, RECORD_CNT - 1);
+        Assert.assertEquals(step, range.getF0().longValue());
+        Assert.assertEquals(2 * step, range.getF1().longValue());
+        range = timeIndex.getSearchRange(1000 + RECORD_CNT + 10, RECORD_CNT - 1);
+        Assert.assertEquals(3 * step, range.getF0().longValue());
+        Assert.assertEquals(RECORD_CNT - 1, range.getF1().longValue());
+        range = timeIndex.getSearchRange(10, RECORD_CNT - 1);
+        Assert.assertEquals(0, range.getF0().longValue());
+        Assert.assertEquals(0, range.getF1().longValue());
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        SegmentTimeIndex timeIndex = new SegmentTimeIndex();
+        ByteBuffer indexBuffer = buildIndexRecords(RECORD_CNT);
+        timeIndex.append(indexBuffer, 0, 0, indexBuffer.limit());
+        File file = File.createTempFile("timeindex", null);
+        try {
+            timeIndex.store(file);
+            SegmentTimeIndex loadedIndex = new SegmentTimeIndex();
+            Assert.assertFalse(loadedIndex.load(file, indexBuffer.limit() + 1));
+            Assert.assertTrue(loadedIndex.load(file, indexBuffer.limit()));
+            Assert.assertEquals(timeIndex.getEntryCount(), loadedIndex.getEntryCount());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private ByteBuffer buildIndexRecords(int recordCnt) {
+        ByteBuffer indexBuffer =
+                ByteBuffer.allocate(recordCnt * DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        for (int i = 0; i < recordCnt; i++) {
+            indexBuffer.putInt(0);
+            indexBuffer.putLong(i * 100L);
+            indexBuffer.putInt(100);
+            indexBuffer.putInt(0);
+            indexBuffer.putLong(1000L + i);
+        }
+        indexBuffer.flip();
+        return indexBuffer;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.offset.offsetfile;
+
+import org.apache.inlong.tubemq.corebase.utils.ConcurrentHashSet;
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
+import org.apache.inlong.tubemq.server.broker.offset.OffsetStorageInfo;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OffsetJournal test.
+ */
+public class OffsetJournalTest {
+
+    @Test
+    public void appendAndReplay() throws IOException {
+        File baseDir = Files.createTempDirectory("offset_journal").toFile();
+        File journalFile = new File(baseDir, "offsets.journal");
+        try {
+            GroupOffsetStgInfo stgInfo = new GroupOffsetStgInfo(1);
+            ConcurrentHashMap<String, ConcurrentHashSet<String>> groupTopicsInfo =
+                    new ConcurrentHashMap<>();
+            OffsetStorageInfo info1 = new OffsetStorageInfo("topic1", 1, 0, 0, 280, 10);
+            OffsetStorageInfo info2 = new OffsetStorageInfo("topic2", 1, 3, 0, 560, 20);
+            OffsetJournal journal = new OffsetJournal(journalFile);
+            Tuple2<Boolean, Boolean> result = stgInfo.storeOffsetStgInfo("group1",
+                    Arrays.asList(info1, info2), groupTopicsInfo, journal);
+            Assert.assertTrue(result.getF0());
+            Assert.assertTrue(result.getF1());
+            Assert.assertFalse(info1.isModified());
+            // only the modified offset is appended again
+            info1.addAndGetOffset(28);
+            stgInfo.storeOffsetStgInfo("group1",
+                    Arrays.asList(info1, info2), groupTopicsInfo, journal);
+            Assert.assertTrue(journal.sync());
+            long journalSize = journal.size();
+            journal.close();
+            // append a broken record
+            try (RandomAccessFile randFile = new RandomAccessFile(journalFile, "rw")) {
+                randFile.seek(journalSize);
+                randFile.writeInt(100);
+                randFile.writeInt(0);
+            }
+            // replay the journal over empty offsets
+            GroupOffsetStgInfo replayedInfo = new GroupOffsetStgInfo(1);
+            OffsetJournal replayJournal = new OffsetJournal(journalFile);
+            Assert.assertEquals(3, replayJournal.replay(replayedInfo));
+            Assert.assertEquals(journalSize, replayJournal.size());
+            PartStgInfo partStgInfo = replayedInfo.getGroupOffsetStgInfo()
+                    .get("group1").getPartOffsetInfo("topic1", 0);
+            Assert.assertEquals(308, partStgInfo.getLstOffset());
+            Assert.assertEquals(10, partStgInfo.getMsgId());
+            partStgInfo = replayedInfo.getGroupOffsetStgInfo()
+                    .get("group1").getPartOffsetInfo("topic2", 3);
+            Assert.assertEquals(560, partStgInfo.getLstOffset());
+            // truncate the journal after compaction
+            Assert.assertTrue(replayJournal.reset());
+            Assert.assertEquals(0, replayJournal.size());
+            replayJournal.close();
+            Assert.assertEquals(0, journalFile.length());
+        } finally {
+            FileUtils.deleteQuietly(baseDir);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.master.balance;
+
+import org.apache.inlong.tubemq.corebase.cluster.BrokerInfo;
+import org.apache.inlong.tubemq.corebase.cluster.Partition;
+import org.apache.inlong.tubemq.server.master.metamanage.MetaDataService;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodebroker.BrokerRunManager;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer.ConsumeGroupInfo;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer.ConsumerInfo;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer.ConsumerInfoHolder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultLoadBalancerTest {
+
+    private static final String GROUP = "group";
+    private static final String TOPIC = "topic";
+
+    private final List<Partition> partitions = new ArrayList<>();
+    private ConsumerInfoHolder consumerHolder;
+    private ConsumeGroupInfo groupInfo;
+    private BrokerRunManager brokerRunManager;
+
+    @Before
+    public void setUp() {
+        BrokerInfo brokerInfo = new BrokerInfo(1, "127.0.0.1", 8123);
+        for (int i = 0; i < 6; i++) {
+            partitions.add(new Partition(brokerInfo, TOPIC, i));
+        }
+        groupInfo = mock(ConsumeGroupInfo.class);
+        when(groupInfo.getTopicSet()).thenReturn(Collections.singleton(TOPIC));
+        when(groupInfo.isBalanceMapEmpty()).thenReturn(true);
+        consumerHolder = mock(ConsumerInfoHolder.class);
+        when(consumerHolder.getConsumeGroupInfo(GROUP)).thenReturn(groupInfo);
+        brokerRunManager = mock(BrokerRunManager.class);
+        when(brokerRunManager.getSubBrokerAcceptSubParts(any(Set.class))).thenAnswer(invocation -> {
+            Map<String, Partition> partMap = new HashMap<>();
+            for (Partition partition : partitions) {
+                partMap.put(partition.getPartitionKey(), partition);
+            }
+            return partMap;
+        });
+    }
+
+    @Test
+    public void testStickyAssignNewConsumer() {
+        // consumer003 joins the group without any partition
+        List<ConsumerInfo> consumers = mockConsumers("consumer001", "consumer002", "consumer003");
+        when(groupInfo.getConsumerInfoList()).thenReturn(consumers);
+        Map<String, Map<String, Map<String, Partition>>> clusterState = new HashMap<>();
+        clusterState.put("consumer001", toRelation(partitions.subList(0, 3)));
+        clusterState.put("consumer002", toRelation(partitions.subList(3, 6)));
+        Map<String, Map<String, List<Partition>>> result = balance(clusterState);
+        Assert.assertEquals(2, getPartitions(result, "consumer001").size());
+        Assert.assertEquals(2, getPartitions(result, "consumer002").size());
+        Assert.assertEquals(2, getPartitions(result, "consumer003").size());
+        // the old consumers keep their partitions
+        Assert.assertTrue(partitions.subList(0, 3).containsAll(getPartitions(result, "consumer001")));
+        Assert.assertTrue(partitions.subList(3, 6).containsAll(getPartitions(result, "consumer002")));
+    }
+
+    @Test
+    public void testStickyAssignConsumerLeave() {
+        // consumer003 leaves the group
+        List<ConsumerInfo> consumers = mockConsumers("consumer001", "consumer002");
+        when(groupInfo.getConsumerInfoList()).thenReturn(consumers);
+        Map<String, Map<String, Map<String, Partition>>> clusterState = new HashMap<>();
+        clusterState.put("consumer001", toRelation(partitions.subList(0, 2)));
+        clusterState.put("consumer002", toRelation(partitions.subList(2, 4)));
+        clusterState.put("consumer003", toRelation(partitions.subList(4, 6)));
+        Map<String, Map<String, List<Partition>>> result = balance(clusterState);
+        Assert.assertFalse(result.containsKey("consumer003"));
+        List<Partition> parts1 = getPartitions(result, "consumer001");
+        List<Partition> parts2 = getPartitions(result, "consumer002");
+        Assert.assertEquals(3, parts1.size());
+        Assert.assertEquals(3, parts2.size());
+        Assert.assertTrue(parts1.containsAll(partitions.subList(0, 2)));
+        Assert.assertTrue(parts2.containsAll(partitions.subList(2, 4)));
+        List<Partition> allParts = new ArrayList<>(parts1);
+        allParts.addAll(parts2);
+        Assert.assertTrue(allParts.containsAll(partitions));
+    }
+
+    private Map<String, Map<String, List<Partition>>> balance(
+            Map<String, Map<String, Map<String, Partition>>> clusterState) {
+        DefaultLoadBalancer loadBalancer = new DefaultLoadBalancer(true);
+        return loadBalancer.balanceCluster(clusterState, consumerHolder, brokerRunManager,
+                Collections.singletonList(GROUP), mock(MetaDataService.class), new StringBuilder());
+    }
+
+    private List<ConsumerInfo> mockConsumers(String... consumerIds) {
+        List<ConsumerInfo> consumers = new ArrayList<>();
+        for (String consumerId : consumerIds) {
+            ConsumerInfo consumer = mock(ConsumerInfo.class);
+            when(consumer.getConsumerId()).thenReturn(consumerId);
+            consumers.add(consumer);
+        }
+        return consumers;
+    }
+
+    private Map<String, Map<String, Partition>> toRelation(List<Partition> parts) {
+        Map<String, Partition> partMap = new HashMap<>();
+        for (Partition partition : parts) {
+            partMap.put(partition.getPartitionKey(), partition);
+        }
+        Map<String, Map<String, Partition>> relation = new HashMap<>();
+        relation.put(TOPIC, partMap);
+        return relation;
+    }
+
+    private List<Partition> getPartitions(Map<String, Map<String, List<Partition>>> result,
+            String consumerId) {
+        Map<String, List<Partition>> topicParts = result.get(consumerId);
+        if (topicParts == null || topicParts.get(TOPIC) == null) {
+            return Collections.emptyList();
+        }
+        return topicParts.get(TOPIC);
+    }
+}
@@ -18,13 +18,22 @@
 package org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer;
 
 import org.apache.inlong.tubemq.corebase.balance.ConsumerEvent;
+import org.apache.inlong.tubemq.corebase.balance.EventStatus;
+import org.apache.inlong.tubemq.corebase.balance.EventType;
+import org.apache.inlong.tubemq.corebase.cluster.BrokerInfo;
+import org.apache.inlong.tubemq.corebase.cluster.Partition;
+import org.apache.inlong.tubemq.corebase.cluster.SubscribeInfo;
 
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ConsumerEventManagerTest {
 
@@ -56,4 +65,42 @@ public class ConsumerEventManagerTest {
         consumerEventManager.removeAll("consumer002");
         Assert.assertFalse(consumerEventManager.hasEvent());
     }
+
+    @Test
+    public void pipelineEventTest() {
+        ConsumerEventManager pipelineEventManager =
+                new ConsumerEventManager(consumerInfoHolder, true);
+        when(consumerInfoHolder.getGroupName("consumer001")).thenReturn("group");
+        when(consumerInfoHolder.getGroupName("consumer002")).thenReturn("group");
+        when(consumerInfoHolder.getGroupName("consumer003")).thenReturn("group");
+        when(consumerInfoHolder.getConsumerIdList("group")).thenReturn(
+                Arrays.asList("consumer001", "consumer002", "consumer003"));
+        BrokerInfo brokerInfo = new BrokerInfo(1, "127.0.0.1", 8123);
+        Partition partition1 = new Partition(brokerInfo, "topic", 1);
+        Partition partition2 = new Partition(brokerInfo, "topic", 2);
+        // consumer001 releases partition1 to consumer002, consumer003 takes partition2
+        ConsumerEvent disconnectEvent = new ConsumerEvent(1, EventType.ONLY_DISCONNECT,
+                Collections.singletonList(new SubscribeInfo("consumer001", "group", partition1)),
+                EventStatus.TODO);
+        ConsumerEvent connectEvent1 = new ConsumerEvent(1, EventType.ONLY_CONNECT,
+                Collections.singletonList(new SubscribeInfo("consumer002", "group", partition1)),
+                EventStatus.TODO);
+        ConsumerEvent connectEvent2 = new ConsumerEvent(1, EventType.ONLY_CONNECT,
+                Collections.singletonList(new SubscribeInfo("consumer003", "group", partition2)),
+                EventStatus.TODO);
+        pipelineEventManager.addDisconnectEvent("consumer001", disconnectEvent);
+        pipelineEventManager.addConnectEvent("consumer002", connectEvent1);
+        pipelineEventManager.addConnectEvent("consumer003", connectEvent2);
+        StringBuilder strBuff = new StringBuilder(512);
+        Assert.assertEquals(disconnectEvent, pipelineEventManager.peek("consumer001"));
+        // the released partition waits for the disconnect event
+        Assert.assertNull(pipelineEventManager.peek("consumer002"));
+        // the free partition is connected without waiting
+        Assert.assertEquals(connectEvent2, pipelineEventManager.peek("consumer003"));
+        pipelineEventManager.removeFirst("consumer003", strBuff);
+        pipelineEventManager.removeFirst("consumer001", strBuff);
+        Assert.assertEquals(connectEvent1, pipelineEventManager.peek("consumer002"));
+        pipelineEventManager.removeFirst("consumer002", strBuff);
+        Assert.assertFalse(pipelineEventManager.hasEvent());
+    }
 }